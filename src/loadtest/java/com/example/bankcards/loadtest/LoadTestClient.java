@@ -0,0 +1,127 @@
+package com.example.bankcards.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HTTP-клиент нагрузочного прогона: выполняет операции {@link Workload} против запущенного приложения
+ * через настоящие контроллеры, фильтры безопасности и сериализацию.
+ *
+ * @author ksenya
+ */
+public class LoadTestClient {
+
+    /** Пароль всех пользователей набора данных. */
+    public static final String PASSWORD = "load-password";
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final int PAGE_SIZE = 20;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    public LoadTestClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Выполняет операцию от имени пользователя.
+     *
+     * @return HTTP-статус ответа
+     */
+    public int execute(Workload workload, VirtualUser user) {
+        return switch (workload) {
+            case LOGIN -> login(user);
+            case LIST_CARDS -> send(authorized(user, "/api/v1/cards/all/by-user/" + user.getId()
+                    + "?page=0&size=" + PAGE_SIZE).GET().build()).statusCode();
+            case TRANSFER -> transfer(user);
+            case REPLENISH -> send(authorized(user, "/api/v1/cards/replenish/" + randomCard(user))
+                    .POST(json(Map.of("amount", AMOUNT))).build()).statusCode();
+        };
+    }
+
+    /**
+     * Входит в систему и сохраняет токен пользователя.
+     *
+     * @return HTTP-статус ответа
+     */
+    public int login(VirtualUser user) {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("username", user.getUsername(), "password", PASSWORD)))
+                .build());
+        if (response.statusCode() == 200) {
+            user.setToken(read(response.body()).path("data").path("token").asText());
+        }
+        return response.statusCode();
+    }
+
+    private int transfer(VirtualUser user) {
+        List<Long> cards = user.getCardIds();
+        int from = ThreadLocalRandom.current().nextInt(cards.size());
+        int to = (from + 1 + ThreadLocalRandom.current().nextInt(cards.size() - 1)) % cards.size();
+        return send(authorized(user, "/api/v1/transfer/user/" + user.getId())
+                .POST(json(Map.of("fromCardId", cards.get(from), "toCardId", cards.get(to), "amount", AMOUNT)))
+                .build()).statusCode();
+    }
+
+    private long randomCard(VirtualUser user) {
+        List<Long> cards = user.getCardIds();
+        return cards.get(ThreadLocalRandom.current().nextInt(cards.size()));
+    }
+
+    private HttpRequest.Builder authorized(VirtualUser user, String path) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + user.getToken())
+                .header("Content-Type", "application/json");
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Запрос прерван", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Дополнения контекста приложения на время нагрузочного прогона:
+ * основной {@link DataSource} оборачивается в {@link StatementCountingDataSource}.
+ *
+ * @author ksenya
+ */
+@Configuration(proxyBeanMethods = false)
+public class LoadTestConfiguration {
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.AppApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Сквозной нагрузочный прогон приложения.
+ * <p>
+ * Поднимает встроенный PostgreSQL, запускает приложение на случайном порту, применяет миграции
+ * и наполняет базу пользователями с картами ({@code db/loadtest/db.changelog-loadtest.yaml}).
+ * Затем для каждой операции последовательно измеряет число SQL-операторов на запрос,
+ * прогревает приложение и в течение заданного времени подаёт смешанную нагрузку
+ * от {@code loadtest.concurrency} клиентов, снимая занятость пула Hikari для подбора его размера
+ * ({@link PoolSampler}). Итог печатается таблицей и сохраняется в JSON
+ * (см. {@link LoadTestReport}); параметры описаны в {@link LoadTestSettings}.
+ * </p>
+ *
+ * <pre>{@code
+ * ./mvnw -Ploadtest test -Dloadtest.users=500 -Dloadtest.mix=list-cards:70,transfer:30
+ * }</pre>
+ *
+ * @author ksenya
+ */
+public final class LoadTestHarness {
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        LoadTestReport report = execute(settings, args);
+        report.print(System.out);
+        report.write(settings.report(), new ObjectMapper().findAndRegisterModules());
+        System.out.println("Отчёт сохранён в " + settings.report().toAbsolutePath());
+    }
+
+    /**
+     * Выполняет один прогон на отдельной базе и останавливает приложение.
+     *
+     * @param settings параметры прогона
+     * @param args     дополнительные аргументы приложения
+     * @return итог измерения
+     */
+    public static LoadTestReport execute(LoadTestSettings settings, String[] args) throws Exception {
+        String passwordHash = new BCryptPasswordEncoder().encode(LoadTestClient.PASSWORD);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(AppApplication.class)
+                     .run(applicationArguments(postgres, settings, passwordHash, args))) {
+
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            StatementCountingDataSource dataSource = context.getBean(StatementCountingDataSource.class);
+            String port = context.getEnvironment().getRequiredProperty("local.server.port");
+            LoadTestClient client = new LoadTestClient("http://localhost:" + port, objectMapper);
+
+            List<VirtualUser> users = loadUsers(context.getBean(JdbcTemplate.class));
+            for (VirtualUser user : users) {
+                int status = client.login(user);
+                if (status != 200) {
+                    throw new IllegalStateException("Пользователь " + user.getUsername() + " не вошёл: HTTP " + status);
+                }
+            }
+
+            Map<Workload, Double> calibrated = calibrate(settings, client, users, dataSource);
+
+            run(settings, client, users, settings.warmup(), new WorkloadRecorder());
+
+            WorkloadRecorder recorder = new WorkloadRecorder();
+            Instant startedAt = Instant.now();
+            long statementsBefore = dataSource.statementCount();
+            HikariDataSource hikari = (HikariDataSource) dataSource.getTargetDataSource();
+            PoolSampler poolSampler = new PoolSampler(hikari.getHikariPoolMXBean());
+            long started = System.nanoTime();
+            run(settings, client, users, settings.duration(), recorder);
+            Duration measured = Duration.ofNanos(System.nanoTime() - started);
+            long statements = dataSource.statementCount() - statementsBefore;
+            PoolSampler.PoolUsage pool = poolSampler.usage(hikari.getMaximumPoolSize(), settings.concurrency());
+
+            return LoadTestReport.of(startedAt, settings, measured, recorder, statements, calibrated, pool);
+        }
+    }
+
+    private static String[] applicationArguments(EmbeddedPostgres postgres, LoadTestSettings settings,
+                                                 String passwordHash, String[] args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + settings.dbPoolSize(),
+                "--spring.profiles.active=dev,jdbc-tuning" + (settings.virtualThreads() ? ",virtual" : ""),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.liquibase.change-log=classpath:db/loadtest/db.changelog-loadtest.yaml",
+                "--spring.liquibase.parameters.loadtestUsers=" + settings.users(),
+                "--spring.liquibase.parameters.loadtestCardsPerUser=" + settings.cardsPerUser(),
+                "--spring.liquibase.parameters.loadtestInitialBalance=" + settings.initialBalance().toPlainString(),
+                "--spring.liquibase.parameters.loadtestPasswordHash=" + passwordHash,
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return arguments.toArray(String[]::new);
+    }
+
+    private static List<VirtualUser> loadUsers(JdbcTemplate jdbcTemplate) {
+        Map<Long, String> usernames = new LinkedHashMap<>();
+        Map<Long, List<Long>> cards = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                select u.id, u.username, c.id as card_id
+                from users u join bank_card c on c.owner_id = u.id
+                where u.username like 'load-user-%'
+                order by u.id, c.id
+                """, rs -> {
+            long userId = rs.getLong("id");
+            usernames.put(userId, rs.getString("username"));
+            cards.computeIfAbsent(userId, id -> new ArrayList<>()).add(rs.getLong("card_id"));
+        });
+        if (usernames.isEmpty()) {
+            throw new IllegalStateException("Набор данных нагрузочного прогона пуст");
+        }
+        return usernames.entrySet().stream()
+                .map(e -> new VirtualUser(e.getKey(), e.getValue(), cards.get(e.getKey())))
+                .toList();
+    }
+
+    /**
+     * Выполняет каждую операцию последовательно и делит прирост счётчика операторов на число запросов.
+     */
+    private static Map<Workload, Double> calibrate(LoadTestSettings settings, LoadTestClient client,
+                                                   List<VirtualUser> users, StatementCountingDataSource dataSource) {
+        Map<Workload, Double> result = new EnumMap<>(Workload.class);
+        if (settings.calibrationRequests() == 0) {
+            return result;
+        }
+        for (Workload workload : settings.mix().keySet()) {
+            if (settings.mix().get(workload) == 0) {
+                continue;
+            }
+            long before = dataSource.statementCount();
+            for (int i = 0; i < settings.calibrationRequests(); i++) {
+                client.execute(workload, users.get(i % users.size()));
+            }
+            result.put(workload, (double) (dataSource.statementCount() - before) / settings.calibrationRequests());
+        }
+        return result;
+    }
+
+    /**
+     * Подаёт смешанную нагрузку заданное время: каждый клиент выбирает пользователя
+     * и операцию с учётом весов и сразу отправляет следующий запрос после ответа.
+     * Клиенты работают в виртуальных потоках, чтобы тысячи одновременных соединений
+     * не упирались в потоки самого прогона.
+     */
+    private static void run(LoadTestSettings settings, LoadTestClient client, List<VirtualUser> users,
+                            Duration duration, WorkloadRecorder recorder) throws Exception {
+        if (duration.isZero()) {
+            return;
+        }
+        Workload[] workloads = settings.mix().keySet().toArray(Workload[]::new);
+        int[] cumulative = new int[workloads.length];
+        int total = 0;
+        for (int i = 0; i < workloads.length; i++) {
+            total += settings.mix().get(workloads[i]);
+            cumulative[i] = total;
+        }
+        int totalWeight = total;
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < settings.concurrency(); i++) {
+                clients.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Workload workload = pick(workloads, cumulative, random.nextInt(totalWeight));
+                        VirtualUser user = users.get(random.nextInt(users.size()));
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.execute(workload, user);
+                        } catch (RuntimeException e) {
+                            status = -1;
+                        }
+                        recorder.record(workload, System.nanoTime() - start, status);
+                    }
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Workload pick(Workload[] workloads, int[] cumulative, int value) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return workloads[i];
+            }
+        }
+        return workloads[workloads.length - 1];
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bankcards.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итог нагрузочного прогона: пропускная способность, перцентили задержек и SQL-операторы на запрос
+ * по каждой операции и в целом.
+ *
+ * @param startedAt            время начала измерения
+ * @param settings             параметры прогона
+ * @param measuredSeconds      фактическая длительность измерения
+ * @param totalRequests        запросов за время измерения
+ * @param throughput           запросов в секунду по всем операциям
+ * @param statementsPerRequest SQL-операторов на запрос при смешанной нагрузке
+ * @param pool                 занятость пула соединений и рекомендуемый размер
+ * @param workloads            результаты по операциям
+ * @author ksenya
+ */
+public record LoadTestReport(Instant startedAt,
+                             LoadTestSettings settings,
+                             double measuredSeconds,
+                             long totalRequests,
+                             double throughput,
+                             double statementsPerRequest,
+                             PoolSampler.PoolUsage pool,
+                             List<WorkloadResult> workloads) {
+
+    /**
+     * Результат одной операции.
+     *
+     * @param workload             операция
+     * @param requests             выполнено запросов
+     * @param errors               ответов не из диапазона 2xx
+     * @param throughput           запросов в секунду
+     * @param meanMs               средняя задержка, мс
+     * @param p50Ms                медиана задержки, мс
+     * @param p99Ms                99-й перцентиль, мс
+     * @param p999Ms               99.9-й перцентиль, мс
+     * @param maxMs                максимальная задержка, мс
+     * @param statementsPerRequest SQL-операторов на запрос, измеренных при последовательном выполнении
+     */
+    public record WorkloadResult(String workload,
+                                 long requests,
+                                 long errors,
+                                 double throughput,
+                                 double meanMs,
+                                 double p50Ms,
+                                 double p99Ms,
+                                 double p999Ms,
+                                 double maxMs,
+                                 Double statementsPerRequest) {
+    }
+
+    /**
+     * Собирает отчёт по записанным задержкам.
+     */
+    public static LoadTestReport of(Instant startedAt, LoadTestSettings settings, Duration measured,
+                                    WorkloadRecorder recorder, long statements,
+                                    Map<Workload, Double> calibratedStatements, PoolSampler.PoolUsage pool) {
+        double seconds = measured.toNanos() / 1e9;
+        List<WorkloadResult> results = new ArrayList<>();
+        for (Workload workload : settings.mix().keySet()) {
+            Histogram histogram = recorder.latencies(workload);
+            results.add(new WorkloadResult(
+                    workload.getKey(),
+                    histogram.getTotalCount(),
+                    recorder.errors(workload),
+                    histogram.getTotalCount() / seconds,
+                    histogram.getMean() / 1000.0,
+                    millis(histogram, 50.0),
+                    millis(histogram, 99.0),
+                    millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0,
+                    calibratedStatements.get(workload)));
+        }
+        long total = recorder.totalRequests();
+        return new LoadTestReport(startedAt, settings, seconds, total, total / seconds,
+                total == 0 ? 0 : (double) statements / total, pool, results);
+    }
+
+    /**
+     * Печатает отчёт таблицей.
+     */
+    public void print(PrintStream out) {
+        out.printf("%nНагрузочный прогон: %d пользователей x %d карт, %d клиентов, %.1f с, %s%n",
+                settings.users(), settings.cardsPerUser(), settings.concurrency(), measuredSeconds,
+                settings.virtualThreads() ? "виртуальные потоки" : "потоки платформы");
+        out.printf("%-12s %10s %8s %10s %9s %9s %9s %9s %9s %8s%n",
+                "operation", "requests", "errors", "req/s", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms", "sql/req");
+        for (WorkloadResult result : workloads) {
+            out.printf("%-12s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8s%n",
+                    result.workload(), result.requests(), result.errors(), result.throughput(),
+                    result.meanMs(), result.p50Ms(), result.p99Ms(), result.p999Ms(), result.maxMs(),
+                    result.statementsPerRequest() != null ? String.format("%.2f", result.statementsPerRequest()) : "-");
+        }
+        out.printf("%-12s %10d %8s %10.1f %49s %8.2f%n", "total", totalRequests, "", throughput, "", statementsPerRequest);
+        out.printf("Пул соединений: размер %d, занято p50/p99 %d/%d, ожидали p99/max %d/%d, рекомендуемый размер %d%n",
+                pool.poolSize(), pool.activeP50(), pool.activeP99(), pool.pendingP99(), pool.pendingMax(),
+                pool.recommendedPoolSize());
+    }
+
+    /**
+     * Сохраняет отчёт в JSON.
+     */
+    public void write(Path path, ObjectMapper objectMapper) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(path.toFile(), this);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного прогона, задаваемые системными свойствами {@code loadtest.*}.
+ *
+ * <ul>
+ *     <li>{@code loadtest.users} — число пользователей в наборе данных (по умолчанию 200);</li>
+ *     <li>{@code loadtest.cards-per-user} — карт у каждого пользователя (3, для переводов нужно не меньше двух);</li>
+ *     <li>{@code loadtest.concurrency} — число одновременных клиентов (32);</li>
+ *     <li>{@code loadtest.warmup} — длительность прогрева, результаты которого отбрасываются (10s);</li>
+ *     <li>{@code loadtest.duration} — длительность измерения (60s);</li>
+ *     <li>{@code loadtest.mix} — веса операций, например {@code login:5,list-cards:45,transfer:35,replenish:15};</li>
+ *     <li>{@code loadtest.calibration-requests} — запросов каждой операции для подсчёта SQL на запрос (50);</li>
+ *     <li>{@code loadtest.virtual-threads} — запустить приложение с профилем {@code virtual} (false);</li>
+ *     <li>{@code loadtest.db-pool-size} — размер пула Hikari в обоих режимах (30);</li>
+ *     <li>{@code loadtest.report} — путь к JSON-отчёту ({@code target/loadtest/loadtest-report.json}).</li>
+ * </ul>
+ *
+ * @author ksenya
+ */
+public record LoadTestSettings(int users,
+                               int cardsPerUser,
+                               int concurrency,
+                               Duration warmup,
+                               Duration duration,
+                               Map<Workload, Integer> mix,
+                               int calibrationRequests,
+                               BigDecimal initialBalance,
+                               boolean virtualThreads,
+                               int dbPoolSize,
+                               Path report) {
+
+    private static final String DEFAULT_MIX = "login:5,list-cards:45,transfer:35,replenish:15";
+
+    public LoadTestSettings {
+        if (users < 1 || cardsPerUser < 1 || concurrency < 1 || dbPoolSize < 1 || calibrationRequests < 0) {
+            throw new IllegalArgumentException("Число пользователей, карт и клиентов должно быть положительным");
+        }
+        if (mix.isEmpty() || mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("В loadtest.mix должна быть хотя бы одна операция с положительным весом");
+        }
+        if (mix.getOrDefault(Workload.TRANSFER, 0) > 0 && cardsPerUser < 2) {
+            throw new IllegalArgumentException("Для переводов у пользователя должно быть не меньше двух карт");
+        }
+        mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+    }
+
+    /**
+     * Читает параметры из системных свойств.
+     *
+     * @return параметры прогона
+     */
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 200),
+                Integer.getInteger("loadtest.cards-per-user", 3),
+                Integer.getInteger("loadtest.concurrency", 32),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Integer.getInteger("loadtest.calibration-requests", 50),
+                new BigDecimal(System.getProperty("loadtest.initial-balance", "1000000.00")),
+                Boolean.getBoolean("loadtest.virtual-threads"),
+                Integer.getInteger("loadtest.db-pool-size", 30),
+                Path.of(System.getProperty("loadtest.report", "target/loadtest/loadtest-report.json")));
+    }
+
+    /**
+     * Те же параметры с другим режимом потоков и путём отчёта.
+     */
+    public LoadTestSettings withThreading(boolean virtual, Path report) {
+        return new LoadTestSettings(users, cardsPerUser, concurrency, warmup, duration, mix, calibrationRequests,
+                initialBalance, virtual, dbPoolSize, report);
+    }
+
+    /**
+     * Разбирает веса операций вида {@code login:5,transfer:35}.
+     */
+    static Map<Workload, Integer> parseMix(String mix) {
+        Map<Workload, Integer> weights = new EnumMap<>(Workload.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидается операция:вес, получено: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес операции не может быть отрицательным: " + entry);
+            }
+            weights.put(Workload.byKey(parts[0].trim()), weight);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bankcards.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Периодически снимает занятость пула Hikari во время прогона.
+ * <p>
+ * Рекомендуемый размер пула — 99-й перцентиль числа соединений, которые одновременно были заняты
+ * или ожидались, с запасом 25%. Если во время прогона запросы ждали соединение, рекомендация
+ * ограничена сверху числом клиентов и прогон стоит повторить с увеличенным пулом, чтобы увидеть
+ * реальную потребность, а не длину очереди.
+ * </p>
+ *
+ * @author ksenya
+ */
+public class PoolSampler implements AutoCloseable {
+
+    private static final Duration INTERVAL = Duration.ofMillis(20);
+    private static final double HEADROOM = 1.25;
+
+    private final HikariPoolMXBean pool;
+    private final Histogram active = new Histogram(3);
+    private final Histogram pending = new Histogram(3);
+    private final Histogram demand = new Histogram(3);
+    private final Thread sampler;
+    private volatile boolean running = true;
+
+    /**
+     * Занятость пула за прогон.
+     *
+     * @param poolSize            размер пула во время прогона
+     * @param activeP50           медиана занятых соединений
+     * @param activeP99           99-й перцентиль занятых соединений
+     * @param pendingP99          99-й перцентиль ожидающих соединение потоков
+     * @param pendingMax          максимум ожидающих
+     * @param recommendedPoolSize рекомендуемый размер пула
+     */
+    public record PoolUsage(int poolSize, long activeP50, long activeP99, long pendingP99, long pendingMax,
+                            int recommendedPoolSize) {
+    }
+
+    public PoolSampler(HikariPoolMXBean pool) {
+        this.pool = pool;
+        this.sampler = Thread.ofVirtual().name("pool-sampler").start(this::sample);
+    }
+
+    private void sample() {
+        while (running) {
+            int activeNow = pool.getActiveConnections();
+            int pendingNow = pool.getThreadsAwaitingConnection();
+            active.recordValue(activeNow);
+            pending.recordValue(pendingNow);
+            demand.recordValue(activeNow + pendingNow);
+            LockSupport.parkNanos(INTERVAL.toNanos());
+        }
+    }
+
+    /**
+     * Останавливает снятие и возвращает итог. Гистограммы читаются после завершения
+     * потока снятия, поэтому синхронизация не нужна.
+     *
+     * @param poolSize    размер пула
+     * @param concurrency число клиентов прогона
+     * @return занятость пула
+     */
+    public PoolUsage usage(int poolSize, int concurrency) {
+        close();
+        long recommended = (long) Math.ceil(demand.getValueAtPercentile(99.0) * HEADROOM);
+        return new PoolUsage(poolSize,
+                active.getValueAtPercentile(50.0),
+                active.getValueAtPercentile(99.0),
+                pending.getValueAtPercentile(99.0),
+                pending.getMaxValue(),
+                (int) Math.max(2, Math.min(recommended, concurrency)));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bankcards.loadtest;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Источник данных, считающий SQL-операторы, созданные на его соединениях.
+ * <p>
+ * Учитываются вызовы {@code prepareStatement}, {@code prepareCall} и {@code createStatement}
+ * независимо от того, кто их выполняет: Hibernate, {@code JdbcTemplate} или Liquibase.
+ * Пакетная вставка считается одним оператором, как и один сетевой обмен с базой.
+ * </p>
+ *
+ * @author ksenya
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final LongAdder statements = new LongAdder();
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * @return число операторов, созданных с момента запуска
+     */
+    public long statementCount() {
+        return statements.sum();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement")) {
+                        statements.increment();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
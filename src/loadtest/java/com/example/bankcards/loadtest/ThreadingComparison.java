@@ -0,0 +1,70 @@
+package com.example.bankcards.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Сравнение режимов потоков под большим числом одновременных соединений.
+ * <p>
+ * Выполняет два одинаковых прогона {@link LoadTestHarness} на отдельных базах: сначала с пулом
+ * потоков Tomcat по умолчанию, затем с профилем {@code virtual}. Размер пула Hikari в обоих
+ * прогонах одинаковый ({@code loadtest.db-pool-size}), так что различается только модель потоков.
+ * Если {@code loadtest.concurrency} не задан, используется 5000 клиентов.
+ * </p>
+ *
+ * <pre>{@code
+ * ./mvnw -Ploadtest test -Dloadtest.main=com.example.bankcards.loadtest.ThreadingComparison
+ * }</pre>
+ *
+ * <p>Для 5000 соединений лимит открытых файлов процесса ({@code ulimit -n}) должен быть не меньше 12000.</p>
+ *
+ * @author ksenya
+ */
+public final class ThreadingComparison {
+
+    private static final int DEFAULT_CONCURRENCY = 5000;
+
+    private ThreadingComparison() {
+    }
+
+    /**
+     * Итог сравнения.
+     *
+     * @param platform        прогон на потоках платформы
+     * @param virtual         прогон на виртуальных потоках
+     * @param throughputRatio отношение пропускной способности виртуальных потоков к потокам платформы
+     */
+    public record Result(LoadTestReport platform, LoadTestReport virtual, double throughputRatio) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("loadtest.concurrency") == null) {
+            System.setProperty("loadtest.concurrency", String.valueOf(DEFAULT_CONCURRENCY));
+        }
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Path directory = settings.report().toAbsolutePath().getParent();
+
+        LoadTestReport platform = LoadTestHarness.execute(
+                settings.withThreading(false, directory.resolve("loadtest-platform.json")), args);
+        platform.print(System.out);
+        LoadTestReport virtual = LoadTestHarness.execute(
+                settings.withThreading(true, directory.resolve("loadtest-virtual.json")), args);
+        virtual.print(System.out);
+
+        Result result = new Result(platform, virtual,
+                platform.throughput() == 0 ? 0 : virtual.throughput() / platform.throughput());
+        System.out.printf("%nВиртуальные потоки / потоки платформы: %.2fx по запросам в секунду%n",
+                result.throughputRatio());
+
+        Path report = directory.resolve("threading-comparison.json");
+        Files.createDirectories(directory);
+        new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(report.toFile(), result);
+        System.out.println("Отчёт сохранён в " + report);
+    }
+}
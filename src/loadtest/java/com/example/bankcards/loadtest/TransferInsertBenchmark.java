@@ -0,0 +1,163 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.AppApplication;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Скорость вставки переводов через JPA с пакетной записью и без неё.
+ * <p>
+ * Для каждого режима поднимается отдельный встроенный PostgreSQL со схемой из миграций, после чего
+ * {@code loadtest.insert.transfers} переводов сохраняются через {@link TransferRepository#saveAll}
+ * транзакциями по {@code loadtest.insert.chunk} штук. Первые {@code loadtest.insert.warmup} итераций
+ * не учитываются, по остальным берётся медиана вставок в секунду.
+ * </p>
+ * <ul>
+ *     <li>{@code row-by-row} — профиль {@code dev}: каждая строка отправляется отдельным {@code INSERT},
+ *         как было при ключах {@code IDENTITY};</li>
+ *     <li>{@code batched} — профиль {@code dev,jdbc-tuning}: пакеты Hibernate по 50 строк, которые драйвер
+ *         с {@code reWriteBatchedInserts} переписывает в многострочные {@code INSERT}.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * ./mvnw -Ploadtest test -Dloadtest.main=com.example.bankcards.loadtest.TransferInsertBenchmark
+ * }</pre>
+ *
+ * @author ksenya
+ */
+public final class TransferInsertBenchmark {
+
+    private TransferInsertBenchmark() {
+    }
+
+    /**
+     * Результат одного режима.
+     *
+     * @param mode                режим
+     * @param transfers           переводов за итерацию
+     * @param insertsPerSecond    медиана вставок в секунду по измеренным итерациям
+     * @param statementsPerInsert SQL-операторов на одну вставку
+     */
+    public record ModeResult(String mode, int transfers, double insertsPerSecond, double statementsPerInsert) {
+    }
+
+    /**
+     * Итог сравнения.
+     *
+     * @param rowByRow построчная вставка
+     * @param batched  пакетная вставка
+     * @param speedup  во сколько раз пакетная вставка быстрее
+     */
+    public record Result(ModeResult rowByRow, ModeResult batched, double speedup) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int transfers = Integer.getInteger("loadtest.insert.transfers", 20_000);
+        int chunk = Integer.getInteger("loadtest.insert.chunk", 1_000);
+        int warmup = Integer.getInteger("loadtest.insert.warmup", 2);
+        int iterations = Integer.getInteger("loadtest.insert.iterations", 5);
+        Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest/transfer-inserts.json"));
+
+        ModeResult rowByRow = measure("row-by-row", "dev", transfers, chunk, warmup, iterations);
+        ModeResult batched = measure("batched", "dev,jdbc-tuning", transfers, chunk, warmup, iterations);
+        Result result = new Result(rowByRow, batched, batched.insertsPerSecond() / rowByRow.insertsPerSecond());
+
+        System.out.printf("%n%-12s %12s %12s%n", "mode", "inserts/s", "sql/insert");
+        for (ModeResult mode : List.of(rowByRow, batched)) {
+            System.out.printf("%-12s %12.0f %12.3f%n", mode.mode(), mode.insertsPerSecond(), mode.statementsPerInsert());
+        }
+        System.out.printf("Пакетная вставка быстрее в %.2f раза%n", result.speedup());
+
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(report.toFile(), result);
+        System.out.println("Отчёт сохранён в " + report.toAbsolutePath());
+    }
+
+    private static ModeResult measure(String mode, String profiles, int transfers, int chunk,
+                                      int warmup, int iterations) throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(AppApplication.class).run(
+                     "--spring.profiles.active=" + profiles,
+                     "--spring.main.web-application-type=none",
+                     "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                     "--spring.datasource.username=postgres",
+                     "--spring.datasource.password=",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.jpa.hibernate.ddl-auto=none",
+                     "--logging.level.root=WARN")) {
+
+            TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            TransferRepository transferRepository = context.getBean(TransferRepository.class);
+            StatementCountingDataSource dataSource = context.getBean(StatementCountingDataSource.class);
+
+            User user = context.getBean(UserRepository.class)
+                    .save(User.builder().username("insert-benchmark").password("insert-benchmark").build());
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            BankCard from = cardRepository.save(card(user, "0001"));
+            BankCard to = cardRepository.save(card(user, "0002"));
+
+            List<Double> rates = new ArrayList<>();
+            long statements = 0;
+            for (int iteration = 0; iteration < warmup + iterations; iteration++) {
+                long statementsBefore = dataSource.statementCount();
+                long start = System.nanoTime();
+                for (int offset = 0; offset < transfers; offset += chunk) {
+                    int size = Math.min(chunk, transfers - offset);
+                    tx.executeWithoutResult(status -> transferRepository.saveAll(transfers(user, from, to, size)));
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (iteration >= warmup) {
+                    rates.add(transfers / seconds);
+                    statements += dataSource.statementCount() - statementsBefore;
+                }
+            }
+            rates.sort(null);
+            return new ModeResult(mode, transfers, rates.get(rates.size() / 2),
+                    (double) statements / ((long) transfers * iterations));
+        }
+    }
+
+    private static BankCard card(User owner, String suffix) {
+        return BankCard.builder()
+                .owner(owner)
+                .cardNumber("**** **** **** " + suffix)
+                .balance(Money.ZERO)
+                .build();
+    }
+
+    private static List<Transfer> transfers(User initiator, BankCard from, BankCard to, int size) {
+        List<Transfer> transfers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transfers.add(Transfer.builder()
+                    .initiator(initiator)
+                    .fromCard(from)
+                    .toCard(to)
+                    .amount(Money.ofMinor(1))
+                    .status(TransferStatus.COMPLETED)
+                    .build());
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.loadtest;
+
+import java.util.List;
+
+/**
+ * Пользователь из набора данных нагрузочного прогона вместе с его картами и текущим токеном.
+ *
+ * @author ksenya
+ */
+public final class VirtualUser {
+
+    private final long id;
+    private final String username;
+    private final List<Long> cardIds;
+    private volatile String token;
+
+    public VirtualUser(long id, String username, List<Long> cardIds) {
+        this.id = id;
+        this.username = username;
+        this.cardIds = List.copyOf(cardIds);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public List<Long> getCardIds() {
+        return cardIds;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Операции, из которых складывается нагрузка.
+ *
+ * @author ksenya
+ */
+public enum Workload {
+
+    /** {@code POST /api/v1/auth/login}. */
+    LOGIN("login"),
+
+    /** {@code GET /api/v1/cards/all/by-user/{userId}}. */
+    LIST_CARDS("list-cards"),
+
+    /** {@code POST /api/v1/transfer/user/{userId}} между двумя картами пользователя. */
+    TRANSFER("transfer"),
+
+    /** {@code POST /api/v1/cards/replenish/{id}}. */
+    REPLENISH("replenish");
+
+    private final String key;
+
+    Workload(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key имя операции в параметре {@code loadtest.mix}
+     * @return операция
+     * @throws IllegalArgumentException если операция неизвестна
+     */
+    public static Workload byKey(String key) {
+        return Arrays.stream(values())
+                .filter(workload -> workload.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная операция нагрузки: " + key
+                        + ", допустимые: " + Arrays.stream(values()).map(Workload::getKey).toList()));
+    }
+}
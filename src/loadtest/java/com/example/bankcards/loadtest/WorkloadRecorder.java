@@ -0,0 +1,54 @@
+package com.example.bankcards.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки по операциям за один этап прогона.
+ * Задержки хранятся в микросекундах в гистограммах HdrHistogram с точностью до трёх значащих цифр.
+ *
+ * @author ksenya
+ */
+public class WorkloadRecorder {
+
+    private final Map<Workload, Histogram> latencies = new EnumMap<>(Workload.class);
+    private final Map<Workload, LongAdder> errors = new EnumMap<>(Workload.class);
+
+    public WorkloadRecorder() {
+        for (Workload workload : Workload.values()) {
+            latencies.put(workload, new ConcurrentHistogram(3));
+            errors.put(workload, new LongAdder());
+        }
+    }
+
+    /**
+     * Записывает выполненный запрос.
+     *
+     * @param workload     операция
+     * @param elapsedNanos время от отправки запроса до получения ответа
+     * @param status       HTTP-статус ответа или {@code -1}, если ответ не получен
+     */
+    public void record(Workload workload, long elapsedNanos, int status) {
+        latencies.get(workload).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        if (status < 200 || status >= 300) {
+            errors.get(workload).increment();
+        }
+    }
+
+    public Histogram latencies(Workload workload) {
+        return latencies.get(workload);
+    }
+
+    public long errors(Workload workload) {
+        return errors.get(workload).sum();
+    }
+
+    public long totalRequests() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+}
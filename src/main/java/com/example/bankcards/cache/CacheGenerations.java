@@ -0,0 +1,136 @@
+package com.example.bankcards.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поколения кэшированных данных для точечной инвалидации.
+ * <p>
+ * Ключи кэшей, зависящих от данных владельца, содержат номер поколения владельца
+ * в своей области ({@link #owner}), а ключи общих списков — номер глобального поколения
+ * области ({@link #global}). Изменение данных увеличивает поколения только затронутых
+ * владельцев и глобальное поколение области: старые записи становятся недостижимыми
+ * и вытесняются кэшем по размеру или времени жизни, а записи остальных владельцев
+ * продолжают обслуживаться.
+ * </p>
+ *
+ * <p>В SpEL-ключах бин доступен как {@code @cacheGenerations}, например:</p>
+ * <pre>{@code
+ * @Cacheable(value = "bankCardsUser",
+ *         key = "@cacheGenerations.owner('cards', #userId) + '-' + #pageNumber + '-' + #pageSize + '-' + #userId")
+ * }</pre>
+ *
+ * <p>Поколения увеличиваются после фиксации текущей транзакции (или сразу, если транзакции нет),
+ * поэтому запрос, прочитавший данные до фиксации, не может закэшировать их под новым поколением.
+ * Номера поколений берутся из общего возрастающего счётчика, так что поколение владельца,
+ * вытесненное из ограниченной таблицы и созданное заново, не совпадёт с уже отозванным.</p>
+ *
+ * <p>Область {@link #CARDS} охватывает и балансы ({@code balanceUser}, {@code cardBalance}):
+ * каждый код, изменяющий {@code bank_card.balance}, вызывает {@link #invalidate} для владельцев
+ * изменённых карт, поэтому на узле, выполнившем запись, старый баланс сразу становится недостижимым.
+ * Поколения и кэши хранятся в памяти узла: другие узлы видят новый баланс только после истечения
+ * записи, поэтому время жизни балансовых кэшей держится коротким (30 секунд).</p>
+ *
+ * @author ksenya
+ */
+@Component("cacheGenerations")
+public class CacheGenerations {
+
+    /** Область банковских карт и их балансов. */
+    public static final String CARDS = "cards";
+
+    /** Область переводов. */
+    public static final String TRANSFERS = "transfers";
+
+    private static final String GLOBAL = "*";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> generations;
+
+    public CacheGenerations(@Value("${cache.generations.maximum-size:100000}") long maximumSize) {
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Текущее глобальное поколение области.
+     *
+     * @param region область ({@link #CARDS}, {@link #TRANSFERS})
+     * @return номер поколения
+     */
+    public long global(String region) {
+        return current(key(region, GLOBAL));
+    }
+
+    /**
+     * Текущее поколение данных владельца в области.
+     *
+     * @param region  область ({@link #CARDS}, {@link #TRANSFERS})
+     * @param ownerId идентификатор владельца
+     * @return номер поколения
+     */
+    public long owner(String region, Long ownerId) {
+        return current(key(region, ownerId));
+    }
+
+    /**
+     * Инвалидирует данные указанных владельцев и общие списки области
+     * после фиксации текущей транзакции.
+     *
+     * @param region   область
+     * @param ownerIds владельцы, чьи данные изменились ({@code null} пропускаются)
+     */
+    public void invalidate(String region, Long... ownerIds) {
+        invalidate(region, Arrays.asList(ownerIds));
+    }
+
+    /**
+     * Инвалидирует данные указанных владельцев и общие списки области
+     * после фиксации текущей транзакции.
+     *
+     * @param region   область
+     * @param ownerIds владельцы, чьи данные изменились ({@code null} пропускаются)
+     */
+    public void invalidate(String region, Collection<Long> ownerIds) {
+        Runnable bump = () -> {
+            increment(key(region, GLOBAL));
+            ownerIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(ownerId -> increment(key(region, ownerId)));
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    private long current(String key) {
+        return generations.get(key, k -> sequence.get());
+    }
+
+    private void increment(String key) {
+        generations.put(key, sequence.incrementAndGet());
+    }
+
+    private static String key(String region, Object scope) {
+        return region + ':' + scope;
+    }
+}
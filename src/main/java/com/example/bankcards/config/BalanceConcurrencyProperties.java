@@ -0,0 +1,125 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки конкурентного изменения балансов карт (префикс {@code card.balance}).
+ *
+ * <p>Пример конфигурации:</p>
+ * <pre>
+ * card:
+ *   balance:
+ *     locking-mode: atomic
+ *     retry:
+ *       default:
+ *         max-attempts: 5
+ *         initial-backoff: 10ms
+ *         max-backoff: 200ms
+ *       withdraw:
+ *         max-attempts: 8
+ * </pre>
+ *
+ * <p>Политика повторов задаётся отдельно для каждой операции; если для операции
+ * политика не указана, используется {@code default}.</p>
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "card.balance")
+public class BalanceConcurrencyProperties {
+
+    /**
+     * Имя политики повторов, применяемой к операциям без собственной настройки.
+     */
+    public static final String DEFAULT_POLICY = "default";
+
+    /**
+     * Режим блокировки строк {@code bank_card} при изменении баланса.
+     */
+    private LockingMode lockingMode = LockingMode.ATOMIC;
+
+    /**
+     * Политики повторов по имени операции.
+     */
+    private Map<String, RetryPolicy> retry = new HashMap<>();
+
+    /**
+     * Возвращает политику повторов для операции.
+     *
+     * @param operation имя операции (например, {@code withdraw})
+     * @return политика операции, политика {@code default} или значения по умолчанию
+     */
+    public RetryPolicy policyFor(String operation) {
+        RetryPolicy policy = retry.get(operation);
+        if (policy == null) {
+            policy = retry.get(DEFAULT_POLICY);
+        }
+        return policy != null ? policy : new RetryPolicy();
+    }
+
+    /**
+     * Режим блокировки при изменении баланса.
+     */
+    public enum LockingMode {
+
+        /**
+         * Баланс изменяется одним условным {@code UPDATE ... RETURNING} без загрузки сущности;
+         * проверки статуса и достаточности средств выполняются в условии запроса.
+         */
+        ATOMIC,
+
+        /**
+         * Строка карты блокируется {@code SELECT ... FOR UPDATE} до конца транзакции.
+         */
+        PESSIMISTIC,
+
+        /**
+         * Без блокировок: конфликт обнаруживается по столбцу {@code version}
+         * при фиксации, операция повторяется согласно {@link RetryPolicy}.
+         */
+        OPTIMISTIC
+    }
+
+    /**
+     * Политика повторов при конфликте версий: экспоненциальная задержка с джиттером.
+     */
+    @Getter
+    @Setter
+    public static class RetryPolicy {
+
+        /**
+         * Максимальное число попыток, включая первую.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Задержка перед первым повтором.
+         */
+        private Duration initialBackoff = Duration.ofMillis(10);
+
+        /**
+         * Верхняя граница задержки.
+         */
+        private Duration maxBackoff = Duration.ofMillis(200);
+
+        /**
+         * Множитель задержки для каждой следующей попытки.
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * Доля задержки (0..1), на которую она случайно уменьшается, чтобы
+         * конкурирующие запросы не повторялись синхронно.
+         */
+        private double jitter = 0.5;
+    }
+}
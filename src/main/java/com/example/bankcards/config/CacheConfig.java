@@ -1,7 +1,25 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.config.CaffeineCacheProperties.CacheSpec;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Конфигурация кэширования.
@@ -11,10 +29,139 @@ import org.springframework.context.annotation.Configuration;
  * Конкретные кэши определяются аннотациями {@code @Cacheable}, {@code @CachePut}
  * и {@code @CacheEvict} в сервисах.</p>
  *
- * <p>Если в приложении подключён провайдер (например, Caffeine, EhCache, Redis),
- * Spring автоматически будет использовать его как бэкенд для хранения кэша.</p>
+ * <p>Каждый кэш создаётся в Caffeine с ограничением размера (или веса) и временем жизни
+ * из {@link CaffeineCacheProperties}; кэши без собственной секции получают настройки
+ * {@code cache.defaults}. Для всех кэшей собирается статистика, которая публикуется в Micrometer:
+ * {@code cache.gets}, {@code cache.evictions}, {@code cache.load.duration} и {@code cache.hit.ratio}
+ * с тегами {@code cache} и {@code cache.manager} (совпадают с тегами автоконфигурации Actuator);
+ * кэши, создаваемые менеджером по имени при первом обращении, попадают в метрики сразу при создании.</p>
+ *
+ * <p>У кэшей Spring нет загрузчика значений, поэтому {@code refresh-after-write} работает как
+ * «мягкое» истечение: по прошествии интервала текущее значение ещё отдаётся, а запись
+ * удаляется в фоне, и следующий вызов пересчитает его методом сервиса.</p>
  */
 @Configuration
 @EnableCaching
+@RequiredArgsConstructor
 public class CacheConfig {
+
+    /**
+     * Загрузчик для кэшей с {@code refresh-after-write}: возвращает {@code null},
+     * из-за чего обновляемая запись удаляется, а промах обрабатывается методом сервиса.
+     */
+    private static final CacheLoader<Object, Object> NO_RELOAD = key -> null;
+
+    private final CaffeineCacheProperties properties;
+    private final CacheMetricsBinder cacheMetrics = new CacheMetricsBinder();
+
+    /**
+     * Менеджер кэшей Caffeine с настройками по имени кэша.
+     *
+     * @return {@link CacheManager}
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                cacheMetrics.monitor(name, cache);
+                return super.adaptCaffeineCache(name, cache);
+            }
+        };
+        CacheSpec defaults = properties.getDefaults();
+        manager.setCaffeine(builder(defaults));
+        if (defaults.getRefreshAfterWrite() != null) {
+            manager.setCacheLoader(NO_RELOAD);
+        }
+        properties.getSpecs().keySet().forEach(name -> {
+            CacheSpec spec = properties.specFor(name);
+            Caffeine<Object, Object> builder = builder(spec);
+            manager.registerCustomCache(name, spec.getRefreshAfterWrite() != null
+                    ? builder.build(NO_RELOAD)
+                    : builder.build());
+        });
+        return manager;
+    }
+
+    /**
+     * Публикует статистику всех кэшей менеджера, в том числе созданных по имени после старта.
+     *
+     * @return {@link MeterBinder}
+     */
+    @Bean
+    public MeterBinder caffeineCacheMetrics() {
+        return cacheMetrics;
+    }
+
+    private static Caffeine<Object, Object> builder(CacheSpec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder = builder.maximumWeight(spec.getMaximumWeight()).weigher(CacheConfig::weigh);
+        } else if (spec.getMaximumSize() != null) {
+            builder = builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder = builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder = builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            builder = builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+
+    /**
+     * Вес записи: для страниц и коллекций — число элементов, для остальных значений — 1.
+     */
+    private static int weigh(Object key, Object value) {
+        if (value instanceof Slice<?> slice) {
+            return Math.max(1, slice.getNumberOfElements());
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
+    }
+
+    /**
+     * Привязывает метрики кэша к реестру: кэши, созданные до готовности реестра,
+     * запоминаются и регистрируются в {@link #bindTo}, созданные позже — сразу.
+     */
+    private static final class CacheMetricsBinder implements MeterBinder {
+
+        private static final Tags TAGS = Tags.of("cache.manager", "cacheManager");
+
+        private final Map<String, com.github.benmanes.caffeine.cache.Cache<Object, Object>> caches =
+                new ConcurrentHashMap<>();
+        private volatile MeterRegistry registry;
+
+        void monitor(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            caches.put(name, cache);
+            MeterRegistry current = registry;
+            if (current != null) {
+                register(current, name, cache);
+            }
+        }
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            this.registry = registry;
+            caches.forEach((name, cache) -> register(registry, name, cache));
+        }
+
+        private static void register(MeterRegistry registry, String name,
+                                     com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            CaffeineCacheMetrics.monitor(registry, cache, name, TAGS);
+            Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                    .tags(TAGS.and("cache", name))
+                    .description("Доля обращений к кэшу, обслуженных без вызова метода")
+                    .register(registry);
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки кэшей Caffeine (префикс {@code cache}).
+ *
+ * <p>Пример конфигурации:</p>
+ * <pre>
+ * cache:
+ *   defaults:
+ *     maximum-size: 10000
+ *     expire-after-write: 10m
+ *   specs:
+ *     bankCardsUser:
+ *       maximum-weight: 50000
+ *       expire-after-access: 5m
+ *     balanceUser:
+ *       maximum-size: 50000
+ *       expire-after-write: 30s
+ * </pre>
+ *
+ * <p>Параметры, не указанные для конкретного кэша, берутся из {@code defaults}.
+ * Кэши без собственной секции создаются с настройками {@code defaults}.</p>
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CaffeineCacheProperties {
+
+    /**
+     * Настройки, применяемые ко всем кэшам.
+     */
+    private CacheSpec defaults = CacheSpec.fallback();
+
+    /**
+     * Настройки по имени кэша.
+     */
+    private Map<String, CacheSpec> specs = new LinkedHashMap<>();
+
+    /**
+     * Возвращает настройки кэша с подставленными значениями из {@code defaults}.
+     *
+     * @param cacheName имя кэша
+     * @return итоговые настройки кэша
+     */
+    public CacheSpec specFor(String cacheName) {
+        CacheSpec spec = specs.get(cacheName);
+        return spec != null ? spec.withDefaults(defaults) : defaults;
+    }
+
+    /**
+     * Настройки одного кэша. Незаданные параметры равны {@code null}.
+     * Если указан {@code maximumWeight}, он используется вместо {@code maximumSize}.
+     */
+    @Getter
+    @Setter
+    public static class CacheSpec {
+
+        /**
+         * Максимальное количество записей.
+         */
+        private Long maximumSize;
+
+        /**
+         * Максимальный суммарный вес записей (вес страницы или списка равен числу элементов).
+         */
+        private Long maximumWeight;
+
+        /**
+         * Время жизни записи после записи.
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * Время жизни записи после последнего обращения.
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * Интервал, после которого запись обновляется в фоне. До обновления
+         * продолжает отдаваться текущее значение.
+         */
+        private Duration refreshAfterWrite;
+
+        private static CacheSpec fallback() {
+            CacheSpec spec = new CacheSpec();
+            spec.setMaximumSize(10_000L);
+            spec.setExpireAfterWrite(Duration.ofMinutes(10));
+            return spec;
+        }
+
+        private CacheSpec withDefaults(CacheSpec defaults) {
+            CacheSpec merged = new CacheSpec();
+            boolean bounded = maximumSize != null || maximumWeight != null;
+            merged.setMaximumSize(bounded ? maximumSize : defaults.getMaximumSize());
+            merged.setMaximumWeight(bounded ? maximumWeight : defaults.getMaximumWeight());
+            merged.setExpireAfterWrite(expireAfterWrite != null ? expireAfterWrite : defaults.getExpireAfterWrite());
+            merged.setExpireAfterAccess(expireAfterAccess != null ? expireAfterAccess : defaults.getExpireAfterAccess());
+            merged.setRefreshAfterWrite(refreshAfterWrite != null ? refreshAfterWrite : defaults.getRefreshAfterWrite());
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Версии ключей шифрования номеров карт (префикс {@code card.encryption}).
+ * <p>
+ * Ключ с id {@code 0} — {@code card.secretKey}. Задан должен быть активный ключ и ключи, которыми ещё
+ * зашифрованы записи; после перешифрования прежний ключ, включая {@code card.secretKey}, убирается.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "card.encryption")
+public class CardEncryptionProperties {
+
+    /**
+     * Id ключа, которым шифруются новые номера.
+     */
+    private int activeKeyId = 0;
+
+    /**
+     * Дополнительные ключи AES в Base64 по id (1–255).
+     */
+    private Map<Integer, String> keys = new HashMap<>();
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки массового выпуска карт (префикс {@code card.issuance}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "card.issuance")
+public class CardIssuanceProperties {
+
+    /**
+     * Максимальное число карт в одном задании.
+     */
+    private int maxCards = 200_000;
+
+    /**
+     * Карт в одной порции: порция готовится, пока пишется предыдущая, и фиксируется отдельной транзакцией.
+     */
+    private int chunkSize = 1_000;
+
+    /**
+     * Потоков для генерации и шифрования номеров; {@code 0} — по числу ядер.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Сколько заданий может выполняться одновременно на одном экземпляре; следующие отклоняются.
+     * Все задания делят один пул потоков подготовки, поэтому лишние задания только замедлили бы остальные.
+     */
+    private int maxConcurrentJobs = 2;
+
+    /**
+     * Сколько хранить в памяти результаты завершённых заданий.
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+}
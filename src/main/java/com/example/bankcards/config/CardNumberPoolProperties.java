@@ -0,0 +1,46 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки пула заранее подготовленных номеров карт (префикс {@code card.number-pool}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "card.number-pool")
+public class CardNumberPoolProperties {
+
+    /**
+     * Выдавать номера из пула; при {@code false} номер генерируется при каждом выпуске карты.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Максимальное число номеров в пуле.
+     */
+    private int capacity = 1_000;
+
+    /**
+     * Порог, при опускании до которого пул пополняется в фоне до {@link #capacity}.
+     */
+    private int lowWaterMark = 250;
+
+    /**
+     * Номеров, проверяемых одним запросом к {@code card_pan_vault} при пополнении.
+     */
+    private int refillBatch = 200;
+
+    /**
+     * BIN, с которых начинаются номера; выбираются случайно. Пустой список — номера без BIN.
+     */
+    private List<String> binPrefixes = new ArrayList<>();
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки хранилища ключей идемпотентности (префикс {@code idempotency}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Срок хранения записи в базе данных.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * Срок аренды ключа выполняющимся запросом. Пока запрос выполняется, аренда продлевается
+     * каждые {@link #renewInterval}; по её истечении (узел упал или завис) повтор с тем же ключом
+     * выполнит запрос заново.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * Период продления аренды выполняющихся запросов. Должен быть заметно меньше {@link #lease},
+     * чтобы пропуск одного продления не приводил к перехвату ключа.
+     */
+    private Duration renewInterval = Duration.ofSeconds(30);
+
+    /**
+     * Время жизни ответа в локальном кэше Caffeine.
+     */
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * Максимальное количество ответов в локальном кэше.
+     */
+    private long cacheMaxSize = 10_000;
+
+    /**
+     * Сколько ждать завершения параллельного запроса с тем же ключом в этом же экземпляре.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(30);
+}
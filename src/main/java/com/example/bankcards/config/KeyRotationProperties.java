@@ -0,0 +1,49 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки перешифрования номеров карт новым ключом (префикс {@code card.key-rotation}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "card.key-rotation")
+public class KeyRotationProperties {
+
+    /**
+     * Записей в одной порции: порция читается одним запросом и фиксируется отдельной транзакцией.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Предел просматриваемых записей в секунду; {@code 0} — без ограничения.
+     */
+    private int rowsPerSecond = 2_000;
+
+    /**
+     * Потоков для перешифрования; {@code 0} — по числу ядер.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Срок аренды задания экземпляром; продлевается каждой порцией. Пока аренда не истекла, другой
+     * экземпляр задание не запустит; после падения экземпляра задание можно продолжить по её истечении.
+     * Должен быть больше времени одной порции, то есть {@code chunk-size / rows-per-second} секунд.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * Наибольшее число проходов по таблице. Проходы повторяются, пока проход не найдёт ни одной записи
+     * под прежним ключом; если их всё ещё пишет экземпляр с прежним активным ключом, задание
+     * завершается ошибкой после этого числа проходов.
+     */
+    private int maxPasses = 5;
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки профилирования HTTP-запросов (префикс {@code request-metrics}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "request-metrics")
+public class RequestMetricsProperties {
+
+    /**
+     * Сколько самых медленных запросов хранить для эндпоинта {@code /actuator/performance}.
+     */
+    private int slowestCapacity = 50;
+
+    /**
+     * Запросы быстрее этого порога в список самых медленных не попадают.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    /**
+     * Максимальное число вызовов методов, сохраняемых в профиле одного запроса.
+     */
+    private int maxSpans = 64;
+}
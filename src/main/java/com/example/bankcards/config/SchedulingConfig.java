@@ -0,0 +1,15 @@
+package com.example.bankcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурация фоновых задач.
+ *
+ * <p>Аннотация {@link EnableScheduling} включает выполнение методов,
+ * помеченных {@code @Scheduled} (например, очистку устаревших ключей идемпотентности).</p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки выгрузки переводов (префикс {@code transfer.export}).
+ *
+ * @author ksenya
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "transfer.export")
+public class TransferExportProperties {
+
+    /**
+     * Время на запись выгрузки в ответ. Действует только для выгрузки,
+     * остальные асинхронные запросы используют таймаут по умолчанию.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+}
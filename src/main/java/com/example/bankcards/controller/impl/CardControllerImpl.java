@@ -2,22 +2,34 @@ package com.example.bankcards.controller.impl;
 
 import com.example.bankcards.controller.interfaces.CardController;
 import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
 import com.example.bankcards.dto.requests.CreateCardRequest;
+import com.example.bankcards.dto.requests.FindCardByNumberRequest;
 import com.example.bankcards.dto.requests.ReplenishRequest;
 import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.service.interfaces.CardIssuanceService;
 import com.example.bankcards.service.interfaces.CardService;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.example.bankcards.service.interfaces.KeyRotationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.UUID;
+
 @RestController
 @RequiredArgsConstructor
 public class CardControllerImpl implements CardController {
 
     private final CardService cardServiceImpl;
+    private final CardIssuanceService cardIssuanceService;
+    private final KeyRotationService keyRotationService;
+    private final IdempotencyService idempotencyService;
 
     @Override
     public ResponseEntity<APIResponse<Page<BankCardDTO>>> getAll(int page, int size) {
@@ -37,12 +49,50 @@ public class CardControllerImpl implements CardController {
         return ResponseEntity.ok(APIResponse.ofSuccess(card, "Данные по карте найдены", HttpStatus.OK));
     }
 
+    @Override
+    public ResponseEntity<APIResponse<BankCardDTO>> findByNumber(FindCardByNumberRequest request) {
+        BankCardDTO card = cardServiceImpl.getByNumber(request.getCardNumber());
+        return ResponseEntity.ok(APIResponse.ofSuccess(card, "Карта найдена", HttpStatus.OK));
+    }
+
     @Override
     public ResponseEntity<APIResponse<BankCardDTO>> create(CreateCardRequest request) {
         BankCardDTO newCard = cardServiceImpl.create(request);
         return ResponseEntity.ok(APIResponse.ofSuccess(newCard, "Карта успешно создана", HttpStatus.OK));
     }
 
+    @Override
+    public ResponseEntity<APIResponse<BulkIssueJobDTO>> bulkIssue(BulkIssueRequest request) {
+        BulkIssueJobDTO job = cardIssuanceService.start(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(APIResponse.ofSuccess(job, "Выпуск карт запущен", HttpStatus.ACCEPTED));
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<BulkIssueJobDTO>> getBulkIssueJob(UUID jobId) {
+        BulkIssueJobDTO job = cardIssuanceService.getJob(jobId);
+        return ResponseEntity.ok(APIResponse.ofSuccess(job, "Состояние выпуска карт получено", HttpStatus.OK));
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<KeyRotationDTO>> startKeyRotation(boolean restart) {
+        KeyRotationDTO rotation = keyRotationService.start(restart);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(APIResponse.ofSuccess(rotation, "Перешифрование номеров карт запущено", HttpStatus.ACCEPTED));
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<KeyRotationDTO>> getKeyRotation() {
+        KeyRotationDTO rotation = keyRotationService.getStatus();
+        return ResponseEntity.ok(APIResponse.ofSuccess(rotation, "Состояние перешифрования получено", HttpStatus.OK));
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<KeyRotationDTO>> stopKeyRotation() {
+        KeyRotationDTO rotation = keyRotationService.stop();
+        return ResponseEntity.ok(APIResponse.ofSuccess(rotation, "Остановка перешифрования запрошена", HttpStatus.OK));
+    }
+
     @Override
     public ResponseEntity<APIResponse<BankCardDTO>> block(Long id) {
         BankCardDTO card = cardServiceImpl.blocked(id);
@@ -68,8 +118,11 @@ public class CardControllerImpl implements CardController {
     }
 
     @Override
-    public ResponseEntity<APIResponse<CardBalanceDTO>> replenish(Long id, ReplenishRequest request) {
-        CardBalanceDTO updatedBalance = cardServiceImpl.deposit(id, request.getAmount());
-        return ResponseEntity.ok(APIResponse.ofSuccess(updatedBalance, "Баланс успешно пополнен", HttpStatus.OK));
+    public ResponseEntity<APIResponse<CardBalanceDTO>> replenish(Long id, ReplenishRequest request,
+                                                                 String idempotencyKey) {
+        return idempotencyService.execute("replenish:card:" + id, idempotencyKey, request, () -> {
+            CardBalanceDTO updatedBalance = cardServiceImpl.deposit(id, request.getAmount());
+            return ResponseEntity.ok(APIResponse.ofSuccess(updatedBalance, "Баланс успешно пополнен", HttpStatus.OK));
+        });
     }
 }
@@ -1,28 +1,67 @@
 package com.example.bankcards.controller.impl;
 
+import com.example.bankcards.config.TransferExportProperties;
 import com.example.bankcards.controller.interfaces.TransferController;
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
+import com.example.bankcards.dto.requests.TransferExportFormat;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.payload.TransferUserDto;
 import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.example.bankcards.service.interfaces.TransferExportService;
 import com.example.bankcards.service.interfaces.TransferService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequiredArgsConstructor
 public class TransferControllerImpl implements TransferController {
 
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = TransferControllerImpl.class.getName() + ".exportTimeout";
+
     private final TransferService transferServiceImpl;
+    private final IdempotencyService idempotencyService;
+    private final TransferExportService transferExportService;
+    private final TransferExportProperties transferExportProperties;
 
     @Override
-    public ResponseEntity<APIResponse<TransferUserDto>> transfer(Long userId, TransferUserRequest request) {
-        TransferUserDto dto = transferServiceImpl.transferFromToCardUser(userId, request);
-        APIResponse<TransferUserDto> response =
-                new APIResponse<>(dto, "Перевод успешно выполнен", HttpStatus.OK);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<APIResponse<TransferUserDto>> transfer(Long userId, TransferUserRequest request,
+                                                                 String idempotencyKey) {
+        return idempotencyService.execute("transfer:user:" + userId, idempotencyKey, request, () -> {
+            TransferUserDto dto = transferServiceImpl.transferFromToCardUser(userId, request);
+            APIResponse<TransferUserDto> response =
+                    new APIResponse<>(dto, "Перевод успешно выполнен", HttpStatus.OK);
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<BatchTransferResultDTO>> transferBatch(Long userId, BatchTransferRequest request,
+                                                                             String idempotencyKey) {
+        return idempotencyService.execute("transfer-batch:user:" + userId, idempotencyKey, request, () -> {
+            BatchTransferResultDTO result = transferServiceImpl.transferBatch(userId, request);
+            HttpStatus status = result.isApplied() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY;
+            String message = result.isApplied() ? "Пакет переводов выполнен" : "Пакет переводов отклонён";
+            return ResponseEntity.status(status).body(new APIResponse<>(result, message, status));
+        });
     }
 
     @Override
@@ -41,6 +80,55 @@ public class TransferControllerImpl implements TransferController {
         return ResponseEntity.ok(response);
     }
 
+    @Override
+    public ResponseEntity<APIResponse<CursorPageDTO<TransferUserDto>>> getAllByCursor(String cursor, int size,
+                                                                                     boolean includeTotal) {
+        CursorPageDTO<TransferUserDto> transfers = transferServiceImpl.getAllByCursor(cursor, size, includeTotal);
+        APIResponse<CursorPageDTO<TransferUserDto>> response =
+                new APIResponse<>(transfers, "Все переводы возвращены", HttpStatus.OK);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<APIResponse<CursorPageDTO<TransferUserDto>>> getAllByUserCursor(Long userId, String cursor,
+                                                                                         int size, boolean includeTotal) {
+        CursorPageDTO<TransferUserDto> transfers =
+                transferServiceImpl.getAllByUserCursor(userId, cursor, size, includeTotal);
+        APIResponse<CursorPageDTO<TransferUserDto>> response =
+                new APIResponse<>(transfers, "История переводов пользователя получена", HttpStatus.OK);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> export(Instant from, Instant to, TransferStatus status,
+                                                        TransferExportFormat format, HttpServletRequest request) {
+        transferExportService.validate(from, to);
+        extendAsyncTimeout(request);
+        StreamingResponseBody body = out -> transferExportService.export(from, to, status, format, out);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("transfers." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Продлевает таймаут асинхронной обработки только для этого запроса: выгрузка пишется дольше,
+     * чем допускает общий {@code spring.mvc.async.request-timeout}.
+     */
+    private void extendAsyncTimeout(HttpServletRequest request) {
+        long timeout = transferExportProperties.getTimeout().toMillis();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        ((AsyncWebRequest) webRequest).setTimeout(timeout);
+                    }
+                });
+    }
+
     @Override
     public ResponseEntity<APIResponse<TransferUserDto>> getById(Long id) {
         TransferUserDto dto = transferServiceImpl.getById(id);
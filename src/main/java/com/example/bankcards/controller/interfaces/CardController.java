@@ -1,10 +1,15 @@
 package com.example.bankcards.controller.interfaces;
 
 import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
 import com.example.bankcards.dto.requests.CreateCardRequest;
+import com.example.bankcards.dto.requests.FindCardByNumberRequest;
 import com.example.bankcards.dto.requests.ReplenishRequest;
 import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.service.interfaces.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,6 +21,8 @@ import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+
 /**
  * Контроллер для операций с банковскими картами.
  *
@@ -108,6 +115,30 @@ public interface CardController {
     @GetMapping("/{cardId}")
     ResponseEntity<APIResponse<BankCardDTO>> getById(@PathVariable Long cardId);
 
+    /**
+     * Найти карту по полному номеру (только администратор).
+     *
+     * @param request запрос с номером карты
+     * @return DTO карты
+     */
+    @Operation(
+            summary = "Карта по номеру",
+            description = "Находит карту по полному номеру через слепой индекс без расшифровки номеров",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Карта найдена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Карта не найдена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @PostMapping("/search")
+    ResponseEntity<APIResponse<BankCardDTO>> findByNumber(@RequestBody FindCardByNumberRequest request);
+
     /**
      * Создать новую карту (только администратор).
      *
@@ -132,6 +163,137 @@ public interface CardController {
     @PostMapping("/create")
     ResponseEntity<APIResponse<BankCardDTO>> create(@RequestBody CreateCardRequest request);
 
+    /**
+     * Запустить массовый выпуск карт одному владельцу (только администратор).
+     *
+     * @param request владелец и количество карт
+     * @return состояние запущенного задания
+     */
+    @Operation(
+            summary = "Массовый выпуск карт",
+            description = "Запускает фоновое задание выпуска карт; ход выполнения доступен по идентификатору задания",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Задание запущено",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Недопустимое количество карт",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Владелец не найден",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Достигнут лимит одновременных заданий",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @PostMapping("/bulk")
+    ResponseEntity<APIResponse<BulkIssueJobDTO>> bulkIssue(@RequestBody BulkIssueRequest request);
+
+    /**
+     * Получить ход выполнения задания массового выпуска (только администратор).
+     *
+     * @param jobId идентификатор задания
+     * @return число выпущенных карт, скорость и состояние задания
+     */
+    @Operation(
+            summary = "Состояние массового выпуска",
+            description = "Возвращает число выпущенных карт, скорость выпуска и состояние задания. "
+                    + "Задание известно только экземпляру, который его запустил",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние получено",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Задание не найдено",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @GetMapping("/bulk/{jobId}")
+    ResponseEntity<APIResponse<BulkIssueJobDTO>> getBulkIssueJob(@PathVariable UUID jobId);
+
+    /**
+     * Запустить или продолжить перешифрование номеров карт активным ключом (только администратор).
+     *
+     * @param restart начать с начала таблицы, а не с сохранённой позиции
+     * @return состояние перешифрования
+     */
+    @Operation(
+            summary = "Перешифрование номеров карт",
+            description = "Запускает фоновое перешифрование номеров карт ключом card.encryption.active-key-id "
+                    + "с сохранённой позиции или с начала таблицы",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Перешифрование запущено",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "409",
+                            description = "Перешифрование уже выполняется на этом или другом экземпляре",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @PostMapping("/key-rotation")
+    ResponseEntity<APIResponse<KeyRotationDTO>> startKeyRotation(
+            @RequestParam(defaultValue = "false") boolean restart);
+
+    /**
+     * Получить состояние перешифрования номеров карт активным ключом (только администратор).
+     *
+     * @return позиция, число просмотренных и перешифрованных записей, скорость
+     */
+    @Operation(
+            summary = "Состояние перешифрования номеров карт",
+            description = "Возвращает контрольную точку, счётчики и скорость перешифрования активным ключом",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние получено",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Перешифрование активным ключом не запускалось",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @GetMapping("/key-rotation")
+    ResponseEntity<APIResponse<KeyRotationDTO>> getKeyRotation();
+
+    /**
+     * Остановить перешифрование номеров карт после текущей порции (только администратор).
+     *
+     * @return состояние перешифрования
+     */
+    @Operation(
+            summary = "Остановка перешифрования номеров карт",
+            description = "Останавливает перешифрование после текущей порции; позиция сохраняется. "
+                    + "Запрос можно отправить на любой экземпляр",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Остановка запрошена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Перешифрование активным ключом не запускалось",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @DeleteMapping("/key-rotation")
+    ResponseEntity<APIResponse<KeyRotationDTO>> stopKeyRotation();
+
     /**
      * Заблокировать карту (только администратор).
      *
@@ -234,6 +396,8 @@ public interface CardController {
      *
      * @param id идентификатор карты
      * @param request объект с суммой пополнения
+     * @param idempotencyKey необязательный ключ идемпотентности: повтор с тем же ключом
+     *                       возвращает сохранённый ответ без повторного пополнения
      * @return карта с обновлённым балансом
      */
     @Operation(
@@ -245,6 +409,10 @@ public interface CardController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class))),
                     @ApiResponse(responseCode = "404", description = "Карта не найдена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Ключ идемпотентности использован для другого запроса или запрос ещё выполняется",
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class)))
@@ -252,5 +420,9 @@ public interface CardController {
     )
     @PreAuthorize("@cardService.isOwnerCard(principal.id, #id)")
     @PostMapping("/replenish/{id}")
-    ResponseEntity<APIResponse<CardBalanceDTO>> replenish(@PathVariable Long id, @RequestBody ReplenishRequest request);
+    ResponseEntity<APIResponse<CardBalanceDTO>> replenish(
+            @PathVariable Long id,
+            @RequestBody ReplenishRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    );
 }
@@ -1,18 +1,30 @@
 package com.example.bankcards.controller.interfaces;
 
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
 import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
+import com.example.bankcards.dto.requests.TransferExportFormat;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.service.interfaces.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
 
 /**
  * Контроллер для управления переводами между картами.
@@ -27,8 +39,10 @@ public interface TransferController {
     /**
      * Выполнить перевод средств между картами пользователя.
      *
-     * @param userId  идентификатор пользователя
-     * @param request данные для перевода (карта-отправитель, карта-получатель, сумма)
+     * @param userId         идентификатор пользователя
+     * @param request        данные для перевода (карта-отправитель, карта-получатель, сумма)
+     * @param idempotencyKey необязательный ключ идемпотентности: повтор с тем же ключом
+     *                       возвращает сохранённый ответ без повторного перевода
      * @return DTO перевода
      */
     @Operation(
@@ -43,7 +57,7 @@ public interface TransferController {
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class))),
-                    @ApiResponse(responseCode = "403", description = "Нет прав на выполнение операции",
+                    @ApiResponse(responseCode = "403", description = "Нет прав на выполнение операции или карта-отправитель принадлежит другому пользователю",
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class))),
@@ -51,7 +65,8 @@ public interface TransferController {
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class))),
-                    @ApiResponse(responseCode = "409", description = "Карты должны быть активны",
+                    @ApiResponse(responseCode = "409", description = "Карты должны быть активны, либо ключ идемпотентности "
+                            + "использован для другого запроса или запрос ещё выполняется",
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = APIResponse.class)))
@@ -61,7 +76,54 @@ public interface TransferController {
     @PreAuthorize("#userId == authentication.principal.id and #request.toCardId != #request.fromCardId")
     ResponseEntity<APIResponse<TransferUserDto>> transfer(
             @PathVariable Long userId,
-            @RequestBody TransferUserRequest request
+            @RequestBody TransferUserRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    );
+
+    /**
+     * Выполнить пакет переводов средств между картами.
+     *
+     * @param userId         идентификатор пользователя
+     * @param request        пакет переводов и режим выполнения
+     * @param idempotencyKey необязательный ключ идемпотентности: повтор с тем же ключом
+     *                       возвращает сохранённый ответ без повторного выполнения пакета
+     * @return результаты по каждому переводу пакета
+     */
+    @Operation(
+            summary = "Выполнить пакет переводов",
+            description = "Выполняет до 5000 переводов одним запросом. "
+                    + "В режиме ALL_OR_NOTHING ошибка в любом переводе отклоняет весь пакет, "
+                    + "в режиме BEST_EFFORT выполняются все корректные переводы. "
+                    + "Перевод с карты другого пользователя отклоняется как ошибочный",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Пакет выполнен (результаты по каждому переводу)",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Пакет пуст или слишком велик",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет прав на выполнение операции",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Ключ идемпотентности использован для другого запроса или запрос ещё выполняется",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "422", description = "Пакет ALL_OR_NOTHING отклонён (результаты по каждому переводу)",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @PostMapping("/user/{userId}/batch")
+    @PreAuthorize("#userId == authentication.principal.id")
+    ResponseEntity<APIResponse<BatchTransferResultDTO>> transferBatch(
+            @PathVariable Long userId,
+            @RequestBody BatchTransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     );
 
     /**
@@ -122,6 +184,117 @@ public interface TransferController {
             @RequestParam(defaultValue = "5") int size
     );
 
+    /**
+     * Получить все переводы по курсору (для администратора).
+     *
+     * @param cursor       курсор следующей страницы из предыдущего ответа; без него возвращается первая страница
+     * @param size         количество элементов на странице
+     * @param includeTotal подсчитать общее количество переводов
+     * @return страница переводов от новых к старым
+     */
+    @Operation(
+            summary = "Все переводы по курсору (администратор)",
+            description = "Keyset-пагинация по времени создания: время ответа не зависит от глубины страницы. "
+                    + "Общее количество подсчитывается только при includeTotal=true",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница переводов получена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @GetMapping("/all/cursor")
+    ResponseEntity<APIResponse<CursorPageDTO<TransferUserDto>>> getAllByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    );
+
+    /**
+     * Получить переводы пользователя по курсору.
+     *
+     * @param userId       идентификатор пользователя
+     * @param cursor       курсор следующей страницы из предыдущего ответа; без него возвращается первая страница
+     * @param size         количество элементов на странице
+     * @param includeTotal подсчитать общее количество переводов пользователя
+     * @return страница переводов пользователя от новых к старым
+     */
+    @Operation(
+            summary = "Переводы пользователя по курсору",
+            description = "Keyset-пагинация истории переводов пользователя: время ответа не зависит от глубины страницы. "
+                    + "Общее количество подсчитывается только при includeTotal=true",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница истории переводов получена",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "403", description = "Попытка доступа к чужой истории переводов",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @GetMapping("/by-user/{userId}/cursor")
+    @PreAuthorize("#userId == authentication.principal.id")
+    ResponseEntity<APIResponse<CursorPageDTO<TransferUserDto>>> getAllByUserCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    );
+
+    /**
+     * Выгрузить переводы за период (для администратора).
+     *
+     * @param from    начало периода (включительно), ISO-8601
+     * @param to      конец периода (не включительно), ISO-8601
+     * @param status  статус переводов; без него выгружаются переводы в любом статусе
+     * @param format  формат выгрузки
+     * @param request текущий запрос; для него продлевается таймаут асинхронной обработки
+     * @return поток переводов в порядке создания
+     */
+    @Operation(
+            summary = "Выгрузка переводов (администратор)",
+            description = "Потоково выгружает все переводы за период в формате NDJSON или CSV. "
+                    + "Строки передаются по мере чтения из базы, объём выгрузки не ограничен",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Выгрузка переводов",
+                            content = {
+                                    @Content(mediaType = "application/x-ndjson"),
+                                    @Content(mediaType = "text/csv")}),
+                    @ApiResponse(responseCode = "400", description = "Некорректный период выгрузки",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = APIResponse.class)))
+            }
+    )
+    @Secured("ROLE_ADMIN")
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) TransferStatus status,
+            @RequestParam(defaultValue = "NDJSON") TransferExportFormat format,
+            @Parameter(hidden = true) HttpServletRequest request
+    );
+
     /**
      * Получить перевод по идентификатору (для администратора).
      *
@@ -1,12 +1,12 @@
 package com.example.bankcards.dto.payload;
 
 import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -49,5 +49,5 @@ public class BankCardDTO {
     /**
      * Баланс карты.
      */
-    private BigDecimal balance;
+    private Money balance;
 }
@@ -0,0 +1,55 @@
+package com.example.bankcards.dto.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO результата отдельного перевода в пакете.
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferItemResultDTO {
+
+    /**
+     * Порядковый номер перевода в запросе (с нуля).
+     */
+    private int index;
+
+    /**
+     * ID карты-отправителя.
+     */
+    private Long fromCardId;
+
+    /**
+     * ID карты-получателя.
+     */
+    private Long toCardId;
+
+    /**
+     * Сумма перевода.
+     */
+    private BigDecimal amount;
+
+    /**
+     * Выполнен ли перевод.
+     */
+    private boolean success;
+
+    /**
+     * ID созданного перевода (только для выполненных).
+     */
+    private Long transactionId;
+
+    /**
+     * Причина отказа (только для невыполненных).
+     */
+    private String error;
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.dto.payload;
+
+import com.example.bankcards.dto.requests.BatchTransferMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO результата пакетного перевода.
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResultDTO {
+
+    /**
+     * Режим, в котором выполнялся пакет.
+     */
+    private BatchTransferMode mode;
+
+    /**
+     * Применён ли пакет (в режиме {@link BatchTransferMode#ALL_OR_NOTHING}
+     * {@code false}, если хотя бы один перевод не прошёл проверку).
+     */
+    private boolean applied;
+
+    /**
+     * Количество выполненных переводов.
+     */
+    private int succeeded;
+
+    /**
+     * Количество невыполненных переводов.
+     */
+    private int failed;
+
+    /**
+     * Результаты по каждому переводу в порядке запроса.
+     */
+    private List<BatchTransferItemResultDTO> items;
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.dto.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO состояния задания массового выпуска карт.
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkIssueJobDTO {
+
+    /**
+     * Идентификатор задания.
+     */
+    private UUID jobId;
+
+    /**
+     * Владелец выпускаемых карт.
+     */
+    private Long ownerId;
+
+    /**
+     * Состояние задания.
+     */
+    private BulkIssueStatus status;
+
+    /**
+     * Запрошенное количество карт.
+     */
+    private int requested;
+
+    /**
+     * Количество выпущенных и зафиксированных в базе карт.
+     */
+    private int issued;
+
+    /**
+     * Средняя скорость выпуска с момента запуска, карт в секунду.
+     */
+    private double cardsPerSecond;
+
+    /**
+     * Время запуска.
+     */
+    private Instant startedAt;
+
+    /**
+     * Время завершения ({@code null}, пока задание выполняется).
+     */
+    private Instant finishedAt;
+
+    /**
+     * Причина остановки для {@link BulkIssueStatus#FAILED}.
+     */
+    private String error;
+}
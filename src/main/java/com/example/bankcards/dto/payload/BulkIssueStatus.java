@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.payload;
+
+/**
+ * Состояние задания массового выпуска карт.
+ *
+ * @author ksenya
+ */
+public enum BulkIssueStatus {
+    /** Задание выполняется. */
+    RUNNING,
+    /** Выпущены все карты. */
+    COMPLETED,
+    /** Задание остановлено ошибкой; зафиксированные порции карт сохранены. */
+    FAILED
+}
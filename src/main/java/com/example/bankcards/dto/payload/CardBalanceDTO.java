@@ -1,11 +1,11 @@
 package com.example.bankcards.dto.payload;
 
+import com.example.bankcards.entity.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -28,7 +28,7 @@ public class CardBalanceDTO {
     /**
      * Текущий баланс карты.
      */
-    private BigDecimal balance;
+    private Money balance;
 
     /**
      * Маскированный номер карты (например, **** **** **** 1234).
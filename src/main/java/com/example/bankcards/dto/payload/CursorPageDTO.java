@@ -0,0 +1,49 @@
+package com.example.bankcards.dto.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO страницы, полученной keyset-пагинацией.
+ *
+ * <p>Для получения следующей страницы клиент передаёт {@link #nextCursor}
+ * в параметре {@code cursor}. Курсор непрозрачен и не предназначен для разбора клиентом.</p>
+ *
+ * @param <T> тип элементов страницы
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+
+    /**
+     * Элементы страницы.
+     */
+    private List<T> content;
+
+    /**
+     * Количество элементов на странице.
+     */
+    private int size;
+
+    /**
+     * Есть ли следующая страница.
+     */
+    private boolean hasNext;
+
+    /**
+     * Курсор следующей страницы ({@code null}, если страница последняя).
+     */
+    private String nextCursor;
+
+    /**
+     * Общее количество элементов ({@code null}, если подсчёт не запрашивался).
+     */
+    private Long totalElements;
+}
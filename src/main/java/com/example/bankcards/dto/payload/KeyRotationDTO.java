@@ -0,0 +1,81 @@
+package com.example.bankcards.dto.payload;
+
+import com.example.bankcards.entity.bankcard.KeyRotationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO состояния перешифрования номеров карт новым ключом.
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class KeyRotationDTO {
+
+    /**
+     * Id ключа, которым перешифровываются номера.
+     */
+    private int keyId;
+
+    /**
+     * Состояние перешифрования.
+     */
+    private KeyRotationStatus status;
+
+    /**
+     * Выполняется ли перешифрование на этом экземпляре приложения.
+     */
+    private boolean running;
+
+    /**
+     * Экземпляр приложения, арендовавший выполняющееся перешифрование.
+     */
+    private String owner;
+
+    /**
+     * Последний просмотренный идентификатор карты (контрольная точка).
+     */
+    private long lastCardId;
+
+    /**
+     * Просмотрено записей.
+     */
+    private long scanned;
+
+    /**
+     * Перешифровано записей.
+     */
+    private long rotated;
+
+    /**
+     * Средняя скорость просмотра с последнего запуска на этом экземпляре, записей в секунду.
+     */
+    private double rowsPerSecond;
+
+    /**
+     * Время запуска с начала таблицы.
+     */
+    private Instant startedAt;
+
+    /**
+     * Время последней сохранённой порции.
+     */
+    private Instant updatedAt;
+
+    /**
+     * Время завершения или остановки.
+     */
+    private Instant finishedAt;
+
+    /**
+     * Причина остановки для {@link KeyRotationStatus#FAILED}.
+     */
+    private String error;
+}
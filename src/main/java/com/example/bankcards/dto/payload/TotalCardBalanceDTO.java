@@ -1,9 +1,9 @@
 package com.example.bankcards.dto.payload;
 
+import com.example.bankcards.entity.money.Money;
 import lombok.Builder;
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -29,5 +29,5 @@ public class TotalCardBalanceDTO {
     /**
      * Общая сумма средств на всех картах пользователя.
      */
-    private BigDecimal totalBalance;
+    private Money totalBalance;
 }
@@ -1,12 +1,12 @@
 package com.example.bankcards.dto.payload;
 
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.transfer.TransferStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 /**
@@ -43,7 +43,7 @@ public class TransferUserDto {
     /**
      * Сумма перевода.
      */
-    private BigDecimal amount;
+    private Money amount;
 
     /**
      * Статус перевода (например: PROCESS, COMPLETED, CANCELLED).
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.requests;
+
+/**
+ * Режим выполнения пакета переводов.
+ *
+ * @author ksenya
+ */
+public enum BatchTransferMode {
+
+    /**
+     * Пакет выполняется целиком или не выполняется вовсе:
+     * ошибка в любом переводе отклоняет весь пакет.
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * Выполняются все корректные переводы, ошибочные пропускаются
+     * и возвращаются с описанием причины.
+     */
+    BEST_EFFORT
+}
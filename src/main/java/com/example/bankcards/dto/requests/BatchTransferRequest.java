@@ -0,0 +1,35 @@
+package com.example.bankcards.dto.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO-запрос для пакетного перевода средств между картами.
+ * <p>
+ * Используется в методе {@code /api/v1/transfer/user/{userId}/batch}.
+ * Переводы выполняются в порядке следования в списке.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferRequest {
+
+    /**
+     * Режим выполнения пакета. По умолчанию {@link BatchTransferMode#ALL_OR_NOTHING}.
+     */
+    @Builder.Default
+    private BatchTransferMode mode = BatchTransferMode.ALL_OR_NOTHING;
+
+    /**
+     * Переводы пакета.
+     */
+    private List<TransferUserRequest> transfers;
+}
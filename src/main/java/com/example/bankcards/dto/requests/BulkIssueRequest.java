@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Запрос на массовый выпуск карт одному владельцу.
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkIssueRequest {
+
+    /**
+     * Идентификатор пользователя, которому будут принадлежать карты.
+     */
+    private Long ownerId;
+
+    /**
+     * Количество карт (не больше {@code card.issuance.max-cards}).
+     */
+    private int count;
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Запрос на поиск карты по полному номеру.
+ *
+ * <p>Номер передаётся в теле запроса, а не в пути, чтобы не попадать в журналы доступа.</p>
+ *
+ * @author ksenya
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FindCardByNumberRequest {
+
+    /**
+     * Полный номер карты, допускаются пробелы.
+     */
+    private String cardNumber;
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.dto.requests;
+
+/**
+ * Формат выгрузки переводов.
+ *
+ * @author ksenya
+ */
+public enum TransferExportFormat {
+
+    /**
+     * Одна JSON-запись перевода на строку.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * CSV с заголовком; карты представлены идентификаторами.
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    TransferExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.bankcards.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
@@ -53,6 +55,26 @@ public class APIResponse<T> {
         this.status = status.value();
     }
 
+    /**
+     * Конструктор для восстановления ответа из JSON
+     * (например, при повторной выдаче сохранённого ответа).
+     *
+     * @param success флаг успеха операции
+     * @param message сообщение для клиента
+     * @param data    полезные данные
+     * @param status  HTTP-статус в числовом виде
+     */
+    @JsonCreator
+    public APIResponse(@JsonProperty("success") boolean success,
+                       @JsonProperty("message") String message,
+                       @JsonProperty("data") T data,
+                       @JsonProperty("status") int status) {
+        this.success = success;
+        this.message = message;
+        this.data = data;
+        this.status = status;
+    }
+
     /**
      * Создаёт успешный ответ.
      *
@@ -1,12 +1,12 @@
 package com.example.bankcards.entity.bankcard;
 
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.User;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.Pattern;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -21,7 +21,7 @@ import java.time.LocalDate;
  *         <ul>
  *             <li>{@link Status#ACTIVE} — статус карты;</li>
  *             <li>+5 лет от текущей даты — срок действия;</li>
- *             <li>{@link BigDecimal#ZERO} — начальный баланс.</li>
+ *             <li>{@link Money#ZERO} — начальный баланс.</li>
  *         </ul>
  *     </li>
  * </ul>
@@ -38,10 +38,12 @@ import java.time.LocalDate;
 public class BankCard {
 
     /**
-     * Уникальный идентификатор карты.
+     * Уникальный идентификатор карты. Выдаётся из последовательности {@code bank_card_seq}
+     * блоками по 50, поэтому вставки карт группируются в JDBC-пакеты.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_card_seq")
+    @SequenceGenerator(name = "bank_card_seq", sequenceName = "bank_card_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -81,7 +83,15 @@ public class BankCard {
      * Баланс карты.
      */
     @Column(name = "balance", nullable = false)
-    private BigDecimal balance;
+    private Money balance;
+
+    /**
+     * Версия строки для оптимистической блокировки.
+     * Увеличивается при каждом изменении карты.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 
     /**
      * Метод обратного вызова JPA.
@@ -96,7 +106,7 @@ public class BankCard {
             expirationDate = LocalDate.now().plusYears(5);
         }
         if (balance == null) {
-            balance = BigDecimal.ZERO;
+            balance = Money.ZERO;
         }
     }
 }
@@ -0,0 +1,77 @@
+package com.example.bankcards.entity.bankcard;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Контрольная точка перешифрования {@link CardPanVault} ключом {@link #keyId}.
+ * <p>
+ * Записи обходятся по возрастанию {@code card_id}; после каждой порции в той же транзакции, что и
+ * обновлённые шифротексты, сохраняется последний просмотренный {@code card_id}, поэтому после остановки
+ * или сбоя перешифрование продолжается с этой позиции.
+ * </p>
+ * <p>
+ * Выполняющееся задание арендовано экземпляром {@link #owner} до {@link #leaseUntil}; аренда продлевается
+ * с каждой порцией. Уникальный индекс {@code uq_card_key_rotation_running} допускает только одну строку
+ * в состоянии {@link KeyRotationStatus#RUNNING}, поэтому во всём кластере выполняется одно перешифрование.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Entity
+@Table(name = "card_key_rotation")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardKeyRotation {
+
+    /** Id ключа, которым перешифровываются номера. */
+    @Id
+    @Column(name = "key_id")
+    private Integer keyId;
+
+    /** Состояние перешифрования. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 32)
+    private KeyRotationStatus status;
+
+    /** Последний просмотренный идентификатор карты. */
+    @Column(name = "last_card_id", nullable = false)
+    private long lastCardId;
+
+    /** Просмотрено записей. */
+    @Column(name = "scanned", nullable = false)
+    private long scanned;
+
+    /** Перешифровано записей. */
+    @Column(name = "rotated", nullable = false)
+    private long rotated;
+
+    /** Причина остановки при {@link KeyRotationStatus#FAILED}. */
+    @Column(name = "error", length = 512)
+    private String error;
+
+    /** Время запуска с начала таблицы. */
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    /** Время последней сохранённой порции. */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /** Время завершения или остановки. */
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    /** Экземпляр приложения, выполняющий перешифрование. */
+    @Column(name = "owner", length = 64)
+    private String owner;
+
+    /** Срок аренды задания экземпляром {@link #owner}. */
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+}
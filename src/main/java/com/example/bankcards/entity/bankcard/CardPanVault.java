@@ -0,0 +1,54 @@
+package com.example.bankcards.entity.bankcard;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Зашифрованный номер карты (PAN) со слепым индексом.
+ * <p>
+ * В {@link BankCard} хранится только маска номера; полный номер лежит здесь в зашифрованном виде
+ * ({@code CardEncryptionUtil}) вместе с HMAC-индексом ({@code CardNumberBlindIndex}). Уникальное
+ * ограничение на индекс исключает повторную выдачу номера, а поиск карты по полному номеру
+ * выполняется по индексу без расшифровки. Первичный ключ совпадает с идентификатором карты,
+ * строка удаляется вместе с картой.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Entity
+@Table(
+        name = "card_pan_vault",
+        uniqueConstraints = @UniqueConstraint(
+                name = CardPanVault.PAN_INDEX_CONSTRAINT,
+                columnNames = "pan_index"
+        )
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardPanVault {
+
+    /** Уникальное ограничение на слепой индекс номера. */
+    public static final String PAN_INDEX_CONSTRAINT = "uq_card_pan_vault_pan_index";
+
+    /** Идентификатор карты. */
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    /** Карта, которой принадлежит номер. */
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "card_id")
+    private BankCard card;
+
+    /** Номер карты, зашифрованный {@code CardEncryptionUtil} (Base64). */
+    @Column(name = "pan_ciphertext", nullable = false)
+    private String panCiphertext;
+
+    /** HMAC-SHA256 номера карты (hex). */
+    @Column(name = "pan_index", nullable = false, length = 64)
+    private String panIndex;
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.entity.bankcard;
+
+/**
+ * Состояние перешифрования номеров карт новым ключом.
+ *
+ * @author ksenya
+ */
+public enum KeyRotationStatus {
+
+    /**
+     * Перешифрование выполняется.
+     */
+    RUNNING,
+
+    /**
+     * Остановлено по запросу; продолжается с сохранённой позиции.
+     */
+    PAUSED,
+
+    /**
+     * Все записи просмотрены.
+     */
+    COMPLETED,
+
+    /**
+     * Остановлено ошибкой или истекла аренда упавшего экземпляра; продолжается с сохранённой позиции.
+     */
+    FAILED
+}
@@ -26,10 +26,11 @@ import java.time.LocalDateTime;
 public class CardRequest {
 
     /**
-     * Уникальный идентификатор заявки.
+     * Уникальный идентификатор заявки (последовательность {@code block_requests_seq}, блоки по 50).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "block_requests_seq")
+    @SequenceGenerator(name = "block_requests_seq", sequenceName = "block_requests_seq", allocationSize = 50)
     private Long id;
 
     /**
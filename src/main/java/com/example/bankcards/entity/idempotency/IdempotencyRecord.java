@@ -0,0 +1,84 @@
+package com.example.bankcards.entity.idempotency;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Запись о запросе, выполненном с заголовком {@code Idempotency-Key}.
+ * <p>
+ * Ключ уникален в пределах области ({@link #scope}), например {@code transfer:user:7}.
+ * Хранит хэш тела запроса, чтобы отличать повтор от другого запроса с тем же ключом,
+ * и сериализованный {@code APIResponse} для повторной выдачи.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Entity
+@Table(
+        name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uq_idempotency_keys_scope_key",
+                columnNames = {"scope", "idempotency_key"}
+        )
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /** Уникальный идентификатор записи. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Область действия ключа (операция и ресурс). */
+    @Column(name = "scope", nullable = false, length = 128)
+    private String scope;
+
+    /** Значение заголовка {@code Idempotency-Key}. */
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String idempotencyKey;
+
+    /** SHA-256 тела запроса (hex). */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /** Статус обработки. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 32)
+    private IdempotencyStatus status;
+
+    /** HTTP-статус сохранённого ответа. */
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    /** Сохранённый ответ в формате JSON. */
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    /** Время захвата ключа. */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Срок аренды ключа запросом в статусе {@link IdempotencyStatus#IN_PROGRESS}.
+     * После него ключ может захватить повтор запроса: считается, что выполнявший его узел упал.
+     */
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    /**
+     * Токен текущего захвата ключа. Записывается при каждом захвате и перехвате;
+     * сохранить ответ или освободить ключ может только запрос с этим токеном.
+     */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    /** Время, после которого запись может быть удалена. */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
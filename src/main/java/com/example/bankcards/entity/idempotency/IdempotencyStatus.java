@@ -0,0 +1,19 @@
+package com.example.bankcards.entity.idempotency;
+
+/**
+ * Статус обработки запроса с ключом идемпотентности.
+ *
+ * @author ksenya
+ */
+public enum IdempotencyStatus {
+
+    /**
+     * Ключ захвачен, запрос выполняется.
+     */
+    IN_PROGRESS,
+
+    /**
+     * Запрос выполнен, ответ сохранён для повторной выдачи.
+     */
+    COMPLETED
+}
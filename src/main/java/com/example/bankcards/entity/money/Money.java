@@ -0,0 +1,216 @@
+package com.example.bankcards.entity.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежная сумма с фиксированной точностью в два знака после запятой.
+ * <p>
+ * Хранит сумму в минимальных единицах (копейках) в {@code long}, поэтому сравнение
+ * и арифметика не создают промежуточных {@link BigDecimal}. Все операции проверяют
+ * переполнение и бросают {@link ArithmeticException} вместо молчаливого искажения суммы.
+ * </p>
+ *
+ * <p>В базе данных хранится в колонках {@code NUMERIC(38,2)} через {@link MoneyConverter},
+ * в JSON записывается числом с двумя знаками после запятой, например {@code 100.50}.</p>
+ *
+ * @author ksenya
+ */
+@Schema(type = "number", format = "decimal", example = "100.50")
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    /** Количество знаков после запятой. */
+    public static final int SCALE = 2;
+
+    /** Нулевая сумма. */
+    public static final Money ZERO = new Money(0L);
+
+    private static final long UNITS_PER_MAJOR = 100L;
+
+    /** Длина самой длинной записи: знак, 17 цифр целой части, точка и две цифры. */
+    private static final int MAX_CHARS = 21;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Сумма, заданная в минимальных единицах.
+     *
+     * @param minorUnits сумма в копейках
+     * @return сумма
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0L ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Сумма в целых единицах валюты.
+     *
+     * @param majorUnits сумма в рублях
+     * @return сумма
+     * @throws ArithmeticException при переполнении
+     */
+    public static Money of(long majorUnits) {
+        return ofMinor(Math.multiplyExact(majorUnits, UNITS_PER_MAJOR));
+    }
+
+    /**
+     * Преобразует {@link BigDecimal} без округления.
+     *
+     * @param amount сумма
+     * @return сумма или {@code null}, если {@code amount == null}
+     * @throws ArithmeticException если у суммы больше двух знаков после запятой
+     *                             или она не помещается в {@code long} копеек
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        BigDecimal scaled = amount.scale() == SCALE ? amount : amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        return ofMinor(scaled.unscaledValue().longValueExact());
+    }
+
+    /**
+     * Разбирает строковое представление суммы, например {@code "100.50"}.
+     *
+     * @param amount сумма
+     * @return сумма
+     * @throws NumberFormatException если строка не является числом
+     * @throws ArithmeticException   если у суммы больше двух знаков после запятой или она слишком велика
+     */
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * @return сумма в минимальных единицах (копейках)
+     */
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    /**
+     * @return сумма в виде {@link BigDecimal} с масштабом {@value #SCALE}
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && minorUnits == other.minorUnits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_CHARS];
+        return new String(buffer, 0, format(buffer));
+    }
+
+    /**
+     * Записывает сумму в буфер в виде {@code [-]целые.дд} и возвращает число записанных символов.
+     */
+    private int format(char[] buffer) {
+        long value = minorUnits;
+        boolean negative = value < 0;
+        int position = buffer.length;
+        for (int i = 0; i < SCALE; i++) {
+            buffer[--position] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        }
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        int length = buffer.length - position;
+        System.arraycopy(buffer, position, buffer, 0, length);
+        return length;
+    }
+
+    /**
+     * Записывает сумму JSON-числом без промежуточного {@link BigDecimal}.
+     */
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            char[] buffer = new char[MAX_CHARS];
+            gen.writeNumber(buffer, 0, value.format(buffer));
+        }
+    }
+
+    /**
+     * Читает сумму из JSON-числа или строки; больше двух знаков после запятой не допускается.
+     */
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            try {
+                if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                    return of(p.getLongValue());
+                }
+                if (p.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+                    return of(p.getDecimalValue());
+                }
+                if (p.currentToken() == JsonToken.VALUE_STRING) {
+                    return parse(p.getText().trim());
+                }
+            } catch (ArithmeticException | NumberFormatException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(),
+                        "Сумма должна содержать не более двух знаков после запятой");
+            }
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+        }
+    }
+}
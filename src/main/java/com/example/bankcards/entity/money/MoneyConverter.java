@@ -0,0 +1,29 @@
+package com.example.bankcards.entity.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Преобразует {@link Money} в значение колонки {@code NUMERIC(38,2)} и обратно.
+ * <p>
+ * Применяется автоматически ко всем атрибутам типа {@link Money}. Значение колонки,
+ * не помещающееся в {@code long} копеек, приводит к {@link ArithmeticException} при чтении.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money attribute) {
+        return attribute != null ? attribute.toBigDecimal() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal dbData) {
+        return Money.of(dbData);
+    }
+}
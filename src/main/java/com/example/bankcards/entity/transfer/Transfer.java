@@ -1,12 +1,11 @@
 package com.example.bankcards.entity.transfer;
 
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.User;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 /**
@@ -36,9 +35,10 @@ import java.time.Instant;
 @AllArgsConstructor
 public class Transfer {
 
-    /** Уникальный идентификатор перевода. */
+    /** Уникальный идентификатор перевода (последовательность {@code transfers_seq}, блоки по 50). */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_seq", allocationSize = 50)
     private Long id;
 
     /** Пользователь, инициировавший перевод. */
@@ -56,10 +56,9 @@ public class Transfer {
     @JoinColumn(name = "to_card_id", nullable = false)
     private BankCard toCard;
 
-    /** Сумма перевода (не может быть отрицательной). */
-    @PositiveOrZero
+    /** Сумма перевода (не может быть отрицательной, проверяется при выполнении перевода). */
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     /** Статус перевода (PROCESS, COMPLETED, CANCELLED). */
     @Enumerated(EnumType.STRING)
@@ -19,7 +19,8 @@ import java.util.Set;
  *     <li>{@link #username} — уникальное имя пользователя;</li>
  *     <li>{@link #password} — пароль, хранящийся в зашифрованном виде;</li>
  *     <li>{@link #roles} — набор ролей, определяющих права доступа;</li>
- *     <li>{@link #bankCardList} — список карт, принадлежащих пользователю.</li>
+ *     <li>{@link #bankCardList} — список карт, принадлежащих пользователю;</li>
+ *     <li>{@link #tokenVersion} — версия выданных JWT, используемая для их отзыва.</li>
  * </ul>
  *
  * По умолчанию каждому новому пользователю при создании присваивается роль {@link Role#USER}.
@@ -68,6 +69,14 @@ public class User {
     @Builder.Default
     private List<BankCard> bankCardList = new java.util.ArrayList<>();
 
+    /**
+     * Версия выданных токенов. Увеличивается при выходе из системы,
+     * после чего ранее выданные JWT считаются отозванными.
+     */
+    @Column(name = "token_version", nullable = false)
+    @Builder.Default
+    private Long tokenVersion = 0L;
+
     /**
      * Устанавливает роль {@link Role#USER} по умолчанию,
      * если роли не заданы явно.
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.ConflictException;
+
+public class CardIssuanceLimitException extends ConflictException {
+    public CardIssuanceLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.ConflictException;
+
+public class CardNumberConflictException extends ConflictException {
+    public CardNumberConflictException(String message) {
+        super(message);
+    }
+}
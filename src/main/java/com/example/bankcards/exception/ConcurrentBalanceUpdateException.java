@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.ConflictException;
+
+public class ConcurrentBalanceUpdateException extends ConflictException {
+    public ConcurrentBalanceUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.ConflictException;
+
+public class IdempotencyConflictException extends ConflictException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.BadRequestException;
+
+public class InvalidAmountException extends BadRequestException {
+    public InvalidAmountException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.BadRequestException;
+
+public class InvalidCardIssuanceException extends BadRequestException {
+    public InvalidCardIssuanceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.BadRequestException;
+
+public class InvalidCursorException extends BadRequestException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.BadRequestException;
+
+public class InvalidIdempotencyKeyException extends BadRequestException {
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
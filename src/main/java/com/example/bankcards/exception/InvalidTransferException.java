@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.BadRequestException;
+
+public class InvalidTransferException extends BadRequestException {
+    public InvalidTransferException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.exception.api.ConflictException;
+
+public class KeyRotationInProgressException extends ConflictException {
+    public KeyRotationInProgressException(String message) {
+        super(message);
+    }
+}
@@ -3,9 +3,13 @@ package com.example.bankcards.mappers;
 import com.example.bankcards.dto.payload.BankCardDTO;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.repository.projection.CardBalanceView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.math.BigDecimal;
+
 /**
  * Mapper для преобразования сущностей {@link BankCard} и DTO {@link BankCardDTO}
  * в {@link CardBalanceDTO}.
@@ -51,4 +55,24 @@ public interface BankCardBalanceMapper {
      */
     @Mapping(source = "cardNumber", target = "maskedCardNumber")
     CardBalanceDTO toDto(BankCardDTO card);
+
+    /**
+     * Конвертирует результат атомарного изменения баланса {@link CardBalanceView} в {@link CardBalanceDTO}.
+     *
+     * @param view состояние карты после {@code UPDATE ... RETURNING}
+     * @return DTO с балансом карты
+     */
+    @Mapping(source = "id", target = "cardId")
+    @Mapping(source = "cardNumber", target = "maskedCardNumber")
+    CardBalanceDTO toDto(CardBalanceView view);
+
+    /**
+     * Баланс из {@code UPDATE ... RETURNING} приходит как {@code NUMERIC} без конвертера JPA.
+     *
+     * @param balance баланс карты
+     * @return баланс в виде {@link Money}
+     */
+    default Money toMoney(BigDecimal balance) {
+        return Money.of(balance);
+    }
 }
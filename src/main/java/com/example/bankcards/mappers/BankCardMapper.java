@@ -2,6 +2,7 @@ package com.example.bankcards.mappers;
 
 import com.example.bankcards.dto.payload.BankCardDTO;
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.repository.projection.CardView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -33,4 +34,13 @@ public interface BankCardMapper {
     @Mapping(source = "owner.id", target = "ownerId")
     @Mapping(source = "id", target = "cardId")
     BankCardDTO toDto(BankCard card);
+
+    /**
+     * Конвертирует проекцию {@link CardView} в {@link BankCardDTO}.
+     *
+     * @param view строка списка карт
+     * @return DTO банковской карты
+     */
+    @Mapping(source = "id", target = "cardId")
+    BankCardDTO toDto(CardView view);
 }
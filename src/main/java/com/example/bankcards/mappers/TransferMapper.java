@@ -2,6 +2,7 @@ package com.example.bankcards.mappers;
 
 import com.example.bankcards.dto.payload.TransferUserDto;
 import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.repository.projection.TransferView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -39,4 +40,26 @@ public interface TransferMapper {
     @Mapping(source = "fromCard", target = "fromCard")
     @Mapping(source = "toCard", target = "toCard")
     TransferUserDto toDto(Transfer transfer);
+
+    /**
+     * Конвертирует проекцию {@link TransferView} в {@link TransferUserDto}.
+     * Колонки карт отправителя и получателя собираются во вложенные {@code fromCard} и {@code toCard}.
+     *
+     * @param view строка списка переводов
+     * @return DTO перевода
+     */
+    @Mapping(source = "id", target = "transactionId")
+    @Mapping(source = "fromCardId", target = "fromCard.cardId")
+    @Mapping(source = "fromCardOwnerId", target = "fromCard.ownerId")
+    @Mapping(source = "fromCardExpirationDate", target = "fromCard.expirationDate")
+    @Mapping(source = "fromCardStatus", target = "fromCard.status")
+    @Mapping(source = "fromCardNumber", target = "fromCard.cardNumber")
+    @Mapping(source = "fromCardBalance", target = "fromCard.balance")
+    @Mapping(source = "toCardId", target = "toCard.cardId")
+    @Mapping(source = "toCardOwnerId", target = "toCard.ownerId")
+    @Mapping(source = "toCardExpirationDate", target = "toCard.expirationDate")
+    @Mapping(source = "toCardStatus", target = "toCard.status")
+    @Mapping(source = "toCardNumber", target = "toCard.cardNumber")
+    @Mapping(source = "toCardBalance", target = "toCard.balance")
+    TransferUserDto toDto(TransferView view);
 }
@@ -0,0 +1,96 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймеры методов контроллеров, сервисов и компонентов безопасности.
+ * <p>
+ * Каждый вызов записывается в таймер своего слоя с тегами {@code class}, {@code method}
+ * и {@code exception} (имя класса исключения или {@code none}):
+ * </p>
+ * <ul>
+ *     <li>{@code app.controller.duration} — методы, объявленные в {@code controller.interfaces};</li>
+ *     <li>{@code app.service.duration} — публичные методы {@code service.impl};</li>
+ *     <li>{@code app.security.duration} — выпуск и проверка JWT ({@code JwtComponent})
+ *         и проверка паролей BCrypt ({@code PasswordEncoder}).</li>
+ * </ul>
+ * <p>
+ * Внутри HTTP-запроса вызов также добавляется в {@link RequestProfile}, поэтому для медленного
+ * запроса видно, сколько времени занял каждый слой. Вызовы методов бина изнутри него самого
+ * через прокси не проходят и не измеряются.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodTimingAspect {
+
+    static final String CONTROLLER_TIMER = "app.controller.duration";
+    static final String SERVICE_TIMER = "app.service.duration";
+    static final String SECURITY_TIMER = "app.security.duration";
+
+    private final MeterRegistry meterRegistry;
+
+    @Pointcut("execution(* com.example.bankcards.controller.interfaces..*.*(..))")
+    void controllerMethods() {
+    }
+
+    @Pointcut("within(com.example.bankcards.service.impl..*) && execution(public * *(..))")
+    void serviceMethods() {
+    }
+
+    @Pointcut("execution(public * com.example.bankcards.security.JwtComponent.*(..))"
+            + " || execution(* org.springframework.security.crypto.password.PasswordEncoder.*(..))")
+    void securityMethods() {
+    }
+
+    @Around("controllerMethods()")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "controller", CONTROLLER_TIMER);
+    }
+
+    @Around("serviceMethods()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service", SERVICE_TIMER);
+    }
+
+    @Around("securityMethods()")
+    public Object timeSecurity(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "security", SECURITY_TIMER);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer, String timerName) throws Throwable {
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String className = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+            String method = joinPoint.getSignature().getName();
+            Timer.builder(timerName)
+                    .tags("class", className, "method", method, "exception", exception)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            RequestProfile profile = RequestProfile.current();
+            if (profile != null) {
+                profile.recordSpan(layer, className + "." + method, elapsed, !"none".equals(exception));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.metrics.SlowRequestRecorder.SlowRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Эндпоинт Actuator {@code /actuator/performance}: сводка по таймерам методов, SQL на запрос
+ * и самым медленным запросам. Доступен только администраторам.
+ *
+ * <ul>
+ *     <li>{@code GET /actuator/performance} — всё вместе;</li>
+ *     <li>{@code GET /actuator/performance/{section}} — один раздел: {@code controllers}, {@code services},
+ *         {@code security}, {@code sql} или {@code slowest};</li>
+ *     <li>{@code DELETE /actuator/performance} — очистка списка самых медленных запросов.</li>
+ * </ul>
+ *
+ * <p>Статистика кэшей публикуется стандартными метриками {@code cache.*} в {@code /actuator/metrics}.</p>
+ *
+ * @author ksenya
+ */
+@Component
+@Endpoint(id = "performance")
+@RequiredArgsConstructor
+public class PerformanceEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    /**
+     * Сводка по методу или запросу.
+     *
+     * @param name    класс и метод или HTTP-метод и шаблон пути
+     * @param count   число вызовов
+     * @param totalMs суммарное время, мс
+     * @param meanMs  среднее время, мс
+     * @param maxMs   максимальное время за последнее окно, мс
+     */
+    public record TimerSummary(String name, long count, double totalMs, double meanMs, double maxMs) {
+    }
+
+    /**
+     * SQL на запрос для одного шаблона пути.
+     *
+     * @param name           HTTP-метод и шаблон пути
+     * @param requests       число запросов
+     * @param meanStatements среднее число SQL-операторов
+     * @param maxStatements  максимальное число SQL-операторов за последнее окно
+     * @param meanSqlMs      среднее время SQL, мс
+     */
+    public record SqlSummary(String name, long requests, double meanStatements, double maxStatements, double meanSqlMs) {
+    }
+
+    @ReadOperation
+    public Map<String, Object> performance() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("controllers", timers(MethodTimingAspect.CONTROLLER_TIMER));
+        result.put("services", timers(MethodTimingAspect.SERVICE_TIMER));
+        result.put("security", timers(MethodTimingAspect.SECURITY_TIMER));
+        result.put("sql", sql());
+        result.put("slowest", slowRequestRecorder.slowest());
+        return result;
+    }
+
+    @ReadOperation
+    public Object section(@Selector String section) {
+        return switch (section) {
+            case "controllers" -> timers(MethodTimingAspect.CONTROLLER_TIMER);
+            case "services" -> timers(MethodTimingAspect.SERVICE_TIMER);
+            case "security" -> timers(MethodTimingAspect.SECURITY_TIMER);
+            case "sql" -> sql();
+            case "slowest" -> slowRequestRecorder.slowest();
+            default -> null;
+        };
+    }
+
+    @DeleteOperation
+    public List<SlowRequest> reset() {
+        List<SlowRequest> slowest = slowRequestRecorder.slowest();
+        slowRequestRecorder.reset();
+        return slowest;
+    }
+
+    /**
+     * Таймеры слоя, сгруппированные по классу и методу, от наибольшего суммарного времени.
+     */
+    private List<TimerSummary> timers(String timerName) {
+        Map<String, TimerSummary> byMethod = new LinkedHashMap<>();
+        for (Timer timer : meterRegistry.find(timerName).timers()) {
+            String name = timer.getId().getTag("class") + "." + timer.getId().getTag("method");
+            TimerSummary current = new TimerSummary(name, timer.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS), 0, timer.max(TimeUnit.MILLISECONDS));
+            byMethod.merge(name, current, (a, b) -> new TimerSummary(name, a.count() + b.count(),
+                    a.totalMs() + b.totalMs(), 0, Math.max(a.maxMs(), b.maxMs())));
+        }
+        return byMethod.values().stream()
+                .map(s -> new TimerSummary(s.name(), s.count(), s.totalMs(),
+                        s.count() == 0 ? 0 : s.totalMs() / s.count(), s.maxMs()))
+                .sorted(Comparator.comparingDouble(TimerSummary::totalMs).reversed())
+                .toList();
+    }
+
+    /**
+     * SQL на запрос по шаблонам пути, от наибольшего среднего числа операторов.
+     */
+    private List<SqlSummary> sql() {
+        return meterRegistry.find(RequestMetricsFilter.SQL_STATEMENTS).summaries().stream()
+                .map(this::sqlSummary)
+                .sorted(Comparator.comparingDouble(SqlSummary::meanStatements).reversed())
+                .toList();
+    }
+
+    private SqlSummary sqlSummary(DistributionSummary statements) {
+        String method = statements.getId().getTag("method");
+        String uri = statements.getId().getTag("uri");
+        Timer duration = meterRegistry.find(RequestMetricsFilter.SQL_DURATION)
+                .tags("method", method, "uri", uri)
+                .timer();
+        return new SqlSummary(method + " " + uri, statements.count(), statements.mean(), statements.max(),
+                duration != null ? duration.mean(TimeUnit.MILLISECONDS) : 0);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Подключение {@link RequestSqlEventListener} ко всем сессиям Hibernate.
+ *
+ * @author ksenya
+ */
+@Configuration(proxyBeanMethods = false)
+public class RequestMetricsConfig {
+
+    /**
+     * Регистрирует слушатель событий сессии через {@code hibernate.session.events.auto}.
+     *
+     * @return {@link HibernatePropertiesCustomizer}
+     */
+    @Bean
+    public HibernatePropertiesCustomizer requestSqlEventListenerCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                RequestSqlEventListener.class.getName());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.config.RequestMetricsProperties;
+import com.example.bankcards.metrics.SlowRequestRecorder.SlowRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Профилирует каждый HTTP-запрос целиком, включая фильтры безопасности.
+ * <p>
+ * Открывает {@link RequestProfile} до цепочки фильтров и по её завершении публикует
+ * (теги {@code method} и {@code uri} — шаблон пути обработчика):
+ * </p>
+ * <ul>
+ *     <li>{@code app.request.sql.statements} — число SQL-операторов на запрос;</li>
+ *     <li>{@code app.request.sql.duration} — время SQL на запрос.</li>
+ * </ul>
+ * <p>
+ * Профиль передаётся в {@link SlowRequestRecorder}. Фильтр стоит раньше Spring Security,
+ * поэтому в длительность входят проверка JWT и BCrypt.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String SQL_STATEMENTS = "app.request.sql.statements";
+    static final String SQL_DURATION = "app.request.sql.duration";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final SlowRequestRecorder slowRequestRecorder;
+    private final RequestMetricsProperties properties;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestProfile profile = RequestProfile.begin(properties.getMaxSpans());
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestProfile.end();
+            record(request, response, profile, elapsed);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response,
+                        RequestProfile profile, long elapsed) {
+        String method = request.getMethod();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+
+        DistributionSummary.builder(SQL_STATEMENTS)
+                .baseUnit("statements")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(profile.sqlStatements());
+        Timer.builder(SQL_DURATION)
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(profile.sqlNanos(), TimeUnit.NANOSECONDS);
+
+        slowRequestRecorder.record(new SlowRequest(
+                Instant.now(),
+                method,
+                uri,
+                request.getRequestURI(),
+                response.getStatus(),
+                elapsed,
+                profile.sqlStatements(),
+                profile.sqlNanos(),
+                profile.spans(),
+                profile.droppedSpans()));
+    }
+}
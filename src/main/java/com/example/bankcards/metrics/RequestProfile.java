@@ -0,0 +1,112 @@
+package com.example.bankcards.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Профиль текущего HTTP-запроса: число и время SQL-операторов и вызовы методов
+ * контроллеров, сервисов и компонентов безопасности с их длительностью.
+ * <p>
+ * Профиль привязан к потоку, обрабатывающему запрос: его открывает {@link RequestMetricsFilter},
+ * SQL учитывает {@link RequestSqlEventListener}, вызовы методов — {@link MethodTimingAspect}.
+ * Работа, выполняемая в других потоках (например, {@code @Async}), в профиль не попадает.
+ * </p>
+ *
+ * @author ksenya
+ */
+public final class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private int droppedSpans;
+    private long sqlStatements;
+    private long sqlNanos;
+
+    private RequestProfile(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Вызов метода внутри запроса.
+     *
+     * @param layer  слой: {@code controller}, {@code service} или {@code security}
+     * @param name   класс и метод, например {@code TransferServiceImpl.transfer}
+     * @param nanos  длительность вызова, нс
+     * @param failed завершился ли вызов исключением
+     */
+    public record Span(String layer, String name, long nanos, boolean failed) {
+    }
+
+    /**
+     * Открывает профиль для текущего потока.
+     *
+     * @param maxSpans сколько вызовов методов сохранять
+     * @return открытый профиль
+     */
+    public static RequestProfile begin(int maxSpans) {
+        RequestProfile profile = new RequestProfile(maxSpans);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * @return профиль текущего запроса или {@code null}, если поток не обрабатывает HTTP-запрос
+     */
+    public static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Отвязывает профиль от текущего потока.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void recordStatement() {
+        sqlStatements++;
+    }
+
+    void recordSqlTime(long nanos) {
+        sqlNanos += nanos;
+    }
+
+    void recordSpan(String layer, String name, long nanos, boolean failed) {
+        if (spans.size() < maxSpans) {
+            spans.add(new Span(layer, name, nanos, failed));
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    /**
+     * @return число подготовленных SQL-операторов
+     */
+    public long sqlStatements() {
+        return sqlStatements;
+    }
+
+    /**
+     * @return время подготовки и выполнения SQL-операторов, нс
+     */
+    public long sqlNanos() {
+        return sqlNanos;
+    }
+
+    /**
+     * @return вызовы методов в порядке завершения
+     */
+    public List<Span> spans() {
+        return Collections.unmodifiableList(spans);
+    }
+
+    /**
+     * @return сколько вызовов не сохранено из-за ограничения {@code request-metrics.max-spans}
+     */
+    public int droppedSpans() {
+        return droppedSpans;
+    }
+}
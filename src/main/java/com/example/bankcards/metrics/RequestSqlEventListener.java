@@ -0,0 +1,61 @@
+package com.example.bankcards.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate, учитывающий SQL-операторы в профиле текущего запроса.
+ * <p>
+ * Подключается ко всем сессиям через {@code hibernate.session.events.auto}
+ * (см. {@link RequestMetricsConfig}). Считается каждый подготовленный оператор,
+ * а время складывается из подготовки, выполнения и отправки пакетов. Операторы вне
+ * HTTP-запроса и выполненные мимо Hibernate (например, через {@code JdbcTemplate}) не учитываются.
+ * </p>
+ *
+ * @author ksenya
+ */
+public class RequestSqlEventListener extends BaseSessionEventListener {
+
+    private long prepareStart;
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        prepareStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.recordStatement();
+            profile.recordSqlTime(System.nanoTime() - prepareStart);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.recordSqlTime(System.nanoTime() - executeStart);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.recordSqlTime(System.nanoTime() - batchStart);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.config.RequestMetricsProperties;
+import com.example.bankcards.metrics.RequestProfile.Span;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранит профили самых медленных HTTP-запросов с момента запуска или последнего сброса.
+ * <p>
+ * Запросы держатся в куче по возрастанию длительности размером {@code request-metrics.slowest-capacity}:
+ * новый запрос вытесняет самый быстрый из сохранённых. Длительность самого быстрого сохранённого
+ * запроса читается без блокировки, поэтому заведомо быстрые запросы отбрасываются сразу.
+ * Куча защищена {@link ReentrantLock}, а не {@code synchronized}, чтобы не закреплять виртуальный
+ * поток за несущим.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Component
+public class SlowRequestRecorder {
+
+    private static final Comparator<SlowRequest> BY_DURATION = Comparator.comparingLong(SlowRequest::durationNanos);
+
+    private final int capacity;
+    private final long thresholdNanos;
+    private final PriorityQueue<SlowRequest> slowest;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Нижняя граница для попадания в список: порог или длительность самого быстрого из сохранённых. */
+    private volatile long floorNanos;
+
+    public SlowRequestRecorder(RequestMetricsProperties properties) {
+        this.capacity = Math.max(1, properties.getSlowestCapacity());
+        this.thresholdNanos = properties.getSlowThreshold().toNanos();
+        this.slowest = new PriorityQueue<>(capacity, BY_DURATION);
+        this.floorNanos = thresholdNanos;
+    }
+
+    /**
+     * Профиль завершённого запроса.
+     *
+     * @param finishedAt    время завершения
+     * @param method        HTTP-метод
+     * @param uri           шаблон пути обработчика, например {@code /api/v1/transfer/user/{userId}}
+     * @param path          фактический путь запроса
+     * @param status        HTTP-статус ответа
+     * @param durationNanos длительность обработки, нс
+     * @param sqlStatements число SQL-операторов
+     * @param sqlNanos      время SQL, нс
+     * @param spans         вызовы методов внутри запроса
+     * @param droppedSpans  число несохранённых вызовов
+     */
+    public record SlowRequest(Instant finishedAt,
+                              String method,
+                              String uri,
+                              String path,
+                              int status,
+                              long durationNanos,
+                              long sqlStatements,
+                              long sqlNanos,
+                              List<Span> spans,
+                              int droppedSpans) {
+    }
+
+    /**
+     * Запоминает запрос, если он медленнее самого быстрого из сохранённых.
+     *
+     * @param request профиль запроса
+     */
+    public void record(SlowRequest request) {
+        if (request.durationNanos() < floorNanos) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (slowest.size() < capacity) {
+                slowest.add(request);
+            } else if (request.durationNanos() > slowest.peek().durationNanos()) {
+                slowest.poll();
+                slowest.add(request);
+            }
+            if (slowest.size() == capacity) {
+                floorNanos = Math.max(thresholdNanos, slowest.peek().durationNanos());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return сохранённые запросы от самого медленного к самому быстрому
+     */
+    public List<SlowRequest> slowest() {
+        List<SlowRequest> result;
+        lock.lock();
+        try {
+            result = new ArrayList<>(slowest);
+        } finally {
+            lock.unlock();
+        }
+        result.sort(BY_DURATION.reversed());
+        return result;
+    }
+
+    /**
+     * Очищает список.
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            slowest.clear();
+            floorNanos = thresholdNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
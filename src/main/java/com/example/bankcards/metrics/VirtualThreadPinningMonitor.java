@@ -0,0 +1,92 @@
+package com.example.bankcards.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Отслеживает закрепление виртуальных потоков за несущими (pinning) в режиме
+ * {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Подписывается на событие JFR {@code jdk.VirtualThreadPinned}, которое JVM выпускает, когда виртуальный
+ * поток блокируется дольше {@code virtual-threads.pinning-threshold} внутри {@code synchronized}
+ * или нативного кадра и не может освободить несущий поток. Каждое событие увеличивает счётчик
+ * {@code app.virtual.pinned} с тегом {@code frame} — первым кадром стека из кода приложения
+ * ({@code external}, если закрепление произошло целиком в библиотеке) — и пишется в журнал со стеком.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.example.bankcards.";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String frame = stackTrace == null ? "external" : stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName())
+                .filter(name -> name.startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse("external");
+
+        Counter.builder("app.virtual.pinned")
+                .description("Закрепления виртуальных потоков за несущими дольше порога")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .increment();
+
+        if (log.isWarnEnabled()) {
+            String stack = stackTrace == null ? "" : stackTrace.getFrames().stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(f -> "\n\tat " + f.getMethod().getType().getName() + "." + f.getMethod().getName()
+                            + ":" + f.getLineNumber())
+                    .collect(Collectors.joining());
+            log.warn("Виртуальный поток закреплён за несущим на {} мс ({}){}",
+                    event.getDuration().toMillis(), frame, stack);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.bankcard.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись выпускаемых карт и их номеров через JDBC batch.
+ * <p>
+ * Для порции карт выполняются два {@code executeBatch} на каждые {@value #BATCH_SIZE} строк:
+ * в {@code bank_card} (с маской номера, нулевым балансом и статусом {@code ACTIVE}) и
+ * в {@code card_pan_vault}. Контекст персистентности не используется, запись идёт в текущей транзакции.
+ * Идентификаторы карт выдаёт значение по умолчанию колонки ({@code nextval('bank_card_seq')}),
+ * как в {@link TransferBatchWriter}. С {@code reWriteBatchedInserts} (профиль {@code jdbc-tuning})
+ * драйвер PostgreSQL отправляет каждый пакет многострочными {@code INSERT}.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBatchWriter {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_CARD_SQL = """
+            INSERT INTO bank_card (owner_id, card_number, expiration_date, status, balance, version)
+            VALUES (?, ?, ?, ?, ?, 0)
+            """;
+
+    private static final String INSERT_VAULT_SQL = """
+            INSERT INTO card_pan_vault (card_id, pan_ciphertext, pan_index)
+            VALUES (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Выпускаемая карта.
+     *
+     * @param maskedNumber  маска номера для {@code bank_card.card_number}
+     * @param panCiphertext зашифрованный номер
+     * @param panIndex      слепой индекс номера
+     */
+    public record NewCard(String maskedNumber, String panCiphertext, String panIndex) {
+    }
+
+    /**
+     * Вставляет карты владельцу.
+     *
+     * @param ownerId        владелец карт
+     * @param expirationDate срок действия
+     * @param cards          карты для вставки
+     */
+    public void insertAll(Long ownerId, LocalDate expirationDate, List<NewCard> cards) {
+        Date expiration = Date.valueOf(expirationDate);
+        for (int from = 0; from < cards.size(); from += BATCH_SIZE) {
+            List<NewCard> chunk = cards.subList(from, Math.min(from + BATCH_SIZE, cards.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_CARD_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ps.setLong(1, ownerId);
+                            ps.setString(2, chunk.get(i).maskedNumber());
+                            ps.setDate(3, expiration);
+                            ps.setString(4, Status.ACTIVE.name());
+                            ps.setBigDecimal(5, BigDecimal.ZERO.setScale(2));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder
+            );
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            jdbcTemplate.batchUpdate(INSERT_VAULT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, ((Number) keys.get(i).get("id")).longValue());
+                    ps.setString(2, chunk.get(i).panCiphertext());
+                    ps.setString(3, chunk.get(i).panIndex());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            });
+        }
+    }
+}
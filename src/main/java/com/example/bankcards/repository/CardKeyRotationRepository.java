@@ -0,0 +1,118 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.bankcard.CardKeyRotation;
+import com.example.bankcards.entity.bankcard.KeyRotationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+/**
+ * Репозиторий контрольных точек перешифрования номеров карт.
+ *
+ * @author ksenya
+ */
+public interface CardKeyRotationRepository extends JpaRepository<CardKeyRotation, Integer> {
+
+    /**
+     * Есть ли задание в указанном состоянии.
+     *
+     * @param status состояние
+     * @return {@code true}, если есть
+     */
+    boolean existsByStatus(KeyRotationStatus status);
+
+    /**
+     * Захватывает контрольную точку для запуска, если задание по ней не выполняется.
+     *
+     * @param keyId      id ключа
+     * @param owner      экземпляр, запускающий задание
+     * @param now        время запуска
+     * @param leaseUntil срок аренды
+     * @return 1, если контрольная точка захвачена этим вызовом, иначе 0
+     */
+    @Modifying
+    @Query("""
+            update CardKeyRotation r
+            set r.status = com.example.bankcards.entity.bankcard.KeyRotationStatus.RUNNING,
+                r.owner = :owner, r.leaseUntil = :leaseUntil, r.updatedAt = :now,
+                r.error = null, r.finishedAt = null
+            where r.keyId = :keyId
+              and r.status <> com.example.bankcards.entity.bankcard.KeyRotationStatus.RUNNING
+            """)
+    int claim(@Param("keyId") Integer keyId,
+              @Param("owner") String owner,
+              @Param("now") Instant now,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Переводит в {@link KeyRotationStatus#FAILED} задания, экземпляр которых перестал продлевать аренду.
+     *
+     * @param error причина
+     * @param now   текущее время
+     * @return число таких заданий
+     */
+    @Modifying
+    @Query("""
+            update CardKeyRotation r
+            set r.status = com.example.bankcards.entity.bankcard.KeyRotationStatus.FAILED,
+                r.error = :error, r.finishedAt = :now, r.owner = null, r.leaseUntil = null
+            where r.status = com.example.bankcards.entity.bankcard.KeyRotationStatus.RUNNING
+              and r.leaseUntil < :now
+            """)
+    int expireLeases(@Param("error") String error, @Param("now") Instant now);
+
+    /**
+     * Сдвигает контрольную точку после порции и продлевает аренду. Вызывается в транзакции порции.
+     *
+     * @param keyId      id ключа
+     * @param owner      экземпляр, выполняющий задание
+     * @param lastCardId последний просмотренный идентификатор карты
+     * @param scanned    просмотрено записей в порции
+     * @param rotated    перешифровано записей в порции
+     * @param now        время сохранения
+     * @param leaseUntil новый срок аренды
+     * @return 1 или 0, если задание остановлено или аренда перешла к другому экземпляру
+     */
+    @Modifying
+    @Query("""
+            update CardKeyRotation r
+            set r.lastCardId = :lastCardId, r.scanned = r.scanned + :scanned,
+                r.rotated = r.rotated + :rotated, r.updatedAt = :now, r.leaseUntil = :leaseUntil
+            where r.keyId = :keyId and r.owner = :owner
+              and r.status = com.example.bankcards.entity.bankcard.KeyRotationStatus.RUNNING
+            """)
+    int advance(@Param("keyId") Integer keyId,
+                @Param("owner") String owner,
+                @Param("lastCardId") long lastCardId,
+                @Param("scanned") long scanned,
+                @Param("rotated") long rotated,
+                @Param("now") Instant now,
+                @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Снимает аренду и сохраняет итог задания.
+     *
+     * @param keyId  id ключа
+     * @param owner  экземпляр, выполнявший задание; {@code null} — любой (остановка с другого экземпляра)
+     * @param status итоговое состояние
+     * @param error  причина для {@link KeyRotationStatus#FAILED}
+     * @param now    время завершения
+     * @return 1 или 0, если задание уже не выполняется этим экземпляром
+     */
+    @Modifying
+    @Query("""
+            update CardKeyRotation r
+            set r.status = :status, r.error = :error, r.updatedAt = :now, r.finishedAt = :now,
+                r.owner = null, r.leaseUntil = null
+            where r.keyId = :keyId and (:owner is null or r.owner = :owner)
+              and r.status = com.example.bankcards.entity.bankcard.KeyRotationStatus.RUNNING
+            """)
+    int release(@Param("keyId") Integer keyId,
+                @Param("owner") String owner,
+                @Param("status") KeyRotationStatus status,
+                @Param("error") String error,
+                @Param("now") Instant now);
+}
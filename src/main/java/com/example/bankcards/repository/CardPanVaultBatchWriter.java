@@ -0,0 +1,61 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Пакетное обновление шифротекстов в {@code card_pan_vault} через JDBC batch.
+ * <p>
+ * Строка обновляется по первичному ключу и только если её шифротекст не изменился с момента чтения,
+ * поэтому запись, которую уже перешифровал другой процесс, не перезаписывается. Блокируются только
+ * обновляемые строки и только до конца текущей транзакции.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardPanVaultBatchWriter {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_SQL = """
+            UPDATE card_pan_vault SET pan_ciphertext = ?
+            WHERE card_id = ? AND pan_ciphertext = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Новый шифротекст номера.
+     *
+     * @param cardId        идентификатор карты
+     * @param oldCiphertext прочитанный шифротекст
+     * @param newCiphertext шифротекст под новым ключом
+     */
+    public record ReEncryptedPan(long cardId, String oldCiphertext, String newCiphertext) {
+    }
+
+    /**
+     * Записывает новые шифротексты в текущей транзакции.
+     *
+     * @param pans перешифрованные номера
+     * @return число обновлённых строк
+     */
+    public int updateAll(List<ReEncryptedPan> pans) {
+        int updated = 0;
+        for (int[] batch : jdbcTemplate.batchUpdate(UPDATE_SQL, pans, BATCH_SIZE, (ps, pan) -> {
+            ps.setString(1, pan.newCiphertext());
+            ps.setLong(2, pan.cardId());
+            ps.setString(3, pan.oldCiphertext());
+        })) {
+            for (int rows : batch) {
+                updated += rows > 0 ? rows : 0;
+            }
+        }
+        return updated;
+    }
+}
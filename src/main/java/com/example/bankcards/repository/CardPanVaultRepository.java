@@ -0,0 +1,69 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.CardPanVault;
+import com.example.bankcards.repository.projection.PanCiphertextView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Репозиторий зашифрованных номеров карт ({@link CardPanVault}).
+ * <p>
+ * Поиск выполняется по слепому индексу номера, который покрыт уникальным индексом
+ * {@code uq_card_pan_vault_pan_index}.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Repository
+public interface CardPanVaultRepository extends JpaRepository<CardPanVault, Long> {
+
+    /**
+     * Проверяет, выдан ли уже номер с указанным слепым индексом.
+     *
+     * @param panIndex слепой индекс номера
+     * @return {@code true}, если номер уже принадлежит какой-либо карте
+     */
+    boolean existsByPanIndex(String panIndex);
+
+    /**
+     * Находит карту по слепому индексу её номера.
+     *
+     * @param panIndex слепой индекс номера
+     * @return {@link Optional} с картой, если найдена
+     */
+    @Query("select v.card from CardPanVault v where v.panIndex = :panIndex")
+    Optional<BankCard> findCardByPanIndex(@Param("panIndex") String panIndex);
+
+    /**
+     * Отбирает из переданных слепых индексов те, что уже выданы.
+     *
+     * @param panIndexes слепые индексы проверяемых номеров
+     * @return индексы, которые уже есть в хранилище
+     */
+    @Query("select v.panIndex from CardPanVault v where v.panIndex in :panIndexes")
+    Set<String> findExistingPanIndexes(@Param("panIndexes") Collection<String> panIndexes);
+
+    /**
+     * Читает порцию шифротекстов по возрастанию идентификатора карты (по первичному ключу).
+     *
+     * @param afterCardId идентификатор, после которого начинается порция
+     * @param pageable    размер порции (берётся первая страница)
+     * @return идентификаторы карт и шифротексты номеров
+     */
+    @Query("""
+            select v.cardId as cardId, v.panCiphertext as panCiphertext
+            from CardPanVault v
+            where v.cardId > :afterCardId
+            order by v.cardId
+            """)
+    List<PanCiphertextView> findCiphertextsAfter(@Param("afterCardId") Long afterCardId, Pageable pageable);
+}
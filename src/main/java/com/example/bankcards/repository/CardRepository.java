@@ -1,12 +1,20 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,6 +65,36 @@ public interface CardRepository extends JpaRepository<BankCard, Long> {
     @NonNull
     Page<BankCard> findAll(@NonNull Pageable request);
 
+    /**
+     * Возвращает все карты постранично в виде проекции.
+     *
+     * @param request параметры пагинации
+     * @return страница карт
+     */
+    @Query(value = """
+            select c.id as id, c.owner.id as ownerId, c.expirationDate as expirationDate,
+                   c.status as status, c.cardNumber as cardNumber, c.balance as balance
+            from BankCard c
+            """,
+            countQuery = "select count(c) from BankCard c")
+    Page<CardView> findAllViews(Pageable request);
+
+    /**
+     * Находит карты пользователя постранично в виде проекции.
+     *
+     * @param ownerId идентификатор владельца
+     * @param request параметры пагинации
+     * @return страница карт пользователя
+     */
+    @Query(value = """
+            select c.id as id, c.owner.id as ownerId, c.expirationDate as expirationDate,
+                   c.status as status, c.cardNumber as cardNumber, c.balance as balance
+            from BankCard c
+            where c.owner.id = :ownerId
+            """,
+            countQuery = "select count(c) from BankCard c where c.owner.id = :ownerId")
+    Page<CardView> findAllViewsByOwnerId(@Param("ownerId") Long ownerId, Pageable request);
+
     /**
      * Проверяет, существует ли карта с указанным id у данного пользователя.
      *
@@ -66,6 +104,15 @@ public interface CardRepository extends JpaRepository<BankCard, Long> {
      */
     boolean existsByIdAndOwnerId(Long id, Long userId);
 
+    /**
+     * Возвращает идентификатор владельца карты без загрузки карты и пользователя.
+     *
+     * @param id идентификатор карты
+     * @return {@link Optional} с id владельца, если карта существует
+     */
+    @Query("select c.owner.id from BankCard c where c.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
     /**
      * Находит карту по идентификатору владельца и идентификатору карты.
      *
@@ -74,4 +121,66 @@ public interface CardRepository extends JpaRepository<BankCard, Long> {
      * @return {@link Optional} с картой, если найдена
      */
     Optional<BankCard> findAllByOwnerIdAndId(Long ownerId, Long id);
+
+    /**
+     * Находит карты по набору идентификаторов и блокирует их строки до конца транзакции
+     * ({@code SELECT ... ORDER BY id FOR UPDATE}).
+     * <p>
+     * Строки захватываются строго в порядке возрастания идентификатора, поэтому
+     * две транзакции, блокирующие пересекающиеся наборы карт, не могут попасть во взаимную блокировку.
+     * </p>
+     *
+     * @param ids идентификаторы карт
+     * @return заблокированные карты, упорядоченные по возрастанию id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BankCard c where c.id in :ids order by c.id")
+    List<BankCard> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Находит карту по идентификатору и блокирует её строку до конца транзакции
+     * ({@code SELECT ... FOR UPDATE}).
+     *
+     * @param id идентификатор карты
+     * @return {@link Optional} с заблокированной картой, если найдена
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BankCard c where c.id = :id")
+    Optional<BankCard> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Атомарно пополняет активную карту одним запросом
+     * ({@code UPDATE ... WHERE status = 'ACTIVE' AND :amount > 0 RETURNING ...}) без загрузки сущности.
+     *
+     * @param id     идентификатор карты
+     * @param amount сумма пополнения
+     * @return новое состояние карты; пустой {@link Optional}, если ни одна строка
+     * не изменена (карта не найдена, не активна или сумма не положительна)
+     */
+    @Query(value = """
+            UPDATE bank_card
+            SET balance = balance + :amount, version = version + 1
+            WHERE id = :id AND status = 'ACTIVE' AND :amount > 0
+            RETURNING id, balance, card_number AS "cardNumber", expiration_date AS "expirationDate",
+                      status, owner_id AS "ownerId", version
+            """, nativeQuery = true)
+    Optional<CardBalanceView> depositIfActive(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Атомарно списывает средства с активной карты, если их достаточно, одним запросом
+     * ({@code UPDATE ... WHERE status = 'ACTIVE' AND :amount > 0 AND balance >= :amount RETURNING ...}).
+     *
+     * @param id     идентификатор карты
+     * @param amount сумма списания
+     * @return новое состояние карты; пустой {@link Optional}, если ни одна строка
+     * не изменена (карта не найдена, не активна, сумма не положительна или средств недостаточно)
+     */
+    @Query(value = """
+            UPDATE bank_card
+            SET balance = balance - :amount, version = version + 1
+            WHERE id = :id AND status = 'ACTIVE' AND :amount > 0 AND balance >= :amount
+            RETURNING id, balance, card_number AS "cardNumber", expiration_date AS "expirationDate",
+                      status, owner_id AS "ownerId", version
+            """, nativeQuery = true)
+    Optional<CardBalanceView> withdrawIfActive(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
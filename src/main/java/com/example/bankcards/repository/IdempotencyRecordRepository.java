@@ -0,0 +1,188 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.idempotency.IdempotencyRecord;
+import com.example.bankcards.entity.idempotency.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Репозиторий записей ключей идемпотентности ({@link IdempotencyRecord}).
+ * <p>
+ * Модифицирующие методы выполняются в собственной транзакции, чтобы захват
+ * ключа был виден другим узлам до начала выполнения запроса.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Находит запись по области и ключу.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @return {@link Optional} с записью, если найдена
+     */
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    /**
+     * Атомарно захватывает ключ ({@code INSERT ... ON CONFLICT DO NOTHING}).
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param requestHash хэш тела запроса
+     * @param claimToken токен захвата
+     * @param createdAt время захвата
+     * @param leaseUntil срок аренды ключа
+     * @param expiresAt время истечения записи
+     * @return 1, если ключ захвачен этим вызовом, иначе 0
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, status, claim_token, created_at,
+                                          lease_until, expires_at)
+            VALUES (:scope, :key, :hash, 'IN_PROGRESS', :token, :createdAt, :leaseUntil, :expiresAt)
+            ON CONFLICT (scope, idempotency_key) DO NOTHING
+            """, nativeQuery = true)
+    int claim(@Param("scope") String scope,
+              @Param("key") String idempotencyKey,
+              @Param("hash") String requestHash,
+              @Param("token") String claimToken,
+              @Param("createdAt") Instant createdAt,
+              @Param("leaseUntil") Instant leaseUntil,
+              @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Перехватывает ключ, аренда которого истекла: запрос с тем же телом захватил его,
+     * но не завершил и не освободил (например, узел упал во время выполнения).
+     * Новый токен захвата лишает прежнего владельца права сохранить ответ или освободить ключ.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param requestHash хэш тела запроса
+     * @param claimToken новый токен захвата
+     * @param status статус перехватываемой записи
+     * @param now текущее время
+     * @param leaseUntil новый срок аренды
+     * @param expiresAt новое время истечения записи
+     * @return 1, если ключ перехвачен этим вызовом, иначе 0
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update IdempotencyRecord r
+            set r.claimToken = :token, r.createdAt = :now, r.leaseUntil = :leaseUntil, r.expiresAt = :expiresAt
+            where r.scope = :scope and r.idempotencyKey = :key and r.requestHash = :hash and r.status = :status
+              and (r.leaseUntil is null or r.leaseUntil < :now)
+            """)
+    int takeOver(@Param("scope") String scope,
+                 @Param("key") String idempotencyKey,
+                 @Param("hash") String requestHash,
+                 @Param("token") String claimToken,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("now") Instant now,
+                 @Param("leaseUntil") Instant leaseUntil,
+                 @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Продлевает аренду ключа, пока выполняется захвативший его запрос.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param claimToken токен захвата
+     * @param status статус продлеваемой записи
+     * @param leaseUntil новый срок аренды
+     * @return 1, если аренда продлена, 0 — если ключ уже перехвачен или завершён
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update IdempotencyRecord r
+            set r.leaseUntil = :leaseUntil
+            where r.scope = :scope and r.idempotencyKey = :key and r.claimToken = :token and r.status = :status
+            """)
+    int renew(@Param("scope") String scope,
+              @Param("key") String idempotencyKey,
+              @Param("token") String claimToken,
+              @Param("status") IdempotencyStatus status,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Сохраняет ответ для захваченного ключа, если захват не перехвачен другим запросом.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param claimToken токен захвата
+     * @param status новый статус
+     * @param responseStatus HTTP-статус ответа
+     * @param responseBody ответ в формате JSON
+     * @return количество обновлённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update IdempotencyRecord r
+            set r.status = :status, r.responseStatus = :responseStatus, r.responseBody = :responseBody
+            where r.scope = :scope and r.idempotencyKey = :key and r.claimToken = :token
+            """)
+    int complete(@Param("scope") String scope,
+                 @Param("key") String idempotencyKey,
+                 @Param("token") String claimToken,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Освобождает ключ, захваченный запросом, который завершился ошибкой,
+     * если захват не перехвачен другим запросом.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param claimToken токен захвата
+     * @param status статус удаляемой записи
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.scope = :scope and r.idempotencyKey = :key and r.claimToken = :token and r.status = :status
+            """)
+    int release(@Param("scope") String scope,
+                @Param("key") String idempotencyKey,
+                @Param("token") String claimToken,
+                @Param("status") IdempotencyStatus status);
+
+    /**
+     * Удаляет запись по ключу, если срок её хранения истёк.
+     *
+     * @param scope область действия ключа
+     * @param idempotencyKey ключ идемпотентности
+     * @param now текущее время
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.scope = :scope and r.idempotencyKey = :key and r.expiresAt < :now")
+    int deleteIfExpired(@Param("scope") String scope, @Param("key") String idempotencyKey, @Param("now") Instant now);
+
+    /**
+     * Удаляет все записи с истёкшим сроком хранения.
+     *
+     * @param now текущее время
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
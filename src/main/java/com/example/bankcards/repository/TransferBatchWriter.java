@@ -0,0 +1,83 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.transfer.Transfer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись переводов ({@link Transfer}) через JDBC batch.
+ * <p>
+ * Строки {@code transfers} вставляются напрямую одним {@code executeBatch} на каждые
+ * {@value #BATCH_SIZE} строк, минуя контекст персистентности: пакет из тысяч переводов
+ * не хранится в сессии и не проверяется при flush. Работает в текущей транзакции JPA.
+ * </p>
+ *
+ * <p>Идентификаторы выдаёт значение по умолчанию колонки ({@code nextval('transfers_seq')}).
+ * Каждый такой вызов забирает целый блок последовательности, поэтому ключи не пересекаются
+ * с блоками, которые Hibernate резервирует из той же последовательности.</p>
+ *
+ * @author ksenya
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferBatchWriter {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transfers (initiator_user_id, from_card_id, to_card_id, amount, status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Вставляет переводы и проставляет им сгенерированные идентификаторы.
+     * У переводов должны быть заполнены инициатор, карты, сумма, статус и время создания.
+     *
+     * @param transfers переводы для вставки
+     */
+    public void insertAll(List<Transfer> transfers) {
+        for (int from = 0; from < transfers.size(); from += BATCH_SIZE) {
+            List<Transfer> chunk = transfers.subList(from, Math.min(from + BATCH_SIZE, transfers.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Transfer transfer = chunk.get(i);
+                            ps.setLong(1, transfer.getInitiator().getId());
+                            ps.setLong(2, transfer.getFromCard().getId());
+                            ps.setLong(3, transfer.getToCard().getId());
+                            ps.setBigDecimal(4, transfer.getAmount().toBigDecimal());
+                            ps.setString(5, transfer.getStatus().name());
+                            ps.setTimestamp(6, Timestamp.from(transfer.getCreatedAt()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder
+            );
+
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            }
+        }
+    }
+}
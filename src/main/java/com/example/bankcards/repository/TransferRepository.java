@@ -1,22 +1,61 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.repository.projection.TransferView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с переводами ({@link Transfer}).
  * <p>
- * Содержит методы для поиска переводов по инициатору.
+ * Содержит методы для поиска переводов по инициатору, а также
+ * keyset-выборки истории переводов: страницы упорядочены по {@code (createdAt, id)}
+ * от новых к старым, а следующая страница начинается строго после последней
+ * записи предыдущей. В отличие от {@code OFFSET}, стоимость запроса не зависит
+ * от глубины страницы, и запрос количества не выполняется.
  * </p>
  *
+ * <p>Списки переводов читаются в проекцию {@link TransferView} одним запросом с соединением карт
+ * ({@link #VIEW_SELECT}), поэтому страница стоит один запрос (и запрос количества для {@link Page}),
+ * а не отдельные загрузки карт каждого перевода.</p>
+ *
+ * <p>Для выгрузки переводов используется потоковое чтение {@link #streamForExport}.</p>
+ *
+ * <p>Размер выборки задаётся {@link Pageable} без сортировки (обычно {@code PageRequest.ofSize(size + 1)}:
+ * лишняя запись показывает, есть ли следующая страница).</p>
+ *
  * @author ksenya
  */
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
+    /**
+     * Общая часть запросов проекции {@link TransferView}.
+     */
+    String VIEW_SELECT = """
+            select t.id as id, t.initiator.id as initiatorId, t.amount as amount,
+                   t.status as status, t.createdAt as createdAt,
+                   fc.id as fromCardId, fc.owner.id as fromCardOwnerId, fc.expirationDate as fromCardExpirationDate,
+                   fc.status as fromCardStatus, fc.cardNumber as fromCardNumber, fc.balance as fromCardBalance,
+                   tc.id as toCardId, tc.owner.id as toCardOwnerId, tc.expirationDate as toCardExpirationDate,
+                   tc.status as toCardStatus, tc.cardNumber as toCardNumber, tc.balance as toCardBalance
+            from Transfer t
+            join t.fromCard fc
+            join t.toCard tc
+            """;
+
     /**
      * Находит все переводы, инициированные конкретным пользователем.
      *
@@ -25,4 +64,128 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
      * @return страница переводов указанного пользователя
      */
     Page<Transfer> findAllByInitiatorId(Long initiatorId, Pageable pageable);
+
+    /**
+     * Страница всех переводов в виде проекции.
+     *
+     * @param pageable параметры пагинации
+     * @return страница переводов
+     */
+    @Query(value = VIEW_SELECT,
+            countQuery = "select count(t) from Transfer t")
+    Page<TransferView> findAllViews(Pageable pageable);
+
+    /**
+     * Страница переводов пользователя в виде проекции.
+     *
+     * @param initiatorId идентификатор инициатора перевода
+     * @param pageable    параметры пагинации
+     * @return страница переводов указанного пользователя
+     */
+    @Query(value = VIEW_SELECT + "where t.initiator.id = :initiatorId",
+            countQuery = "select count(t) from Transfer t where t.initiator.id = :initiatorId")
+    Page<TransferView> findAllViewsByInitiatorId(@Param("initiatorId") Long initiatorId, Pageable pageable);
+
+    /**
+     * Первая страница всех переводов в порядке от новых к старым.
+     *
+     * @param limit размер выборки
+     * @return переводы
+     */
+    @Query(VIEW_SELECT + """
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferView> findFirstKeysetPage(Pageable limit);
+
+    /**
+     * Страница всех переводов, созданных строго раньше позиции {@code (createdAt, id)}.
+     *
+     * @param createdAt время создания последнего перевода предыдущей страницы
+     * @param id        идентификатор последнего перевода предыдущей страницы
+     * @param limit     размер выборки
+     * @return переводы
+     */
+    @Query(VIEW_SELECT + """
+            where (t.createdAt, t.id) < (:createdAt, :id)
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferView> findKeysetPageAfter(@Param("createdAt") Instant createdAt,
+                                       @Param("id") Long id,
+                                       Pageable limit);
+
+    /**
+     * Первая страница переводов пользователя в порядке от новых к старым.
+     *
+     * @param initiatorId идентификатор инициатора
+     * @param limit       размер выборки
+     * @return переводы пользователя
+     */
+    @Query(VIEW_SELECT + """
+            where t.initiator.id = :initiatorId
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferView> findFirstKeysetPageByInitiatorId(@Param("initiatorId") Long initiatorId, Pageable limit);
+
+    /**
+     * Страница переводов пользователя, созданных строго раньше позиции {@code (createdAt, id)}.
+     *
+     * @param initiatorId идентификатор инициатора
+     * @param createdAt   время создания последнего перевода предыдущей страницы
+     * @param id          идентификатор последнего перевода предыдущей страницы
+     * @param limit       размер выборки
+     * @return переводы пользователя
+     */
+    @Query(VIEW_SELECT + """
+            where t.initiator.id = :initiatorId
+              and (t.createdAt, t.id) < (:createdAt, :id)
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferView> findKeysetPageByInitiatorIdAfter(@Param("initiatorId") Long initiatorId,
+                                                    @Param("createdAt") Instant createdAt,
+                                                    @Param("id") Long id,
+                                                    Pageable limit);
+
+    /**
+     * Количество переводов пользователя.
+     *
+     * @param initiatorId идентификатор инициатора
+     * @return количество переводов
+     */
+    long countByInitiatorId(Long initiatorId);
+
+    /**
+     * Количество строк, которое JDBC-драйвер читает из курсора за один запрос к базе при выгрузке.
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Потоково читает переводы за период {@code [from, to)} в порядке создания.
+     * <p>
+     * Строки читаются из серверного курсора порциями по {@link #EXPORT_FETCH_SIZE},
+     * поэтому метод должен вызываться внутри транзакции, а поток — закрываться.
+     * Сущности загружаются только для чтения; вызывающий код периодически очищает
+     * контекст персистентности, чтобы память не росла с числом строк.
+     * </p>
+     *
+     * @param from   начало периода (включительно)
+     * @param to     конец периода (не включительно)
+     * @param status статус переводов или {@code null} для всех статусов
+     * @return поток переводов
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            select t from Transfer t
+            join fetch t.fromCard
+            join fetch t.toCard
+            where t.createdAt >= :from and t.createdAt < :to
+              and (:status is null or t.status = :status)
+            order by t.createdAt, t.id
+            """)
+    Stream<Transfer> streamForExport(@Param("from") Instant from,
+                                     @Param("to") Instant to,
+                                     @Param("status") TransferStatus status);
 }
@@ -2,14 +2,19 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 /**
  * Репозиторий для работы с сущностью {@link User}.
  * <p>
- * Содержит методы поиска пользователя по ID и имени.
+ * Содержит методы поиска пользователя по ID и имени,
+ * а также чтения и увеличения версии выданных токенов.
  * </p>
  *
  * @author ksenya
@@ -25,4 +30,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Возвращает текущую версию токенов пользователя без загрузки сущности и ролей.
+     *
+     * @param id идентификатор пользователя
+     * @return {@link Optional} с версией, если пользователь найден
+     */
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Увеличивает версию токенов пользователя, отзывая все ранее выданные JWT.
+     *
+     * @param id идентификатор пользователя
+     * @return количество обновлённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
 }
@@ -0,0 +1,29 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.bankcard.Status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Состояние строки {@code bank_card} после атомарного изменения баланса,
+ * возвращаемое через {@code UPDATE ... RETURNING}.
+ *
+ * @author ksenya
+ */
+public interface CardBalanceView {
+
+    Long getId();
+
+    BigDecimal getBalance();
+
+    String getCardNumber();
+
+    LocalDate getExpirationDate();
+
+    Status getStatus();
+
+    Long getOwnerId();
+
+    Long getVersion();
+}
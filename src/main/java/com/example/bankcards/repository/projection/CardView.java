@@ -0,0 +1,27 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Строка {@code bank_card} для списков карт: читается одним запросом
+ * без создания сущностей и без обращения к владельцу.
+ *
+ * @author ksenya
+ */
+public interface CardView {
+
+    Long getId();
+
+    Long getOwnerId();
+
+    LocalDate getExpirationDate();
+
+    Status getStatus();
+
+    String getCardNumber();
+
+    Money getBalance();
+}
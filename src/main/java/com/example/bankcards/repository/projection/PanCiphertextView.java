@@ -0,0 +1,13 @@
+package com.example.bankcards.repository.projection;
+
+/**
+ * Шифротекст номера карты из {@code card_pan_vault} для перешифрования.
+ *
+ * @author ksenya
+ */
+public interface PanCiphertextView {
+
+    Long getCardId();
+
+    String getPanCiphertext();
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.TransferStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Перевод вместе с картами отправителя и получателя для списков переводов:
+ * читается одним запросом с соединением {@code transfers} и {@code bank_card},
+ * без создания сущностей и без отложенной загрузки карт.
+ *
+ * @author ksenya
+ */
+public interface TransferView {
+
+    Long getId();
+
+    Long getInitiatorId();
+
+    Money getAmount();
+
+    TransferStatus getStatus();
+
+    Instant getCreatedAt();
+
+    Long getFromCardId();
+
+    Long getFromCardOwnerId();
+
+    LocalDate getFromCardExpirationDate();
+
+    Status getFromCardStatus();
+
+    String getFromCardNumber();
+
+    Money getFromCardBalance();
+
+    Long getToCardId();
+
+    Long getToCardOwnerId();
+
+    LocalDate getToCardExpirationDate();
+
+    Status getToCardStatus();
+
+    String getToCardNumber();
+
+    Money getToCardBalance();
+}
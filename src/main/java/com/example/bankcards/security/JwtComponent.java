@@ -1,11 +1,16 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.user.Role;
 import com.example.bankcards.exception.EmptyTokenException;
 import com.example.bankcards.exception.InvalidTokenException;
 import com.example.bankcards.exception.TokenExpiredException;
 import com.example.bankcards.util.DecoderKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.annotation.PostConstruct;
@@ -15,8 +20,18 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Компонент для работы с JWT-токенами.
@@ -25,28 +40,57 @@ import java.util.function.Function;
  * <ul>
  *     <li>Генерацию токенов на основе имени пользователя</li>
  *     <li>Извлечение claims (subject, expiration и др.)</li>
- *     <li>Валидацию токена (срок действия, соответствие пользователю)</li>
+ *     <li>Валидацию токена (срок действия, соответствие пользователю, версия токенов)</li>
+ *     <li>Восстановление принципала из claims {@value #CLAIM_USER_ID}, {@value #CLAIM_ROLES}
+ *     и {@value #CLAIM_TOKEN_VERSION}</li>
  * </ul>
  * </p>
+ *
+ * <p>{@link JwtParser} создаётся один раз при инициализации бина. Проверенные claims
+ * кэшируются по SHA-256 токена до момента истечения самого токена, поэтому подпись
+ * каждого токена проверяется один раз, а не при каждом запросе.
+ * Размер кэша задаётся свойством {@code auth.jwt.claims-cache-size}.</p>
  */
 @Component
 @Slf4j
 public class JwtComponent {
 
+    /** Claim с идентификатором пользователя. */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /** Claim со списком ролей пользователя. */
+    public static final String CLAIM_ROLES = "roles";
+
+    /** Claim с версией токенов пользователя на момент выдачи. */
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${auth.jwt.secret}")
     private String jwtSecret;
 
     @Value("${auth.jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${auth.jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+
     private SecretKey key;
 
+    private JwtParser parser;
+
+    private Cache<String, Claims> verifiedClaims;
+
     /**
-     * Декодирует секретный ключ из Base64 после инициализации бина.
+     * Декодирует секретный ключ из Base64, создаёт парсер и кэш проверенных claims
+     * после инициализации бина.
      */
     @PostConstruct
     private void decryptedKey() {
         key = DecoderKey.fromBase64(jwtSecret).getSecretKey();
+        parser = Jwts.parser().verifyWith(key).build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     /**
@@ -64,6 +108,74 @@ public class JwtComponent {
                 .compact();
     }
 
+    /**
+     * Генерация JWT-токена с идентификатором, ролями и версией токенов пользователя.
+     * По этим claims {@link #principalOf(Claims)} восстанавливает принципала без обращения к базе данных.
+     *
+     * @param user аутентифицированный пользователь
+     * @return сгенерированный токен
+     */
+    public String generateJwtToken(MyUserDetails user) {
+        return Jwts.builder()
+                .subject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLES, user.getRoles().stream().map(Role::name).sorted().toList())
+                .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + jwtExpiration * 1000))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * Восстанавливает принципала из проверенных claims.
+     *
+     * @param claims claims токена (см. {@link #verify(String)})
+     * @return принципал или пустой {@link Optional}, если токен выдан без claims пользователя
+     */
+    public Optional<MyUserDetails> principalOf(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Long tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Long.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (userId == null || tokenVersion == null || roles == null) {
+            return Optional.empty();
+        }
+        try {
+            Set<Role> parsed = roles.stream()
+                    .map(role -> Role.valueOf(String.valueOf(role)))
+                    .collect(Collectors.toUnmodifiableSet());
+            return Optional.of(MyUserDetails.of(userId, claims.getSubject(), parsed, tokenVersion));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Недействительный токен");
+        }
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена и возвращает его claims.
+     * Повторные вызовы с тем же токеном обслуживаются из кэша без разбора и проверки подписи.
+     *
+     * @param token JWT-токен
+     * @return объект {@link Claims}
+     * @throws EmptyTokenException   если токен пустой
+     * @throws TokenExpiredException если срок действия токена истёк
+     * @throws InvalidTokenException если токен повреждён или некорректен
+     */
+    public Claims verify(String token) {
+        checkTokenOnEmpty(token);
+        String digest = digest(token);
+        Claims claims = verifiedClaims.getIfPresent(digest);
+        if (claims == null) {
+            claims = extractAllClaims(token);
+            if (claims.getExpiration() != null) {
+                verifiedClaims.put(digest, claims);
+            }
+        } else if (claims.getExpiration().before(new Date())) {
+            verifiedClaims.invalidate(digest);
+            throw new TokenExpiredException("Срок действия токена истёк. Пожалуйста, авторизуйтесь заново");
+        }
+        return claims;
+    }
+
     /**
      * Извлекает имя пользователя (subject) из токена.
      *
@@ -109,7 +221,7 @@ public class JwtComponent {
      * @return значение claim
      */
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
         return claimsResolvers.apply(claims);
     }
 
@@ -123,11 +235,7 @@ public class JwtComponent {
      */
     public Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             throw new TokenExpiredException("Срок действия токена истёк. Пожалуйста, авторизуйтесь заново");
         } catch (MalformedJwtException | IllegalArgumentException e) {
@@ -148,8 +256,32 @@ public class JwtComponent {
      * @return {@code true}, если токен валиден
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String login = extractUserName(token);
-        return login.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
+    }
+
+    /**
+     * Проверяет валидность уже проверенных claims токена (см. {@link #verify(String)}).
+     *
+     * @param claims      claims токена
+     * @param userDetails пользовательские данные
+     * @return {@code true}, если токен выдан этому пользователю и не истёк
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date())
+                && isVersionCurrent(claims, userDetails);
+    }
+
+    /**
+     * Сверяет версию из токена с версией загруженного пользователя.
+     * Токены без claim {@value #CLAIM_TOKEN_VERSION} не проверяются.
+     */
+    private boolean isVersionCurrent(Claims claims, UserDetails userDetails) {
+        Long tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Long.class);
+        if (tokenVersion == null || !(userDetails instanceof MyUserDetails details)) {
+            return true;
+        }
+        return tokenVersion.equals(details.getTokenVersion());
     }
 
     /**
@@ -165,4 +297,43 @@ public class JwtComponent {
             return true;
         }
     }
+
+    /**
+     * Ключ кэша: SHA-256 токена в Base64URL, чтобы не держать в памяти сами токены.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Время жизни записи кэша — остаток срока действия токена ({@code exp}),
+     * одинаково при создании, обновлении и чтении записи.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            return untilExpiration(claims);
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return untilExpiration(claims);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return untilExpiration(claims);
+        }
+
+        private static long untilExpiration(Claims claims) {
+            Duration left = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+            return left.isNegative() ? 0 : left.toNanos();
+        }
+    }
 }
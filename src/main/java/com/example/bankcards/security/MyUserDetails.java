@@ -1,5 +1,6 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.user.Role;
 import com.example.bankcards.entity.user.User;
 import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
@@ -7,6 +8,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Адаптер для интеграции сущности {@link User} с Spring Security.
@@ -30,6 +32,25 @@ public class MyUserDetails implements UserDetails, CredentialsContainer {
         this.password = user.getPassword();
     }
 
+    /**
+     * Создаёт принципала из проверенных claims JWT без обращения к базе данных.
+     * Пароль при этом не заполняется.
+     *
+     * @param id           идентификатор пользователя
+     * @param username     имя пользователя
+     * @param roles        роли пользователя
+     * @param tokenVersion версия токенов, указанная в JWT
+     * @return принципал, совместимый с загруженным из базы
+     */
+    public static MyUserDetails of(Long id, String username, Set<Role> roles, Long tokenVersion) {
+        return new MyUserDetails(User.builder()
+                .id(id)
+                .username(username)
+                .roles(roles)
+                .tokenVersion(tokenVersion)
+                .build());
+    }
+
     /**
      * Возвращает список ролей пользователя в формате GrantedAuthority.
      *
@@ -71,6 +92,24 @@ public class MyUserDetails implements UserDetails, CredentialsContainer {
         return user.getId();
     }
 
+    /**
+     * Возвращает роли пользователя.
+     *
+     * @return набор ролей
+     */
+    public Set<Role> getRoles() {
+        return user.getRoles();
+    }
+
+    /**
+     * Возвращает версию токенов пользователя.
+     *
+     * @return версия токенов
+     */
+    public Long getTokenVersion() {
+        return user.getTokenVersion();
+    }
+
     /**
      * Стирает пароль из памяти для повышения безопасности.
      */
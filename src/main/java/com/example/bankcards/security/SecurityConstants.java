@@ -35,7 +35,7 @@ public final class SecurityConstants {
      * Пути, доступные только пользователям с ролью ADMIN.
      * <p>
      * Сюда входят эндпоинты для управления картами, пользователями,
-     * переводами и заявками на блокировку.
+     * переводами и заявками на блокировку, а также для метрик и профилирования запросов.
      * </p>
      */
     public static final String[] ADMIN_PATHS = {
@@ -45,11 +45,19 @@ public final class SecurityConstants {
             "/api/v1/card/blocked/{id}",
             "/api/v1/card/activate/{id}",
             "/api/v1/card/{id}",
+            "/api/v1/cards/search",
+            "/api/v1/cards/bulk",
+            "/api/v1/cards/bulk/{jobId}",
+            "/api/v1/cards/key-rotation",
             "/api/v1/user/{id}",
             "/api/v1/user/all",
             "/api/v1/transfer/{id}",
             "/api/v1/transfer/all",
+            "/api/v1/transfer/all/cursor",
+            "/api/v1/transfer/export",
             "/api/v1/card-request/rejected/{id}",
             "/api/v1/card-request/all",
+            "/actuator/metrics/**",
+            "/actuator/performance/**",
     };
 }
@@ -5,13 +5,17 @@ import com.example.bankcards.exception.InvalidTokenException;
 import com.example.bankcards.exception.JwtAuthenticationException;
 import com.example.bankcards.exception.TokenExpiredException;
 import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.security.MyUserDetails;
 import com.example.bankcards.service.impl.UserDetailService;
+import com.example.bankcards.service.interfaces.TokenVersionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,6 +25,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * Фильтр аутентификации на основе JWT.
@@ -29,6 +34,14 @@ import java.io.IOException;
  * извлекает пользователя и помещает его в {@link SecurityContextHolder}.
  * В случае ошибки возвращает {@code 401 Unauthorized}.
  * </p>
+ *
+ * <p>Токен разбирается и проверяется один раз за запрос через {@link JwtComponent#verify(String)};
+ * полученные claims используются и для имени пользователя, и для проверки валидности.</p>
+ *
+ * <p>При {@code auth.jwt.claims-principal=true} принципал собирается из claims токена
+ * ({@link JwtComponent#principalOf}), а вместо загрузки пользователя с ролями выполняется
+ * только кэшируемая проверка версии токенов ({@link TokenVersionService}).
+ * Токены без claims пользователя обрабатываются как раньше.</p>
  */
 @Component
 @RequiredArgsConstructor
@@ -37,6 +50,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtComponent jwtComponent;
     private final UserDetailService userDetailService;
+    private final TokenVersionService tokenVersionService;
+
+    @Value("${auth.jwt.claims-principal:false}")
+    private boolean claimsPrincipal;
 
     /**
      * Основная логика фильтра.
@@ -66,19 +83,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             String jwt = authHeader.substring(7);
-            jwtComponent.checkTokenOnEmpty(jwt);
-
-            String username = jwtComponent.extractUserName(jwt);
+            Claims claims = jwtComponent.verify(jwt);
 
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailService.loadUserByUsername(username);
+                UserDetails userDetails = resolvePrincipal(claims);
 
-                boolean valid = jwtComponent.isTokenValid(jwt, userDetails);
+                boolean valid = jwtComponent.isTokenValid(claims, userDetails);
                 if (!valid) {
                     throw new JwtAuthenticationException("JWT токен не валиден");
                 }
 
-                log.info(userDetails.getAuthorities().toString());
+                log.debug("Аутентифицирован {} с ролями {}", userDetails.getUsername(), userDetails.getAuthorities());
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -107,4 +122,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             response.getWriter().write(body);
         }
     }
+
+    /**
+     * Возвращает принципала из claims токена или, если режим выключен
+     * либо токен выдан без claims пользователя, загружает его из базы данных.
+     */
+    private UserDetails resolvePrincipal(Claims claims) {
+        if (claimsPrincipal) {
+            Optional<MyUserDetails> principal = jwtComponent.principalOf(claims);
+            if (principal.isPresent()) {
+                MyUserDetails details = principal.get();
+                if (!tokenVersionService.isCurrent(details.getId(), details.getTokenVersion())) {
+                    throw new JwtAuthenticationException("Токен отозван. Пожалуйста, авторизуйтесь заново");
+                }
+                return details;
+            }
+        }
+        return userDetailService.loadUserByUsername(claims.getSubject());
+    }
 }
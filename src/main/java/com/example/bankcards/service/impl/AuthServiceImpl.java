@@ -9,7 +9,9 @@ import com.example.bankcards.exception.MissingCredentialsException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.security.MyUserDetails;
 import com.example.bankcards.service.interfaces.AuthService;
+import com.example.bankcards.service.interfaces.TokenVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
@@ -17,6 +19,7 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -33,6 +36,7 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final JwtComponent jwtComponent;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionService tokenVersionService;
 
     @Cacheable(cacheNames = "login", key = "#request.username")
     public JwtDTO login(LoginRequest request) {
@@ -40,15 +44,18 @@ public class AuthServiceImpl implements AuthService {
             throw new MissingCredentialsException("Не указан логин или пароль");
         }
 
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
         } catch (AuthenticationException e) {
             throw new InvalidCredentialsException("Неверные логин или пароль");
         }
 
-        var token = jwtComponent.generateJwtToken(request.getUsername());
+        var token = authentication != null && authentication.getPrincipal() instanceof MyUserDetails principal
+                ? jwtComponent.generateJwtToken(principal)
+                : jwtComponent.generateJwtToken(request.getUsername());
 
         return JwtDTO.builder()
                 .token(token)
@@ -77,7 +84,7 @@ public class AuthServiceImpl implements AuthService {
 
         userRepository.save(user);
 
-        var token = jwtComponent.generateJwtToken(user.getUsername());
+        var token = jwtComponent.generateJwtToken(new MyUserDetails(user));
 
         return JwtDTO.builder()
                 .token(token)
@@ -89,8 +96,10 @@ public class AuthServiceImpl implements AuthService {
             @CacheEvict(cacheNames = "login", key = "#username"),
             @CacheEvict(cacheNames = "register", key = "#username")
     })
-    public void logout(String userName) {
+    public void logout(String username) {
+        userRepository.findByUsername(username)
+                .ifPresent(user -> tokenVersionService.revoke(user.getId()));
         SecurityContextHolder.clearContext();
-        log.info("Пользователь {} успешно вышел из системы", userName);
+        log.info("Пользователь {} успешно вышел из системы", username);
     }
 }
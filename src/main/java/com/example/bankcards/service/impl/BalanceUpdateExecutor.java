@@ -0,0 +1,114 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.config.BalanceConcurrencyProperties;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
+import com.example.bankcards.config.BalanceConcurrencyProperties.RetryPolicy;
+import com.example.bankcards.exception.ConcurrentBalanceUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет изменение баланса карты в отдельной транзакции.
+ * <p>
+ * В режиме {@link LockingMode#OPTIMISTIC} конфликт версий, обнаруженный при фиксации
+ * транзакции, приводит к повтору всей операции (чтение, проверка, запись) в новой
+ * транзакции с экспоненциальной задержкой и джиттером. Поэтому вызывающий метод
+ * не должен сам быть транзакционным.
+ * </p>
+ *
+ * <p>Метрики (тег {@code operation}):</p>
+ * <ul>
+ *     <li>{@code card.balance.optimistic.conflicts} — обнаруженные конфликты версий;</li>
+ *     <li>{@code card.balance.optimistic.retries} — выполненные повторы;</li>
+ *     <li>{@code card.balance.optimistic.exhausted} — операции, исчерпавшие все попытки.</li>
+ * </ul>
+ *
+ * @author ksenya
+ */
+@Component
+public class BalanceUpdateExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceConcurrencyProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public BalanceUpdateExecutor(PlatformTransactionManager transactionManager,
+                                 BalanceConcurrencyProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Текущий режим блокировки.
+     *
+     * @return режим из {@code card.balance.locking-mode}
+     */
+    public LockingMode lockingMode() {
+        return properties.getLockingMode();
+    }
+
+    /**
+     * Выполняет операцию в транзакции, повторяя её при конфликте версий.
+     *
+     * @param operation имя операции для выбора политики и тегов метрик
+     * @param work      тело операции
+     * @param <T>       тип результата
+     * @return результат операции
+     * @throws ConcurrentBalanceUpdateException если конфликт не разрешился за отведённые попытки
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        if (properties.getLockingMode() != LockingMode.OPTIMISTIC) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+
+        RetryPolicy policy = properties.policyFor(operation);
+        int maxAttempts = Math.max(1, policy.getMaxAttempts());
+        long backoff = policy.getInitialBackoff().toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException ex) {
+                counter("card.balance.optimistic.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("card.balance.optimistic.exhausted", operation).increment();
+                    throw new ConcurrentBalanceUpdateException(
+                            "Баланс карты одновременно изменяется другой операцией, повторите попытку позже");
+                }
+                counter("card.balance.optimistic.retries", operation).increment();
+                pause(backoff, policy.getJitter());
+                backoff = Math.min((long) (backoff * policy.getMultiplier()), policy.getMaxBackoff().toMillis());
+            }
+        }
+    }
+
+    /**
+     * Засыпает на {@code backoff} мс, уменьшенные на случайную долю не больше {@code jitter}.
+     */
+    private void pause(long backoff, double jitter) {
+        double factor = 1.0 - ThreadLocalRandom.current().nextDouble() * Math.min(Math.max(jitter, 0.0), 1.0);
+        long delay = (long) (backoff * factor);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentBalanceUpdateException("Операция с балансом карты прервана");
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
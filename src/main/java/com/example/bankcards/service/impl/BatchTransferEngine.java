@@ -0,0 +1,238 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.dto.payload.BatchTransferItemResultDTO;
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.requests.BatchTransferMode;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
+import com.example.bankcards.dto.requests.TransferUserRequest;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferBatchWriter;
+import com.example.bankcards.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Движок пакетных переводов.
+ * <p>
+ * Весь пакет выполняется в одной транзакции фиксированным числом запросов:
+ * одна выборка всех задействованных карт с блокировкой строк в порядке возрастания id,
+ * пакетная вставка переводов через {@link TransferBatchWriter} и по одному {@code UPDATE}
+ * на каждую изменённую карту при фиксации.
+ * </p>
+ *
+ * <p>Переводы проверяются последовательно по «текущим» балансам в памяти, поэтому
+ * перевод может использовать средства, зачисленные предыдущим переводом того же пакета.</p>
+ *
+ * <p>Списывать можно только с карт инициатора: перевод с чужой карты отклоняется до проверки
+ * статуса и остатка, так что по результату нельзя судить о состоянии чужой карты.</p>
+ *
+ * <p>После фиксации применённого пакета инвалидируются кэши карт владельцев изменённых карт
+ * и кэш переводов инициатора (см. {@link CacheGenerations}).</p>
+ *
+ * @author ksenya
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchTransferEngine {
+
+    /**
+     * Максимальное количество переводов в одном пакете.
+     */
+    public static final int MAX_BATCH_SIZE = 5_000;
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final TransferBatchWriter transferBatchWriter;
+    private final CacheGenerations cacheGenerations;
+
+    /**
+     * Выполняет пакет переводов.
+     *
+     * @param initiatorId идентификатор пользователя, инициирующего переводы
+     * @param request     пакет переводов и режим выполнения
+     * @return результаты по каждому переводу
+     * @throws InvalidTransferException если пакет пуст или превышает {@link #MAX_BATCH_SIZE}
+     */
+    @Transactional
+    public BatchTransferResultDTO execute(Long initiatorId, BatchTransferRequest request) {
+        List<TransferUserRequest> items = request.getTransfers();
+        if (items == null || items.isEmpty()) {
+            throw new InvalidTransferException("Пакет переводов пуст");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new InvalidTransferException("Пакет не может содержать более " + MAX_BATCH_SIZE + " переводов");
+        }
+        BatchTransferMode mode = request.getMode() != null ? request.getMode() : BatchTransferMode.ALL_OR_NOTHING;
+
+        Map<Long, BankCard> cards = lockCards(items);
+        Map<Long, Money> balances = new HashMap<>();
+        List<BatchTransferItemResultDTO> results = new ArrayList<>(items.size());
+        int failed = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            TransferUserRequest item = items.get(i);
+            String error = check(initiatorId, item, cards, balances);
+            if (error == null) {
+                Money amount = Money.of(item.getAmount());
+                balances.merge(item.getFromCardId(), amount.negate(), Money::plus);
+                balances.merge(item.getToCardId(), amount, Money::plus);
+            } else {
+                failed++;
+            }
+            results.add(BatchTransferItemResultDTO.builder()
+                    .index(i)
+                    .fromCardId(item.getFromCardId())
+                    .toCardId(item.getToCardId())
+                    .amount(item.getAmount())
+                    .success(error == null)
+                    .error(error)
+                    .build());
+        }
+
+        if (mode == BatchTransferMode.ALL_OR_NOTHING && failed > 0) {
+            results.stream()
+                    .filter(BatchTransferItemResultDTO::isSuccess)
+                    .forEach(result -> {
+                        result.setSuccess(false);
+                        result.setError("Перевод не выполнен: пакет отклонён из-за ошибок в других переводах");
+                    });
+            return result(mode, false, 0, items.size(), results);
+        }
+
+        balances.forEach((cardId, delta) -> {
+            BankCard card = cards.get(cardId);
+            card.setBalance(card.getBalance().plus(delta));
+        });
+        insertTransfers(initiatorId, items, cards, results);
+        cacheGenerations.invalidate(CacheGenerations.CARDS, balances.keySet().stream()
+                .map(cards::get)
+                .map(card -> card.getOwner() != null ? card.getOwner().getId() : null)
+                .toList());
+        cacheGenerations.invalidate(CacheGenerations.TRANSFERS, initiatorId);
+
+        return result(mode, true, items.size() - failed, failed, results);
+    }
+
+    /**
+     * Загружает и блокирует все карты пакета одним запросом.
+     */
+    private Map<Long, BankCard> lockCards(List<TransferUserRequest> items) {
+        Set<Long> ids = new TreeSet<>();
+        for (TransferUserRequest item : items) {
+            if (item.getFromCardId() != null) {
+                ids.add(item.getFromCardId());
+            }
+            if (item.getToCardId() != null) {
+                ids.add(item.getToCardId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return cardRepository.findAllByIdInForUpdate(ids).stream()
+                .collect(Collectors.toMap(BankCard::getId, Function.identity()));
+    }
+
+    /**
+     * Проверяет перевод с учётом уже принятых переводов пакета.
+     *
+     * @return описание ошибки или {@code null}, если перевод допустим
+     */
+    private String check(Long initiatorId, TransferUserRequest item, Map<Long, BankCard> cards,
+                         Map<Long, Money> balances) {
+        if (item.getFromCardId() == null || item.getToCardId() == null) {
+            return "Не указаны карты для перевода";
+        }
+        if (item.getFromCardId().equals(item.getToCardId())) {
+            return "Нельзя перевести средства на ту же карту";
+        }
+        if (item.getAmount() == null || item.getAmount().signum() <= 0) {
+            return "Сумма перевода должна быть положительной";
+        }
+        Money amount;
+        try {
+            amount = Money.of(item.getAmount());
+        } catch (ArithmeticException e) {
+            return "Сумма перевода должна содержать не более двух знаков после запятой";
+        }
+        BankCard from = cards.get(item.getFromCardId());
+        if (from == null) {
+            return "Не найдена карта-отправитель с ID = " + item.getFromCardId();
+        }
+        if (from.getOwner() == null || !initiatorId.equals(from.getOwner().getId())) {
+            return "Пользователь не является владельцем карты";
+        }
+        BankCard to = cards.get(item.getToCardId());
+        if (to == null) {
+            return "Не найдена карта-получатель с ID = " + item.getToCardId();
+        }
+        if (from.getStatus() != Status.ACTIVE || to.getStatus() != Status.ACTIVE) {
+            return "Обе карты должны быть активированы для перевода";
+        }
+        Money available = from.getBalance().plus(balances.getOrDefault(from.getId(), Money.ZERO));
+        if (available.isLessThan(amount)) {
+            return "Недостаточно средств на карте";
+        }
+        return null;
+    }
+
+    /**
+     * Вставляет принятые переводы пакетом и проставляет их id в результаты.
+     */
+    private void insertTransfers(Long initiatorId, List<TransferUserRequest> items,
+                                 Map<Long, BankCard> cards, List<BatchTransferItemResultDTO> results) {
+        User initiator = userRepository.getReferenceById(initiatorId);
+        Instant now = Instant.now();
+        List<Transfer> transfers = new ArrayList<>();
+        List<BatchTransferItemResultDTO> accepted = new ArrayList<>();
+
+        for (BatchTransferItemResultDTO result : results) {
+            if (!result.isSuccess()) {
+                continue;
+            }
+            TransferUserRequest item = items.get(result.getIndex());
+            transfers.add(Transfer.builder()
+                    .initiator(initiator)
+                    .fromCard(cards.get(item.getFromCardId()))
+                    .toCard(cards.get(item.getToCardId()))
+                    .amount(Money.of(item.getAmount()))
+                    .status(TransferStatus.COMPLETED)
+                    .createdAt(now)
+                    .build());
+            accepted.add(result);
+        }
+        if (transfers.isEmpty()) {
+            return;
+        }
+
+        transferBatchWriter.insertAll(transfers);
+        for (int i = 0; i < transfers.size(); i++) {
+            accepted.get(i).setTransactionId(transfers.get(i).getId());
+        }
+    }
+
+    private BatchTransferResultDTO result(BatchTransferMode mode, boolean applied, int succeeded, int failed,
+                                          List<BatchTransferItemResultDTO> items) {
+        return BatchTransferResultDTO.builder()
+                .mode(mode)
+                .applied(applied)
+                .succeeded(succeeded)
+                .failed(failed)
+                .items(items)
+                .build();
+    }
+}
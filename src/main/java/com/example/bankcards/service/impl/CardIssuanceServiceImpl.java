@@ -0,0 +1,332 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.CardIssuanceProperties;
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
+import com.example.bankcards.dto.payload.BulkIssueStatus;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
+import com.example.bankcards.exception.CardIssuanceLimitException;
+import com.example.bankcards.exception.InvalidCardIssuanceException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardBatchWriter;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.interfaces.CardIssuanceService;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumberGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Массовый выпуск карт.
+ * <p>
+ * Задание выполняется в фоне ({@code applicationTaskExecutor}) порциями по {@code card.issuance.chunk-size} карт.
+ * Подготовка порции идёт в отдельном {@link ForkJoinPool} на {@code card.issuance.parallelism} потоков:
+ * </p>
+ * <ol>
+ *     <li>номера генерируются параллельно; у каждого потока свой {@link SecureRandom} на всё задание,
+ *         а не взятый из пула {@link CardNumberGenerator#generateCardNumber()} на каждый номер;</li>
+ *     <li>повторы внутри задания отсеиваются по множеству уже сгенерированных номеров в памяти;</li>
+ *     <li>номера параллельно маскируются, шифруются и получают слепой индекс;</li>
+ *     <li>номера, уже выданные раньше, находятся одним запросом по индексам порции и заменяются.</li>
+ * </ol>
+ * <p>
+ * Подготовка следующей порции идёт одновременно с записью текущей. Порция пишется через
+ * {@link CardBatchWriter} и фиксируется отдельной транзакцией, поэтому при ошибке уже выпущенные
+ * карты сохраняются, а {@link BulkIssueJobDTO#getIssued()} показывает их число.
+ * Одновременно выполняется не больше {@code card.issuance.max-concurrent-jobs} заданий, следующие
+ * отклоняются с {@link CardIssuanceLimitException}.
+ * </p>
+ * <p>
+ * Задания не переживают экземпляр: их состояние хранится только в его памяти и удаляется через
+ * {@code card.issuance.job-retention} после завершения. Ход задания доступен только на экземпляре,
+ * который его запустил, а при остановке экземпляра задание прерывается; уже записанные порции
+ * остаются в базе, недостающие карты нужно выпустить новым заданием. Лимит заданий тоже действует
+ * в пределах одного экземпляра.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Service
+public class CardIssuanceServiceImpl implements CardIssuanceService, DisposableBean {
+
+    /** Попыток заменить номер, уже выданный раньше, прежде чем остановить задание. */
+    static final int MAX_NUMBER_ATTEMPTS = 5;
+
+    private final UserRepository userRepository;
+    private final CardPanVaultRepository cardPanVaultRepository;
+    private final CardBatchWriter cardBatchWriter;
+    private final CardEncryptionUtil cardEncryptionUtil;
+    private final CardNumberBlindIndex cardNumberBlindIndex;
+    private final CacheGenerations cacheGenerations;
+    private final CardIssuanceProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final ForkJoinPool workers;
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger runningJobs = new AtomicInteger();
+
+    public CardIssuanceServiceImpl(UserRepository userRepository,
+                                   CardPanVaultRepository cardPanVaultRepository,
+                                   CardBatchWriter cardBatchWriter,
+                                   CardEncryptionUtil cardEncryptionUtil,
+                                   CardNumberBlindIndex cardNumberBlindIndex,
+                                   CacheGenerations cacheGenerations,
+                                   CardIssuanceProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.userRepository = userRepository;
+        this.cardPanVaultRepository = cardPanVaultRepository;
+        this.cardBatchWriter = cardBatchWriter;
+        this.cardEncryptionUtil = cardEncryptionUtil;
+        this.cardNumberBlindIndex = cardNumberBlindIndex;
+        this.cacheGenerations = cacheGenerations;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.workers = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public BulkIssueJobDTO start(BulkIssueRequest request) {
+        if (request.getCount() <= 0 || request.getCount() > properties.getMaxCards()) {
+            throw new InvalidCardIssuanceException(
+                    "Количество карт должно быть от 1 до " + properties.getMaxCards());
+        }
+        if (request.getOwnerId() == null || !userRepository.existsById(request.getOwnerId())) {
+            throw new ResourceNotFoundException("Владелец с ID " + request.getOwnerId() + " не найден");
+        }
+
+        if (runningJobs.incrementAndGet() > properties.getMaxConcurrentJobs()) {
+            runningJobs.decrementAndGet();
+            throw new CardIssuanceLimitException("Уже выполняется " + properties.getMaxConcurrentJobs()
+                    + " заданий выпуска карт, повторите попытку после их завершения");
+        }
+        Job job = new Job(UUID.randomUUID(), request.getOwnerId(), request.getCount());
+        jobs.put(job.id, job);
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    runningJobs.decrementAndGet();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            runningJobs.decrementAndGet();
+            throw new CardIssuanceLimitException("Не удалось запустить задание выпуска карт, повторите попытку позже");
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public BulkIssueJobDTO getJob(UUID jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Задание выпуска карт с ID " + jobId + " не найдено");
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Удаляет из памяти задания, завершённые раньше {@code card.issuance.job-retention}.
+     */
+    @Scheduled(fixedDelayString = "${card.issuance.purge-interval:PT10M}")
+    public void purgeFinishedJobs() {
+        Instant threshold = Instant.now().minus(properties.getJobRetention());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    private void run(Job job) {
+        try {
+            Set<Long> generated = new HashSet<>(Math.max(16, (int) (job.requested / 0.75f) + 1));
+            SecureRandom[] randoms = new SecureRandom[workers.getParallelism()];
+            for (int i = 0; i < randoms.length; i++) {
+                randoms[i] = newRandom();
+            }
+            LocalDate expirationDate = LocalDate.now().plusYears(5);
+
+            int remaining = job.requested;
+            CompletableFuture<List<NewCard>> next = prepareAsync(Math.min(properties.getChunkSize(), remaining),
+                    generated, randoms);
+            while (next != null) {
+                List<NewCard> chunk = next.join();
+                remaining -= chunk.size();
+                next = remaining > 0
+                        ? prepareAsync(Math.min(properties.getChunkSize(), remaining), generated, randoms)
+                        : null;
+
+                transactionTemplate.executeWithoutResult(status -> {
+                    cardBatchWriter.insertAll(job.ownerId, expirationDate, chunk);
+                    cacheGenerations.invalidate(CacheGenerations.CARDS, job.ownerId);
+                });
+                job.issued.addAndGet(chunk.size());
+            }
+            job.finish(BulkIssueStatus.COMPLETED, null);
+            log.info("Выпуск карт {} завершён: {} карт владельцу {} за {} мс ({} карт/с)",
+                    job.id, job.issued.get(), job.ownerId, job.elapsedNanos() / 1_000_000,
+                    String.format("%.0f", job.cardsPerSecond()));
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            job.finish(BulkIssueStatus.FAILED, cause.getMessage());
+            log.error("Выпуск карт {} остановлен после {} карт", job.id, job.issued.get(), cause);
+        }
+    }
+
+    private CompletableFuture<List<NewCard>> prepareAsync(int count, Set<Long> generated, SecureRandom[] randoms) {
+        return CompletableFuture.supplyAsync(() -> prepare(count, generated, randoms), workers);
+    }
+
+    /**
+     * Готовит порцию уникальных карт. Вызовы идут строго друг за другом, поэтому множество
+     * {@code generated} и генераторы {@code randoms} изменяются без синхронизации: внутри вызова
+     * каждый генератор использует только один поток.
+     */
+    private List<NewCard> prepare(int count, Set<Long> generated, SecureRandom[] randoms) {
+        long[] numbers = new long[count];
+        int slices = Math.min(randoms.length, count);
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            for (int i = slice; i < count; i += slices) {
+                numbers[i] = CardNumberGenerator.nextCardNumber(randoms[slice]);
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            if (!generated.add(numbers[i])) {
+                numbers[i] = nextUnique(generated, randoms[0]);
+            }
+        }
+
+        NewCard[] cards = new NewCard[count];
+        IntStream.range(0, count).parallel().forEach(i -> cards[i] = newCard(numbers[i]));
+
+        Set<String> taken = cardPanVaultRepository.findExistingPanIndexes(
+                Arrays.stream(cards).map(NewCard::panIndex).toList());
+        for (int i = 0; i < count; i++) {
+            if (!taken.contains(cards[i].panIndex())) {
+                continue;
+            }
+            int attempt = 1;
+            do {
+                if (attempt++ == MAX_NUMBER_ATTEMPTS) {
+                    throw new IllegalStateException("Не удалось подобрать уникальный номер карты");
+                }
+                cards[i] = newCard(nextUnique(generated, randoms[0]));
+            } while (cardPanVaultRepository.existsByPanIndex(cards[i].panIndex()));
+        }
+        return Arrays.asList(cards);
+    }
+
+    private static long nextUnique(Set<Long> generated, SecureRandom random) {
+        long number;
+        do {
+            number = CardNumberGenerator.nextCardNumber(random);
+        } while (!generated.add(number));
+        return number;
+    }
+
+    private NewCard newCard(long number) {
+        String raw = CardNumberGenerator.format(number);
+        return new NewCard(
+                cardEncryptionUtil.maskRaw(raw),
+                cardEncryptionUtil.encrypt(raw),
+                cardNumberBlindIndex.index(raw));
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    /**
+     * Состояние одного задания. Счётчик и поля завершения читаются потоками запросов
+     * без блокировок, пишет их только поток задания.
+     */
+    private static final class Job {
+
+        private final UUID id;
+        private final Long ownerId;
+        private final int requested;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger issued = new AtomicInteger();
+        private volatile BulkIssueStatus status = BulkIssueStatus.RUNNING;
+        private volatile long finishNanos;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(UUID id, Long ownerId, int requested) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.requested = requested;
+        }
+
+        private void finish(BulkIssueStatus finalStatus, String message) {
+            finishNanos = System.nanoTime();
+            error = message;
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        private long elapsedNanos() {
+            return (finishedAt != null ? finishNanos : System.nanoTime()) - startNanos;
+        }
+
+        private double cardsPerSecond() {
+            long elapsed = elapsedNanos();
+            return elapsed > 0 ? issued.get() * 1e9 / elapsed : 0;
+        }
+
+        private BulkIssueJobDTO toDto() {
+            return BulkIssueJobDTO.builder()
+                    .jobId(id)
+                    .ownerId(ownerId)
+                    .status(status)
+                    .requested(requested)
+                    .issued(issued.get())
+                    .cardsPerSecond(cardsPerSecond())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.config.CardNumberPoolProperties;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import com.example.bankcards.util.CardNumberGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул заранее подготовленных номеров карт для {@link CardServiceImpl#create}.
+ * <p>
+ * Номер в пуле уже сгенерирован (с BIN из {@code card.number-pool.bin-prefixes}), замаскирован,
+ * зашифрован и проверен по слепому индексу: его нет ни среди выданных ({@code card_pan_vault}),
+ * ни в самом пуле. Открытый номер в пуле не хранится. Поэтому при выпуске карты остаются только вставки
+ * в базу; от выдачи номера, занятого в промежутке между проверкой и вставкой, защищает уникальный
+ * индекс {@code card_pan_vault.pan_index}.
+ * </p>
+ * <p>
+ * Пул ограничен {@code card.number-pool.capacity} и не использует блокировок: записи лежат
+ * в {@link ConcurrentLinkedQueue}, глубину считает {@link AtomicInteger}. Когда глубина опускается
+ * до {@code card.number-pool.low-water-mark}, пополнение до полного объёма запускается в
+ * {@code applicationTaskExecutor}; одновременно идёт не больше одного пополнения. Номера проверяются
+ * порциями по {@code card.number-pool.refill-batch} одним запросом к {@code card_pan_vault}.
+ * Если пул пуст, номер готовится прямо в запросе.
+ * </p>
+ * <p>
+ * Каждый номер помнит id ключа, которым зашифрован. Если активный ключ сменился, пока номера лежали
+ * в пуле, {@link #take()} сбрасывает весь пул и запускает пополнение новым ключом: иначе карта получила бы
+ * шифротекст под прежним ключом уже после начала перешифрования.
+ * </p>
+ *
+ * <p>Метрики:</p>
+ * <ul>
+ *     <li>{@code card.number.pool.depth} — номеров в пуле;</li>
+ *     <li>{@code card.number.pool.refill} — длительность пополнения от порога до полного объёма;</li>
+ *     <li>{@code card.number.pool.misses} — выпуски карт при пустом пуле;</li>
+ *     <li>{@code card.number.pool.rejected} — сгенерированные номера, которые уже были выданы.</li>
+ * </ul>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Component
+public class CardNumberPool {
+
+    private final CardPanVaultRepository cardPanVaultRepository;
+    private final CardEncryptionUtil cardEncryptionUtil;
+    private final CardNumberBlindIndex cardNumberBlindIndex;
+    private final CardNumberPoolProperties properties;
+    private final TaskExecutor taskExecutor;
+    private final List<String> binPrefixes;
+
+    private final ConcurrentLinkedQueue<PooledCard> entries = new ConcurrentLinkedQueue<>();
+    private final Set<String> pooledIndexes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final Timer refillTimer;
+    private final Counter misses;
+    private final Counter rejected;
+
+    public CardNumberPool(CardPanVaultRepository cardPanVaultRepository,
+                          CardEncryptionUtil cardEncryptionUtil,
+                          CardNumberBlindIndex cardNumberBlindIndex,
+                          CardNumberPoolProperties properties,
+                          MeterRegistry meterRegistry,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        if (properties.getCapacity() <= 0 || properties.getRefillBatch() <= 0) {
+            throw new IllegalArgumentException("Объём пула номеров и размер порции пополнения должны быть больше нуля");
+        }
+        properties.getBinPrefixes().forEach(CardNumberGenerator::checkBinPrefix);
+        this.cardPanVaultRepository = cardPanVaultRepository;
+        this.cardEncryptionUtil = cardEncryptionUtil;
+        this.cardNumberBlindIndex = cardNumberBlindIndex;
+        this.properties = properties;
+        this.taskExecutor = taskExecutor;
+        this.binPrefixes = List.copyOf(properties.getBinPrefixes());
+
+        Gauge.builder("card.number.pool.depth", depth, AtomicInteger::get)
+                .description("Номеров карт в пуле")
+                .register(meterRegistry);
+        this.refillTimer = Timer.builder("card.number.pool.refill")
+                .description("Пополнение пула номеров карт до полного объёма")
+                .register(meterRegistry);
+        this.misses = Counter.builder("card.number.pool.misses")
+                .description("Выпуски карт при пустом пуле номеров")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("card.number.pool.rejected")
+                .description("Сгенерированные номера, уже выданные раньше")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Заполняет пул после запуска приложения, когда миграции уже применены.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefill() {
+        if (properties.isEnabled()) {
+            triggerRefill();
+        }
+    }
+
+    /**
+     * Забирает номер для новой карты.
+     *
+     * @return маска, шифротекст и слепой индекс номера
+     */
+    public NewCard take() {
+        if (!properties.isEnabled()) {
+            return prepare(nextNumber());
+        }
+        PooledCard pooled = entries.poll();
+        if (pooled == null) {
+            misses.increment();
+            triggerRefill();
+            return prepare(nextNumber());
+        }
+        pooledIndexes.remove(pooled.card().panIndex());
+        int remaining = depth.decrementAndGet();
+        if (pooled.keyId() != cardEncryptionUtil.activeKeyId()) {
+            drain();
+            triggerRefill();
+            return prepare(nextNumber());
+        }
+        if (remaining <= properties.getLowWaterMark()) {
+            triggerRefill();
+        }
+        return pooled.card();
+    }
+
+    /**
+     * @return номеров в пуле
+     */
+    public int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Сбрасывает номера, зашифрованные не активным ключом.
+     */
+    private void drain() {
+        int active = cardEncryptionUtil.activeKeyId();
+        int dropped = 0;
+        for (PooledCard pooled : entries) {
+            if (pooled.keyId() != active && entries.remove(pooled)) {
+                pooledIndexes.remove(pooled.card().panIndex());
+                depth.decrementAndGet();
+                dropped++;
+            }
+        }
+        log.info("Активный ключ шифрования сменился на {}: из пула номеров карт сброшено {} номеров",
+                active, dropped + 1);
+    }
+
+    private void triggerRefill() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(this::refill);
+        } catch (TaskRejectedException e) {
+            refilling.set(false);
+            log.warn("Пополнение пула номеров карт отклонено исполнителем", e);
+        }
+    }
+
+    private void refill() {
+        long start = System.nanoTime();
+        try {
+            int missing;
+            while ((missing = properties.getCapacity() - depth.get()) > 0) {
+                if (fillBatch(Math.min(missing, properties.getRefillBatch())) == 0) {
+                    log.warn("Пул номеров карт не пополнен: все сгенерированные номера уже выданы");
+                    break;
+                }
+            }
+            refillTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось пополнить пул номеров карт", e);
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    /**
+     * Готовит до {@code count} номеров, отбрасывает уже выданные и кладёт остальные в пул.
+     *
+     * @return число добавленных номеров
+     */
+    private int fillBatch(int count) {
+        int keyId = cardEncryptionUtil.activeKeyId();
+        List<NewCard> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String raw = nextNumber();
+            String panIndex = cardNumberBlindIndex.index(raw);
+            if (pooledIndexes.add(panIndex)) {
+                batch.add(new NewCard(cardEncryptionUtil.maskRaw(raw), cardEncryptionUtil.encrypt(raw), panIndex));
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> taken = cardPanVaultRepository.findExistingPanIndexes(
+                batch.stream().map(NewCard::panIndex).toList());
+        int added = 0;
+        for (NewCard card : batch) {
+            if (taken.contains(card.panIndex())) {
+                pooledIndexes.remove(card.panIndex());
+                rejected.increment();
+                continue;
+            }
+            entries.offer(new PooledCard(card, keyId));
+            depth.incrementAndGet();
+            added++;
+        }
+        return added;
+    }
+
+    private String nextNumber() {
+        if (binPrefixes.isEmpty()) {
+            return CardNumberGenerator.generateCardNumber();
+        }
+        return CardNumberGenerator.generateCardNumber(
+                binPrefixes.get(ThreadLocalRandom.current().nextInt(binPrefixes.size())));
+    }
+
+    private NewCard prepare(String raw) {
+        return new NewCard(cardEncryptionUtil.maskRaw(raw), cardEncryptionUtil.encrypt(raw),
+                cardNumberBlindIndex.index(raw));
+    }
+
+    /**
+     * Номер в пуле и id ключа, которым зашифрован его шифротекст.
+     */
+    private record PooledCard(NewCard card, int keyId) {
+    }
+}
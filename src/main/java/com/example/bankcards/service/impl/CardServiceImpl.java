@@ -1,86 +1,127 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
 import com.example.bankcards.dto.payload.BankCardDTO;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.dto.requests.CreateCardRequest;
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.CardPanVault;
 import com.example.bankcards.entity.bankcard.Status;
 import com.example.bankcards.entity.block.CardRequestStatus;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.exception.*;
 import com.example.bankcards.mappers.BankCardBalanceMapper;
 import com.example.bankcards.mappers.BankCardMapper;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.service.interfaces.CardRequestService;
 import com.example.bankcards.service.interfaces.CardService;
-import com.example.bankcards.util.CardEncryptionUtil;
-import com.example.bankcards.util.CardNumberGenerator;
+import com.example.bankcards.util.CardNumberBlindIndex;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CardServiceImpl implements CardService {
 
+    /** Попыток выпустить карту с номером из пула, прежде чем сообщить о конфликте. */
+    static final int MAX_NUMBER_ATTEMPTS = 5;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final BankCardMapper bankCardMapper;
     private final BankCardBalanceMapper bankCardBalanceMapper;
-    private final CardEncryptionUtil cardEncryptionUtil;
+    private final CardPanVaultRepository cardPanVaultRepository;
+    private final CardNumberBlindIndex cardNumberBlindIndex;
+    private final CardNumberPool cardNumberPool;
     private final UserServiceImpl userServiceImpl;
     private final CardRequestService cardRequestServiceImpl;
+    private final BalanceUpdateExecutor balanceUpdateExecutor;
+    private final CacheGenerations cacheGenerations;
+    private final PlatformTransactionManager transactionManager;
 
+    /**
+     * Выпускает карту с номером из {@link CardNumberPool}. Если номер успели выдать между проверкой
+     * в пуле и вставкой, попытка откатывается и повторяется со следующим номером пула в новой транзакции:
+     * после нарушения ограничения транзакция PostgreSQL продолжаться не может. Поэтому вызывающий метод
+     * не должен сам быть транзакционным.
+     */
     @Override
-    @Transactional
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public BankCardDTO create(CreateCardRequest request) {
-        var user = userRepository.findById(request.getOwnerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Владелец с ID " + request.getOwnerId() + " не найден"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            NewCard number = cardNumberPool.take();
+            try {
+                BankCard card = transaction.execute(status -> insertCard(request.getOwnerId(), number));
+                cacheGenerations.invalidate(CacheGenerations.CARDS, request.getOwnerId());
+                return bankCardMapper.toDto(card);
+            } catch (DataIntegrityViolationException e) {
+                if (!isPanIndexViolation(e)) {
+                    throw e;
+                }
+                if (attempt == MAX_NUMBER_ATTEMPTS) {
+                    throw new CardNumberConflictException("Не удалось выпустить карту с уникальным номером");
+                }
+            }
+        }
+    }
 
-        String cardNumber = CardNumberGenerator.generateCardNumber();
-        String encrypted = cardEncryptionUtil.encrypt(cardNumber);
-        String masked = cardEncryptionUtil.maskEncrypted(encrypted);
+    private BankCard insertCard(Long ownerId, NewCard number) {
+        var user = userRepository.findById(ownerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Владелец с ID " + ownerId + " не найден"));
 
-        var card = BankCard.builder()
+        var card = cardRepository.save(BankCard.builder()
                 .owner(user)
-                .cardNumber(masked)
-                .build();
-
-        card = cardRepository.save(card);
-        return bankCardMapper.toDto(card);
+                .cardNumber(number.maskedNumber())
+                .build());
+        cardPanVaultRepository.saveAndFlush(CardPanVault.builder()
+                .card(card)
+                .panCiphertext(number.panCiphertext())
+                .panIndex(number.panIndex())
+                .build());
+        return card;
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public BankCardDTO blocked(Long id) {
         BankCardDTO dto = changeStatusCard(Status.BLOCKED, id);
         cardRequestServiceImpl.changeStatus(id, CardRequestStatus.APPROVED);
+        cacheGenerations.invalidate(CacheGenerations.CARDS, dto.getOwnerId());
         return dto;
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public BankCardDTO activate(Long id) {
-        return changeStatusCard(Status.ACTIVE, id);
+        BankCardDTO dto = changeStatusCard(Status.ACTIVE, id);
+        cacheGenerations.invalidate(CacheGenerations.CARDS, dto.getOwnerId());
+        return dto;
     }
 
     @Override
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public void delete(Long id) {
-        if (!cardRepository.existsById(id)) {
-            throw new CardNotFoundException("Карта с ID " + id + " не существует");
-        }
+        Long ownerId = cardRepository.findOwnerIdById(id)
+                .orElseThrow(() -> new CardNotFoundException("Карта с ID " + id + " не существует"));
         cardRepository.deleteById(id);
+        cacheGenerations.invalidate(CacheGenerations.CARDS, ownerId);
     }
 
     @Override
@@ -100,9 +141,10 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    @Cacheable(value = "bankCardsUser", key = "#pageNumber + '-' + #pageSize + '-' + #userId")
+    @Cacheable(value = "bankCardsUser",
+            key = "@cacheGenerations.owner('cards', #userId) + '-' + #pageNumber + '-' + #pageSize + '-' + #userId")
     public Page<BankCardDTO> getAllCurrentUser(int pageNumber, int pageSize, Long userId) {
-        Page<BankCard> cards = cardRepository.findAllByOwnerId(PageRequest.of(pageNumber, pageSize), userId);
+        Page<CardView> cards = cardRepository.findAllViewsByOwnerId(userId, PageRequest.of(pageNumber, pageSize));
         if (cards.isEmpty()) {
             throw new CardNotFoundException("У пользователя с ID " + userId + " пока нет карт");
         }
@@ -120,9 +162,9 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    @Cacheable(value = "bankCards", key = "#pageNumber + '-' + #pageSize")
+    @Cacheable(value = "bankCards", key = "@cacheGenerations.global('cards') + '-' + #pageNumber + '-' + #pageSize")
     public Page<BankCardDTO> getAll(Integer pageNumber, Integer pageSize) {
-        Page<BankCard> cards = cardRepository.findAll(PageRequest.of(pageNumber, pageSize));
+        Page<CardView> cards = cardRepository.findAllViews(PageRequest.of(pageNumber, pageSize));
         if (cards.isEmpty()) {
             throw new CardNotFoundException("Банковские карты отсутствуют");
         }
@@ -136,47 +178,141 @@ public class CardServiceImpl implements CardService {
         return bankCardMapper.toDto(card);
     }
 
+    @Override
+    public BankCardDTO getByNumber(String cardNumber) {
+        BankCard card = cardPanVaultRepository.findCardByPanIndex(cardNumberBlindIndex.index(cardNumber))
+                .orElseThrow(() -> new CardNotFoundException("Карта с таким номером не найдена"));
+        return bankCardMapper.toDto(card);
+    }
+
     @Override
     public boolean isOwnerCard(Long userId, Long cardId) {
         return cardRepository.existsByIdAndOwnerId(cardId, userId);
     }
 
     @Override
-    @Transactional
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public CardBalanceDTO withdraw(Long cardId, BigDecimal amount) {
-        BankCard card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Карта с ID " + cardId + " не найдена"));
+        Money money = toMoney(amount);
+        return balanceUpdateExecutor.execute("withdraw", () -> {
+            if (balanceUpdateExecutor.lockingMode() == LockingMode.ATOMIC) {
+                CardBalanceView view = cardRepository.withdrawIfActive(cardId, amount)
+                        .orElseThrow(() -> rejectedWithdraw(cardId));
+                cacheGenerations.invalidate(CacheGenerations.CARDS, view.getOwnerId());
+                return bankCardBalanceMapper.toDto(view);
+            }
 
-        if (!isActivated(card)) {
-            throw new InactiveCardException("Нельзя списывать деньги с неактивной карты");
-        }
-        if (card.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Недостаточно средств на карте");
-        }
+            BankCard card = loadForBalanceUpdate(cardId);
 
-        card.setBalance(card.getBalance().subtract(amount));
-        card = cardRepository.save(card);
-        return bankCardBalanceMapper.toDto(card);
+            if (!isActivated(card)) {
+                throw new InactiveCardException("Нельзя списывать деньги с неактивной карты");
+            }
+            if (card.getBalance().isLessThan(money)) {
+                throw new InsufficientFundsException("Недостаточно средств на карте");
+            }
+
+            card.setBalance(card.getBalance().minus(money));
+            BankCard saved = cardRepository.save(card);
+            cacheGenerations.invalidate(CacheGenerations.CARDS, ownerId(card));
+            return bankCardBalanceMapper.toDto(saved);
+        });
     }
 
     @Override
-    @Transactional
-    @CacheEvict(value = {"bankCardsUser", "bankCardsUserAll", "bankCards"}, allEntries = true)
     public CardBalanceDTO deposit(Long cardId, BigDecimal amount) {
-        BankCard card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Карта с ID " + cardId + " не найдена"));
+        Money money = toMoney(amount);
+        return balanceUpdateExecutor.execute("deposit", () -> {
+            if (balanceUpdateExecutor.lockingMode() == LockingMode.ATOMIC) {
+                CardBalanceView view = cardRepository.depositIfActive(cardId, amount)
+                        .orElseThrow(() -> rejectedDeposit(cardId));
+                cacheGenerations.invalidate(CacheGenerations.CARDS, view.getOwnerId());
+                return bankCardBalanceMapper.toDto(view);
+            }
+
+            BankCard card = loadForBalanceUpdate(cardId);
+
+            if (!isActivated(card)) {
+                throw new InactiveCardException("Нельзя пополнить неактивную карту");
+            }
+
+            card.setBalance(card.getBalance().plus(money));
+            BankCard saved = cardRepository.save(card);
+            cacheGenerations.invalidate(CacheGenerations.CARDS, ownerId(card));
+            return bankCardBalanceMapper.toDto(saved);
+        });
+    }
 
-        if (!isActivated(card)) {
-            throw new InactiveCardException("Нельзя пополнить неактивную карту");
+    /**
+     * Переводит сумму запроса в {@link Money}: неположительная сумма, больше двух знаков
+     * после запятой или выход за пределы допустимого диапазона отклоняются как некорректный запрос.
+     */
+    private Money toMoney(BigDecimal amount) {
+        if (amount == null) {
+            throw new InvalidAmountException("Не указана сумма операции");
         }
+        if (amount.signum() <= 0) {
+            throw new InvalidAmountException("Сумма операции должна быть больше нуля");
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("Сумма должна содержать не более двух знаков после запятой");
+        }
+    }
 
-        card.setBalance(card.getBalance().add(amount));
-        card = cardRepository.save(card);
-        return bankCardBalanceMapper.toDto(card);
+    /**
+     * Загружает карту для изменения баланса с учётом режима блокировки:
+     * в пессимистическом режиме строка блокируется, в оптимистическом
+     * конфликт будет обнаружен по версии при фиксации транзакции.
+     */
+    private BankCard loadForBalanceUpdate(Long cardId) {
+        Optional<BankCard> card = balanceUpdateExecutor.lockingMode() == LockingMode.PESSIMISTIC
+                ? cardRepository.findByIdForUpdate(cardId)
+                : cardRepository.findById(cardId);
+        return card.orElseThrow(() -> new CardNotFoundException("Карта с ID " + cardId + " не найдена"));
+    }
+
+    /**
+     * Возвращает id владельца карты, не загружая сам объект пользователя.
+     */
+    private Long ownerId(BankCard card) {
+        return card.getOwner() != null ? card.getOwner().getId() : null;
+    }
+
+    /**
+     * Определяет причину, по которой атомарное списание не изменило ни одной строки.
+     */
+    private RuntimeException rejectedWithdraw(Long cardId) {
+        return cardRepository.findById(cardId)
+                .<RuntimeException>map(card -> isActivated(card)
+                        ? new InsufficientFundsException("Недостаточно средств на карте")
+                        : new InactiveCardException("Нельзя списывать деньги с неактивной карты"))
+                .orElseGet(() -> new CardNotFoundException("Карта с ID " + cardId + " не найдена"));
+    }
+
+    /**
+     * Нарушено ли уникальное ограничение на слепой индекс номера. Остальные нарушения целостности
+     * (внешние ключи, NOT NULL, первичный ключ) к повторному номеру отношения не имеют.
+     */
+    private static boolean isPanIndexViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return CardPanVault.PAN_INDEX_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Определяет причину, по которой атомарное пополнение не изменило ни одной строки.
+     */
+    private RuntimeException rejectedDeposit(Long cardId) {
+        return cardRepository.existsById(cardId)
+                ? new InactiveCardException("Нельзя пополнить неактивную карту")
+                : new CardNotFoundException("Карта с ID " + cardId + " не найдена");
     }
 
     @Override
+    @Cacheable(value = "cardBalance", key = "@cacheGenerations.owner('cards', #userId) + '-' + #userId + '-' + #cardId")
     public CardBalanceDTO getBalance(Long userId, Long cardId) {
         BankCard card = cardRepository.findAllByOwnerIdAndId(userId, cardId)
                 .orElseThrow(() -> new CardNotFoundException("У пользователя с ID " + userId + " нет карты с ID " + cardId));
@@ -0,0 +1,282 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.config.IdempotencyProperties;
+import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.entity.idempotency.IdempotencyRecord;
+import com.example.bankcards.entity.idempotency.IdempotencyStatus;
+import com.example.bankcards.exception.IdempotencyConflictException;
+import com.example.bankcards.exception.InvalidIdempotencyKeyException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Реализация {@link IdempotencyService}.
+ * <p>
+ * Ответ ищется последовательно:
+ * </p>
+ * <ol>
+ *     <li>в локальном кэше Caffeine с TTL — повтор обслуживается без обращения к БД;</li>
+ *     <li>среди запросов, выполняющихся в этом экземпляре, — дубликат ждёт результат первого;</li>
+ *     <li>в таблице {@code idempotency_keys}, где ключ захватывается
+ *     {@code INSERT ... ON CONFLICT DO NOTHING}, — это гарантирует единственное выполнение
+ *     и при нескольких экземплярах приложения.</li>
+ * </ol>
+ *
+ * <p>Если действие завершилось исключением, ключ освобождается, и повтор выполнит запрос заново.
+ * Захват в БД арендуется на {@code idempotency.lease}: если узел упал, не завершив запрос,
+ * после истечения аренды повтор с тем же телом перехватывает ключ и выполняет запрос.
+ * Пока запрос выполняется, экземпляр продлевает аренду каждые {@code idempotency.renew-interval},
+ * поэтому живой, но долгий запрос не теряет ключ.</p>
+ *
+ * <p>Каждый захват и перехват записывает новый токен ({@code claim_token}); сохранить ответ и освободить
+ * ключ может только запрос с текущим токеном. Запрос, у которого ключ всё же перехватили (например, узел
+ * завис дольше аренды), не перезаписывает запись перехватившего запроса.</p>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final TypeReference<APIResponse<JsonNode>> STORED_RESPONSE = new TypeReference<>() {};
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredResponse> responses;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Claim> claims = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository repository,
+                                  ObjectMapper objectMapper,
+                                  IdempotencyProperties properties) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getCacheTtl())
+                .maximumSize(properties.getCacheMaxSize())
+                .build();
+    }
+
+    @Override
+    public <T> ResponseEntity<APIResponse<T>> execute(String scope, String key, Object request,
+                                                      Supplier<ResponseEntity<APIResponse<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Ключ идемпотентности не может быть длиннее " + MAX_KEY_LENGTH + " символов");
+        }
+
+        String hash = hash(request);
+        String cacheKey = scope + '|' + key;
+
+        StoredResponse cached = responses.getIfPresent(cacheKey);
+        if (cached != null) {
+            return replay(cached, hash);
+        }
+
+        CompletableFuture<StoredResponse> own = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, own);
+        if (running != null) {
+            return replay(await(running), hash);
+        }
+
+        Claim claim = new Claim(scope, key, UUID.randomUUID().toString());
+        try {
+            Optional<IdempotencyRecord> existing = claim(claim, hash);
+            if (existing.isPresent()) {
+                StoredResponse stored = fromRecord(existing.get(), hash);
+                responses.put(cacheKey, stored);
+                own.complete(stored);
+                return replay(stored, hash);
+            }
+
+            ResponseEntity<APIResponse<T>> response;
+            claims.put(cacheKey, claim);
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                repository.release(scope, key, claim.token(), IdempotencyStatus.IN_PROGRESS);
+                throw e;
+            } finally {
+                claims.remove(cacheKey, claim);
+            }
+
+            StoredResponse stored = new StoredResponse(hash, response.getStatusCode().value(), serialize(response.getBody()));
+            if (repository.complete(scope, key, claim.token(), IdempotencyStatus.COMPLETED,
+                    stored.status(), stored.body()) == 1) {
+                responses.put(cacheKey, stored);
+            } else {
+                log.warn("Ключ идемпотентности {} в области {} перехвачен другим запросом, ответ не сохранён",
+                        key, scope);
+            }
+            own.complete(stored);
+            return response;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, own);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.renew-interval:PT30S}")
+    public void renewLeases() {
+        Instant leaseUntil = Instant.now().plus(properties.getLease());
+        claims.forEach((cacheKey, claim) -> {
+            if (repository.renew(claim.scope(), claim.key(), claim.token(),
+                    IdempotencyStatus.IN_PROGRESS, leaseUntil) == 0) {
+                claims.remove(cacheKey, claim);
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        repository.deleteAllExpired(Instant.now());
+    }
+
+    /**
+     * Захватывает ключ в БД или перехватывает его у запроса с истёкшей арендой.
+     *
+     * @return пустой {@link Optional}, если ключ захвачен этим вызовом, иначе существующая запись
+     */
+    private Optional<IdempotencyRecord> claim(Claim claim, String hash) {
+        String scope = claim.scope();
+        String key = claim.key();
+        Instant now = Instant.now();
+        Instant leaseUntil = now.plus(properties.getLease());
+        Instant expiresAt = now.plus(properties.getRetention());
+        if (repository.claim(scope, key, hash, claim.token(), now, leaseUntil, expiresAt) == 1) {
+            return Optional.empty();
+        }
+
+        Optional<IdempotencyRecord> existing = repository.findByScopeAndIdempotencyKey(scope, key);
+        if (existing.isEmpty() || existing.get().getExpiresAt().isBefore(now)) {
+            repository.deleteIfExpired(scope, key, now);
+            if (repository.claim(scope, key, hash, claim.token(), now, leaseUntil, expiresAt) == 1) {
+                return Optional.empty();
+            }
+            existing = repository.findByScopeAndIdempotencyKey(scope, key);
+        }
+        IdempotencyRecord record = existing.orElseThrow(this::stillRunning);
+        if (leaseExpired(record, now) && repository.takeOver(
+                scope, key, hash, claim.token(), IdempotencyStatus.IN_PROGRESS, now, leaseUntil, expiresAt) == 1) {
+            return Optional.empty();
+        }
+        return Optional.of(record);
+    }
+
+    private static boolean leaseExpired(IdempotencyRecord record, Instant now) {
+        return record.getStatus() == IdempotencyStatus.IN_PROGRESS
+                && (record.getLeaseUntil() == null || record.getLeaseUntil().isBefore(now));
+    }
+
+    private StoredResponse fromRecord(IdempotencyRecord record, String hash) {
+        if (!record.getRequestHash().equals(hash)) {
+            throw mismatch();
+        }
+        if (record.getStatus() != IdempotencyStatus.COMPLETED) {
+            throw stillRunning();
+        }
+        return new StoredResponse(record.getRequestHash(), record.getResponseStatus(), record.getResponseBody());
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<APIResponse<T>> replay(StoredResponse stored, String hash) {
+        if (!stored.requestHash().equals(hash)) {
+            throw mismatch();
+        }
+        try {
+            APIResponse<JsonNode> body = objectMapper.readValue(stored.body(), STORED_RESPONSE);
+            return ResponseEntity.status(stored.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .body((APIResponse<T>) (APIResponse<?>) body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать сохранённый ответ", e);
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сохранить ответ", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = request == null
+                    ? new byte[0]
+                    : objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось вычислить хэш запроса", e);
+        }
+    }
+
+    private IdempotencyConflictException mismatch() {
+        return new IdempotencyConflictException(
+                "Ключ идемпотентности уже использован для другого запроса");
+    }
+
+    private IdempotencyConflictException stillRunning() {
+        return new IdempotencyConflictException(
+                "Запрос с этим ключом идемпотентности ещё выполняется, повторите позже");
+    }
+
+    /**
+     * Захват ключа этим экземпляром: область, ключ и токен захвата.
+     */
+    private record Claim(String scope, String key, String token) {
+    }
+
+    /**
+     * Сохранённый ответ: хэш запроса, HTTP-статус и тело в формате JSON.
+     */
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.config.KeyRotationProperties;
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+import com.example.bankcards.entity.bankcard.CardKeyRotation;
+import com.example.bankcards.entity.bankcard.KeyRotationStatus;
+import com.example.bankcards.exception.KeyRotationInProgressException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardKeyRotationRepository;
+import com.example.bankcards.repository.CardPanVaultBatchWriter;
+import com.example.bankcards.repository.CardPanVaultBatchWriter.ReEncryptedPan;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.repository.projection.PanCiphertextView;
+import com.example.bankcards.service.interfaces.KeyRotationService;
+import com.example.bankcards.util.CardEncryptionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Перешифрование номеров карт активным ключом без остановки приложения.
+ * <p>
+ * Задание выполняется в фоне ({@code applicationTaskExecutor}). Строки {@code card_pan_vault} читаются
+ * порциями по {@code card.key-rotation.chunk-size} по возрастанию первичного ключа, без блокировок.
+ * Порция перешифровывается в отдельном {@link ForkJoinPool} на {@code card.key-rotation.parallelism} потоков;
+ * записи, уже зашифрованные активным ключом, пропускаются. Новые шифротексты пишутся пакетом
+ * ({@link CardPanVaultBatchWriter}) в короткой транзакции вместе с контрольной точкой
+ * ({@link CardKeyRotation}), поэтому строки блокируются только на время записи одной порции, а после
+ * остановки или сбоя перешифрование продолжается со следующей порции.
+ * </p>
+ * <p>
+ * Идентификаторы карт выдаются пулами последовательности, поэтому карта, вставленная во время прохода,
+ * может получить идентификатор меньше позиции и не попасть в проход. Дойдя до конца таблицы, задание
+ * начинает новый проход с начала и завершается, только когда полный проход не нашёл ни одной записи под
+ * прежним ключом; записи под активным ключом при этом не расшифровываются. Проходов не больше
+ * {@code card.key-rotation.max-passes}.
+ * </p>
+ * <p>
+ * Скорость ограничена {@code card.key-rotation.rows-per-second}: если задание опережает предел,
+ * поток задания ждёт перед следующей порцией. Задание арендуется экземпляром в {@link CardKeyRotation}
+ * на {@code card.key-rotation.lease} и продлевает аренду с каждой порцией; пока аренда действует,
+ * другие экземпляры задание не запускают (а уникальный индекс по {@code RUNNING} не даёт запустить его
+ * одновременно). Если экземпляр упал, задание продолжается с любого экземпляра после истечения аренды.
+ * Остановка с другого экземпляра снимает аренду, и владелец прекращает работу на следующей порции.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Service
+public class KeyRotationServiceImpl implements KeyRotationService, DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 512;
+    private static final String LEASE_EXPIRED = "Экземпляр, выполнявший перешифрование, перестал продлевать аренду";
+
+    private final CardPanVaultRepository cardPanVaultRepository;
+    private final CardPanVaultBatchWriter cardPanVaultBatchWriter;
+    private final CardKeyRotationRepository cardKeyRotationRepository;
+    private final CardEncryptionUtil cardEncryptionUtil;
+    private final KeyRotationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final ForkJoinPool workers;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+    private volatile Run run;
+
+    public KeyRotationServiceImpl(CardPanVaultRepository cardPanVaultRepository,
+                                  CardPanVaultBatchWriter cardPanVaultBatchWriter,
+                                  CardKeyRotationRepository cardKeyRotationRepository,
+                                  CardEncryptionUtil cardEncryptionUtil,
+                                  KeyRotationProperties properties,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        if (properties.getMaxPasses() <= 0) {
+            throw new IllegalArgumentException("card.key-rotation.max-passes должен быть больше нуля");
+        }
+        if (properties.getRowsPerSecond() > 0 && Duration.ofMillis(
+                properties.getChunkSize() * 1000L / properties.getRowsPerSecond()).compareTo(properties.getLease()) >= 0) {
+            throw new IllegalArgumentException(
+                    "card.key-rotation.lease должен быть больше времени одной порции (chunk-size / rows-per-second)");
+        }
+        this.cardPanVaultRepository = cardPanVaultRepository;
+        this.cardPanVaultBatchWriter = cardPanVaultBatchWriter;
+        this.cardKeyRotationRepository = cardKeyRotationRepository;
+        this.cardEncryptionUtil = cardEncryptionUtil;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.workers = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public KeyRotationDTO start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            throw new KeyRotationInProgressException("Перешифрование номеров карт уже выполняется");
+        }
+        int keyId = cardEncryptionUtil.activeKeyId();
+        CardKeyRotation checkpoint;
+        try {
+            checkpoint = transactionTemplate.execute(status -> begin(keyId, restart));
+        } catch (DataIntegrityViolationException e) {
+            running.set(false);
+            throw new KeyRotationInProgressException("Перешифрование номеров карт уже выполняется на другом экземпляре");
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        try {
+            stopRequested = false;
+            run = new Run(keyId);
+            long cursor = checkpoint.getLastCardId();
+            taskExecutor.execute(() -> rotate(keyId, cursor));
+            log.info("Перешифрование номеров карт ключом {} запущено с карты {} (экземпляр {})",
+                    keyId, cursor, instanceId);
+            return toDto(checkpoint);
+        } catch (RuntimeException e) {
+            finish(keyId, KeyRotationStatus.PAUSED, null);
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public KeyRotationDTO getStatus() {
+        int keyId = cardEncryptionUtil.activeKeyId();
+        return cardKeyRotationRepository.findById(keyId)
+                .map(this::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Перешифрование номеров карт ключом " + keyId + " не запускалось"));
+    }
+
+    @Override
+    public KeyRotationDTO stop() {
+        if (running.get()) {
+            stopRequested = true;
+        } else {
+            int keyId = cardEncryptionUtil.activeKeyId();
+            transactionTemplate.executeWithoutResult(status -> cardKeyRotationRepository.release(
+                    keyId, null, KeyRotationStatus.PAUSED, null, Instant.now()));
+        }
+        return getStatus();
+    }
+
+    @Override
+    public void destroy() {
+        stopRequested = true;
+        workers.shutdownNow();
+    }
+
+    /**
+     * Арендует контрольную точку ключа: задания с истёкшей арендой переводятся в {@link KeyRotationStatus#FAILED},
+     * при действующей аренде другого экземпляра запуск отклоняется.
+     */
+    private CardKeyRotation begin(int keyId, boolean restart) {
+        Instant now = Instant.now();
+        Instant leaseUntil = now.plus(properties.getLease());
+        int expired = cardKeyRotationRepository.expireLeases(LEASE_EXPIRED, now);
+        if (expired > 0) {
+            log.warn("Перешифрование номеров карт на другом экземпляре прервано: аренда истекла");
+        }
+        if (cardKeyRotationRepository.existsByStatus(KeyRotationStatus.RUNNING)) {
+            throw new KeyRotationInProgressException("Перешифрование номеров карт уже выполняется на другом экземпляре");
+        }
+        if (cardKeyRotationRepository.claim(keyId, instanceId, now, leaseUntil) == 0) {
+            return cardKeyRotationRepository.saveAndFlush(CardKeyRotation.builder()
+                    .keyId(keyId)
+                    .status(KeyRotationStatus.RUNNING)
+                    .owner(instanceId)
+                    .leaseUntil(leaseUntil)
+                    .startedAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        CardKeyRotation checkpoint = cardKeyRotationRepository.findById(keyId).orElseThrow();
+        if (restart) {
+            checkpoint.setLastCardId(0);
+            checkpoint.setScanned(0);
+            checkpoint.setRotated(0);
+            checkpoint.setStartedAt(now);
+        }
+        return checkpoint;
+    }
+
+    private void rotate(int keyId, long cursor) {
+        Run current = run;
+        try {
+            boolean completed = false;
+            int pass = 1;
+            boolean fullPass = cursor == 0;
+            long foundInPass = 0;
+            while (!stopRequested) {
+                List<PanCiphertextView> chunk = cardPanVaultRepository.findCiphertextsAfter(
+                        cursor, PageRequest.of(0, properties.getChunkSize()));
+                if (chunk.isEmpty()) {
+                    if (fullPass && foundInPass == 0) {
+                        completed = true;
+                        break;
+                    }
+                    if (pass == properties.getMaxPasses()) {
+                        throw new IllegalStateException("После " + pass + " проходов остались номера под прежними"
+                                + " ключами: проверьте, что все экземпляры шифруют новые номера ключом " + keyId);
+                    }
+                    pass++;
+                    fullPass = true;
+                    foundInPass = 0;
+                    cursor = 0;
+                    saveChunk(keyId, cursor, 0, List.of());
+                    log.info("Перешифрование номеров карт ключом {}: проход {} с начала таблицы", keyId, pass);
+                    continue;
+                }
+                List<ReEncryptedPan> changed = workers.submit(() -> reEncrypt(chunk)).join();
+                long lastCardId = chunk.get(chunk.size() - 1).getCardId();
+                saveChunk(keyId, lastCardId, chunk.size(), changed);
+                foundInPass += changed.size();
+                cursor = lastCardId;
+                current.scanned.addAndGet(chunk.size());
+                throttle(current);
+            }
+            CardKeyRotation checkpoint = finish(keyId, completed ? KeyRotationStatus.COMPLETED : KeyRotationStatus.PAUSED,
+                    null);
+            log.info("Перешифрование номеров карт ключом {} {}: просмотрено {}, перешифровано {}, позиция {}",
+                    keyId, completed ? "завершено" : "остановлено", checkpoint.getScanned(),
+                    checkpoint.getRotated(), checkpoint.getLastCardId());
+        } catch (LeaseLostException e) {
+            log.warn("Перешифрование номеров карт ключом {} прервано на карте {}: задание остановлено"
+                    + " или аренда перешла к другому экземпляру", keyId, cursor);
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Перешифрование номеров карт ключом {} остановлено на карте {}", keyId, cursor, cause);
+            finish(keyId, KeyRotationStatus.FAILED, cause.getMessage());
+        } finally {
+            current.finishNanos = System.nanoTime();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Записывает перешифрованные номера порции и сдвигает контрольную точку одной транзакцией,
+     * продлевая аренду. Если аренда потеряна, транзакция откатывается.
+     */
+    private void saveChunk(int keyId, long lastCardId, int scanned, List<ReEncryptedPan> changed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int rotated = changed.isEmpty() ? 0 : cardPanVaultBatchWriter.updateAll(changed);
+            Instant now = Instant.now();
+            if (cardKeyRotationRepository.advance(keyId, instanceId, lastCardId, scanned, rotated, now,
+                    now.plus(properties.getLease())) == 0) {
+                throw new LeaseLostException();
+            }
+        });
+    }
+
+    private List<ReEncryptedPan> reEncrypt(List<PanCiphertextView> chunk) {
+        return chunk.parallelStream()
+                .map(row -> cardEncryptionUtil.reEncrypt(row.getPanCiphertext())
+                        .map(ciphertext -> new ReEncryptedPan(row.getCardId(), row.getPanCiphertext(), ciphertext))
+                        .orElse(null))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Ждёт, пока средняя скорость с запуска не опустится до {@code card.key-rotation.rows-per-second}.
+     */
+    private void throttle(Run current) {
+        int rowsPerSecond = properties.getRowsPerSecond();
+        if (rowsPerSecond <= 0) {
+            return;
+        }
+        long aheadNanos = current.scanned.get() * 1_000_000_000L / rowsPerSecond
+                - (System.nanoTime() - current.startNanos);
+        if (aheadNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopRequested = true;
+        }
+    }
+
+    private CardKeyRotation finish(int keyId, KeyRotationStatus status, String error) {
+        return transactionTemplate.execute(tx -> {
+            cardKeyRotationRepository.release(keyId, instanceId, status,
+                    error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH),
+                    Instant.now());
+            return cardKeyRotationRepository.findById(keyId).orElseThrow();
+        });
+    }
+
+    private KeyRotationDTO toDto(CardKeyRotation checkpoint) {
+        Run current = run;
+        return KeyRotationDTO.builder()
+                .keyId(checkpoint.getKeyId())
+                .status(checkpoint.getStatus())
+                .running(running.get())
+                .owner(checkpoint.getOwner())
+                .lastCardId(checkpoint.getLastCardId())
+                .scanned(checkpoint.getScanned())
+                .rotated(checkpoint.getRotated())
+                .rowsPerSecond(current != null && current.keyId == checkpoint.getKeyId() ? current.rowsPerSecond() : 0)
+                .startedAt(checkpoint.getStartedAt())
+                .updatedAt(checkpoint.getUpdatedAt())
+                .finishedAt(checkpoint.getFinishedAt())
+                .error(checkpoint.getError())
+                .build();
+    }
+
+    /**
+     * Контрольная точка не сдвинута: задание остановлено с другого экземпляра или его аренда истекла
+     * и перешла к другому экземпляру.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+    }
+
+    /**
+     * Скорость последнего запуска на этом экземпляре. Счётчик пишет только поток задания.
+     */
+    private static final class Run {
+
+        private final int keyId;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong scanned = new AtomicLong();
+        private volatile long finishNanos;
+
+        private Run(int keyId) {
+            this.keyId = keyId;
+        }
+
+        private double rowsPerSecond() {
+            long elapsed = (finishNanos != 0 ? finishNanos : System.nanoTime()) - startNanos;
+            return elapsed > 0 ? scanned.get() * 1e9 / elapsed : 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.interfaces.TokenVersionService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Реализация {@link TokenVersionService} с локальным кэшем Caffeine.
+ * <p>
+ * Текущая версия читается одним запросом по первичному ключу и хранится в памяти
+ * {@code auth.jwt.version-cache-ttl}. Отзыв на этом узле виден сразу, на остальных —
+ * не позднее истечения TTL. Для удалённого пользователя кэшируется версия {@code -1},
+ * которой не соответствует ни один токен.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Service
+public class TokenVersionServiceImpl implements TokenVersionService {
+
+    private static final long MISSING_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final LoadingCache<Long, Long> versions;
+
+    public TokenVersionServiceImpl(UserRepository userRepository,
+                                   @Value("${auth.jwt.version-cache-ttl:PT30S}") Duration ttl,
+                                   @Value("${auth.jwt.version-cache-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build(id -> userRepository.findTokenVersionById(id).orElse(MISSING_USER));
+    }
+
+    @Override
+    public boolean isCurrent(Long userId, long version) {
+        Long current = versions.get(userId);
+        return current != MISSING_USER && current == version;
+    }
+
+    @Override
+    public void revoke(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        versions.invalidate(userId);
+    }
+}
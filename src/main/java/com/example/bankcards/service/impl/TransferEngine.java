@@ -0,0 +1,240 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.BalanceConcurrencyProperties;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.exception.CardAccessDeniedException;
+import com.example.bankcards.exception.InactiveCardException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Движок денежных переводов между картами.
+ * <p>
+ * Перевод выполняется в одной транзакции фиксированным набором SQL-запросов:
+ * одна выборка обеих карт с блокировкой строк, один {@code INSERT} в {@code transfers}
+ * и два {@code UPDATE} балансов при фиксации транзакции.
+ * </p>
+ *
+ * <p>Строки {@code bank_card} блокируются одним запросом строго в порядке возрастания
+ * идентификатора (см. {@link CardRepository#findAllByIdInForUpdate}), поэтому встречные
+ * переводы A → B и B → A сериализуются и не приводят к взаимной блокировке.</p>
+ *
+ * <p>В режиме {@link LockingMode#ATOMIC} карты не загружаются: списание и зачисление
+ * выполняются условными {@code UPDATE ... RETURNING}, проверяющими статус и остаток
+ * в самом запросе. Запросы выполняются в порядке возрастания идентификатора карты,
+ * чтобы сохранить тот же порядок захвата строк. Режим {@link LockingMode#OPTIMISTIC}
+ * для переводов не применяется — используется блокирующая выборка.</p>
+ *
+ * <p>Списывать можно только с карты инициатора: в блокирующих режимах владелец проверяется
+ * по загруженной карте, в режиме {@link LockingMode#ATOMIC} — по строке, возвращённой списанием,
+ * а при неудавшемся списании — до выбора ошибки, чтобы по ответу нельзя было судить о чужой карте.</p>
+ *
+ * <p>После фиксации инвалидируются только кэши карт владельцев обеих карт и кэш
+ * переводов инициатора (см. {@link CacheGenerations}).</p>
+ *
+ * @author ksenya
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferEngine {
+
+    private final CardRepository cardRepository;
+    private final TransferRepository transferRepository;
+    private final UserRepository userRepository;
+    private final BalanceConcurrencyProperties properties;
+    private final CacheGenerations cacheGenerations;
+
+    /**
+     * Выполняет перевод между двумя картами.
+     *
+     * @param initiatorId идентификатор пользователя, инициирующего перевод
+     * @param fromCardId  идентификатор карты-отправителя
+     * @param toCardId    идентификатор карты-получателя
+     * @param amount      сумма перевода (строго положительная)
+     * @return сохранённый перевод со статусом {@link TransferStatus#COMPLETED}
+     * @throws InvalidTransferException   если карты совпадают или сумма не положительна
+     *                                    либо содержит больше двух знаков после запятой
+     * @throws ResourceNotFoundException  если одна из карт не найдена
+     * @throws CardAccessDeniedException  если карта-отправитель принадлежит другому пользователю
+     * @throws InactiveCardException      если одна из карт не активна
+     * @throws InsufficientFundsException если на карте-отправителе недостаточно средств
+     */
+    @Transactional
+    public Transfer execute(Long initiatorId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        Money money = validate(fromCardId, toCardId, amount);
+
+        if (properties.getLockingMode() == LockingMode.ATOMIC) {
+            return executeAtomic(initiatorId, fromCardId, toCardId, amount, money);
+        }
+
+        List<BankCard> locked = cardRepository.findAllByIdInForUpdate(List.of(fromCardId, toCardId));
+        BankCard fromCard = pick(locked, fromCardId, "Не найдена карта-отправитель с ID = ");
+        BankCard toCard = pick(locked, toCardId, "Не найдена карта-получатель с ID = ");
+        checkOwner(initiatorId, ownerId(fromCard));
+
+        if (!(fromCard.getStatus() == Status.ACTIVE && toCard.getStatus() == Status.ACTIVE)) {
+            throw new InactiveCardException("Обе карты должны быть активированы для перевода");
+        }
+        if (fromCard.getBalance().isLessThan(money)) {
+            throw new InsufficientFundsException("Недостаточно средств на карте");
+        }
+
+        fromCard.setBalance(fromCard.getBalance().minus(money));
+        toCard.setBalance(toCard.getBalance().plus(money));
+
+        Transfer transfer = Transfer.builder()
+                .fromCard(fromCard)
+                .toCard(toCard)
+                .initiator(userRepository.getReferenceById(initiatorId))
+                .amount(money)
+                .status(TransferStatus.COMPLETED)
+                .build();
+
+        Transfer saved = transferRepository.save(transfer);
+        invalidateCaches(initiatorId, ownerId(fromCard), ownerId(toCard));
+        return saved;
+    }
+
+    /**
+     * Перевод условными {@code UPDATE} без предварительной выборки карт.
+     * Если одно из обновлений не затронуло строку, транзакция откатывается
+     * вместе с уже выполненным обновлением.
+     */
+    private Transfer executeAtomic(Long initiatorId, Long fromCardId, Long toCardId, BigDecimal amount, Money money) {
+        CardBalanceView from;
+        CardBalanceView to;
+        if (fromCardId < toCardId) {
+            from = debit(initiatorId, fromCardId, amount);
+            to = credit(toCardId, amount);
+        } else {
+            to = credit(toCardId, amount);
+            from = debit(initiatorId, fromCardId, amount);
+        }
+
+        Transfer transfer = Transfer.builder()
+                .fromCard(detached(from))
+                .toCard(detached(to))
+                .initiator(userRepository.getReferenceById(initiatorId))
+                .amount(money)
+                .status(TransferStatus.COMPLETED)
+                .build();
+
+        Transfer saved = transferRepository.save(transfer);
+        invalidateCaches(initiatorId, from.getOwnerId(), to.getOwnerId());
+        return saved;
+    }
+
+    /**
+     * Инвалидирует после фиксации кэши карт обоих владельцев и переводы инициатора.
+     */
+    private void invalidateCaches(Long initiatorId, Long fromOwnerId, Long toOwnerId) {
+        cacheGenerations.invalidate(CacheGenerations.CARDS, fromOwnerId, toOwnerId);
+        cacheGenerations.invalidate(CacheGenerations.TRANSFERS, initiatorId);
+    }
+
+    /**
+     * Возвращает id владельца карты, не загружая сам объект пользователя.
+     */
+    private Long ownerId(BankCard card) {
+        return card.getOwner() != null ? card.getOwner().getId() : null;
+    }
+
+    /**
+     * Проверяет, что карта-отправитель принадлежит инициатору перевода.
+     *
+     * @throws CardAccessDeniedException если карта принадлежит другому пользователю
+     */
+    private void checkOwner(Long initiatorId, Long ownerId) {
+        if (!initiatorId.equals(ownerId)) {
+            throw new CardAccessDeniedException("Пользователь не является владельцем карты");
+        }
+    }
+
+    /**
+     * Списывает сумму с карты инициатора. Если карта чужая, исключение откатывает уже выполненное
+     * списание вместе с транзакцией.
+     */
+    private CardBalanceView debit(Long initiatorId, Long cardId, BigDecimal amount) {
+        CardBalanceView from = cardRepository.withdrawIfActive(cardId, amount).orElseThrow(() -> cardRepository
+                .findById(cardId)
+                .<RuntimeException>map(card -> !initiatorId.equals(ownerId(card))
+                        ? new CardAccessDeniedException("Пользователь не является владельцем карты")
+                        : card.getStatus() == Status.ACTIVE
+                        ? new InsufficientFundsException("Недостаточно средств на карте")
+                        : new InactiveCardException("Обе карты должны быть активированы для перевода"))
+                .orElseGet(() -> new ResourceNotFoundException("Не найдена карта-отправитель с ID = " + cardId)));
+        checkOwner(initiatorId, from.getOwnerId());
+        return from;
+    }
+
+    private CardBalanceView credit(Long cardId, BigDecimal amount) {
+        return cardRepository.depositIfActive(cardId, amount).orElseThrow(() -> cardRepository.existsById(cardId)
+                ? new InactiveCardException("Обе карты должны быть активированы для перевода")
+                : new ResourceNotFoundException("Не найдена карта-получатель с ID = " + cardId));
+    }
+
+    /**
+     * Собирает отсоединённую карту из строки, возвращённой {@code UPDATE ... RETURNING}.
+     * Версия заполнена, поэтому Hibernate использует карту только как ссылку для внешнего ключа.
+     */
+    private BankCard detached(CardBalanceView view) {
+        return BankCard.builder()
+                .id(view.getId())
+                .cardNumber(view.getCardNumber())
+                .owner(userRepository.getReferenceById(view.getOwnerId()))
+                .expirationDate(view.getExpirationDate())
+                .status(view.getStatus())
+                .balance(Money.of(view.getBalance()))
+                .version(view.getVersion())
+                .build();
+    }
+
+    /**
+     * Проверяет параметры перевода до обращения к базе данных.
+     *
+     * @return сумма перевода в виде {@link Money}
+     */
+    private Money validate(Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (fromCardId == null || toCardId == null) {
+            throw new InvalidTransferException("Не указаны карты для перевода");
+        }
+        if (fromCardId.equals(toCardId)) {
+            throw new InvalidTransferException("Нельзя перевести средства на ту же карту");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidTransferException("Сумма перевода должна быть положительной");
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new InvalidTransferException("Сумма перевода должна содержать не более двух знаков после запятой");
+        }
+    }
+
+    /**
+     * Находит карту с указанным id среди заблокированных.
+     */
+    private BankCard pick(List<BankCard> cards, Long id, String notFoundMessage) {
+        return cards.stream()
+                .filter(card -> card.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException(notFoundMessage + id));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.dto.requests.TransferExportFormat;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.mappers.TransferMapper;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.interfaces.TransferExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка переводов в NDJSON или CSV.
+ * <p>
+ * Переводы читаются через {@link TransferRepository#streamForExport} и преобразуются
+ * {@link TransferMapper} по одному. Каждые {@link TransferRepository#EXPORT_FETCH_SIZE} строк
+ * записанное отправляется клиенту, а контекст персистентности очищается, поэтому в памяти
+ * одновременно находится не больше одной порции строк.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Slf4j
+@Service
+public class TransferExportServiceImpl implements TransferExportService {
+
+    private static final String CSV_HEADER = "transactionId,initiatorId,fromCardId,toCardId,amount,status,createdAt";
+
+    private final TransferRepository transferRepository;
+    private final TransferMapper transferMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public TransferExportServiceImpl(TransferRepository transferRepository,
+                                     TransferMapper transferMapper,
+                                     EntityManager entityManager,
+                                     ObjectMapper objectMapper) {
+        this.transferRepository = transferRepository;
+        this.transferMapper = transferMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(TransferUserDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void validate(Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidTransferException("Начало периода выгрузки должно быть раньше его конца");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(Instant from, Instant to, TransferStatus status, TransferExportFormat format,
+                       OutputStream out) throws IOException {
+        validate(from, to);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator generator = null;
+        if (format == TransferExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else {
+            generator = objectMapper.getFactory()
+                    .createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        }
+
+        long rows = 0;
+        try (Stream<Transfer> transfers = transferRepository.streamForExport(from, to, status)) {
+            Iterator<Transfer> iterator = transfers.iterator();
+            while (iterator.hasNext()) {
+                TransferUserDto dto = transferMapper.toDto(iterator.next());
+                if (generator != null) {
+                    rowWriter.writeValue(generator, dto);
+                    generator.writeRaw('\n');
+                } else {
+                    writeCsvRow(writer, dto);
+                }
+
+                if (++rows % TransferRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    flush(generator, writer);
+                }
+            }
+        }
+        flush(generator, writer);
+
+        log.info("Выгружено переводов: {} (период {} — {}, статус {}, формат {})", rows, from, to, status, format);
+        return rows;
+    }
+
+    private static void flush(JsonGenerator generator, Writer writer) throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, TransferUserDto dto) throws IOException {
+        writer.write(String.valueOf(dto.getTransactionId()));
+        writer.write(',');
+        writer.write(String.valueOf(dto.getInitiatorId()));
+        writer.write(',');
+        writer.write(cardId(dto.getFromCard()));
+        writer.write(',');
+        writer.write(cardId(dto.getToCard()));
+        writer.write(',');
+        writer.write(dto.getAmount() != null ? dto.getAmount().toString() : "");
+        writer.write(',');
+        writer.write(dto.getStatus() != null ? dto.getStatus().name() : "");
+        writer.write(',');
+        writer.write(dto.getCreatedAt() != null ? dto.getCreatedAt().toString() : "");
+        writer.write('\n');
+    }
+
+    private static String cardId(BankCardDTO card) {
+        return card != null && card.getCardId() != null ? card.getCardId().toString() : "";
+    }
+}
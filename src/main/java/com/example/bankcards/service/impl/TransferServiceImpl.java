@@ -1,89 +1,60 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.payload.TransferUserDto;
-import com.example.bankcards.entity.bankcard.BankCard;
-import com.example.bankcards.entity.bankcard.Status;
 import com.example.bankcards.entity.transfer.Transfer;
-import com.example.bankcards.entity.transfer.TransferStatus;
-import com.example.bankcards.entity.user.User;
-import com.example.bankcards.exception.InactiveCardException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.TransferNotFoundException;
 import com.example.bankcards.mappers.TransferMapper;
-import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
-import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.service.interfaces.CardService;
+import com.example.bankcards.repository.projection.TransferView;
 import com.example.bankcards.service.interfaces.TransferService;
+import com.example.bankcards.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class TransferServiceImpl implements TransferService {
 
-    private final CardService cardServiceImpl;
+    /** Максимальный размер страницы keyset-пагинации. */
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private final TransferEngine transferEngine;
+    private final BatchTransferEngine batchTransferEngine;
     private final TransferMapper transferMapper;
     private final TransferRepository transferRepository;
-    private final CardRepository cardRepository;
-    private final UserRepository userRepository;
 
     @Override
-    @Transactional
-    @CacheEvict(value = "allTransfers", allEntries = true)
     public TransferUserDto transferFromToCardUser(Long userId, TransferUserRequest request) {
-        Long fromCardId = request.getFromCardId();
-        Long toCardId   = request.getToCardId();
-        BigDecimal amount = request.getAmount();
-
-        BankCard fromCard = cardRepository.findById(fromCardId)
-                .orElseThrow(() -> new ResourceNotFoundException("Не найдена карта-отправитель с ID = " + fromCardId));
-        BankCard toCard = cardRepository.findById(toCardId)
-                .orElseThrow(() -> new ResourceNotFoundException("Не найдена карта-получатель с ID = " + toCardId));
-
-        if (!(fromCard.getStatus() == Status.ACTIVE && toCard.getStatus() == Status.ACTIVE)) {
-            throw new InactiveCardException("Обе карты должны быть активированы для перевода");
-        }
-
-        User initiator = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Не удалось найти пользователя с ID = " + userId));
-
-        Transfer transfer = Transfer.builder()
-                .fromCard(fromCard)
-                .toCard(toCard)
-                .initiator(initiator)
-                .amount(amount)
-                .status(TransferStatus.PROCESS)
-                .build();
-
-        transfer = transferRepository.save(transfer);
-
-        try {
-            cardServiceImpl.withdraw(fromCardId, amount);
-            cardServiceImpl.deposit(toCardId, amount);
-            transfer.setStatus(TransferStatus.COMPLETED);
-        } catch (RuntimeException ex) {
-            transfer.setStatus(TransferStatus.CANCELLED);
-            transferRepository.save(transfer);
-            throw ex;
-        }
-
-        transfer = transferRepository.save(transfer);
+        Transfer transfer = transferEngine.execute(
+                userId,
+                request.getFromCardId(),
+                request.getToCardId(),
+                request.getAmount()
+        );
         return transferMapper.toDto(transfer);
     }
 
     @Override
-    @Cacheable(value = "allTransfers", key = "#pageNumber + '-' + #pageSize")
+    public BatchTransferResultDTO transferBatch(Long userId, BatchTransferRequest request) {
+        return batchTransferEngine.execute(userId, request);
+    }
+
+    @Override
+    @Cacheable(value = "allTransfers", key = "@cacheGenerations.global('transfers') + '-' + #pageNumber + '-' + #pageSize")
     public Page<TransferUserDto> getAll(int pageNumber, int pageSize) {
-        Page<Transfer> transfers = transferRepository.findAll(PageRequest.of(pageNumber, pageSize));
+        Page<TransferView> transfers = transferRepository.findAllViews(PageRequest.of(pageNumber, pageSize));
 
         if (transfers.isEmpty()) {
             throw new ResourceNotFoundException("Переводы пока отсутствуют");
@@ -102,9 +73,11 @@ public class TransferServiceImpl implements TransferService {
     }
 
     @Override
-    @Cacheable(value = "allTransfersUser", key = "#pageNumber + '-' + #pageSize + '-' + #userId")
+    @Cacheable(value = "allTransfersUser",
+            key = "@cacheGenerations.owner('transfers', #userId) + '-' + #pageNumber + '-' + #pageSize + '-' + #userId")
     public Page<TransferUserDto> getAllByUser(int pageNumber, int pageSize, Long userId) {
-        Page<Transfer> transfers = transferRepository.findAllByInitiatorId(userId, PageRequest.of(pageNumber, pageSize));
+        Page<TransferView> transfers =
+                transferRepository.findAllViewsByInitiatorId(userId, PageRequest.of(pageNumber, pageSize));
 
         if (transfers.isEmpty()) {
             throw new ResourceNotFoundException("У пользователя с ID " + userId + " пока нет переводов");
@@ -112,4 +85,64 @@ public class TransferServiceImpl implements TransferService {
 
         return transfers.map(transferMapper::toDto);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransferUserDto> getAllByCursor(String cursor, int pageSize, boolean includeTotal) {
+        PageRequest limit = keysetLimit(pageSize);
+        List<TransferView> transfers;
+        if (cursor == null || cursor.isBlank()) {
+            transfers = transferRepository.findFirstKeysetPage(limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            transfers = transferRepository.findKeysetPageAfter(position.createdAt(), position.id(), limit);
+        }
+
+        return toCursorPage(transfers, pageSize, includeTotal ? transferRepository.count() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransferUserDto> getAllByUserCursor(Long userId, String cursor, int pageSize,
+                                                             boolean includeTotal) {
+        PageRequest limit = keysetLimit(pageSize);
+        List<TransferView> transfers;
+        if (cursor == null || cursor.isBlank()) {
+            transfers = transferRepository.findFirstKeysetPageByInitiatorId(userId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            transfers = transferRepository.findKeysetPageByInitiatorIdAfter(
+                    userId, position.createdAt(), position.id(), limit);
+        }
+
+        return toCursorPage(transfers, pageSize, includeTotal ? transferRepository.countByInitiatorId(userId) : null);
+    }
+
+    /**
+     * Запрашивает на одну запись больше размера страницы: её наличие означает, что есть следующая страница.
+     */
+    private static PageRequest keysetLimit(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            throw new InvalidCursorException("Размер страницы должен быть от 1 до " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return PageRequest.ofSize(pageSize + 1);
+    }
+
+    private CursorPageDTO<TransferUserDto> toCursorPage(List<TransferView> transfers, int pageSize, Long total) {
+        boolean hasNext = transfers.size() > pageSize;
+        List<TransferView> page = hasNext ? transfers.subList(0, pageSize) : transfers;
+        String nextCursor = null;
+        if (hasNext) {
+            TransferView last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPageDTO.<TransferUserDto>builder()
+                .content(page.stream().map(transferMapper::toDto).toList())
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .build();
+    }
 }
@@ -1,9 +1,11 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.cache.CacheGenerations;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.dto.payload.TotalCardBalanceDTO;
 import com.example.bankcards.dto.payload.UserDTO;
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.User;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CustomUserNotFoundException;
@@ -22,7 +24,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Service
@@ -34,6 +35,7 @@ public class UserServiceImpl implements UserService {
     private final BankCardBalanceMapper bankCardBalanceMapper;
     private final PasswordEncoder passwordEncoder;
     private final CardRepository cardRepository;
+    private final CacheGenerations cacheGenerations;
 
     @Override
     @Cacheable(cacheNames = "user", key = "#username")
@@ -67,6 +69,7 @@ public class UserServiceImpl implements UserService {
     @CacheEvict(value = {"user", "users", "currentUser", "login", "register"}, allEntries = true)
     public void delete(Long id) {
         userRepository.deleteById(id);
+        cacheGenerations.invalidate(CacheGenerations.CARDS, id);
     }
 
     @Override
@@ -79,7 +82,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Cacheable(cacheNames = "balanceUser", key = "#userId")
+    @Cacheable(cacheNames = "balanceUser", key = "@cacheGenerations.owner('cards', #userId) + '-' + #userId")
     public TotalCardBalanceDTO getTotalBalance(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomUserNotFoundException(
@@ -96,14 +99,14 @@ public class UserServiceImpl implements UserService {
                 .map(bankCardBalanceMapper::toDto)
                 .toList();
 
-        BigDecimal total = balances.stream()
-                .map(CardBalanceDTO::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long totalMinorUnits = balances.stream()
+                .mapToLong(balance -> balance.getBalance().minorUnits())
+                .reduce(0L, Math::addExact);
 
         return TotalCardBalanceDTO.builder()
                 .userId(user.getId())
                 .cardBalances(balances)
-                .totalBalance(total)
+                .totalBalance(Money.ofMinor(totalMinorUnits))
                 .build();
     }
 
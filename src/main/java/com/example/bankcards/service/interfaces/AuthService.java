@@ -33,8 +33,9 @@ public interface AuthService {
 
     /**
      * Завершает сессию пользователя (инвалидация токена, logout).
+     * Все выданные пользователю токены отзываются увеличением версии токенов.
      *
-     * @param userName имя пользователя, который выходит из системы
+     * @param username имя пользователя, который выходит из системы
      */
-    void logout(String userName);
+    void logout(String username);
 }
@@ -0,0 +1,35 @@
+package com.example.bankcards.service.interfaces;
+
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
+
+import java.util.UUID;
+
+/**
+ * Сервис массового выпуска карт.
+ * <p>
+ * Задание выполняется в фоне: номера генерируются и шифруются параллельно по ядрам,
+ * проверяются на уникальность и записываются в базу пакетами. Ход выполнения
+ * и скорость выпуска доступны по идентификатору задания.
+ * </p>
+ *
+ * @author ksenya
+ */
+public interface CardIssuanceService {
+
+    /**
+     * Запускает задание выпуска карт.
+     *
+     * @param request владелец и количество карт
+     * @return {@link BulkIssueJobDTO} состояние запущенного задания
+     */
+    BulkIssueJobDTO start(BulkIssueRequest request);
+
+    /**
+     * Возвращает состояние задания.
+     *
+     * @param jobId идентификатор задания
+     * @return {@link BulkIssueJobDTO} ход выполнения и скорость выпуска
+     */
+    BulkIssueJobDTO getJob(UUID jobId);
+}
@@ -93,6 +93,14 @@ public interface CardService {
      */
     BankCardDTO getById(Long id);
 
+    /**
+     * Находит карту по полному номеру через слепой индекс, без расшифровки сохранённых номеров.
+     *
+     * @param cardNumber полный номер карты, допускаются пробелы
+     * @return {@link BankCardDTO} карта
+     */
+    BankCardDTO getByNumber(String cardNumber);
+
     /**
      * Проверяет, принадлежит ли карта пользователю.
      *
@@ -0,0 +1,50 @@
+package com.example.bankcards.service.interfaces;
+
+import com.example.bankcards.dto.response.APIResponse;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Сервис обработки запросов с заголовком {@code Idempotency-Key}.
+ * <p>
+ * Гарантирует, что запрос с одним и тем же ключом в пределах области выполняется
+ * не более одного раза, а повторы получают сохранённый ответ.
+ * </p>
+ */
+public interface IdempotencyService {
+
+    /**
+     * Имя HTTP-заголовка с ключом идемпотентности.
+     */
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * Имя HTTP-заголовка, которым помечается повторно выданный ответ.
+     */
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Выполняет действие не более одного раза для пары (область, ключ).
+     * Без ключа действие выполняется как обычно.
+     *
+     * @param scope   область действия ключа (операция и ресурс), например {@code transfer:user:7}
+     * @param key     значение заголовка {@code Idempotency-Key} (может быть {@code null})
+     * @param request тело запроса, по хэшу которого распознаётся повтор
+     * @param action  выполняемое действие
+     * @param <T>     тип данных ответа
+     * @return ответ действия или сохранённый ответ первого выполнения
+     */
+    <T> ResponseEntity<APIResponse<T>> execute(String scope, String key, Object request,
+                                               Supplier<ResponseEntity<APIResponse<T>>> action);
+
+    /**
+     * Удаляет записи с истёкшим сроком хранения.
+     */
+    void purgeExpired();
+
+    /**
+     * Продлевает аренду ключей, захваченных выполняющимися в этом экземпляре запросами.
+     */
+    void renewLeases();
+}
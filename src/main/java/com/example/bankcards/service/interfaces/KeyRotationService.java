@@ -0,0 +1,43 @@
+package com.example.bankcards.service.interfaces;
+
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+
+/**
+ * Сервис перешифрования номеров карт активным ключом ({@code card.encryption.active-key-id}).
+ * <p>
+ * Записи {@code card_pan_vault} обходятся порциями по возрастанию идентификатора карты,
+ * перешифровываются параллельно и фиксируются короткими транзакциями с ограничением скорости.
+ * Позиция сохраняется после каждой порции, поэтому перешифрование можно остановить и продолжить.
+ * Проходы повторяются, пока полный проход не найдёт записей под прежними ключами. Во всём кластере
+ * одновременно выполняется одно перешифрование: задание арендуется экземпляром в базе данных.
+ * </p>
+ *
+ * @author ksenya
+ */
+public interface KeyRotationService {
+
+    /**
+     * Запускает или продолжает перешифрование активным ключом.
+     *
+     * @param restart начать с начала таблицы, а не с сохранённой позиции
+     * @return {@link KeyRotationDTO} состояние запущенного перешифрования
+     * @throws com.example.bankcards.exception.KeyRotationInProgressException если перешифрование
+     *                                                                        уже выполняется где-либо
+     */
+    KeyRotationDTO start(boolean restart);
+
+    /**
+     * Возвращает состояние перешифрования активным ключом.
+     *
+     * @return {@link KeyRotationDTO} позиция, счётчики и скорость
+     */
+    KeyRotationDTO getStatus();
+
+    /**
+     * Останавливает перешифрование после текущей порции; если оно выполняется на другом экземпляре,
+     * снимает его аренду, и тот экземпляр прекращает работу на следующей порции.
+     *
+     * @return {@link KeyRotationDTO} состояние на момент запроса
+     */
+    KeyRotationDTO stop();
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.service.interfaces;
+
+/**
+ * Сервис версий выданных JWT.
+ * <p>
+ * Каждый токен содержит версию, действовавшую на момент выдачи. Увеличение версии
+ * пользователя отзывает все выданные ему ранее токены.
+ * </p>
+ */
+public interface TokenVersionService {
+
+    /**
+     * Проверяет, что токен с указанной версией не отозван.
+     *
+     * @param userId  идентификатор пользователя
+     * @param version версия из токена
+     * @return {@code true}, если пользователь существует и версия совпадает с текущей
+     */
+    boolean isCurrent(Long userId, long version);
+
+    /**
+     * Отзывает все выданные пользователю токены.
+     *
+     * @param userId идентификатор пользователя
+     */
+    void revoke(Long userId);
+}
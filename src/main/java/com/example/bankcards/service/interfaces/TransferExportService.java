@@ -0,0 +1,40 @@
+package com.example.bankcards.service.interfaces;
+
+import com.example.bankcards.dto.requests.TransferExportFormat;
+import com.example.bankcards.entity.transfer.TransferStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * Сервис выгрузки переводов.
+ * <p>
+ * Переводы читаются из базы потоком и записываются в выходной поток по одному,
+ * поэтому расход памяти не зависит от объёма выгрузки.
+ * </p>
+ */
+public interface TransferExportService {
+
+    /**
+     * Проверяет параметры выгрузки до начала записи ответа.
+     *
+     * @param from начало периода (включительно)
+     * @param to   конец периода (не включительно)
+     */
+    void validate(Instant from, Instant to);
+
+    /**
+     * Записывает переводы за период {@code [from, to)} в порядке создания.
+     *
+     * @param from   начало периода (включительно)
+     * @param to     конец периода (не включительно)
+     * @param status статус переводов или {@code null} для всех статусов
+     * @param format формат выгрузки
+     * @param out    поток, в который записывается выгрузка (не закрывается)
+     * @return количество выгруженных переводов
+     * @throws IOException при ошибке записи
+     */
+    long export(Instant from, Instant to, TransferStatus status, TransferExportFormat format, OutputStream out)
+            throws IOException;
+}
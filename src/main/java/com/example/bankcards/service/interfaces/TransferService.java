@@ -1,5 +1,8 @@
 package com.example.bankcards.service.interfaces;
 
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.payload.TransferUserDto;
 import org.springframework.data.domain.Page;
@@ -22,6 +25,15 @@ public interface TransferService {
      */
     TransferUserDto transferFromToCardUser(Long userId, TransferUserRequest request);
 
+    /**
+     * Выполняет пакет переводов пользователя в одной транзакции.
+     *
+     * @param userId  идентификатор пользователя, инициирующего переводы
+     * @param request пакет переводов и режим выполнения
+     * @return {@link BatchTransferResultDTO} результаты по каждому переводу
+     */
+    BatchTransferResultDTO transferBatch(Long userId, BatchTransferRequest request);
+
     /**
      * Возвращает список всех переводов (для администратора).
      *
@@ -48,4 +60,25 @@ public interface TransferService {
      * @return {@link Page} список переводов пользователя
      */
     Page<TransferUserDto> getAllByUser(int pageNumber, int pageSize, Long userId);
+
+    /**
+     * Возвращает страницу всех переводов по курсору (keyset-пагинация, от новых к старым).
+     *
+     * @param cursor       курсор из предыдущей страницы или {@code null} для первой страницы
+     * @param pageSize     размер страницы
+     * @param includeTotal нужно ли подсчитать общее количество переводов
+     * @return {@link CursorPageDTO} страница переводов
+     */
+    CursorPageDTO<TransferUserDto> getAllByCursor(String cursor, int pageSize, boolean includeTotal);
+
+    /**
+     * Возвращает страницу переводов пользователя по курсору (keyset-пагинация, от новых к старым).
+     *
+     * @param userId       идентификатор пользователя
+     * @param cursor       курсор из предыдущей страницы или {@code null} для первой страницы
+     * @param pageSize     размер страницы
+     * @param includeTotal нужно ли подсчитать общее количество переводов пользователя
+     * @return {@link CursorPageDTO} страница переводов пользователя
+     */
+    CursorPageDTO<TransferUserDto> getAllByUserCursor(Long userId, String cursor, int pageSize, boolean includeTotal);
 }
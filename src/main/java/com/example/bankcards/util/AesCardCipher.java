@@ -0,0 +1,355 @@
+package com.example.bankcards.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Шифратор номеров карт на AES-GCM с пулом экземпляров {@link Cipher}.
+ * <p>
+ * {@link Cipher#getInstance} и генератор случайных чисел создаются один раз на рабочий объект
+ * {@link InstancePool}, а не на каждую операцию. Каждый рабочий объект содержит свои шифры,
+ * {@link SecureRandom} (DRBG) и буферы, поэтому потоки не конкурируют за общий генератор.
+ * Пул не привязан к потокам и одинаково работает с потоками платформы и виртуальными.
+ * </p>
+ *
+ * <p>
+ * Формат шифротекста: {@code 0x02 | id ключа (1 байт) | IV (12 байт) | шифротекст | тег (16 байт)};
+ * первый байт — версия формата, версия и id ключа входят в AAD. Ключей может быть несколько
+ * ({@code id} от 0 до 255): новые записи шифруются активным ключом, расшифровка выбирает ключ по id
+ * из записи, поэтому любой ключ, кроме активного, можно убрать, когда записей с ним не осталось.
+ * Несовпавший тег, неизвестная версия или неизвестный ключ — всегда ошибка.
+ * </p>
+ *
+ * <p>Методы с {@link ByteBuffer} работают с буферами вызывающего кода и не создают своих массивов.
+ * Строковые методы держат открытый номер только в буферах рабочего объекта и затирают его после
+ * каждой операции; Base64 шифротекста кодирует {@link Base64}.</p>
+ *
+ * @author ksenya
+ */
+public final class AesCardCipher {
+
+    /** Байт версии формата AES-GCM с id ключа. */
+    public static final byte GCM_VERSION = 0x02;
+
+    /** Id ключа шифратора с одним ключом. */
+    public static final int DEFAULT_KEY_ID = 0;
+
+    /** Наибольший id ключа: id хранится одним байтом. */
+    public static final int MAX_KEY_ID = 255;
+
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final int GCM_TAG_LENGTH = GCM_TAG_BITS / 8;
+    private static final int GCM_AAD_LENGTH = 2;
+    private static final int GCM_HEADER_LENGTH = GCM_AAD_LENGTH + GCM_IV_LENGTH;
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
+
+    private final SecretKey[] keys = new SecretKey[MAX_KEY_ID + 1];
+    private final int activeKeyId;
+    private final SecretKey activeKey;
+    private final InstancePool<Worker> workers = new InstancePool<>(Worker::new);
+
+    /**
+     * Шифратор с одним ключом (id {@value #DEFAULT_KEY_ID}).
+     *
+     * @param key ключ AES
+     */
+    public AesCardCipher(SecretKey key) {
+        this(Map.of(DEFAULT_KEY_ID, key), DEFAULT_KEY_ID);
+    }
+
+    /**
+     * @param keys        ключи AES по id (0–{@value #MAX_KEY_ID})
+     * @param activeKeyId id ключа для новых записей
+     * @throws IllegalArgumentException если id вне диапазона или активного ключа нет
+     */
+    public AesCardCipher(Map<Integer, SecretKey> keys, int activeKeyId) {
+        keys.forEach((id, key) -> {
+            if (id == null || id < 0 || id > MAX_KEY_ID) {
+                throw new IllegalArgumentException("Id ключа шифрования должен быть от 0 до " + MAX_KEY_ID + ": " + id);
+            }
+            this.keys[id] = key;
+        });
+        if (activeKeyId < 0 || activeKeyId > MAX_KEY_ID || this.keys[activeKeyId] == null) {
+            throw new IllegalArgumentException("Активный ключ шифрования " + activeKeyId + " не задан");
+        }
+        this.activeKeyId = activeKeyId;
+        this.activeKey = this.keys[activeKeyId];
+    }
+
+    /**
+     * Обработчик расшифрованных байтов. Получает буфер рабочего объекта, который действителен
+     * только во время вызова и затирается после него.
+     *
+     * @param <R> тип результата
+     */
+    @FunctionalInterface
+    public interface PlaintextReader<R> {
+        R read(byte[] plaintext, int offset, int length);
+    }
+
+    /**
+     * @return id ключа, которым шифруются новые записи
+     */
+    public int activeKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Длина шифротекста для открытого текста указанной длины.
+     *
+     * @param plaintextLength длина открытого текста в байтах
+     * @return длина буфера, достаточная для {@link #encrypt(ByteBuffer, ByteBuffer)}
+     */
+    public int maxEncryptedLength(int plaintextLength) {
+        return GCM_HEADER_LENGTH + plaintextLength + GCM_TAG_LENGTH;
+    }
+
+    /**
+     * Шифрует оставшиеся байты {@code plaintext} и записывает результат в {@code out}.
+     *
+     * @param plaintext открытый текст; позиция сдвигается до лимита
+     * @param out       буфер для шифротекста; позиция сдвигается на длину записи
+     * @return число записанных байтов
+     */
+    public int encrypt(ByteBuffer plaintext, ByteBuffer out) {
+        Worker worker = workers.borrow();
+        try {
+            return encrypt(worker, plaintext, out);
+        } finally {
+            workers.release(worker);
+        }
+    }
+
+    /**
+     * Расшифровывает оставшиеся байты {@code encrypted} ключом, id которого записан в шифротексте.
+     *
+     * @param encrypted шифротекст; позиция сдвигается до лимита
+     * @param out       буфер для открытого текста; позиция сдвигается на длину записи
+     * @return число записанных байтов
+     * @throws IllegalStateException если данные повреждены или зашифрованы другим ключом
+     */
+    public int decrypt(ByteBuffer encrypted, ByteBuffer out) {
+        Worker worker = workers.borrow();
+        try {
+            return decrypt(worker, encrypted, out);
+        } finally {
+            workers.release(worker);
+        }
+    }
+
+    /**
+     * Шифрует строку и возвращает шифротекст в Base64.
+     *
+     * @param plaintext открытый текст
+     * @return шифротекст в Base64
+     */
+    public String encryptToBase64(String plaintext) {
+        Worker worker = workers.borrow();
+        int length = 0;
+        try {
+            length = worker.loadPlaintext(plaintext);
+            ByteBuffer in = worker.plainBuffer(length);
+            ByteBuffer out = worker.sealedBuffer(maxEncryptedLength(length));
+            encrypt(worker, in, out);
+            return toBase64(out.flip());
+        } finally {
+            Arrays.fill(worker.plain, 0, length, (byte) 0);
+            workers.release(worker);
+        }
+    }
+
+    /**
+     * Расшифровывает шифротекст в Base64 и передаёт открытые байты обработчику.
+     *
+     * @param encoded шифротекст в Base64
+     * @param reader  обработчик открытого текста
+     * @param <R>     тип результата
+     * @return результат обработчика
+     * @throws IllegalArgumentException если строка не является Base64
+     * @throws IllegalStateException    если данные повреждены или зашифрованы другим ключом
+     */
+    public <R> R decryptFromBase64(String encoded, PlaintextReader<R> reader) {
+        Worker worker = workers.borrow();
+        int length = 0;
+        try {
+            length = decodeAndDecrypt(worker, encoded);
+            return reader.read(worker.plain, 0, length);
+        } finally {
+            Arrays.fill(worker.plain, 0, length, (byte) 0);
+            workers.release(worker);
+        }
+    }
+
+    /**
+     * Перешифровывает запись в Base64 активным ключом. Открытый текст не покидает
+     * буферы рабочего объекта и затирается после операции. Запись, в заголовке которой уже указан
+     * активный ключ, не расшифровывается, поэтому повторный просмотр таблицы почти ничего не стоит.
+     *
+     * @param encoded шифротекст в Base64 любым из известных ключей
+     * @return новый шифротекст в Base64 или {@code null}, если запись уже зашифрована активным ключом
+     * @throws IllegalArgumentException если строка не является Base64
+     * @throws IllegalStateException    если данные повреждены или зашифрованы неизвестным ключом
+     */
+    public String reEncryptBase64(String encoded) {
+        Worker worker = workers.borrow();
+        int length = 0;
+        try {
+            ByteBuffer encrypted = decode(encoded);
+            if (encrypted.remaining() > GCM_AAD_LENGTH && encrypted.get(encrypted.position()) == GCM_VERSION
+                    && (encrypted.get(encrypted.position() + 1) & 0xff) == activeKeyId) {
+                return null;
+            }
+            length = decrypt(worker, encrypted, worker.plainBuffer(encrypted.remaining()));
+            ByteBuffer in = worker.plainBuffer(length);
+            ByteBuffer out = worker.sealedBuffer(maxEncryptedLength(length));
+            encrypt(worker, in, out);
+            return toBase64(out.flip());
+        } finally {
+            Arrays.fill(worker.plain, 0, length, (byte) 0);
+            workers.release(worker);
+        }
+    }
+
+    private int decodeAndDecrypt(Worker worker, String encoded) {
+        ByteBuffer in = decode(encoded);
+        ByteBuffer out = worker.plainBuffer(in.remaining());
+        return decrypt(worker, in, out);
+    }
+
+    private static ByteBuffer decode(String encoded) {
+        return BASE64_DECODER.decode(ByteBuffer.wrap(encoded.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static String toBase64(ByteBuffer sealed) {
+        ByteBuffer encoded = BASE64_ENCODER.encode(sealed);
+        return new String(encoded.array(), encoded.arrayOffset(), encoded.remaining(), StandardCharsets.ISO_8859_1);
+    }
+
+    private int encrypt(Worker worker, ByteBuffer plaintext, ByteBuffer out) {
+        int start = out.position();
+        try {
+            worker.random.nextBytes(worker.gcmIv);
+            worker.aad[0] = GCM_VERSION;
+            worker.aad[1] = (byte) activeKeyId;
+            out.put(worker.aad).put(worker.gcmIv);
+            worker.gcm.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(GCM_TAG_BITS, worker.gcmIv));
+            worker.gcm.updateAAD(worker.aad);
+            worker.gcm.doFinal(plaintext, out);
+            return out.position() - start;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ошибка при шифровании номера карты", e);
+        }
+    }
+
+    private int decrypt(Worker worker, ByteBuffer encrypted, ByteBuffer out) {
+        int start = encrypted.position();
+        int outStart = out.position();
+        if (encrypted.remaining() < GCM_HEADER_LENGTH + GCM_TAG_LENGTH || encrypted.get(start) != GCM_VERSION) {
+            throw new IllegalStateException("Неизвестный формат зашифрованного номера карты");
+        }
+        int keyId = encrypted.get(start + 1) & 0xff;
+        SecretKey key = keys[keyId];
+        if (key == null) {
+            throw new IllegalStateException("Номер карты зашифрован неизвестным ключом " + keyId);
+        }
+        try {
+            encrypted.get(start, worker.aad);
+            encrypted.get(start + GCM_AAD_LENGTH, worker.gcmIv);
+            encrypted.position(start + GCM_HEADER_LENGTH);
+            worker.gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, worker.gcmIv));
+            worker.gcm.updateAAD(worker.aad);
+            worker.gcm.doFinal(encrypted, out);
+            return out.position() - outStart;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ошибка при дешифровании номера карты", e);
+        }
+    }
+
+    /**
+     * Шифры, генератор IV и буферы одной операции. Используется одним потоком за раз.
+     */
+    private static final class Worker {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        final Cipher gcm;
+        final SecureRandom random;
+        final byte[] gcmIv = new byte[GCM_IV_LENGTH];
+        final byte[] aad = new byte[GCM_AAD_LENGTH];
+        byte[] plain = new byte[INITIAL_CAPACITY];
+        byte[] sealed = new byte[INITIAL_CAPACITY * 2];
+        ByteBuffer plainBuffer = ByteBuffer.wrap(plain);
+        ByteBuffer sealedBuffer = ByteBuffer.wrap(sealed);
+
+        Worker() {
+            try {
+                gcm = Cipher.getInstance("AES/GCM/NoPadding");
+                random = drbg();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES недоступен в этой JVM", e);
+            }
+        }
+
+        private static SecureRandom drbg() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+
+        /**
+         * Копирует строку в буфер открытого текста в UTF-8 (для ASCII — без промежуточного массива).
+         */
+        int loadPlaintext(String value) {
+            int length = value.length();
+            ensurePlain(length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    ensurePlain(utf8.length);
+                    System.arraycopy(utf8, 0, plain, 0, utf8.length);
+                    return utf8.length;
+                }
+                plain[i] = (byte) c;
+            }
+            return length;
+        }
+
+        ByteBuffer plainBuffer(int length) {
+            ensurePlain(length);
+            plainBuffer.clear().limit(length);
+            return plainBuffer;
+        }
+
+        ByteBuffer sealedBuffer(int length) {
+            if (sealed.length < length) {
+                sealed = new byte[length];
+                sealedBuffer = ByteBuffer.wrap(sealed);
+            }
+            sealedBuffer.clear();
+            return sealedBuffer;
+        }
+
+        private void ensurePlain(int length) {
+            if (plain.length < length) {
+                Arrays.fill(plain, (byte) 0);
+                plain = new byte[length];
+                plainBuffer = ByteBuffer.wrap(plain);
+            }
+        }
+    }
+}
@@ -1,29 +1,39 @@
 package com.example.bankcards.util;
 
+import com.example.bankcards.config.CardEncryptionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
-import java.util.Arrays;
-import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Утилита для шифрования, дешифрования и маскировки номеров банковских карт.
  * <p>
- * Использует алгоритм AES в режиме CBC с паддингом PKCS5.
- * Хранит ключ шифрования, заданный в настройках приложения ({@code card.secretKey}),
- * и выполняет операции с безопасной генерацией вектора инициализации (IV).
+ * Шифрование выполняет {@link AesCardCipher} с пулом экземпляров {@link javax.crypto.Cipher}:
+ * AES-GCM с байтом версии и проверкой целостности. Запись с несовпавшим тегом не расшифровывается.
+ * </p>
+ * <p>
+ * Ключей может быть несколько: {@code card.secretKey} — ключ с id 0, {@code card.encryption.keys} — остальные.
+ * Новые номера шифруются ключом {@code card.encryption.active-key-id}, id ключа хранится в шифротексте,
+ * поэтому после смены активного ключа старые записи читаются, пока {@link #reEncrypt(String)}
+ * не перешифрует их новым. Обязателен только активный ключ: прежний, в том числе {@code card.secretKey},
+ * убирается из настроек, когда перешифрование завершено.
  * </p>
  *
  * <ul>
  *   <li>{@link #encrypt(String)} — шифрует номер карты и возвращает строку в Base64.</li>
  *   <li>{@link #decrypt(String)} — дешифрует ранее зашифрованный номер карты.</li>
+ *   <li>{@link #encrypt(ByteBuffer, ByteBuffer)}, {@link #decrypt(ByteBuffer, ByteBuffer)} — то же
+ *       для буферов вызывающего кода, без создания промежуточных массивов.</li>
  *   <li>{@link #maskRaw(String)} — маскирует "сырой" номер карты, оставляя только последние 4 цифры.</li>
  *   <li>{@link #maskEncrypted(String)} — дешифрует и маскирует зашифрованный номер карты.</li>
+ *   <li>{@link #reEncrypt(String)} — перешифровывает номер активным ключом.</li>
  * </ul>
  *
  * Пример маскировки: {@code 1234 5678 9012 3456 -> **** **** **** 3456}.
@@ -33,27 +43,51 @@ import java.util.Base64;
 @Component
 public final class CardEncryptionUtil {
 
-    private static final String CIPHER_ALGORITHM = "AES/CBC/PKCS5Padding";
-    private static final int IV_LENGTH_BYTES = 16;
-    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
-    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
+    private static final String MASK_PREFIX = "**** **** **** ";
 
-    private final SecretKey secretKey;
-    private final SecureRandom secureRandom = new SecureRandom();
+    private final AesCardCipher cipher;
 
     /**
-     * Конструктор инициализирует утилиту ключом из конфигурации.
+     * Конструктор инициализирует утилиту одним ключом.
      *
      * @param base64Key секретный ключ в формате Base64 (из application.yml/properties).
      * @throws IllegalArgumentException если ключ пустой или не задан
      */
-    public CardEncryptionUtil(@Value("${card.secretKey}") String base64Key) {
-        if (base64Key == null || base64Key.isBlank()) {
-            throw new IllegalArgumentException("Секретный ключ карты не задан. Укажите card.secretKey в настройках приложения.");
-        }
+    public CardEncryptionUtil(String base64Key) {
+        this(base64Key, new CardEncryptionProperties());
+    }
 
-        String trimmed = base64Key.trim();
-        this.secretKey = EncoderKey.fromBase64ToAes(trimmed);
+    /**
+     * Конструктор инициализирует утилиту ключами из конфигурации.
+     *
+     * @param base64Key секретный ключ с id 0 в формате Base64 (из application.yml/properties);
+     *                  пустой, если ключ 0 выведен из использования
+     * @param keys      остальные ключи и id активного ключа ({@code card.encryption})
+     * @throws IllegalArgumentException если ключ пустой, id ключа повторяет 0 или вне диапазона,
+     *                                  активный ключ не задан
+     */
+    @Autowired
+    public CardEncryptionUtil(@Value("${card.secretKey:}") String base64Key, CardEncryptionProperties keys) {
+        Map<Integer, SecretKey> aesKeys = new HashMap<>();
+        if (base64Key != null && !base64Key.isBlank()) {
+            aesKeys.put(AesCardCipher.DEFAULT_KEY_ID, EncoderKey.fromBase64ToAes(base64Key.trim()));
+        }
+        keys.getKeys().forEach((id, key) -> {
+            if (id == null || id == AesCardCipher.DEFAULT_KEY_ID) {
+                throw new IllegalArgumentException("Ключ с id 0 задаётся в card.secretKey");
+            }
+            if (key == null || key.isBlank()) {
+                throw new IllegalArgumentException("Ключ шифрования с id " + id + " пустой");
+            }
+            aesKeys.put(id, EncoderKey.fromBase64ToAes(key.trim()));
+        });
+        if (!aesKeys.containsKey(keys.getActiveKeyId())) {
+            throw new IllegalArgumentException("Активный ключ шифрования " + keys.getActiveKeyId() + " не задан. Укажите "
+                    + (keys.getActiveKeyId() == AesCardCipher.DEFAULT_KEY_ID
+                    ? "card.secretKey"
+                    : "card.encryption.keys." + keys.getActiveKeyId()) + " в настройках приложения.");
+        }
+        this.cipher = new AesCardCipher(aesKeys, keys.getActiveKeyId());
     }
 
     /**
@@ -70,18 +104,20 @@ public final class CardEncryptionUtil {
             throw new IllegalArgumentException("Неккоретный номер карты. Должно быть минимум 4 цифры");
         }
         String last4 = digits.substring(digits.length() - 4);
-        return "**** **** **** " + last4;
+        return MASK_PREFIX + last4;
     }
 
     /**
-     * Дешифрует и маскирует номер карты.
+     * Дешифрует и маскирует номер карты. Открытый номер не превращается в строку:
+     * маска строится по последним четырём цифрам расшифрованного буфера.
      *
      * @param encryptedCardNumber зашифрованный номер карты (Base64)
      * @return маскированный номер
      */
     public String maskEncrypted(String encryptedCardNumber) {
-        String raw = decrypt(encryptedCardNumber);
-        return maskRaw(raw);
+        checkIsEmpty(encryptedCardNumber);
+
+        return decryptWith(encryptedCardNumber, CardEncryptionUtil::maskDigits);
     }
 
     /**
@@ -93,19 +129,7 @@ public final class CardEncryptionUtil {
     public String encrypt(String rawCardNumber) {
         checkIsEmpty(rawCardNumber);
 
-        try {
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
-            byte[] iv = new byte[IV_LENGTH_BYTES];
-            secureRandom.nextBytes(iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
-            byte[] ciphertext = cipher.doFinal(rawCardNumber.getBytes(StandardCharsets.UTF_8));
-            byte[] combined = new byte[iv.length + ciphertext.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
-            return BASE64_ENCODER.encodeToString(combined);
-        } catch (Exception e) {
-            throw new IllegalStateException("Ошибка при шифровании номера карты", e);
-        }
+        return cipher.encryptToBase64(rawCardNumber);
     }
 
     /**
@@ -117,19 +141,86 @@ public final class CardEncryptionUtil {
     public String decrypt(String encryptedCardNumber) {
         checkIsEmpty(encryptedCardNumber);
 
+        return decryptWith(encryptedCardNumber,
+                (plaintext, offset, length) -> new String(plaintext, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Перешифровывает номер карты активным ключом; открытый номер не превращается в строку.
+     *
+     * @param encryptedCardNumber зашифрованный номер карты (Base64) любым из известных ключей
+     * @return новый шифротекст или пусто, если номер уже зашифрован активным ключом
+     */
+    public Optional<String> reEncrypt(String encryptedCardNumber) {
+        checkIsEmpty(encryptedCardNumber);
+
+        try {
+            return Optional.ofNullable(cipher.reEncryptBase64(encryptedCardNumber));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Ошибка при дешифровании номера карты", e);
+        }
+    }
+
+    /**
+     * @return id ключа, которым шифруются новые номера
+     */
+    public int activeKeyId() {
+        return cipher.activeKeyId();
+    }
+
+    /**
+     * Шифрует номер карты из буфера в буфер.
+     *
+     * @param rawCardNumber открытый номер в UTF-8; позиция сдвигается до лимита
+     * @param out           буфер размером не меньше {@link #maxEncryptedLength(int)}
+     * @return число записанных байтов
+     */
+    public int encrypt(ByteBuffer rawCardNumber, ByteBuffer out) {
+        return cipher.encrypt(rawCardNumber, out);
+    }
+
+    /**
+     * Дешифрует номер карты из буфера в буфер (ключ выбирается по id из записи).
+     *
+     * @param encryptedCardNumber шифротекст без Base64; позиция сдвигается до лимита
+     * @param out                 буфер для открытого номера
+     * @return число записанных байтов
+     */
+    public int decrypt(ByteBuffer encryptedCardNumber, ByteBuffer out) {
+        return cipher.decrypt(encryptedCardNumber, out);
+    }
+
+    /**
+     * @param rawLength длина открытого номера в байтах
+     * @return размер буфера, достаточный для {@link #encrypt(ByteBuffer, ByteBuffer)}
+     */
+    public int maxEncryptedLength(int rawLength) {
+        return cipher.maxEncryptedLength(rawLength);
+    }
+
+    private <R> R decryptWith(String encryptedCardNumber, AesCardCipher.PlaintextReader<R> reader) {
         try {
-            byte[] combined = BASE64_DECODER.decode(encryptedCardNumber);
-            byte[] iv = Arrays.copyOfRange(combined, 0, IV_LENGTH_BYTES);
-            byte[] ciphertext = Arrays.copyOfRange(combined, IV_LENGTH_BYTES, combined.length);
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
-            byte[] raw = cipher.doFinal(ciphertext);
-            return new String(raw, StandardCharsets.UTF_8);
-        } catch (Exception e) {
+            return cipher.decryptFromBase64(encryptedCardNumber, reader);
+        } catch (IllegalArgumentException e) {
             throw new IllegalStateException("Ошибка при дешифровании номера карты", e);
         }
     }
 
+    private static String maskDigits(byte[] plaintext, int offset, int length) {
+        char[] last4 = new char[4];
+        int found = 0;
+        for (int i = offset + length - 1; i >= offset && found < 4; i--) {
+            byte b = plaintext[i];
+            if (!Character.isWhitespace(b)) {
+                last4[3 - found++] = (char) b;
+            }
+        }
+        if (found < 4) {
+            throw new IllegalArgumentException("Неккоретный номер карты. Должно быть минимум 4 цифры");
+        }
+        return MASK_PREFIX + new String(last4);
+    }
+
     /**
      * Проверяет, что строка не пустая и не null.
      *
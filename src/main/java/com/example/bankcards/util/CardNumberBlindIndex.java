@@ -0,0 +1,91 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Слепой индекс номера карты: HMAC-SHA256 от цифр номера на отдельном ключе ({@code card.indexKey}).
+ * <p>
+ * Одинаковые номера дают одинаковый индекс, поэтому по нему можно искать карту и проверять
+ * уникальность номера через индекс базы данных, не расшифровывая сохранённые номера.
+ * Без ключа индекс не позволяет перебрать номера, а ключ отличается от ключа шифрования,
+ * чтобы утечка одного из них не раскрывала другой. Пробелы в номере игнорируются.
+ * Экземпляры {@link Mac} берутся из {@link InstancePool}.
+ * </p>
+ *
+ * @author ksenya
+ */
+@Component
+public final class CardNumberBlindIndex {
+
+    /** Длина индекса в символах (SHA-256 в hex). */
+    public static final int LENGTH = 64;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final InstancePool<Mac> macs;
+
+    /**
+     * @param base64Key ключ HMAC в формате Base64, не короче 32 байт
+     * @throws IllegalArgumentException если ключ не задан или слишком короткий
+     */
+    public CardNumberBlindIndex(@Value("${card.indexKey}") String base64Key) {
+        if (base64Key == null || base64Key.isBlank()) {
+            throw new IllegalArgumentException("Ключ слепого индекса карты не задан. Укажите card.indexKey в настройках приложения.");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(base64Key.trim());
+        if (keyBytes.length < 32) {
+            throw new IllegalArgumentException("Ключ слепого индекса карты должен быть не короче 32 байт");
+        }
+        SecretKey key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = new InstancePool<>(() -> newMac(key));
+    }
+
+    /**
+     * Вычисляет слепой индекс номера карты.
+     *
+     * @param cardNumber открытый номер карты, допускаются пробелы
+     * @return HMAC-SHA256 цифр номера в hex ({@value #LENGTH} символов)
+     * @throws IllegalArgumentException если номер пустой
+     */
+    public String index(String cardNumber) {
+        if (cardNumber == null || cardNumber.isBlank()) {
+            throw new IllegalArgumentException("Номер карты не должен быть пустым");
+        }
+        Mac mac = macs.borrow();
+        try {
+            for (int i = 0; i < cardNumber.length(); i++) {
+                char c = cardNumber.charAt(i);
+                if (!Character.isWhitespace(c)) {
+                    mac.update((byte) c);
+                }
+            }
+            byte[] digest = mac.doFinal();
+            char[] hex = new char[LENGTH];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0x0f];
+                hex[2 * i + 1] = HEX[digest[i] & 0x0f];
+            }
+            return new String(hex);
+        } finally {
+            macs.release(mac);
+        }
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен в этой JVM", e);
+        }
+    }
+}
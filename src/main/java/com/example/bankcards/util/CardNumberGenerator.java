@@ -2,7 +2,9 @@ package com.example.bankcards.util;
 
 import org.springframework.stereotype.Component;
 
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Утилита для генерации валидных номеров банковских карт.
@@ -12,6 +14,14 @@ import java.security.SecureRandom;
  * что обеспечивает корректность контрольной суммы.
  * </p>
  *
+ * <p>Для массового выпуска номер можно получить числом ({@link #nextCardNumber(RandomGenerator)})
+ * от генератора вызывающего потока. Число переводится в строку методом {@link #format(long)}.
+ * {@link #generateCardNumber()} берёт генератор DRBG из пула ({@link InstancePool}), а не делит
+ * один {@link SecureRandom} между всеми потоками.</p>
+ *
+ * <p>Номер может начинаться с заданного BIN (до {@value #MAX_BIN_LENGTH} цифр): остальные цифры
+ * до контрольной выбираются случайно.</p>
+ *
  * <p>Пример: {@code 4539578763621486}</p>
  *
  * @author ksenya
@@ -19,8 +29,12 @@ import java.security.SecureRandom;
 @Component
 public class CardNumberGenerator {
 
+    public static final int MAX_BIN_LENGTH = 8;
+
     private static final int CARD_NUMBER_LENGTH = 16;
-    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int PAYLOAD_LENGTH = CARD_NUMBER_LENGTH - 1;
+    private static final long PAYLOAD_BOUND = 1_000_000_000_000_000L;
+    private static final InstancePool<SecureRandom> RANDOMS = new InstancePool<>(CardNumberGenerator::newRandom);
 
     /**
      * Генерирует новый 16-значный номер карты, корректный по алгоритму Луна.
@@ -28,32 +42,113 @@ public class CardNumberGenerator {
      * @return строка с валидным номером карты
      */
     public static String generateCardNumber() {
-        int[] digits = new int[CARD_NUMBER_LENGTH];
-        for (int i = 0; i < CARD_NUMBER_LENGTH - 1; i++) {
-            digits[i] = RANDOM.nextInt(10);
+        return generateCardNumber(null);
+    }
+
+    /**
+     * Генерирует новый 16-значный номер карты с заданным BIN, корректный по алгоритму Луна.
+     *
+     * @param binPrefix BIN (первые цифры номера); {@code null} или пустая строка — без BIN
+     * @return строка с валидным номером карты
+     * @throws IllegalArgumentException если BIN содержит не только цифры или длиннее {@value #MAX_BIN_LENGTH}
+     */
+    public static String generateCardNumber(String binPrefix) {
+        SecureRandom random = RANDOMS.borrow();
+        try {
+            return format(nextCardNumber(random, binPrefix));
+        } finally {
+            RANDOMS.release(random);
         }
+    }
 
-        digits[CARD_NUMBER_LENGTH - 1] = calculateLuhnCheckDigit(digits);
+    /**
+     * Генерирует 16-значный номер карты, корректный по алгоритму Луна, в виде числа.
+     * Первые 15 цифр берутся одним вызовом генератора, последняя — контрольная.
+     *
+     * @param random источник случайности; не должен использоваться другими потоками одновременно,
+     *               если он не потокобезопасен
+     * @return номер карты; ведущие нули не хранятся, см. {@link #format(long)}
+     */
+    public static long nextCardNumber(RandomGenerator random) {
+        long payload = random.nextLong(PAYLOAD_BOUND);
+        return payload * 10 + calculateLuhnCheckDigit(payload);
+    }
+
+    /**
+     * То же, что {@link #nextCardNumber(RandomGenerator)}, но номер начинается с {@code binPrefix}.
+     *
+     * @param random    источник случайности
+     * @param binPrefix BIN; {@code null} или пустая строка — без BIN
+     * @return номер карты
+     * @throws IllegalArgumentException если BIN содержит не только цифры или длиннее {@value #MAX_BIN_LENGTH}
+     */
+    public static long nextCardNumber(RandomGenerator random, String binPrefix) {
+        if (binPrefix == null || binPrefix.isEmpty()) {
+            return nextCardNumber(random);
+        }
+        checkBinPrefix(binPrefix);
+        long suffixBound = 1;
+        for (int i = binPrefix.length(); i < PAYLOAD_LENGTH; i++) {
+            suffixBound *= 10;
+        }
+        long payload = Long.parseLong(binPrefix) * suffixBound + random.nextLong(suffixBound);
+        return payload * 10 + calculateLuhnCheckDigit(payload);
+    }
+
+    /**
+     * Проверяет, что BIN состоит из 1–{@value #MAX_BIN_LENGTH} цифр.
+     *
+     * @param binPrefix BIN
+     * @throws IllegalArgumentException если BIN некорректен
+     */
+    public static void checkBinPrefix(String binPrefix) {
+        if (binPrefix == null || binPrefix.isEmpty() || binPrefix.length() > MAX_BIN_LENGTH) {
+            throw new IllegalArgumentException("BIN должен содержать от 1 до " + MAX_BIN_LENGTH + " цифр");
+        }
+        for (int i = 0; i < binPrefix.length(); i++) {
+            char c = binPrefix.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("BIN должен состоять только из цифр: " + binPrefix);
+            }
+        }
+    }
+
+    /**
+     * Записывает номер карты 16 цифрами, дополняя ведущими нулями.
+     *
+     * @param cardNumber номер карты, полученный из {@link #nextCardNumber(RandomGenerator)}
+     * @return строка из 16 цифр
+     */
+    public static String format(long cardNumber) {
+        char[] chars = new char[CARD_NUMBER_LENGTH];
+        for (int i = CARD_NUMBER_LENGTH - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + cardNumber % 10);
+            cardNumber /= 10;
+        }
+        return new String(chars);
+    }
 
-        StringBuilder sb = new StringBuilder(CARD_NUMBER_LENGTH);
-        for (int digit : digits) {
-            sb.append(digit);
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
         }
-        return sb.toString();
     }
 
     /**
      * Рассчитывает контрольную цифру по алгоритму Луна.
      *
-     * @param digits массив сгенерированных цифр (без контрольной)
+     * @param payload первые 15 цифр номера (без контрольной)
      * @return контрольная цифра (0–9)
      */
-    private static int calculateLuhnCheckDigit(int[] digits) {
+    private static int calculateLuhnCheckDigit(long payload) {
         int sum = 0;
         boolean doubleIt = true;
 
         for (int i = CARD_NUMBER_LENGTH - 2; i >= 0; i--) {
-            int d = digits[i];
+            int d = (int) (payload % 10);
+            payload /= 10;
             if (doubleIt) {
                 d *= 2;
                 if (d > 9) d -= 9;
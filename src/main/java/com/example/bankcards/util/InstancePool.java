@@ -0,0 +1,53 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Пул дорогих в создании объектов, которыми одновременно может пользоваться только один поток
+ * ({@link javax.crypto.Cipher}, {@link javax.crypto.Mac}).
+ * <p>
+ * Объекты лежат в массиве слотов размером не меньше удвоенного числа ядер. {@link #borrow()} забирает
+ * объект атомарной заменой слота на {@code null}, начиная со слота, выбранного по идентификатору потока,
+ * {@link #release(Object)} кладёт его в первый свободный слот. Блокировок и аллокаций нет; если все
+ * слоты пусты, создаётся новый объект, а лишний при возврате отбрасывается. В отличие от
+ * {@link ThreadLocal}, число объектов ограничено числом одновременно работающих потоков,
+ * а не числом потоков вообще, что важно для виртуальных потоков.
+ * </p>
+ *
+ * @param <T> тип объектов
+ * @author ksenya
+ */
+final class InstancePool<T> {
+
+    private final Supplier<T> factory;
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    InstancePool(Supplier<T> factory) {
+        this.factory = factory;
+        int size = Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    T borrow() {
+        int start = (int) Thread.currentThread().threadId() & mask;
+        for (int i = 0; i <= mask; i++) {
+            T instance = slots.getAndSet((start + i) & mask, null);
+            if (instance != null) {
+                return instance;
+            }
+        }
+        return factory.get();
+    }
+
+    void release(T instance) {
+        int start = (int) Thread.currentThread().threadId() & mask;
+        for (int i = 0; i <= mask; i++) {
+            if (slots.compareAndSet((start + i) & mask, null, instance)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации: время создания и идентификатор последней записи страницы.
+ * <p>
+ * Передаётся клиенту в виде непрозрачной строки Base64URL, из которой
+ * восстанавливается без обращения к базе данных.
+ * </p>
+ *
+ * @param createdAt время создания записи
+ * @param id        идентификатор записи
+ * @author ksenya
+ */
+public record KeysetCursor(Instant createdAt, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Кодирует позицию в непрозрачную строку.
+     *
+     * @return курсор
+     */
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + SEPARATOR + createdAt.getNano() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Восстанавливает позицию из строки, полученной от {@link #encode()}.
+     *
+     * @param cursor курсор
+     * @return позиция
+     * @throws InvalidCursorException если курсор повреждён
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Некорректный курсор страницы");
+            }
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new KeysetCursor(createdAt, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException("Некорректный курсор страницы");
+        }
+    }
+}
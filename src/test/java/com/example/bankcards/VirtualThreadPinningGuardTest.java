@@ -0,0 +1,77 @@
+package com.example.bankcards;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверка кода приложения на {@code synchronized}: блокирующий вызов (JDBC, ожидание ответа)
+ * внутри монитора закрепляет виртуальный поток за несущим в режиме {@code spring.threads.virtual.enabled}.
+ * Вместо {@code synchronized} используется {@link java.util.concurrent.locks.ReentrantLock}
+ * или неблокирующие структуры. Проверяются скомпилированные классы, включая сгенерированные MapStruct.
+ */
+class VirtualThreadPinningGuardTest {
+
+    @Test
+    void applicationCode_HasNoSynchronizedMethodsOrBlocks() throws IOException, URISyntaxException {
+        Path classes = Path.of(AppApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> offenders = new ArrayList<>();
+
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".class")).toList()) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    new ClassReader(in).accept(new SynchronizedFinder(offenders), ClassReader.SKIP_DEBUG);
+                }
+            }
+        }
+
+        assertThat(offenders).as("synchronized в коде приложения").isEmpty();
+    }
+
+    private static final class SynchronizedFinder extends ClassVisitor {
+
+        private final List<String> offenders;
+        private String className;
+
+        SynchronizedFinder(List<String> offenders) {
+            super(Opcodes.ASM9);
+            this.offenders = offenders;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                          String[] interfaces) {
+            className = name.replace('/', '.');
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            String method = className + "." + name;
+            if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                offenders.add(method + " (synchronized-метод)");
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode == Opcodes.MONITORENTER) {
+                        offenders.add(method + " (synchronized-блок)");
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.AesCardCipher;
+import com.example.bankcards.util.CardNumberGenerator;
+import com.example.bankcards.util.EncoderKey;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность и аллокации {@link AesCardCipher}.
+ * <p>
+ * {@code legacyEncrypt} повторяет прежнюю реализацию {@code CardEncryptionUtil}
+ * ({@link Cipher#getInstance} и новые массивы на каждый вызов, общий {@link SecureRandom}) и служит
+ * точкой отсчёта. Бенчмарки {@code *Buffer} работают с буферами вызывающего кода, {@code *Contended} —
+ * из всех доступных потоков сразу, чтобы видеть масштабирование пула по ядрам.
+ * Байты на операцию показывает {@code gc.alloc.rate.norm} профилировщика {@link GCProfiler}.
+ * </p>
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AesCardCipherBenchmark {
+
+    private SecretKey key;
+    private AesCardCipher cipher;
+    private final SecureRandom legacyRandom = new SecureRandom();
+    private String cardNumber;
+    private String encrypted;
+    private byte[] cardBytes;
+    private byte[] sealed;
+
+    @Setup
+    public void setUp() {
+        key = EncoderKey.fromBase64ToAes(BenchmarkFixtures.randomBase64Key(32));
+        cipher = new AesCardCipher(key);
+        cardNumber = CardNumberGenerator.generateCardNumber();
+        cardBytes = cardNumber.getBytes(StandardCharsets.US_ASCII);
+        encrypted = cipher.encryptToBase64(cardNumber);
+        sealed = Base64.getDecoder().decode(encrypted);
+    }
+
+    /**
+     * Буферы одного потока.
+     */
+    @State(Scope.Thread)
+    public static class Buffers {
+        final ByteBuffer plain = ByteBuffer.allocate(64);
+        final ByteBuffer out = ByteBuffer.allocate(128);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        Cipher legacy = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        byte[] iv = new byte[16];
+        legacyRandom.nextBytes(iv);
+        legacy.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        byte[] ciphertext = legacy.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return cipher.encryptToBase64(cardNumber);
+    }
+
+    @Benchmark
+    public int decrypt() {
+        return cipher.decryptFromBase64(encrypted, (plaintext, offset, length) -> plaintext[offset + length - 1]);
+    }
+
+    @Benchmark
+    public int encryptBuffer(Buffers buffers) {
+        buffers.plain.clear();
+        buffers.plain.put(cardBytes).flip();
+        buffers.out.clear();
+        return cipher.encrypt(buffers.plain, buffers.out);
+    }
+
+    @Benchmark
+    public int decryptBuffer(Buffers buffers) {
+        buffers.plain.clear();
+        buffers.out.clear();
+        buffers.out.put(sealed).flip();
+        return cipher.decrypt(buffers.out, buffers.plain);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String legacyEncryptContended() throws Exception {
+        return legacyEncrypt();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String encryptContended() {
+        return cipher.encryptToBase64(cardNumber);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AesCardCipherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
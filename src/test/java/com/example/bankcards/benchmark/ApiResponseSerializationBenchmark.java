@@ -0,0 +1,81 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.mappers.BankCardMapper;
+import com.example.bankcards.mappers.BankCardMapperImpl;
+import com.example.bankcards.mappers.TransferMapper;
+import com.example.bankcards.mappers.TransferMapperImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Сериализация ответов {@link APIResponse} в JSON тем же набором модулей Jackson, что и в приложении.
+ * <ul>
+ *     <li>{@code transfer} — ответ на перевод с одним {@link TransferUserDto};</li>
+ *     <li>{@code cardList} — страница из {@code pageSize} карт пользователя.</li>
+ * </ul>
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private APIResponse<TransferUserDto> transferResponse;
+    private APIResponse<List<BankCardDTO>> cardListResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+
+        BankCardMapper bankCardMapper = new BankCardMapperImpl();
+        TransferMapper transferMapper = new TransferMapperImpl();
+        ReflectionTestUtils.setField(transferMapper, "bankCardMapper", bankCardMapper);
+
+        User user = BenchmarkFixtures.user(1L);
+        transferResponse = APIResponse.ofSuccess(
+                transferMapper.toDto(BenchmarkFixtures.transfer(1L, user)), "Перевод успешно выполнен", HttpStatus.OK);
+        cardListResponse = APIResponse.ofSuccess(
+                LongStream.rangeClosed(1, pageSize)
+                        .mapToObj(id -> bankCardMapper.toDto(BenchmarkFixtures.card(id, user)))
+                        .toList(),
+                "Карты получены", HttpStatus.OK);
+    }
+
+    @Benchmark
+    public byte[] transfer() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transferResponse);
+    }
+
+    @Benchmark
+    public byte[] cardList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cardListResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ApiResponseSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
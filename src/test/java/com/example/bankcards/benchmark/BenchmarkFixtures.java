@@ -0,0 +1,100 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.entity.user.Role;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Общие объекты для JMH-бенчмарков: компоненты создаются без Spring-контекста
+ * с теми же настройками, что и в приложении, а сущности заполнены как после чтения из базы.
+ *
+ * @author ksenya
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * {@link JwtComponent} со случайным ключом HMAC-SHA256 и сроком жизни токена в один час.
+     */
+    static JwtComponent jwtComponent() {
+        JwtComponent jwtComponent = new JwtComponent();
+        ReflectionTestUtils.setField(jwtComponent, "jwtSecret", randomBase64Key(32));
+        ReflectionTestUtils.setField(jwtComponent, "jwtExpiration", 3600L);
+        ReflectionTestUtils.setField(jwtComponent, "claimsCacheSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(jwtComponent, "decryptedKey");
+        return jwtComponent;
+    }
+
+    /**
+     * {@link CardEncryptionUtil} со случайным ключом AES-256.
+     */
+    static CardEncryptionUtil cardEncryptionUtil() {
+        return new CardEncryptionUtil(randomBase64Key(32));
+    }
+
+    /**
+     * {@link ObjectMapper} с модулями и настройками дат, как у Spring Boot по умолчанию.
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .username("bench-user-" + id)
+                .password("password")
+                .roles(Set.of(Role.USER))
+                .tokenVersion(0L)
+                .build();
+    }
+
+    static BankCard card(long id, User owner) {
+        return BankCard.builder()
+                .id(id)
+                .owner(owner)
+                .cardNumber("**** **** **** " + (1000 + id % 9000))
+                .expirationDate(LocalDate.of(2030, 1, 31))
+                .status(Status.ACTIVE)
+                .balance(Money.parse("12345.67"))
+                .version(1L)
+                .build();
+    }
+
+    static Transfer transfer(long id, User initiator) {
+        return Transfer.builder()
+                .id(id)
+                .initiator(initiator)
+                .fromCard(card(2 * id, initiator))
+                .toCard(card(2 * id + 1, initiator))
+                .amount(Money.parse("250.00"))
+                .status(TransferStatus.COMPLETED)
+                .createdAt(Instant.parse("2025-01-15T10:00:00Z"))
+                .build();
+    }
+
+    static String randomBase64Key(int length) {
+        byte[] key = new byte[length];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
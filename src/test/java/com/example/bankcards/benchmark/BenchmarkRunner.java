@@ -0,0 +1,58 @@
+package com.example.bankcards.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запуск всех JMH-бенчмарков пакета с сохранением результатов в JSON.
+ * <p>
+ * Принимает стандартные аргументы командной строки JMH. Если они не заданы, выполняются
+ * все классы {@code *Benchmark} этого пакета, а результаты пишутся в {@value #DEFAULT_RESULT}
+ * в формате JSON, пригодном для сравнения между версиями (например, в JMH Visualizer
+ * или скриптом CI). Если профилировщики не указаны, подключается {@link GCProfiler}:
+ * метрика {@code gc.alloc.rate.norm} показывает число байтов, выделяемых за операцию.
+ * </p>
+ *
+ * <pre>{@code
+ * ./mvnw -Pbenchmark test
+ * ./mvnw -Pbenchmark test -Djmh.args="JwtComponentBenchmark -wi 1 -i 3"
+ * }</pre>
+ *
+ * @author ksenya
+ */
+public final class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT = "target/jmh/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark");
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        Path result = Path.of(commandLine.getResult().orElse(DEFAULT_RESULT));
+        if (result.getParent() != null) {
+            Files.createDirectories(result.getParent());
+        }
+        options.result(result.toString());
+
+        new Runner(options.build()).run();
+    }
+}
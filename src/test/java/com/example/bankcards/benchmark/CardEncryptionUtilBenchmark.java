@@ -0,0 +1,62 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Шифрование номеров карт в {@link CardEncryptionUtil} и генерация номеров в {@link CardNumberGenerator}:
+ * операции, выполняемые при выпуске каждой карты.
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CardEncryptionUtilBenchmark {
+
+    private CardEncryptionUtil cardEncryptionUtil;
+    private String cardNumber;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        cardEncryptionUtil = BenchmarkFixtures.cardEncryptionUtil();
+        cardNumber = CardNumberGenerator.generateCardNumber();
+        encrypted = cardEncryptionUtil.encrypt(cardNumber);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return cardEncryptionUtil.encrypt(cardNumber);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return cardEncryptionUtil.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String maskEncrypted() {
+        return cardEncryptionUtil.maskEncrypted(encrypted);
+    }
+
+    @Benchmark
+    public String generateCardNumber() {
+        return CardNumberGenerator.generateCardNumber();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardEncryptionUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.user.Role;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.security.MyUserDetails;
+import com.example.bankcards.security.filters.JwtAuthenticationFilter;
+import com.example.bankcards.service.impl.UserDetailService;
+import com.example.bankcards.service.interfaces.TokenVersionService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость обработки JWT в {@link JwtAuthenticationFilter} на один запрос.
+ * <ul>
+ *     <li>{@code legacy} — прежняя схема: три разбора токена, каждый с созданием нового парсера;</li>
+ *     <li>{@code singleParse} — один разбор заранее созданным парсером без кэша;</li>
+ *     <li>{@code cachedFilter} — фильтр целиком с кэшем проверенных claims;</li>
+ *     <li>{@code claimsPrincipalFilter} — фильтр, собирающий принципала из claims
+ *     (загрузка пользователя заменена проверкой версии токенов).</li>
+ * </ul>
+ * Загрузка пользователя и версии токенов заменены заглушками, чтобы измерялась только работа с токеном.
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String USERNAME = "bench-user";
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    private SecretKey key;
+    private String token;
+    private JwtComponent jwtComponent;
+    private JwtAuthenticationFilter filter;
+    private JwtAuthenticationFilter claimsFilter;
+    private UserDetailService userDetailService;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest claimsRequest;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+
+        jwtComponent = new JwtComponent();
+        ReflectionTestUtils.setField(jwtComponent, "jwtSecret", Base64.getEncoder().encodeToString(secret));
+        ReflectionTestUtils.setField(jwtComponent, "jwtExpiration", 3600L);
+        ReflectionTestUtils.setField(jwtComponent, "claimsCacheSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(jwtComponent, "decryptedKey");
+        key = (SecretKey) ReflectionTestUtils.getField(jwtComponent, "key");
+        token = jwtComponent.generateJwtToken(USERNAME);
+
+        MyUserDetails userDetails = new MyUserDetails(User.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password("password")
+                .roles(Set.of(Role.USER))
+                .build());
+        userDetailService = new UserDetailService(null) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return userDetails;
+            }
+        };
+        TokenVersionService tokenVersionService = new TokenVersionService() {
+            @Override
+            public boolean isCurrent(Long userId, long version) {
+                return true;
+            }
+
+            @Override
+            public void revoke(Long userId) {
+            }
+        };
+        filter = new JwtAuthenticationFilter(jwtComponent, userDetailService, tokenVersionService);
+        claimsFilter = new JwtAuthenticationFilter(jwtComponent, userDetailService, tokenVersionService);
+        ReflectionTestUtils.setField(claimsFilter, "claimsPrincipal", true);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        claimsRequest = new MockHttpServletRequest("GET", "/api/v1/cards");
+        claimsRequest.addHeader("Authorization", "Bearer " + jwtComponent.generateJwtToken(userDetails));
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Authentication legacy() {
+        jwtComponent.checkTokenOnEmpty(token);
+        String username = parse(token).getSubject();
+        UserDetails userDetails = userDetailService.loadUserByUsername(username);
+        boolean valid = parse(token).getSubject().equals(userDetails.getUsername())
+                && !parse(token).getExpiration().before(new Date());
+        if (!valid) {
+            throw new IllegalStateException();
+        }
+        return authenticate(userDetails);
+    }
+
+    @Benchmark
+    public Authentication singleParse() {
+        Claims claims = jwtComponent.extractAllClaims(token);
+        UserDetails userDetails = userDetailService.loadUserByUsername(claims.getSubject());
+        if (!jwtComponent.isTokenValid(claims, userDetails)) {
+            throw new IllegalStateException();
+        }
+        return authenticate(userDetails);
+    }
+
+    @Benchmark
+    public Authentication cachedFilter() throws Exception {
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Authentication claimsPrincipalFilter() throws Exception {
+        try {
+            claimsFilter.doFilter(claimsRequest, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Claims parse(String jwt) {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload();
+    }
+
+    private Authentication authenticate(UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authToken.setDetails(detailsSource.buildDetails(request));
+        return authToken;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
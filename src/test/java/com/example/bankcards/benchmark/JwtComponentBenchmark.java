@@ -0,0 +1,68 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.security.MyUserDetails;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и разбор JWT в {@link JwtComponent}.
+ * <ul>
+ *     <li>{@code generate*} — подпись токена при входе: только имя пользователя
+ *     и полный набор claims принципала;</li>
+ *     <li>{@code extractAllClaims} — проверка подписи и разбор без кэша;</li>
+ *     <li>{@code verifyCached} — повторная проверка того же токена через кэш проверенных claims.</li>
+ * </ul>
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtComponentBenchmark {
+
+    private JwtComponent jwtComponent;
+    private MyUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtComponent = BenchmarkFixtures.jwtComponent();
+        userDetails = new MyUserDetails(BenchmarkFixtures.user(1L));
+        token = jwtComponent.generateJwtToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateForUsername() {
+        return jwtComponent.generateJwtToken(userDetails.getUsername());
+    }
+
+    @Benchmark
+    public String generateForPrincipal() {
+        return jwtComponent.generateJwtToken(userDetails);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtComponent.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return jwtComponent.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtComponentBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.mappers.BankCardMapper;
+import com.example.bankcards.mappers.BankCardMapperImpl;
+import com.example.bankcards.mappers.TransferMapper;
+import com.example.bankcards.mappers.TransferMapperImpl;
+import com.example.bankcards.repository.projection.TransferView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сгенерированные MapStruct-мапперы {@link TransferMapper} и {@link BankCardMapper}.
+ * <p>
+ * {@code transferViewToDto} маппит проекцию, собранную фабрикой Spring Data так же,
+ * как её возвращает репозиторий: чтение каждого свойства проходит через прокси.
+ * </p>
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private BankCardMapper bankCardMapper;
+    private TransferMapper transferMapper;
+    private BankCard card;
+    private Transfer transfer;
+    private TransferView transferView;
+
+    @Setup
+    public void setUp() {
+        bankCardMapper = new BankCardMapperImpl();
+        transferMapper = new TransferMapperImpl();
+        ReflectionTestUtils.setField(transferMapper, "bankCardMapper", bankCardMapper);
+
+        User user = BenchmarkFixtures.user(1L);
+        card = BenchmarkFixtures.card(1L, user);
+        transfer = BenchmarkFixtures.transfer(1L, user);
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", transfer.getId());
+        row.put("initiatorId", user.getId());
+        row.put("amount", transfer.getAmount());
+        row.put("status", transfer.getStatus());
+        row.put("createdAt", transfer.getCreatedAt());
+        putCard(row, "fromCard", transfer.getFromCard());
+        putCard(row, "toCard", transfer.getToCard());
+        transferView = new SpelAwareProxyProjectionFactory().createProjection(TransferView.class, row);
+    }
+
+    @Benchmark
+    public BankCardDTO cardToDto() {
+        return bankCardMapper.toDto(card);
+    }
+
+    @Benchmark
+    public TransferUserDto transferToDto() {
+        return transferMapper.toDto(transfer);
+    }
+
+    @Benchmark
+    public TransferUserDto transferViewToDto() {
+        return transferMapper.toDto(transferView);
+    }
+
+    private static void putCard(Map<String, Object> row, String prefix, BankCard card) {
+        row.put(prefix + "Id", card.getId());
+        row.put(prefix + "OwnerId", card.getOwner().getId());
+        row.put(prefix + "ExpirationDate", card.getExpirationDate());
+        row.put(prefix + "Status", card.getStatus());
+        row.put(prefix + "Number", card.getCardNumber());
+        row.put(prefix + "Balance", card.getBalance());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.payload.CardBalanceDTO;
+import com.example.bankcards.entity.money.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение {@link Money} и {@link BigDecimal} на операциях с балансами.
+ * <ul>
+ *     <li>{@code sum*} — сумма балансов карт пользователя, как в {@code UserServiceImpl.getTotalBalance};</li>
+ *     <li>{@code withdraw*} — проверка остатка и списание, как в {@code TransferEngine};</li>
+ *     <li>{@code serialize*} — запись {@link CardBalanceDTO} в JSON через Jackson.</li>
+ * </ul>
+ * Для оценки выделения памяти запускать с профилировщиком {@code -prof gc}.
+ *
+ * @author ksenya
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    @Param({"8", "256"})
+    private int cards;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private BigDecimal[] decimalBalances;
+    private Money[] moneyBalances;
+    private BigDecimal decimalAmount;
+    private Money moneyAmount;
+    private BigDecimalBalanceDTO decimalDto;
+    private CardBalanceDTO moneyDto;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalBalances = new BigDecimal[cards];
+        moneyBalances = new Money[cards];
+        for (int i = 0; i < cards; i++) {
+            long minorUnits = random.nextInt(10_000_000);
+            decimalBalances[i] = BigDecimal.valueOf(minorUnits, Money.SCALE);
+            moneyBalances[i] = Money.ofMinor(minorUnits);
+        }
+        decimalAmount = new BigDecimal("0.01");
+        moneyAmount = Money.parse("0.01");
+
+        decimalDto = new BigDecimalBalanceDTO(1L, "**** **** **** 1234", new BigDecimal("123456.78"));
+        moneyDto = CardBalanceDTO.builder()
+                .cardId(1L)
+                .maskedCardNumber("**** **** **** 1234")
+                .balance(Money.parse("123456.78"))
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal balance : decimalBalances) {
+            total = total.add(balance);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money sumMoney() {
+        long total = 0L;
+        for (Money balance : moneyBalances) {
+            total = Math.addExact(total, balance.minorUnits());
+        }
+        return Money.ofMinor(total);
+    }
+
+    @Benchmark
+    public BigDecimal withdrawBigDecimal() {
+        BigDecimal last = null;
+        for (BigDecimal balance : decimalBalances) {
+            if (balance.compareTo(decimalAmount) >= 0) {
+                last = balance.subtract(decimalAmount);
+            }
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Money withdrawMoney() {
+        Money last = null;
+        for (Money balance : moneyBalances) {
+            if (!balance.isLessThan(moneyAmount)) {
+                last = balance.minus(moneyAmount);
+            }
+        }
+        return last;
+    }
+
+    @Benchmark
+    public byte[] serializeBigDecimal() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(decimalDto);
+    }
+
+    @Benchmark
+    public byte[] serializeMoney() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(moneyDto);
+    }
+
+    /**
+     * {@link CardBalanceDTO} до перехода на {@link Money}.
+     */
+    public record BigDecimalBalanceDTO(Long cardId, String maskedCardNumber, BigDecimal balance) {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
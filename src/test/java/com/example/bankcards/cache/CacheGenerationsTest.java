@@ -0,0 +1,55 @@
+package com.example.bankcards.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheGenerationsTest {
+
+    private CacheGenerations cacheGenerations;
+
+    @BeforeEach
+    void setUp() {
+        cacheGenerations = new CacheGenerations(1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidate_BumpsOnlyAffectedOwnersAndGlobal() {
+        long owner1 = cacheGenerations.owner(CacheGenerations.CARDS, 1L);
+        long owner2 = cacheGenerations.owner(CacheGenerations.CARDS, 2L);
+        long global = cacheGenerations.global(CacheGenerations.CARDS);
+        long transfers = cacheGenerations.owner(CacheGenerations.TRANSFERS, 1L);
+
+        cacheGenerations.invalidate(CacheGenerations.CARDS, 1L, null);
+
+        assertThat(cacheGenerations.owner(CacheGenerations.CARDS, 1L)).isGreaterThan(owner1);
+        assertThat(cacheGenerations.owner(CacheGenerations.CARDS, 2L)).isEqualTo(owner2);
+        assertThat(cacheGenerations.global(CacheGenerations.CARDS)).isGreaterThan(global);
+        assertThat(cacheGenerations.owner(CacheGenerations.TRANSFERS, 1L)).isEqualTo(transfers);
+    }
+
+    @Test
+    void invalidate_DeferredUntilCommit() {
+        long before = cacheGenerations.owner(CacheGenerations.CARDS, 1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheGenerations.invalidate(CacheGenerations.CARDS, List.of(1L));
+        assertThat(cacheGenerations.owner(CacheGenerations.CARDS, 1L)).isEqualTo(before);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cacheGenerations.owner(CacheGenerations.CARDS, 1L)).isGreaterThan(before);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.config.CaffeineCacheProperties.CacheSpec;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэши из {@link CacheConfig} получают размер и время жизни из секции {@code cache} файла {@code application.yml}.
+ */
+class CacheConfigTest {
+
+    private CaffeineCacheProperties properties;
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new Binder(ConfigurationPropertySources.from(new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"))))
+                .bind("cache", CaffeineCacheProperties.class)
+                .orElseThrow(() -> new IllegalStateException("В application.yml нет секции cache"));
+        cacheManager = new CacheConfig(properties).cacheManager();
+    }
+
+    @Test
+    void everyConfiguredCache_GetsItsSizeAndTtl() {
+        assertThat(properties.getSpecs()).isNotEmpty();
+        properties.getSpecs().keySet().forEach(name -> assertMatchesSpec(name, properties.specFor(name)));
+    }
+
+    @Test
+    void configuredCaches_ExampleValues() {
+        Policy<Object, Object> bankCards = policy("bankCards");
+        assertThat(bankCards.eviction()).hasValueSatisfying(eviction -> {
+            assertThat(eviction.isWeighted()).isTrue();
+            assertThat(eviction.getMaximum()).isEqualTo(20_000);
+        });
+        assertThat(expiresAfter(bankCards.expireAfterWrite())).isEqualTo(Duration.ofMinutes(2));
+
+        Policy<Object, Object> transfer = policy("transfer");
+        assertThat(transfer.eviction()).hasValueSatisfying(eviction -> {
+            assertThat(eviction.isWeighted()).isFalse();
+            assertThat(eviction.getMaximum()).isEqualTo(50_000);
+        });
+        assertThat(expiresAfter(transfer.expireAfterAccess())).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void unknownCache_GetsDefaults() {
+        assertMatchesSpec("notConfigured", properties.getDefaults());
+    }
+
+    private void assertMatchesSpec(String name, CacheSpec spec) {
+        Policy<Object, Object> policy = policy(name);
+        boolean weighted = spec.getMaximumWeight() != null;
+        assertThat(policy.eviction()).as(name).hasValueSatisfying(eviction -> {
+            assertThat(eviction.isWeighted()).as(name).isEqualTo(weighted);
+            assertThat(eviction.getMaximum()).as(name)
+                    .isEqualTo(weighted ? spec.getMaximumWeight() : spec.getMaximumSize());
+        });
+        assertThat(expiresAfter(policy.expireAfterWrite())).as(name).isEqualTo(spec.getExpireAfterWrite());
+        assertThat(expiresAfter(policy.expireAfterAccess())).as(name).isEqualTo(spec.getExpireAfterAccess());
+        assertThat(policy.refreshAfterWrite().isPresent()).as(name).isEqualTo(spec.getRefreshAfterWrite() != null);
+    }
+
+    private Policy<Object, Object> policy(String name) {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(name);
+        assertThat(cache).as(name).isNotNull();
+        return cache.getNativeCache().policy();
+    }
+
+    private static Duration expiresAfter(Optional<? extends Policy.FixedExpiration<?, ?>> expiration) {
+        return expiration.map(policy -> Duration.ofNanos(policy.getExpiresAfter(TimeUnit.NANOSECONDS))).orElse(null);
+    }
+}
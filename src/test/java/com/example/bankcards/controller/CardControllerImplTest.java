@@ -2,11 +2,21 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.controller.impl.CardControllerImpl;
 import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
+import com.example.bankcards.dto.payload.BulkIssueStatus;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
 import com.example.bankcards.dto.requests.CreateCardRequest;
+import com.example.bankcards.dto.requests.FindCardByNumberRequest;
 import com.example.bankcards.dto.requests.ReplenishRequest;
+import com.example.bankcards.entity.bankcard.KeyRotationStatus;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.security.JwtComponent;
 import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.service.interfaces.CardIssuanceService;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.example.bankcards.service.interfaces.KeyRotationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,9 +34,13 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +52,15 @@ class CardControllerImplTest {
     @Mock
     private CardServiceImpl cardServiceImpl;
 
+    @Mock
+    private CardIssuanceService cardIssuanceService;
+
+    @Mock
+    private KeyRotationService keyRotationService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @InjectMocks
     private CardControllerImpl cardControllerImpl;
 
@@ -46,6 +69,8 @@ class CardControllerImplTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(idempotencyService.execute(anyString(), any(), any(), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(3)).get());
         mvc = MockMvcBuilders.standaloneSetup(cardControllerImpl).build();
     }
 
@@ -108,6 +133,83 @@ class CardControllerImplTest {
                 .andExpect(jsonPath("$.message").value("Карта успешно создана"));
     }
 
+    @Test
+    @DisplayName("POST /api/v1/cards/search → 200 + карта по номеру")
+    void findByNumber_Success() throws Exception {
+        FindCardByNumberRequest req = FindCardByNumberRequest.builder().cardNumber("4000 1234 5678 9010").build();
+        BankCardDTO dto = BankCardDTO.builder().cardNumber("**** **** **** 9010").build();
+        given(cardServiceImpl.getByNumber("4000 1234 5678 9010")).willReturn(dto);
+
+        mvc.perform(post("/api/v1/cards/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Карта найдена"))
+                .andExpect(jsonPath("$.data.cardNumber").value("**** **** **** 9010"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/cards/bulk → 202 + запущенное задание")
+    void bulkIssue_Accepted() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        BulkIssueRequest req = BulkIssueRequest.builder().ownerId(10L).count(100_000).build();
+        BulkIssueJobDTO job = BulkIssueJobDTO.builder()
+                .jobId(jobId).ownerId(10L).requested(100_000).status(BulkIssueStatus.RUNNING).build();
+        given(cardIssuanceService.start(any(BulkIssueRequest.class))).willReturn(job);
+
+        mvc.perform(post("/api/v1/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Выпуск карт запущен"))
+                .andExpect(jsonPath("$.data.jobId").value(jobId.toString()))
+                .andExpect(jsonPath("$.data.status").value("RUNNING"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/cards/bulk/{jobId} → 200 + ход выполнения")
+    void getBulkIssueJob_Success() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        BulkIssueJobDTO job = BulkIssueJobDTO.builder()
+                .jobId(jobId).requested(100_000).issued(42_000).cardsPerSecond(21_000)
+                .status(BulkIssueStatus.RUNNING).build();
+        given(cardIssuanceService.getJob(jobId)).willReturn(job);
+
+        mvc.perform(get("/api/v1/cards/bulk/" + jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.issued").value(42_000))
+                .andExpect(jsonPath("$.data.cardsPerSecond").value(21_000.0));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/cards/key-rotation?restart=true → 202 + запущенное перешифрование")
+    void startKeyRotation_Accepted() throws Exception {
+        KeyRotationDTO rotation = KeyRotationDTO.builder()
+                .keyId(2).status(KeyRotationStatus.RUNNING).running(true).build();
+        given(keyRotationService.start(true)).willReturn(rotation);
+
+        mvc.perform(post("/api/v1/cards/key-rotation").param("restart", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Перешифрование номеров карт запущено"))
+                .andExpect(jsonPath("$.data.keyId").value(2))
+                .andExpect(jsonPath("$.data.status").value("RUNNING"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/cards/key-rotation → 200 + позиция перешифрования")
+    void getKeyRotation_Success() throws Exception {
+        KeyRotationDTO rotation = KeyRotationDTO.builder()
+                .keyId(2).status(KeyRotationStatus.PAUSED).lastCardId(5_000L).scanned(5_000L).rotated(4_200L)
+                .build();
+        given(keyRotationService.getStatus()).willReturn(rotation);
+
+        mvc.perform(get("/api/v1/cards/key-rotation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("PAUSED"))
+                .andExpect(jsonPath("$.data.lastCardId").value(5_000))
+                .andExpect(jsonPath("$.data.rotated").value(4_200));
+    }
+
     @Test
     @DisplayName("PATCH /api/v1/cards/blocked/{id} → 200 + заблокированная карта")
     void blocked_Success() throws Exception {
@@ -142,7 +244,7 @@ class CardControllerImplTest {
     @Test
     @DisplayName("GET /api/v1/cards/balance/{cardId}/user/{userId} → 200 + баланс")
     void getBalance_Success() throws Exception {
-        CardBalanceDTO bal = CardBalanceDTO.builder().balance(BigDecimal.valueOf(123.45)).build();
+        CardBalanceDTO bal = CardBalanceDTO.builder().balance(Money.parse("123.45")).build();
         given(cardServiceImpl.getBalance(77L, 88L)).willReturn(bal);
 
         mvc.perform(get("/api/v1/cards/balance/88/user/77"))
@@ -154,7 +256,7 @@ class CardControllerImplTest {
     @DisplayName("POST /api/v1/cards/replenish/{id} → 200 + пополнение")
     void replenish_Success() throws Exception {
         ReplenishRequest req = ReplenishRequest.builder().amount(BigDecimal.TEN).build();
-        CardBalanceDTO bal = CardBalanceDTO.builder().balance(BigDecimal.valueOf(10)).build();
+        CardBalanceDTO bal = CardBalanceDTO.builder().balance(Money.of(10)).build();
         given(cardServiceImpl.deposit(90L, BigDecimal.TEN)).willReturn(bal);
 
         mvc.perform(post("/api/v1/cards/replenish/90")
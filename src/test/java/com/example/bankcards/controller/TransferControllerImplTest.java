@@ -1,9 +1,20 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.config.TransferExportProperties;
 import com.example.bankcards.controller.impl.TransferControllerImpl;
+import com.example.bankcards.dto.payload.BatchTransferItemResultDTO;
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
+import com.example.bankcards.dto.requests.BatchTransferMode;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
+import com.example.bankcards.dto.requests.TransferExportFormat;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.service.impl.TransferServiceImpl;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.example.bankcards.service.interfaces.TransferExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,24 +22,39 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,11 +65,22 @@ class TransferControllerImplTest {
     @Mock
     private TransferServiceImpl transferServiceImpl;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private TransferExportService transferExportService;
+
+    @Spy
+    private TransferExportProperties transferExportProperties = new TransferExportProperties();
+
     @InjectMocks
     private TransferControllerImpl transferController;
 
     @BeforeEach
     void setUp() {
+        lenient().when(idempotencyService.execute(anyString(), any(), any(), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(3)).get());
         mvc = MockMvcBuilders.standaloneSetup(transferController).build();
     }
 
@@ -63,7 +100,7 @@ class TransferControllerImplTest {
         TransferUserDto dto = TransferUserDto.builder()
                 .transactionId(123L)
                 .initiatorId(7L)
-                .amount(BigDecimal.valueOf(100))
+                .amount(Money.of(100))
                 .createdAt(Instant.now())
                 .build();
 
@@ -75,17 +112,104 @@ class TransferControllerImplTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.transactionId").value(123))
                 .andExpect(jsonPath("$.data.initiatorId").value(7))
-                .andExpect(jsonPath("$.data.amount").value(100))
+                .andExpect(jsonPath("$.data.amount").value(100.0))
                 .andExpect(jsonPath("$.message").value("Перевод успешно выполнен"));
     }
 
+    @Test
+    @DisplayName("POST /api/v1/transfer/user/{userId} с Idempotency-Key → ключ передаётся в сервис идемпотентности")
+    void transfer_WithIdempotencyKey() throws Exception {
+        TransferUserRequest req = TransferUserRequest.builder()
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(BigDecimal.ONE)
+                .build();
+        given(transferServiceImpl.transferFromToCardUser(eq(7L), any(TransferUserRequest.class)))
+                .willReturn(TransferUserDto.builder().transactionId(5L).build());
+
+        mvc.perform(post("/api/v1/transfer/user/7")
+                        .header("Idempotency-Key", "payroll-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.transactionId").value(5));
+
+        verify(idempotencyService).execute(eq("transfer:user:7"), eq("payroll-42"), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/transfer/user/{userId}/batch → пакет выполнен")
+    void transferBatch_Applied() throws Exception {
+        BatchTransferRequest req = BatchTransferRequest.builder()
+                .mode(BatchTransferMode.BEST_EFFORT)
+                .transfers(List.of(TransferUserRequest.builder()
+                        .fromCardId(1L)
+                        .toCardId(2L)
+                        .amount(BigDecimal.TEN)
+                        .build()))
+                .build();
+
+        BatchTransferResultDTO result = BatchTransferResultDTO.builder()
+                .mode(BatchTransferMode.BEST_EFFORT)
+                .applied(true)
+                .succeeded(1)
+                .items(List.of(BatchTransferItemResultDTO.builder()
+                        .index(0)
+                        .success(true)
+                        .transactionId(55L)
+                        .build()))
+                .build();
+
+        given(transferServiceImpl.transferBatch(eq(7L), any(BatchTransferRequest.class))).willReturn(result);
+
+        mvc.perform(post("/api/v1/transfer/user/7/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.succeeded").value(1))
+                .andExpect(jsonPath("$.data.items[0].transactionId").value(55))
+                .andExpect(jsonPath("$.message").value("Пакет переводов выполнен"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/transfer/user/{userId}/batch → пакет отклонён")
+    void transferBatch_Rejected() throws Exception {
+        BatchTransferRequest req = BatchTransferRequest.builder()
+                .transfers(List.of(TransferUserRequest.builder()
+                        .fromCardId(1L)
+                        .toCardId(2L)
+                        .amount(BigDecimal.TEN)
+                        .build()))
+                .build();
+
+        BatchTransferResultDTO result = BatchTransferResultDTO.builder()
+                .mode(BatchTransferMode.ALL_OR_NOTHING)
+                .applied(false)
+                .failed(1)
+                .items(List.of(BatchTransferItemResultDTO.builder()
+                        .index(0)
+                        .error("Недостаточно средств на карте")
+                        .build()))
+                .build();
+
+        given(transferServiceImpl.transferBatch(eq(7L), any(BatchTransferRequest.class))).willReturn(result);
+
+        mvc.perform(post("/api/v1/transfer/user/7/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.data.items[0].error").value("Недостаточно средств на карте"))
+                .andExpect(jsonPath("$.message").value("Пакет переводов отклонён"));
+    }
+
     @Test
     @DisplayName("GET /api/v1/transfer/all → список всех переводов")
     void getAll_Success() throws Exception {
         TransferUserDto dto = TransferUserDto.builder()
                 .transactionId(201L)
                 .initiatorId(1L)
-                .amount(BigDecimal.valueOf(50))
+                .amount(Money.of(50))
                 .createdAt(Instant.now())
                 .build();
 
@@ -105,7 +229,7 @@ class TransferControllerImplTest {
         TransferUserDto dto = TransferUserDto.builder()
                 .transactionId(301L)
                 .initiatorId(88L)
-                .amount(BigDecimal.valueOf(75))
+                .amount(Money.of(75))
                 .createdAt(Instant.now())
                 .build();
 
@@ -121,13 +245,88 @@ class TransferControllerImplTest {
                 .andExpect(jsonPath("$.message").value("История переводов пользователя получена"));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/transfer/all/cursor → первая страница по курсору")
+    void getAllByCursor_Success() throws Exception {
+        TransferUserDto dto = TransferUserDto.builder()
+                .transactionId(202L)
+                .initiatorId(1L)
+                .amount(Money.of(50))
+                .createdAt(Instant.now())
+                .build();
+
+        CursorPageDTO<TransferUserDto> page = CursorPageDTO.<TransferUserDto>builder()
+                .content(List.of(dto)).size(1).hasNext(true).nextCursor("next").build();
+        given(transferServiceImpl.getAllByCursor(null, 20, false)).willReturn(page);
+
+        mvc.perform(get("/api/v1/transfer/all/cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].transactionId").value(202))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.message").value("Все переводы возвращены"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/transfer/by-user/{userId}/cursor → следующая страница переводов пользователя")
+    void getAllByUserCursor_Success() throws Exception {
+        TransferUserDto dto = TransferUserDto.builder()
+                .transactionId(302L)
+                .initiatorId(88L)
+                .amount(Money.of(75))
+                .createdAt(Instant.now())
+                .build();
+
+        CursorPageDTO<TransferUserDto> page = CursorPageDTO.<TransferUserDto>builder()
+                .content(List.of(dto)).size(1).hasNext(false).totalElements(4L).build();
+        given(transferServiceImpl.getAllByUserCursor(88L, "abc", 3, true)).willReturn(page);
+
+        mvc.perform(get("/api/v1/transfer/by-user/88/cursor")
+                        .param("cursor", "abc")
+                        .param("size", "3")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].transactionId").value(302))
+                .andExpect(jsonPath("$.data.hasNext").value(false))
+                .andExpect(jsonPath("$.data.totalElements").value(4))
+                .andExpect(jsonPath("$.message").value("История переводов пользователя получена"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/transfer/export → потоковая выгрузка CSV")
+    void export_Csv() throws Exception {
+        Instant from = Instant.parse("2025-01-01T00:00:00Z");
+        Instant to = Instant.parse("2025-02-01T00:00:00Z");
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(4);
+            out.write("transactionId\n501\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(transferExportService).export(eq(from), eq(to), eq(TransferStatus.COMPLETED),
+                eq(TransferExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mvc.perform(get("/api/v1/transfer/export")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("to", "2025-02-01T00:00:00Z")
+                        .param("status", "COMPLETED")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transfers.csv\""))
+                .andExpect(content().string("transactionId\n501\n"));
+        verify(transferExportService).validate(from, to);
+    }
+
     @Test
     @DisplayName("GET /api/v1/transfer/{id} → один перевод")
     void getById_Success() throws Exception {
         TransferUserDto dto = TransferUserDto.builder()
                 .transactionId(401L)
                 .initiatorId(2L)
-                .amount(BigDecimal.valueOf(200))
+                .amount(Money.of(200))
                 .createdAt(Instant.now())
                 .build();
 
@@ -4,6 +4,7 @@ import com.example.bankcards.controller.impl.UserControllerImpl;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.dto.payload.TotalCardBalanceDTO;
 import com.example.bankcards.dto.payload.UserDTO;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.Role;
 import com.example.bankcards.service.impl.UserServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,7 +22,6 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 
@@ -115,20 +115,20 @@ class UserControllerImplTest {
     @Test
     @DisplayName("GET /api/v1/user/{userId}/total-balance → 200 OK + total balance")
     void getTotalBalance_Success() throws Exception {
-        CardBalanceDTO cbd = CardBalanceDTO.builder().balance(BigDecimal.valueOf(100)).cardId(1L).build();
+        CardBalanceDTO cbd = CardBalanceDTO.builder().balance(Money.of(100)).cardId(1L).build();
         TotalCardBalanceDTO total = TotalCardBalanceDTO.builder()
                 .userId(5L)
                 .cardBalances(List.of(cbd))
-                .totalBalance(BigDecimal.valueOf(100))
+                .totalBalance(Money.of(100))
                 .build();
         given(userServiceImpl.getTotalBalance(5L)).willReturn(total);
 
         mvc.perform(get("/api/v1/user/5/total-balance"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.userId").value(5))
-                .andExpect(jsonPath("$.data.totalBalance").value(100))
+                .andExpect(jsonPath("$.data.totalBalance").value(100.0))
                 .andExpect(jsonPath("$.data.cardBalances[0].cardId").value(1))
-                .andExpect(jsonPath("$.data.cardBalances[0].balance").value(100))
+                .andExpect(jsonPath("$.data.cardBalances[0].balance").value(100.0))
                 .andExpect(jsonPath("$.message").value("Общий баланс пользователя получен"));
     }
 }
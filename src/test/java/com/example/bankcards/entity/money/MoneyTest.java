@@ -0,0 +1,69 @@
+package com.example.bankcards.entity.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_BigDecimalWithoutRounding() {
+        assertThat(Money.of(new BigDecimal("10.5")).minorUnits()).isEqualTo(1050);
+        assertThat(Money.of(new BigDecimal("-0.01")).minorUnits()).isEqualTo(-1);
+        assertThat(Money.of(new BigDecimal("1E+2"))).isEqualTo(Money.of(100));
+        assertThat(Money.of((BigDecimal) null)).isNull();
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1E+30"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void arithmetic_OverflowChecked() {
+        assertThat(Money.of(100).minus(Money.parse("0.01"))).isEqualTo(Money.parse("99.99"));
+        assertThat(Money.of(5).plus(Money.of(5)).negate()).isEqualTo(Money.of(-10));
+        assertThat(Money.of(1).isLessThan(Money.of(2))).isTrue();
+
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(Long.MAX_VALUE)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void toString_MatchesBigDecimal() {
+        for (long minor : new long[]{0, 1, -1, 5, -99, 100, 12345, -12345, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertThat(Money.ofMinor(minor).toString())
+                    .isEqualTo(BigDecimal.valueOf(minor, Money.SCALE).toPlainString());
+            assertThat(Money.ofMinor(minor).toBigDecimal()).isEqualTo(BigDecimal.valueOf(minor, Money.SCALE));
+        }
+    }
+
+    @Test
+    void json_NumberWithTwoDecimals() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.parse("-7.5"))).isEqualTo("-7.50");
+        assertThat(objectMapper.readValue("12", Money.class)).isEqualTo(Money.of(12));
+        assertThat(objectMapper.readValue("12.34", Money.class)).isEqualTo(Money.parse("12.34"));
+        assertThat(objectMapper.readValue("\"0.10\"", Money.class)).isEqualTo(Money.ofMinor(10));
+
+        assertThatThrownBy(() -> objectMapper.readValue("1.005", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    void converter_RoundTripsNumeric() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.parse("100.50"))).isEqualTo(new BigDecimal("100.50"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("100.50"))).isEqualTo(Money.ofMinor(10050));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.TokenVersionServiceImpl;
+import com.example.bankcards.service.interfaces.TokenVersionService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MethodTimingAspectTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MethodTimingAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new MethodTimingAspect(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestProfile.end();
+    }
+
+    @Test
+    void serviceMethod_RecordsTimerWithClassAndMethod() {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(3L));
+        TokenVersionService service = proxy(new TokenVersionServiceImpl(userRepository, Duration.ofSeconds(30), 10));
+
+        assertThat(service.isCurrent(7L, 3L)).isTrue();
+
+        Timer timer = meterRegistry.get(MethodTimingAspect.SERVICE_TIMER)
+                .tags("class", "TokenVersionServiceImpl", "method", "isCurrent", "exception", "none")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void serviceMethod_Failure_TaggedWithExceptionAndRethrown() {
+        when(userRepository.findTokenVersionById(7L)).thenThrow(new IllegalStateException("db down"));
+        TokenVersionService service = proxy(new TokenVersionServiceImpl(userRepository, Duration.ofSeconds(30), 10));
+
+        assertThatThrownBy(() -> service.isCurrent(7L, 3L)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get(MethodTimingAspect.SERVICE_TIMER)
+                .tags("method", "isCurrent", "exception", "IllegalStateException")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void passwordEncoder_RecordedAsSecurity() {
+        PasswordEncoder encoder = proxy(new BCryptPasswordEncoder(4));
+
+        String hash = encoder.encode("secret");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+
+        assertThat(meterRegistry.get(MethodTimingAspect.SECURITY_TIMER)
+                .tags("class", "BCryptPasswordEncoder", "method", "matches")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.find(MethodTimingAspect.SERVICE_TIMER).timers()).isEmpty();
+    }
+
+    @Test
+    void insideRequest_AddsSpansToProfile() {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(3L));
+        TokenVersionService service = proxy(new TokenVersionServiceImpl(userRepository, Duration.ofSeconds(30), 10));
+        PasswordEncoder encoder = proxy(new BCryptPasswordEncoder(4));
+        RequestProfile profile = RequestProfile.begin(10);
+
+        service.isCurrent(7L, 3L);
+        encoder.encode("secret");
+
+        assertThat(profile.spans())
+                .extracting(RequestProfile.Span::layer, RequestProfile.Span::name, RequestProfile.Span::failed)
+                .containsExactly(
+                        tuple("service", "TokenVersionServiceImpl.isCurrent", false),
+                        tuple("security", "BCryptPasswordEncoder.encode", false));
+    }
+
+    @Test
+    void outsideRequest_NoProfile() {
+        PasswordEncoder encoder = proxy(new BCryptPasswordEncoder(4));
+
+        encoder.encode("secret");
+
+        assertThat(RequestProfile.current()).isNull();
+        assertThat(meterRegistry.find(MethodTimingAspect.SECURITY_TIMER).timers()).hasSize(1);
+    }
+
+    private <T> T proxy(Object target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
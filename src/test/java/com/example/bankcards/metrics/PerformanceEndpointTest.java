@@ -0,0 +1,126 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.config.RequestMetricsProperties;
+import com.example.bankcards.metrics.PerformanceEndpoint.SqlSummary;
+import com.example.bankcards.metrics.PerformanceEndpoint.TimerSummary;
+import com.example.bankcards.metrics.SlowRequestRecorder.SlowRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PerformanceEndpointTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowRequestRecorder recorder;
+    private PerformanceEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        RequestMetricsProperties properties = new RequestMetricsProperties();
+        properties.setSlowThreshold(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new SlowRequestRecorder(properties);
+        endpoint = new PerformanceEndpoint(meterRegistry, recorder);
+    }
+
+    @Test
+    void services_MergesExceptionTagsAndSortsByTotalTime() {
+        record(MethodTimingAspect.SERVICE_TIMER, "CardServiceImpl", "create", "none", 10, 30);
+        record(MethodTimingAspect.SERVICE_TIMER, "CardServiceImpl", "create", "CardNumberConflictException", 50);
+        record(MethodTimingAspect.SERVICE_TIMER, "TransferServiceImpl", "getAll", "none", 100);
+
+        @SuppressWarnings("unchecked")
+        List<TimerSummary> services = (List<TimerSummary>) endpoint.section("services");
+
+        assertThat(services).extracting(TimerSummary::name)
+                .containsExactly("TransferServiceImpl.getAll", "CardServiceImpl.create");
+        TimerSummary create = services.get(1);
+        assertThat(create.count()).isEqualTo(3);
+        assertThat(create.totalMs()).isCloseTo(90, within(0.001));
+        assertThat(create.meanMs()).isCloseTo(30, within(0.001));
+        assertThat(create.maxMs()).isCloseTo(50, within(0.001));
+    }
+
+    @Test
+    void sql_JoinsStatementsAndDurationByUri() {
+        DistributionSummary statements = DistributionSummary.builder(RequestMetricsFilter.SQL_STATEMENTS)
+                .tags("method", "GET", "uri", "/api/v1/card/all")
+                .register(meterRegistry);
+        statements.record(4);
+        statements.record(6);
+        Timer.builder(RequestMetricsFilter.SQL_DURATION)
+                .tags("method", "GET", "uri", "/api/v1/card/all")
+                .register(meterRegistry)
+                .record(Duration.ofMillis(8));
+        DistributionSummary.builder(RequestMetricsFilter.SQL_STATEMENTS)
+                .tags("method", "POST", "uri", "/api/v1/transfer/user/{userId}")
+                .register(meterRegistry)
+                .record(12);
+
+        @SuppressWarnings("unchecked")
+        List<SqlSummary> sql = (List<SqlSummary>) endpoint.section("sql");
+
+        assertThat(sql).extracting(SqlSummary::name)
+                .containsExactly("POST /api/v1/transfer/user/{userId}", "GET /api/v1/card/all");
+        SqlSummary cards = sql.get(1);
+        assertThat(cards.requests()).isEqualTo(2);
+        assertThat(cards.meanStatements()).isEqualTo(5);
+        assertThat(cards.maxStatements()).isEqualTo(6);
+        assertThat(cards.meanSqlMs()).isCloseTo(8, within(0.001));
+        assertThat(sql.get(0).meanSqlMs()).isZero();
+    }
+
+    @Test
+    void performance_ContainsAllSections() {
+        record(MethodTimingAspect.CONTROLLER_TIMER, "CardController", "getAll", "none", 5);
+        record(MethodTimingAspect.SECURITY_TIMER, "JwtComponent", "validateToken", "none", 1);
+        recorder.record(slowRequest(1_000_000));
+
+        Map<String, Object> performance = endpoint.performance();
+
+        assertThat(performance).containsOnlyKeys("controllers", "services", "security", "sql", "slowest");
+        assertThat((List<?>) performance.get("controllers")).hasSize(1);
+        assertThat((List<?>) performance.get("services")).isEmpty();
+        assertThat((List<?>) performance.get("security")).hasSize(1);
+        assertThat((List<?>) performance.get("slowest")).hasSize(1);
+    }
+
+    @Test
+    void section_Unknown_ReturnsNull() {
+        assertThat(endpoint.section("caches")).isNull();
+    }
+
+    @Test
+    void reset_ReturnsSlowestAndClearsThem() {
+        recorder.record(slowRequest(2_000_000));
+
+        List<SlowRequest> reset = endpoint.reset();
+
+        assertThat(reset).extracting(SlowRequest::durationNanos).containsExactly(2_000_000L);
+        assertThat((List<?>) endpoint.section("slowest")).isEmpty();
+    }
+
+    private void record(String timerName, String className, String method, String exception, long... millis) {
+        Timer timer = Timer.builder(timerName)
+                .tags("class", className, "method", method, "exception", exception)
+                .register(meterRegistry);
+        for (long ms : millis) {
+            timer.record(Duration.ofMillis(ms));
+        }
+    }
+
+    private static SlowRequest slowRequest(long durationNanos) {
+        return new SlowRequest(Instant.now(), "GET", "/api/v1/card/all", "/api/v1/card/all", 200,
+                durationNanos, 0, 0, List.of(), 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.config.RequestMetricsProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMetricsFilterTest {
+
+    private static final String PATTERN = "/api/v1/transfer/user/{userId}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowRequestRecorder recorder;
+    private RequestMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RequestMetricsProperties properties = new RequestMetricsProperties();
+        properties.setMaxSpans(1);
+        properties.setSlowThreshold(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new SlowRequestRecorder(properties);
+        filter = new RequestMetricsFilter(meterRegistry, recorder, properties);
+    }
+
+    @Test
+    void doFilter_RecordsSqlAndSpansOfRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/transfer/user/7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestSqlEventListener listener = new RequestSqlEventListener();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+            for (int i = 0; i < 3; i++) {
+                listener.jdbcPrepareStatementStart();
+                listener.jdbcPrepareStatementEnd();
+                listener.jdbcExecuteStatementStart();
+                listener.jdbcExecuteStatementEnd();
+            }
+            RequestProfile.current().recordSpan("service", "TransferServiceImpl.transfer", 1_000, false);
+            RequestProfile.current().recordSpan("security", "JwtComponent.verify", 500, false);
+        });
+
+        DistributionSummary statements = meterRegistry.get(RequestMetricsFilter.SQL_STATEMENTS)
+                .tags("method", "POST", "uri", PATTERN)
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(3);
+
+        assertThat(recorder.slowest()).singleElement().satisfies(slow -> {
+            assertThat(slow.uri()).isEqualTo(PATTERN);
+            assertThat(slow.path()).isEqualTo("/api/v1/transfer/user/7");
+            assertThat(slow.sqlStatements()).isEqualTo(3);
+            assertThat(slow.spans()).extracting(RequestProfile.Span::name).containsExactly("TransferServiceImpl.transfer");
+            assertThat(slow.droppedSpans()).isEqualTo(1);
+        });
+        assertThat(RequestProfile.current()).isNull();
+    }
+}
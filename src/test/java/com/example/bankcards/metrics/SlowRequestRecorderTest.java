@@ -0,0 +1,58 @@
+package com.example.bankcards.metrics;
+
+import com.example.bankcards.config.RequestMetricsProperties;
+import com.example.bankcards.metrics.SlowRequestRecorder.SlowRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestRecorderTest {
+
+    @Test
+    void record_KeepsSlowestSortedDescending() {
+        SlowRequestRecorder recorder = recorder(3, Duration.ZERO);
+
+        for (long duration : new long[]{50, 10, 70, 30, 90, 20}) {
+            recorder.record(request(duration));
+        }
+
+        assertThat(recorder.slowest()).extracting(SlowRequest::durationNanos).containsExactly(90L, 70L, 50L);
+    }
+
+    @Test
+    void record_IgnoresRequestsBelowThreshold() {
+        SlowRequestRecorder recorder = recorder(10, Duration.ofNanos(100));
+
+        recorder.record(request(99));
+        recorder.record(request(150));
+
+        assertThat(recorder.slowest()).extracting(SlowRequest::durationNanos).containsExactly(150L);
+    }
+
+    @Test
+    void reset_ClearsListAndFloor() {
+        SlowRequestRecorder recorder = recorder(1, Duration.ZERO);
+        recorder.record(request(500));
+
+        recorder.reset();
+        recorder.record(request(5));
+
+        assertThat(recorder.slowest()).extracting(SlowRequest::durationNanos).containsExactly(5L);
+    }
+
+    private static SlowRequestRecorder recorder(int capacity, Duration threshold) {
+        RequestMetricsProperties properties = new RequestMetricsProperties();
+        properties.setSlowestCapacity(capacity);
+        properties.setSlowThreshold(threshold);
+        return new SlowRequestRecorder(properties);
+    }
+
+    private static SlowRequest request(long durationNanos) {
+        return new SlowRequest(Instant.now(), "GET", "/api/v1/card/all", "/api/v1/card/all", 200,
+                durationNanos, 0, 0, List.of(), 0);
+    }
+}
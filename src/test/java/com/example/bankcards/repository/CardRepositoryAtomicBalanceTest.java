@@ -0,0 +1,126 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Атомарные {@code UPDATE ... RETURNING} {@link CardRepository#withdrawIfActive} и
+ * {@link CardRepository#depositIfActive} на PostgreSQL: нативный SQL этих методов не выполняется на H2.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/migration/db.changelog-master.yaml",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfiguration.class)
+class CardRepositoryAtomicBalanceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private BankCard active;
+    private BankCard blocked;
+
+    @BeforeEach
+    void setUp() {
+        User owner = entityManager.persist(User.builder().username("atomic").password("atomic").build());
+        active = entityManager.persist(card(owner, "**** **** **** 1001", Status.ACTIVE));
+        blocked = entityManager.persist(card(owner, "**** **** **** 1002", Status.BLOCKED));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void withdrawIfActive_Success_ReturnsNewBalanceAndVersion() {
+        Optional<CardBalanceView> result = cardRepository.withdrawIfActive(active.getId(), new BigDecimal("30.25"));
+
+        assertThat(result).hasValueSatisfying(view -> {
+            assertThat(view.getId()).isEqualTo(active.getId());
+            assertThat(view.getBalance()).isEqualByComparingTo("69.75");
+            assertThat(view.getStatus()).isEqualTo(Status.ACTIVE);
+            assertThat(view.getCardNumber()).isEqualTo("**** **** **** 1001");
+            assertThat(view.getOwnerId()).isEqualTo(active.getOwner().getId());
+            assertThat(view.getVersion()).isEqualTo(active.getVersion() + 1);
+        });
+        assertThat(balanceOf(active)).isEqualByComparingTo("69.75");
+    }
+
+    @Test
+    void withdrawIfActive_InsufficientFunds_LeavesRowUntouched() {
+        Optional<CardBalanceView> result = cardRepository.withdrawIfActive(active.getId(), new BigDecimal("100.01"));
+
+        assertThat(result).isEmpty();
+        assertThat(balanceOf(active)).isEqualByComparingTo("100.00");
+        assertThat(entityManager.find(BankCard.class, active.getId()).getVersion()).isEqualTo(active.getVersion());
+    }
+
+    @Test
+    void withdrawIfActive_WholeBalance_Succeeds() {
+        assertThat(cardRepository.withdrawIfActive(active.getId(), new BigDecimal("100.00")))
+                .hasValueSatisfying(view -> assertThat(view.getBalance()).isEqualByComparingTo("0"));
+    }
+
+    @Test
+    void depositIfActive_Success_ReturnsNewBalance() {
+        Optional<CardBalanceView> result = cardRepository.depositIfActive(active.getId(), new BigDecimal("0.50"));
+
+        assertThat(result).hasValueSatisfying(view ->
+                assertThat(view.getBalance()).isEqualByComparingTo("100.50"));
+        assertThat(balanceOf(active)).isEqualByComparingTo("100.50");
+    }
+
+    @Test
+    void inactiveCard_NeitherWithdrawNorDeposit() {
+        assertThat(cardRepository.withdrawIfActive(blocked.getId(), BigDecimal.ONE)).isEmpty();
+        assertThat(cardRepository.depositIfActive(blocked.getId(), BigDecimal.ONE)).isEmpty();
+        assertThat(balanceOf(blocked)).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void nonPositiveAmount_LeavesRowUntouched() {
+        assertThat(cardRepository.depositIfActive(active.getId(), new BigDecimal("-50.00"))).isEmpty();
+        assertThat(cardRepository.depositIfActive(active.getId(), BigDecimal.ZERO)).isEmpty();
+        assertThat(cardRepository.withdrawIfActive(active.getId(), new BigDecimal("-50.00"))).isEmpty();
+        assertThat(balanceOf(active)).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void missingCard_ReturnsEmpty() {
+        assertThat(cardRepository.withdrawIfActive(-1L, BigDecimal.ONE)).isEmpty();
+        assertThat(cardRepository.depositIfActive(-1L, BigDecimal.ONE)).isEmpty();
+    }
+
+    private BigDecimal balanceOf(BankCard card) {
+        entityManager.clear();
+        return entityManager.find(BankCard.class, card.getId()).getBalance().toBigDecimal();
+    }
+
+    private static BankCard card(User owner, String number, Status status) {
+        return BankCard.builder()
+                .owner(owner)
+                .cardNumber(number)
+                .status(status)
+                .balance(Money.of(100))
+                .build();
+    }
+}
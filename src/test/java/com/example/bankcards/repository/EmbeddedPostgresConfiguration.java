@@ -0,0 +1,30 @@
+package com.example.bankcards.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * Встроенный PostgreSQL для тестов репозиториев, зависящих от диалекта: нативных запросов
+ * и планов {@code EXPLAIN}. Схема создаётся миграциями Liquibase, как в рабочей базе.
+ * <p>
+ * Подключается через {@code @Import} вместе с
+ * {@code @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)}.
+ * </p>
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfiguration {
+
+    @Bean(destroyMethod = "close")
+    EmbeddedPostgres embeddedPostgres() throws IOException {
+        return EmbeddedPostgres.builder().start();
+    }
+
+    @Bean
+    DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+        return embeddedPostgres.getPostgresDatabase();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.bankcards.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Индексы, создаваемые миграциями Liquibase, и их использование запросами репозиториев на PostgreSQL.
+ * <p>
+ * Миграции применяются к встроенному PostgreSQL. SQL, который Hibernate генерирует для метода репозитория,
+ * перехватывается {@link CapturingStatementInspector} и разбирается {@code EXPLAIN} в виде обобщённого плана
+ * подготовленного выражения ({@code plan_cache_mode = force_generic_plan}) — так выполняются запросы
+ * с параметрами в рабочем приложении. Таблицы в тесте пустые, поэтому последовательное чтение отключено
+ * ({@code enable_seqscan = off}): план читает таблицу целиком, только если подходящего индекса нет.
+ * </p>
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/migration/db.changelog-master.yaml",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.bankcards.repository.RepositoryIndexUsageTest$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfiguration.class)
+class RepositoryIndexUsageTest {
+
+    private static final Instant POSITION = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardRequestRepository cardRequestRepository;
+
+    @Autowired
+    private CardPanVaultRepository cardPanVaultRepository;
+
+    @BeforeEach
+    void setUp() {
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void migrationsCreateCompositeIndexes() {
+        assertThat(indexDefinition("idx_bank_card_owner_id_id")).endsWith("(owner_id, id)");
+        assertThat(indexDefinition("idx_transfers_initiator_created_at_id"))
+                .endsWith("(initiator_user_id, created_at DESC, id DESC)");
+        assertThat(indexDefinition("idx_transfers_created_at_id")).endsWith("(created_at DESC, id DESC)");
+        assertThat(indexDefinition("idx_transfers_from_card_id")).endsWith("(from_card_id)");
+        assertThat(indexDefinition("idx_transfers_to_card_id")).endsWith("(to_card_id)");
+        assertThat(indexDefinition("idx_block_requests_initiator_id_id")).endsWith("(initiator_id, id)");
+    }
+
+    @Test
+    void cardRepositoryQueriesUseIndex() {
+        assertUsesIndex(explain(() -> cardRepository.findAllByOwnerId(PageRequest.of(0, 10), 1L)),
+                "idx_bank_card_owner_id_id");
+        assertUsesIndex(explain(() -> cardRepository.findAllByOwnerId(1L)), "idx_bank_card_owner_id_id");
+        assertUsesIndex(explain(() -> cardRepository.existsByIdAndOwnerId(5L, 1L)));
+        assertUsesIndex(explain(() -> cardRepository.findAllByOwnerIdAndId(1L, 5L)));
+    }
+
+    @Test
+    void transferRepositoryQueriesUseIndex() {
+        assertUsesIndex(explain(() -> transferRepository.findAllByInitiatorId(1L, PageRequest.of(0, 20))),
+                "idx_transfers_initiator_created_at_id");
+        assertUsesIndex(explain(() -> transferRepository.countByInitiatorId(1L)),
+                "idx_transfers_initiator_created_at_id");
+        assertUsesIndex(explain(() -> transferRepository.findFirstKeysetPageByInitiatorId(1L, PageRequest.ofSize(21))),
+                "idx_transfers_initiator_created_at_id");
+        assertUsesIndex(explain(() -> transferRepository.findKeysetPageByInitiatorIdAfter(
+                1L, POSITION, 100L, PageRequest.ofSize(21))), "idx_transfers_initiator_created_at_id");
+        assertUsesIndex(explain(() -> transferRepository.findFirstKeysetPage(PageRequest.ofSize(21))),
+                "idx_transfers_created_at_id");
+        assertUsesIndex(explain(() -> transferRepository.findKeysetPageAfter(POSITION, 100L, PageRequest.ofSize(21))),
+                "idx_transfers_created_at_id");
+    }
+
+    @Test
+    void keysetRowComparison_IsIndexCondition() {
+        String plan = explain(() -> transferRepository.findKeysetPageAfter(POSITION, 100L, PageRequest.ofSize(21)));
+
+        assertThat(plan).as(plan).containsPattern("Index Cond: \\(ROW\\(.*created_at.*id\\) < ROW\\(");
+    }
+
+    @Test
+    void foreignKeyChecksOnCardDeleteUseIndex() {
+        // Запросы, которыми PostgreSQL проверяет ссылки из transfers при удалении карты
+        assertUsesIndex(explainGeneric("SELECT 1 FROM ONLY transfers x WHERE $1 = from_card_id FOR KEY SHARE OF x", 1),
+                "idx_transfers_from_card_id");
+        assertUsesIndex(explainGeneric("SELECT 1 FROM ONLY transfers x WHERE $1 = to_card_id FOR KEY SHARE OF x", 1),
+                "idx_transfers_to_card_id");
+    }
+
+    @Test
+    void cardRequestRepositoryQueriesUseIndex() {
+        assertUsesIndex(explain(() -> cardRequestRepository.findAllByInitiatorId(1L, PageRequest.of(0, 10))),
+                "idx_block_requests_initiator_id_id");
+        assertUsesIndex(explain(() -> cardRequestRepository.findByIdAndInitiator_Id(5L, 1L)));
+        assertUsesIndex(explain(() -> cardRequestRepository.existsCardRequestByIdAndInitiator_Id(5L, 1L)));
+    }
+
+    @Test
+    void cardPanVaultRepositoryQueriesUseIndex() {
+        assertUsesIndex(explain(() -> cardPanVaultRepository.existsByPanIndex("abc")),
+                "uq_card_pan_vault_pan_index");
+        assertUsesIndex(explain(() -> cardPanVaultRepository.findCardByPanIndex("abc")),
+                "uq_card_pan_vault_pan_index");
+        assertUsesIndex(explain(() -> cardPanVaultRepository.findExistingPanIndexes(List.of("abc", "def"))),
+                "uq_card_pan_vault_pan_index");
+    }
+
+    private static void assertUsesIndex(String plan) {
+        assertThat(plan).as(plan).doesNotContain("Seq Scan").containsPattern("Index (Only )?Scan|Bitmap Index Scan");
+    }
+
+    private static void assertUsesIndex(String plan, String indexName) {
+        assertUsesIndex(plan);
+        assertThat(plan).as(plan).contains(indexName);
+    }
+
+    /**
+     * Выполняет вызов репозитория и возвращает обобщённый план первого выполненного им {@code SELECT}.
+     */
+    private String explain(Runnable repositoryCall) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        repositoryCall.run();
+        String sql = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.stripLeading().toLowerCase(Locale.ROOT).startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Вызов репозитория не выполнил SELECT"));
+        StringBuilder numbered = new StringBuilder(sql.length());
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameters);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return explainGeneric(numbered.toString(), parameters);
+    }
+
+    /**
+     * Готовит выражение с параметрами {@code $1..$n} и возвращает его обобщённый план.
+     */
+    private String explainGeneric(String sql, int parameters) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_generic_plan");
+                statement.execute("SET enable_seqscan = off");
+                statement.execute("PREPARE index_usage AS " + sql);
+                try {
+                    String arguments = parameters == 0 ? "" : "(" + String.join(", ", nulls(parameters)) + ")";
+                    List<String> plan = new ArrayList<>();
+                    try (ResultSet rows = statement.executeQuery("EXPLAIN EXECUTE index_usage" + arguments)) {
+                        while (rows.next()) {
+                            plan.add(rows.getString(1));
+                        }
+                    }
+                    return sql + "\n" + String.join("\n", plan);
+                } finally {
+                    statement.execute("DEALLOCATE index_usage");
+                    statement.execute("RESET enable_seqscan");
+                    statement.execute("RESET plan_cache_mode");
+                }
+            }
+        });
+    }
+
+    private static List<String> nulls(int count) {
+        List<String> nulls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nulls.add("NULL");
+        }
+        return nulls;
+    }
+
+    private String indexDefinition(String indexName) {
+        return jdbcTemplate.queryForObject("select indexdef from pg_indexes where indexname = ?",
+                String.class, indexName);
+    }
+
+    /**
+     * Запоминает SQL, который Hibernate отправляет в базу.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
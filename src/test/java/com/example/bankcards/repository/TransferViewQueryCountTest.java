@@ -0,0 +1,108 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.mappers.BankCardMapperImpl;
+import com.example.bankcards.mappers.TransferMapper;
+import com.example.bankcards.mappers.TransferMapperImpl;
+import com.example.bankcards.repository.projection.TransferView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Количество SQL-запросов на страницу списка переводов: проекция {@link TransferView}
+ * читает переводы вместе с картами одним запросом, без отложенной загрузки карт.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({TransferMapperImpl.class, BankCardMapperImpl.class})
+class TransferViewQueryCountTest {
+
+    private static final int TRANSFERS = 6;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransferMapper transferMapper;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(User.builder().username("views").password("views").build());
+        for (int i = 0; i < TRANSFERS; i++) {
+            BankCard from = entityManager.persist(card(2 * i));
+            BankCard to = entityManager.persist(card(2 * i + 1));
+            Transfer transfer = new Transfer();
+            transfer.setInitiator(owner);
+            transfer.setFromCard(from);
+            transfer.setToCard(to);
+            transfer.setAmount(Money.of(10));
+            transfer.setStatus(TransferStatus.COMPLETED);
+            entityManager.persist(transfer);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfViews_OneSelectPlusCount() {
+        Page<TransferUserDto> page = transferRepository.findAllViewsByInitiatorId(owner.getId(), PageRequest.of(0, 5))
+                .map(transferMapper::toDto);
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getTotalElements()).isEqualTo(TRANSFERS);
+        assertThat(page.getContent()).allSatisfy(dto -> {
+            assertThat(dto.getFromCard().getCardId()).isNotNull();
+            assertThat(dto.getToCard().getOwnerId()).isEqualTo(owner.getId());
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keysetPage_SingleSelect() {
+        List<TransferView> views = transferRepository.findFirstKeysetPage(PageRequest.ofSize(TRANSFERS));
+        views.forEach(transferMapper::toDto);
+
+        assertThat(views).hasSize(TRANSFERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private BankCard card(int index) {
+        return BankCard.builder()
+                .owner(owner)
+                .cardNumber("**** **** **** " + (2000 + index))
+                .balance(Money.of(100))
+                .build();
+    }
+}
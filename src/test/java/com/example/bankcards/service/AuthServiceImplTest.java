@@ -8,7 +8,9 @@ import com.example.bankcards.exception.InvalidCredentialsException;
 import com.example.bankcards.exception.MissingCredentialsException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.JwtComponent;
+import com.example.bankcards.security.MyUserDetails;
 import com.example.bankcards.service.impl.AuthServiceImpl;
+import com.example.bankcards.service.interfaces.TokenVersionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +28,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -48,12 +51,18 @@ class AuthServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TokenVersionService tokenVersionService;
+
     @InjectMocks
     private AuthServiceImpl authServiceImpl;
 
     @Captor
     private ArgumentCaptor<User> userCaptor;
 
+    @Captor
+    private ArgumentCaptor<MyUserDetails> principalCaptor;
+
     private static final String USERNAME = "testuser";
     private static final String PASSWORD = "password";
     private static final String ENCODED_PASSWORD = "encodedPass";
@@ -64,6 +73,7 @@ class AuthServiceImplTest {
     void setUp() {
         lenient().when(passwordEncoder.encode(PASSWORD)).thenReturn(ENCODED_PASSWORD);
         lenient().when(jwtComponent.generateJwtToken(USERNAME)).thenReturn(TOKEN);
+        lenient().when(jwtComponent.generateJwtToken(any(MyUserDetails.class))).thenReturn(TOKEN);
         lenient().when(jwtComponent.extractExpiration(TOKEN)).thenReturn(EXPIRATION);
     }
 
@@ -80,6 +90,21 @@ class AuthServiceImplTest {
         assertThat(result.getExpirationDate()).isEqualTo(EXPIRATION);
     }
 
+    @Test
+    void login_EmbedsAuthenticatedPrincipal() {
+        LoginRequest request = new LoginRequest(USERNAME, PASSWORD);
+        MyUserDetails principal = new MyUserDetails(User.builder().id(7L).username(USERNAME).build());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+        when(jwtComponent.generateJwtToken(principal)).thenReturn(TOKEN);
+
+        JwtDTO result = authServiceImpl.login(request);
+
+        verify(jwtComponent).generateJwtToken(principal);
+        verify(jwtComponent, never()).generateJwtToken(USERNAME);
+        assertThat(result.getToken()).isEqualTo(TOKEN);
+    }
+
     @Test
     void login_InvalidCredentials() {
         LoginRequest request = new LoginRequest(USERNAME, PASSWORD);
@@ -88,7 +113,8 @@ class AuthServiceImplTest {
         assertThatThrownBy(() -> authServiceImpl.login(request))
                 .isInstanceOf(InvalidCredentialsException.class)
                 .hasMessage("Неверные логин или пароль");
-        verify(jwtComponent, org.mockito.Mockito.never()).generateJwtToken(any());
+        verify(jwtComponent, org.mockito.Mockito.never()).generateJwtToken(any(String.class));
+        verify(jwtComponent, org.mockito.Mockito.never()).generateJwtToken(any(MyUserDetails.class));
     }
 
     @Test
@@ -109,9 +135,29 @@ class AuthServiceImplTest {
         assertThat(savedUser.getUsername()).isEqualTo(USERNAME);
         assertThat(savedUser.getPassword()).isEqualTo(ENCODED_PASSWORD);
         assertThat(savedUser.getBankCardList()).isEqualTo(Collections.emptyList());
-        verify(jwtComponent).generateJwtToken(USERNAME);
+        verify(jwtComponent).generateJwtToken(principalCaptor.capture());
+        assertThat(principalCaptor.getValue().getUsername()).isEqualTo(USERNAME);
         verify(jwtComponent).extractExpiration(TOKEN);
         assertThat(result.getToken()).isEqualTo(TOKEN);
         assertThat(result.getExpirationDate()).isEqualTo(EXPIRATION);
     }
+
+    @Test
+    void logout_RevokesIssuedTokens() {
+        when(userRepository.findByUsername(USERNAME))
+                .thenReturn(Optional.of(User.builder().id(7L).username(USERNAME).build()));
+
+        authServiceImpl.logout(USERNAME);
+
+        verify(tokenVersionService).revoke(7L);
+    }
+
+    @Test
+    void logout_UnknownUser() {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.empty());
+
+        authServiceImpl.logout(USERNAME);
+
+        verifyNoInteractions(tokenVersionService);
+    }
 }
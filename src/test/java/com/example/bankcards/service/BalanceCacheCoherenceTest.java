@@ -0,0 +1,113 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.dto.payload.CardBalanceDTO;
+import com.example.bankcards.dto.payload.TotalCardBalanceDTO;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.mappers.BankCardBalanceMapper;
+import com.example.bankcards.mappers.UserMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Проверяет, что кэш {@code balanceUser} обновляется после изменения балансов владельца
+ * и не сбрасывается изменениями чужих карт.
+ */
+@SpringJUnitConfig(BalanceCacheCoherenceTest.Config.class)
+class BalanceCacheCoherenceTest {
+
+    @Configuration
+    @EnableCaching(proxyTargetClass = true)
+    @Import({UserServiceImpl.class, CacheGenerations.class})
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private CardRepository cardRepository;
+
+    @MockitoBean
+    private UserMapper userMapper;
+
+    @MockitoBean
+    private BankCardBalanceMapper bankCardBalanceMapper;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private CacheGenerations cacheGenerations;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private BankCard card;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        User user = User.builder().id(1L).username("owner").build();
+        card = BankCard.builder().id(10L).owner(user).balance(Money.of(100)).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.findAllByOwnerId(1L)).thenReturn(List.of(card));
+        when(bankCardBalanceMapper.toDto(card)).thenAnswer(inv -> CardBalanceDTO.builder()
+                .cardId(card.getId())
+                .balance(card.getBalance())
+                .build());
+    }
+
+    @Test
+    void totalBalance_RefreshedAfterOwnerBalanceChange() {
+        assertThat(userService.getTotalBalance(1L).getTotalBalance()).isEqualTo(Money.of(100));
+
+        card.setBalance(Money.of(150));
+        assertThat(userService.getTotalBalance(1L).getTotalBalance()).isEqualTo(Money.of(100));
+
+        cacheGenerations.invalidate(CacheGenerations.CARDS, 1L);
+        TotalCardBalanceDTO refreshed = userService.getTotalBalance(1L);
+
+        assertThat(refreshed.getTotalBalance()).isEqualTo(Money.of(150));
+        verify(cardRepository, times(2)).findAllByOwnerId(1L);
+    }
+
+    @Test
+    void totalBalance_KeptWhenOtherOwnerChanges() {
+        userService.getTotalBalance(1L);
+
+        cacheGenerations.invalidate(CacheGenerations.CARDS, 2L);
+        userService.getTotalBalance(1L);
+
+        verify(cardRepository, times(1)).findAllByOwnerId(1L);
+    }
+}
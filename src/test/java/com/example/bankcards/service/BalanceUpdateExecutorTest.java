@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.BalanceConcurrencyProperties;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
+import com.example.bankcards.config.BalanceConcurrencyProperties.RetryPolicy;
+import com.example.bankcards.exception.ConcurrentBalanceUpdateException;
+import com.example.bankcards.service.impl.BalanceUpdateExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceUpdateExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BalanceConcurrencyProperties properties;
+    private MeterRegistry meterRegistry;
+    private BalanceUpdateExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BalanceConcurrencyProperties();
+        properties.setLockingMode(LockingMode.OPTIMISTIC);
+        RetryPolicy policy = new RetryPolicy();
+        policy.setMaxAttempts(3);
+        policy.setInitialBackoff(Duration.ofMillis(1));
+        policy.setMaxBackoff(Duration.ofMillis(2));
+        properties.getRetry().put("withdraw", policy);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new BalanceUpdateExecutor(transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void execute_RetriesOnConflictAndSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("withdraw", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("BankCard", 1L);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("card.balance.optimistic.conflicts", "operation", "withdraw").count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.counter("card.balance.optimistic.retries", "operation", "withdraw").count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void execute_ExhaustedAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("withdraw", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("BankCard", 1L);
+        })).isInstanceOf(ConcurrentBalanceUpdateException.class);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("card.balance.optimistic.exhausted", "operation", "withdraw").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void execute_UsesDefaultPolicyForUnknownOperation() {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy fallback = new RetryPolicy();
+        fallback.setMaxAttempts(1);
+        properties.getRetry().put(BalanceConcurrencyProperties.DEFAULT_POLICY, fallback);
+
+        assertThatThrownBy(() -> executor.execute("deposit", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("BankCard", 1L);
+        })).isInstanceOf(ConcurrentBalanceUpdateException.class);
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_PessimisticModeDoesNotRetry() {
+        properties.setLockingMode(LockingMode.PESSIMISTIC);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("withdraw", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("BankCard", 1L);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.requests.BatchTransferMode;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
+import com.example.bankcards.dto.requests.TransferUserRequest;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferBatchWriter;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.BatchTransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferEngineTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransferBatchWriter transferBatchWriter;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @InjectMocks
+    private BatchTransferEngine batchTransferEngine;
+
+    private BankCard first;
+    private BankCard second;
+    private BankCard blocked;
+    private BankCard foreign;
+
+    @BeforeEach
+    void setUp() {
+        first = card(1L, "100", Status.ACTIVE);
+        second = card(2L, "0", Status.ACTIVE);
+        blocked = card(3L, "50", Status.BLOCKED);
+        foreign = card(4L, "500", Status.ACTIVE);
+        foreign.setOwner(User.builder().id(8L).build());
+    }
+
+    @Test
+    void execute_BestEffort_AppliesValidTransfersOnly() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L, 3L))).thenReturn(List.of(first, second, blocked));
+        when(userRepository.getReferenceById(9L)).thenReturn(User.builder().id(9L).build());
+        assignIds();
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.BEST_EFFORT,
+                item(1L, 2L, "60"),
+                item(1L, 3L, "10"),
+                item(1L, 2L, "60"),
+                item(2L, 1L, "30")));
+
+        assertThat(result.isApplied()).isTrue();
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getItems().get(1).getError()).isEqualTo("Обе карты должны быть активированы для перевода");
+        assertThat(result.getItems().get(2).getError()).isEqualTo("Недостаточно средств на карте");
+        assertThat(result.getItems().get(0).getTransactionId()).isEqualTo(101L);
+        assertThat(result.getItems().get(3).getTransactionId()).isEqualTo(102L);
+        assertThat(first.getBalance()).isEqualTo(Money.of(70));
+        assertThat(second.getBalance()).isEqualTo(Money.of(30));
+        verify(cardRepository, times(1)).findAllByIdInForUpdate(any());
+    }
+
+    @Test
+    void execute_AllOrNothing_RejectsWholeBatch() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.ALL_OR_NOTHING,
+                item(1L, 2L, "60"),
+                item(1L, 2L, "60")));
+
+        assertThat(result.isApplied()).isFalse();
+        assertThat(result.getSucceeded()).isZero();
+        assertThat(result.getItems()).noneMatch(r -> r.isSuccess());
+        assertThat(first.getBalance()).isEqualTo(Money.of(100));
+        verifyNoInteractions(transferBatchWriter);
+    }
+
+    @Test
+    void execute_AllOrNothing_Success() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(userRepository.getReferenceById(9L)).thenReturn(User.builder().id(9L).build());
+        assignIds();
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.ALL_OR_NOTHING,
+                item(1L, 2L, "60"),
+                item(2L, 1L, "20")));
+
+        assertThat(result.isApplied()).isTrue();
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(first.getBalance()).isEqualTo(Money.of(60));
+        assertThat(second.getBalance()).isEqualTo(Money.of(40));
+        verify(transferBatchWriter).insertAll(anyList());
+    }
+
+    @Test
+    void execute_BestEffort_RejectsTransferFromAnotherUsersCard() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L, 4L))).thenReturn(List.of(first, second, foreign));
+        when(userRepository.getReferenceById(9L)).thenReturn(User.builder().id(9L).build());
+        assignIds();
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.BEST_EFFORT,
+                item(4L, 1L, "300"),
+                item(1L, 2L, "10")));
+
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getItems().get(0).isSuccess()).isFalse();
+        assertThat(result.getItems().get(0).getError()).isEqualTo("Пользователь не является владельцем карты");
+        assertThat(foreign.getBalance()).isEqualTo(Money.of(500));
+        assertThat(first.getBalance()).isEqualTo(Money.of(90));
+    }
+
+    @Test
+    void execute_AllOrNothing_RejectsTransferFromAnotherUsersCard() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L, 4L))).thenReturn(List.of(first, second, foreign));
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.ALL_OR_NOTHING,
+                item(1L, 2L, "10"),
+                item(4L, 1L, "300")));
+
+        assertThat(result.isApplied()).isFalse();
+        assertThat(result.getItems().get(1).getError()).isEqualTo("Пользователь не является владельцем карты");
+        assertThat(foreign.getBalance()).isEqualTo(Money.of(500));
+        assertThat(first.getBalance()).isEqualTo(Money.of(100));
+        verifyNoInteractions(transferBatchWriter);
+    }
+
+    @Test
+    void execute_MissingCard() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 7L))).thenReturn(List.of(first));
+
+        BatchTransferResultDTO result = batchTransferEngine.execute(9L, batch(BatchTransferMode.BEST_EFFORT,
+                item(1L, 7L, "10")));
+
+        assertThat(result.getItems().get(0).getError()).isEqualTo("Не найдена карта-получатель с ID = 7");
+        verifyNoInteractions(transferBatchWriter);
+    }
+
+    @Test
+    void execute_EmptyBatch() {
+        assertThatThrownBy(() -> batchTransferEngine.execute(9L, BatchTransferRequest.builder().transfers(List.of()).build()))
+                .isInstanceOf(InvalidTransferException.class);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assignIds() {
+        AtomicLong ids = new AtomicLong(100);
+        doAnswer(inv -> {
+            ((List<Transfer>) inv.getArgument(0)).forEach(t -> t.setId(ids.incrementAndGet()));
+            return null;
+        }).when(transferBatchWriter).insertAll(anyList());
+    }
+
+    private static BankCard card(Long id, String balance, Status status) {
+        BankCard card = new BankCard();
+        card.setId(id);
+        card.setBalance(Money.parse(balance));
+        card.setStatus(status);
+        card.setOwner(User.builder().id(9L).build());
+        return card;
+    }
+
+    private static TransferUserRequest item(Long from, Long to, String amount) {
+        return TransferUserRequest.builder().fromCardId(from).toCardId(to).amount(new BigDecimal(amount)).build();
+    }
+
+    private static BatchTransferRequest batch(BatchTransferMode mode, TransferUserRequest... items) {
+        return BatchTransferRequest.builder().mode(mode).transfers(List.of(items)).build();
+    }
+}
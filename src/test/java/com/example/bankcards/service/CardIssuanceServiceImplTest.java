@@ -0,0 +1,210 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.CardIssuanceProperties;
+import com.example.bankcards.dto.payload.BulkIssueJobDTO;
+import com.example.bankcards.dto.payload.BulkIssueStatus;
+import com.example.bankcards.dto.requests.BulkIssueRequest;
+import com.example.bankcards.exception.CardIssuanceLimitException;
+import com.example.bankcards.exception.InvalidCardIssuanceException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardBatchWriter;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.CardIssuanceServiceImpl;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.example.bankcards.service.CardNumberAssertions.luhnValid;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardIssuanceServiceImplTest {
+
+    private static final String CARD_KEY = "vOL6szZ0sHYzZJx5XZArG8VUla9viG0BXgiAo7Pooas=";
+    private static final String INDEX_KEY = "4fWWwVNkA0lGPOWBhhGzMPZ76vBaVNTqZhs83Z/MIbI=";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CardPanVaultRepository cardPanVaultRepository;
+
+    @Mock
+    private CardBatchWriter cardBatchWriter;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CardEncryptionUtil cardEncryptionUtil = new CardEncryptionUtil(CARD_KEY);
+    private final CardNumberBlindIndex cardNumberBlindIndex = new CardNumberBlindIndex(INDEX_KEY);
+    private final List<List<NewCard>> written = new ArrayList<>();
+
+    private CardIssuanceProperties properties;
+    private CardIssuanceServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CardIssuanceProperties();
+        properties.setChunkSize(1_000);
+        properties.setMaxCards(10_000);
+        properties.setParallelism(4);
+        properties.setMaxConcurrentJobs(2);
+        service = service(Runnable::run);
+        lenient().doAnswer(inv -> written.add(new ArrayList<>(inv.getArgument(2))))
+                .when(cardBatchWriter).insertAll(eq(1L), any(), anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void start_IssuesAllCardsInCommittedChunks() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        BulkIssueJobDTO started = service.start(new BulkIssueRequest(1L, 2_500));
+        BulkIssueJobDTO job = service.getJob(started.getJobId());
+
+        assertThat(written).extracting(List::size).containsExactly(1_000, 1_000, 500);
+        assertThat(job.getStatus()).isEqualTo(BulkIssueStatus.COMPLETED);
+        assertThat(job.getIssued()).isEqualTo(2_500);
+        assertThat(job.getFinishedAt()).isNotNull();
+        List<NewCard> cards = written.stream().flatMap(List::stream).toList();
+        assertThat(cards).extracting(NewCard::panIndex).doesNotHaveDuplicates();
+        assertThat(cards).allSatisfy(card -> {
+            String raw = cardEncryptionUtil.decrypt(card.panCiphertext());
+            assertThat(raw).matches("\\d{16}");
+            assertThat(luhnValid(raw)).isTrue();
+            assertThat(card.maskedNumber()).isEqualTo("**** **** **** " + raw.substring(12));
+            assertThat(card.panIndex()).isEqualTo(cardNumberBlindIndex.index(raw));
+        });
+        verify(transactionManager, times(3)).commit(any());
+        verify(cacheGenerations, times(3)).invalidate(CacheGenerations.CARDS, 1L);
+    }
+
+    @Test
+    void start_NumberAlreadyInVault_IsReplaced() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        Set<String> taken = new HashSet<>();
+        when(cardPanVaultRepository.findExistingPanIndexes(anyCollection())).thenAnswer(inv -> {
+            String first = ((Collection<String>) inv.getArgument(0)).iterator().next();
+            taken.add(first);
+            return Set.of(first);
+        });
+
+        service.start(new BulkIssueRequest(1L, 10));
+
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).hasSize(10)
+                .extracting(NewCard::panIndex).doesNotContainAnyElementsOf(taken);
+        verify(cardPanVaultRepository).existsByPanIndex(anyString());
+    }
+
+    @Test
+    void start_WriteFails_KeepsCommittedChunks() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        doAnswer(inv -> written.add(inv.getArgument(2)))
+                .doThrow(new IllegalStateException("duplicate key"))
+                .when(cardBatchWriter).insertAll(eq(1L), any(), anyList());
+
+        BulkIssueJobDTO job = service.getJob(service.start(new BulkIssueRequest(1L, 2_500)).getJobId());
+
+        assertThat(job.getStatus()).isEqualTo(BulkIssueStatus.FAILED);
+        assertThat(job.getIssued()).isEqualTo(1_000);
+        assertThat(job.getError()).isEqualTo("duplicate key");
+    }
+
+    @Test
+    void start_InvalidCount_Throws() {
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 0)))
+                .isInstanceOf(InvalidCardIssuanceException.class);
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 10_001)))
+                .isInstanceOf(InvalidCardIssuanceException.class);
+        verifyNoInteractions(cardBatchWriter);
+    }
+
+    @Test
+    void start_UnknownOwner_Throws() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 10)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void start_ConcurrentJobLimitReached_RejectsUntilJobFinishes() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        List<Runnable> queued = new ArrayList<>();
+        service.destroy();
+        service = service(queued::add);
+
+        service.start(new BulkIssueRequest(1L, 10));
+        service.start(new BulkIssueRequest(1L, 10));
+
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 10)))
+                .isInstanceOf(CardIssuanceLimitException.class);
+        assertThat(queued).hasSize(2);
+
+        queued.get(0).run();
+        BulkIssueJobDTO next = service.start(new BulkIssueRequest(1L, 10));
+
+        assertThat(next.getStatus()).isEqualTo(BulkIssueStatus.RUNNING);
+        assertThat(queued).hasSize(3);
+    }
+
+    @Test
+    void start_ExecutorRejects_ReleasesSlot() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        properties.setMaxConcurrentJobs(1);
+        service.destroy();
+        service = service(task -> {
+            throw new TaskRejectedException("queue full");
+        });
+
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 10)))
+                .isInstanceOf(CardIssuanceLimitException.class);
+        assertThatThrownBy(() -> service.start(new BulkIssueRequest(1L, 10)))
+                .isInstanceOf(CardIssuanceLimitException.class)
+                .hasMessageContaining("Не удалось запустить");
+    }
+
+    @Test
+    void getJob_Unknown_Throws() {
+        assertThatThrownBy(() -> service.getJob(UUID.randomUUID()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private CardIssuanceServiceImpl service(TaskExecutor executor) {
+        return new CardIssuanceServiceImpl(userRepository, cardPanVaultRepository, cardBatchWriter,
+                cardEncryptionUtil, cardNumberBlindIndex, cacheGenerations, properties, transactionManager,
+                executor);
+    }
+}
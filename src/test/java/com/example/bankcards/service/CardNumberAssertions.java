@@ -0,0 +1,26 @@
+package com.example.bankcards.service;
+
+/**
+ * Проверки номеров карт, общие для тестов выпуска.
+ */
+final class CardNumberAssertions {
+
+    private CardNumberAssertions() {
+    }
+
+    /**
+     * Сходится ли контрольная сумма номера по алгоритму Луна.
+     */
+    static boolean luhnValid(String number) {
+        int sum = 0;
+        for (int i = 0; i < number.length(); i++) {
+            int d = number.charAt(number.length() - 1 - i) - '0';
+            if (i % 2 == 1) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+        }
+        return sum % 10 == 0;
+    }
+}
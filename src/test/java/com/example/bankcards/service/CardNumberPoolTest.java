@@ -0,0 +1,171 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CardNumberPoolProperties;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.service.impl.CardNumberPool;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.bankcards.service.CardNumberAssertions.luhnValid;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberPoolTest {
+
+    private static final String CARD_KEY = "vOL6szZ0sHYzZJx5XZArG8VUla9viG0BXgiAo7Pooas=";
+    private static final String INDEX_KEY = "4fWWwVNkA0lGPOWBhhGzMPZ76vBaVNTqZhs83Z/MIbI=";
+
+    @Mock
+    private CardPanVaultRepository cardPanVaultRepository;
+
+    private final CardEncryptionUtil cardEncryptionUtil = new CardEncryptionUtil(CARD_KEY);
+    private final CardNumberBlindIndex cardNumberBlindIndex = new CardNumberBlindIndex(INDEX_KEY);
+
+    private CardNumberPoolProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CardNumberPoolProperties();
+        properties.setCapacity(10);
+        properties.setLowWaterMark(3);
+        properties.setRefillBatch(4);
+        properties.setBinPrefixes(List.of("400000", "5100"));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void take_ReturnsPreparedNumberFromPool() {
+        CardNumberPool pool = pool(Runnable::run);
+        pool.prefill();
+
+        NewCard card = pool.take();
+
+        String raw = cardEncryptionUtil.decrypt(card.panCiphertext());
+        assertThat(raw).matches("(400000|5100)\\d+").hasSize(16);
+        assertThat(luhnValid(raw)).isTrue();
+        assertThat(card.maskedNumber()).isEqualTo("**** **** **** " + raw.substring(12));
+        assertThat(card.panIndex()).isEqualTo(cardNumberBlindIndex.index(raw));
+        assertThat(pool.depth()).isEqualTo(9);
+        verify(cardPanVaultRepository, times(3)).findExistingPanIndexes(anyCollection());
+        assertThat(meterRegistry.get("card.number.pool.depth").gauge().value()).isEqualTo(9);
+    }
+
+    @Test
+    void take_DownToLowWaterMark_RefillsToCapacity() {
+        CardNumberPool pool = pool(Runnable::run);
+        pool.prefill();
+        Set<String> indexes = new HashSet<>();
+
+        for (int i = 0; i < 7; i++) {
+            indexes.add(pool.take().panIndex());
+        }
+
+        assertThat(indexes).hasSize(7);
+        assertThat(pool.depth()).isEqualTo(10);
+        assertThat(meterRegistry.get("card.number.pool.refill").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("card.number.pool.misses").counter().count()).isZero();
+    }
+
+    @Test
+    void refill_DropsIssuedNumbers() {
+        when(cardPanVaultRepository.findExistingPanIndexes(anyCollection()))
+                .thenAnswer(inv -> Set.of(((Collection<String>) inv.getArgument(0)).iterator().next()))
+                .thenReturn(Set.of());
+        CardNumberPool pool = pool(Runnable::run);
+
+        pool.prefill();
+
+        assertThat(pool.depth()).isEqualTo(10);
+        assertThat(meterRegistry.get("card.number.pool.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void refill_AllNumbersIssued_Stops() {
+        when(cardPanVaultRepository.findExistingPanIndexes(anyCollection()))
+                .thenAnswer(inv -> new HashSet<>(inv.<Collection<String>>getArgument(0)));
+        CardNumberPool pool = pool(Runnable::run);
+
+        pool.prefill();
+
+        assertThat(pool.depth()).isZero();
+        verify(cardPanVaultRepository).findExistingPanIndexes(anyCollection());
+    }
+
+    @Test
+    void take_EmptyPool_PreparesNumberInRequest() {
+        CardNumberPool pool = pool(task -> {
+        });
+
+        NewCard card = pool.take();
+
+        assertThat(cardEncryptionUtil.decrypt(card.panCiphertext())).matches("(400000|5100)\\d+").hasSize(16);
+        assertThat(pool.depth()).isZero();
+        assertThat(meterRegistry.get("card.number.pool.misses").counter().count()).isEqualTo(1);
+        verifyNoInteractions(cardPanVaultRepository);
+    }
+
+    @Test
+    void take_Disabled_DoesNotFillPool() {
+        properties.setEnabled(false);
+        CardNumberPool pool = pool(Runnable::run);
+        pool.prefill();
+
+        assertThat(pool.take().panIndex()).hasSize(CardNumberBlindIndex.LENGTH);
+        assertThat(pool.depth()).isZero();
+        verifyNoInteractions(cardPanVaultRepository);
+    }
+
+    @Test
+    void constructor_InvalidBin_Throws() {
+        properties.setBinPrefixes(List.of("40A0"));
+
+        assertThatThrownBy(() -> pool(Runnable::run)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void take_ActiveKeyChanged_DrainsAndRefillsPool() {
+        Set<String> checked = new HashSet<>();
+        when(cardPanVaultRepository.findExistingPanIndexes(anyCollection())).thenAnswer(inv -> {
+            checked.addAll(inv.getArgument(0));
+            return Set.of();
+        });
+        CardEncryptionUtil switching = spy(cardEncryptionUtil);
+        CardNumberPool pool = pool(switching, Runnable::run);
+        pool.prefill();
+        Set<String> pooled = Set.copyOf(checked);
+        doReturn(1).when(switching).activeKeyId();
+
+        NewCard card = pool.take();
+
+        assertThat(pooled).hasSize(10).doesNotContain(card.panIndex());
+        assertThat(pool.depth()).isEqualTo(10);
+        assertThat(cardEncryptionUtil.maskEncrypted(card.panCiphertext())).isEqualTo(card.maskedNumber());
+    }
+
+    private CardNumberPool pool(TaskExecutor executor) {
+        return pool(cardEncryptionUtil, executor);
+    }
+
+    private CardNumberPool pool(CardEncryptionUtil encryption, TaskExecutor executor) {
+        return new CardNumberPool(cardPanVaultRepository, encryption, cardNumberBlindIndex,
+                properties, meterRegistry, executor);
+    }
+}
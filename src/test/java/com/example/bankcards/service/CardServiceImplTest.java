@@ -1,42 +1,57 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
 import com.example.bankcards.dto.payload.BankCardDTO;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.dto.requests.CreateCardRequest;
 import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.CardPanVault;
 import com.example.bankcards.entity.bankcard.Status;
 import com.example.bankcards.entity.block.CardRequestStatus;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.User;
 import com.example.bankcards.exception.*;
 import com.example.bankcards.mappers.BankCardBalanceMapper;
 import com.example.bankcards.mappers.BankCardMapper;
+import com.example.bankcards.repository.CardBatchWriter.NewCard;
+import com.example.bankcards.repository.CardPanVaultRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardView;
+import com.example.bankcards.service.impl.BalanceUpdateExecutor;
+import com.example.bankcards.service.impl.CardNumberPool;
 import com.example.bankcards.service.impl.CardRequestServiceImpl;
 import com.example.bankcards.service.impl.CardServiceImpl;
 import com.example.bankcards.service.impl.UserServiceImpl;
-import com.example.bankcards.util.CardEncryptionUtil;
-import com.example.bankcards.util.CardNumberGenerator;
+import com.example.bankcards.util.CardNumberBlindIndex;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,7 +70,13 @@ class CardServiceImplTest {
     private BankCardBalanceMapper bankCardBalanceMapper;
 
     @Mock
-    private CardEncryptionUtil cardEncryptionUtil;
+    private CardPanVaultRepository cardPanVaultRepository;
+
+    @Mock
+    private CardNumberBlindIndex cardNumberBlindIndex;
+
+    @Mock
+    private CardNumberPool cardNumberPool;
 
     @Mock
     private UserServiceImpl userServiceImpl;
@@ -63,6 +84,15 @@ class CardServiceImplTest {
     @Mock
     private CardRequestServiceImpl cardRequestServiceImpl;
 
+    @Mock
+    private BalanceUpdateExecutor balanceUpdateExecutor;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Spy
     @InjectMocks
     private CardServiceImpl cardServiceImpl;
@@ -86,18 +116,103 @@ class CardServiceImplTest {
     void create_Success() {
         CreateCardRequest request = new CreateCardRequest();
         request.setOwnerId(1L);
-        try (MockedStatic<CardNumberGenerator> mockedStatic = mockStatic(CardNumberGenerator.class)) {
-            mockedStatic.when(CardNumberGenerator::generateCardNumber).thenReturn("1234 1234 1234 1234");
-            when(cardEncryptionUtil.encrypt("1234 1234 1234 1234")).thenReturn("enc");
-            when(cardEncryptionUtil.maskEncrypted("enc")).thenReturn("mask");
-            when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-            when(bankCardMapper.toDto(any())).thenReturn(cardDto);
+        when(cardNumberPool.take()).thenReturn(new NewCard("mask", "enc", "idx"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.save(any(BankCard.class))).thenReturn(card);
+        when(bankCardMapper.toDto(card)).thenReturn(cardDto);
+
+        BankCardDTO result = cardServiceImpl.create(request);
+
+        ArgumentCaptor<BankCard> saved = ArgumentCaptor.forClass(BankCard.class);
+        verify(cardRepository).save(saved.capture());
+        assertThat(saved.getValue().getCardNumber()).isEqualTo("mask");
+        assertThat(saved.getValue().getOwner()).isSameAs(user);
+        ArgumentCaptor<CardPanVault> vault = ArgumentCaptor.forClass(CardPanVault.class);
+        verify(cardPanVaultRepository).saveAndFlush(vault.capture());
+        assertThat(vault.getValue().getCard()).isSameAs(card);
+        assertThat(vault.getValue().getPanCiphertext()).isEqualTo("enc");
+        assertThat(vault.getValue().getPanIndex()).isEqualTo("idx");
+        verify(cardPanVaultRepository, never()).existsByPanIndex(anyString());
+        verify(cacheGenerations).invalidate(CacheGenerations.CARDS, 1L);
+        assertThat(result).isEqualTo(cardDto);
+    }
+
+    @Test
+    void create_NumberIssuedConcurrently_RetriesWithNextPoolNumber() {
+        CreateCardRequest request = new CreateCardRequest();
+        request.setOwnerId(1L);
+        when(cardNumberPool.take())
+                .thenReturn(new NewCard("mask", "enc", "taken"))
+                .thenReturn(new NewCard("mask2", "enc2", "free"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.save(any(BankCard.class))).thenReturn(card);
+        when(cardPanVaultRepository.saveAndFlush(any(CardPanVault.class)))
+                .thenThrow(violation(CardPanVault.PAN_INDEX_CONSTRAINT))
+                .thenAnswer(inv -> inv.getArgument(0));
+        when(bankCardMapper.toDto(card)).thenReturn(cardDto);
+
+        assertThat(cardServiceImpl.create(request)).isEqualTo(cardDto);
+
+        ArgumentCaptor<CardPanVault> vault = ArgumentCaptor.forClass(CardPanVault.class);
+        verify(cardPanVaultRepository, times(2)).saveAndFlush(vault.capture());
+        assertThat(vault.getAllValues()).extracting(CardPanVault::getPanIndex).containsExactly("taken", "free");
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(cacheGenerations).invalidate(CacheGenerations.CARDS, 1L);
+    }
+
+    @Test
+    void create_NumberIssuedConcurrently_AttemptsExhausted_ThrowsConflict() {
+        CreateCardRequest request = new CreateCardRequest();
+        request.setOwnerId(1L);
+        when(cardNumberPool.take()).thenReturn(new NewCard("mask", "enc", "taken"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.save(any(BankCard.class))).thenReturn(card);
+        when(cardPanVaultRepository.saveAndFlush(any(CardPanVault.class)))
+                .thenThrow(violation(CardPanVault.PAN_INDEX_CONSTRAINT));
+
+        assertThatThrownBy(() -> cardServiceImpl.create(request))
+                .isInstanceOf(CardNumberConflictException.class);
+        verify(cardNumberPool, times(5)).take();
+        verifyNoInteractions(cacheGenerations);
+    }
+
+    @Test
+    void create_OtherIntegrityViolation_Propagates() {
+        CreateCardRequest request = new CreateCardRequest();
+        request.setOwnerId(1L);
+        when(cardNumberPool.take()).thenReturn(new NewCard("mask", "enc", "idx"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardRepository.save(any(BankCard.class))).thenReturn(card);
+        DataIntegrityViolationException foreignKey = violation("fk_card_pan_vault_card");
+        when(cardPanVaultRepository.saveAndFlush(any(CardPanVault.class))).thenThrow(foreignKey);
+
+        assertThatThrownBy(() -> cardServiceImpl.create(request)).isSameAs(foreignKey);
+        verify(cardNumberPool).take();
+        verifyNoInteractions(cacheGenerations);
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraint));
+    }
+
+    @Test
+    void getByNumber_Success() {
+        when(cardNumberBlindIndex.index("1234 1234 1234 1234")).thenReturn("idx");
+        when(cardPanVaultRepository.findCardByPanIndex("idx")).thenReturn(Optional.of(card));
+        when(bankCardMapper.toDto(card)).thenReturn(cardDto);
 
-            BankCardDTO result = cardServiceImpl.create(request);
+        assertThat(cardServiceImpl.getByNumber("1234 1234 1234 1234")).isEqualTo(cardDto);
+    }
+
+    @Test
+    void getByNumber_NotFound() {
+        when(cardNumberBlindIndex.index("1234 1234 1234 1234")).thenReturn("idx");
+        when(cardPanVaultRepository.findCardByPanIndex("idx")).thenReturn(Optional.empty());
 
-            verify(cardRepository).save(any(BankCard.class));
-            assertThat(result).isEqualTo(cardDto);
-        }
+        assertThatThrownBy(() -> cardServiceImpl.getByNumber("1234 1234 1234 1234"))
+                .isInstanceOf(CardNotFoundException.class);
     }
 
     @Test
@@ -126,14 +241,15 @@ class CardServiceImplTest {
 
     @Test
     void delete_Success() {
-        when(cardRepository.existsById(2L)).thenReturn(true);
+        when(cardRepository.findOwnerIdById(2L)).thenReturn(Optional.of(1L));
         cardServiceImpl.delete(2L);
         verify(cardRepository).deleteById(2L);
+        verify(cacheGenerations).invalidate(CacheGenerations.CARDS, 1L);
     }
 
     @Test
     void delete_NotFound() {
-        when(cardRepository.existsById(2L)).thenReturn(false);
+        when(cardRepository.findOwnerIdById(2L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> cardServiceImpl.delete(2L))
                 .isInstanceOf(CardNotFoundException.class);
     }
@@ -158,16 +274,17 @@ class CardServiceImplTest {
 
     @Test
     void getAllCurrentUser_Page_Success() {
-        Page<BankCard> page = new PageImpl<>(List.of(card));
-        when(cardRepository.findAllByOwnerId(PageRequest.of(0, 5), 1L)).thenReturn(page);
-        when(bankCardMapper.toDto(card)).thenReturn(cardDto);
+        CardView view = mock(CardView.class);
+        Page<CardView> page = new PageImpl<>(List.of(view));
+        when(cardRepository.findAllViewsByOwnerId(1L, PageRequest.of(0, 5))).thenReturn(page);
+        when(bankCardMapper.toDto(view)).thenReturn(cardDto);
         Page<BankCardDTO> result = cardServiceImpl.getAllCurrentUser(0,5,1L);
         assertThat(result.getContent()).containsExactly(cardDto);
     }
 
     @Test
     void getAllCurrentUser_Page_Empty() {
-        when(cardRepository.findAllByOwnerId(PageRequest.of(0, 5), 1L)).thenReturn(Page.empty());
+        when(cardRepository.findAllViewsByOwnerId(1L, PageRequest.of(0, 5))).thenReturn(Page.empty());
         assertThatThrownBy(() -> cardServiceImpl.getAllCurrentUser(0,5,1L))
                 .isInstanceOf(CardNotFoundException.class);
     }
@@ -191,16 +308,17 @@ class CardServiceImplTest {
 
     @Test
     void getAll_Success() {
-        Page<BankCard> page = new PageImpl<>(List.of(card));
-        when(cardRepository.findAll(PageRequest.of(0,5))).thenReturn(page);
-        when(bankCardMapper.toDto(card)).thenReturn(cardDto);
+        CardView view = mock(CardView.class);
+        Page<CardView> page = new PageImpl<>(List.of(view));
+        when(cardRepository.findAllViews(PageRequest.of(0,5))).thenReturn(page);
+        when(bankCardMapper.toDto(view)).thenReturn(cardDto);
         Page<BankCardDTO> result = cardServiceImpl.getAll(0,5);
         assertThat(result.getContent()).containsExactly(cardDto);
     }
 
     @Test
     void getAll_Empty() {
-        when(cardRepository.findAll(PageRequest.of(0,5))).thenReturn(Page.empty());
+        when(cardRepository.findAllViews(PageRequest.of(0,5))).thenReturn(Page.empty());
         assertThatThrownBy(() -> cardServiceImpl.getAll(0,5))
                 .isInstanceOf(CardNotFoundException.class);
     }
@@ -228,8 +346,9 @@ class CardServiceImplTest {
 
     @Test
     void withdraw_Success() {
+        runBalanceUpdatesInline();
         card.setStatus(Status.ACTIVE);
-        card.setBalance(BigDecimal.valueOf(100));
+        card.setBalance(Money.of(100));
         when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
         when(cardRepository.save(card)).thenReturn(card);
         when(bankCardBalanceMapper.toDto(card)).thenReturn(balanceDto);
@@ -239,6 +358,7 @@ class CardServiceImplTest {
 
     @Test
     void withdraw_NotFound() {
+        runBalanceUpdatesInline();
         when(cardRepository.findById(2L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> cardServiceImpl.withdraw(2L, BigDecimal.ONE))
                 .isInstanceOf(CardNotFoundException.class);
@@ -246,6 +366,7 @@ class CardServiceImplTest {
 
     @Test
     void withdraw_NotActive() {
+        runBalanceUpdatesInline();
         card.setStatus(Status.BLOCKED);
         when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
         assertThatThrownBy(() -> cardServiceImpl.withdraw(2L, BigDecimal.ONE))
@@ -254,8 +375,9 @@ class CardServiceImplTest {
 
     @Test
     void withdraw_InsufficientFunds() {
+        runBalanceUpdatesInline();
         card.setStatus(Status.ACTIVE);
-        card.setBalance(BigDecimal.valueOf(10));
+        card.setBalance(Money.of(10));
         when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
         assertThatThrownBy(() -> cardServiceImpl.withdraw(2L, BigDecimal.valueOf(20)))
                 .isInstanceOf(InsufficientFundsException.class);
@@ -263,8 +385,9 @@ class CardServiceImplTest {
 
     @Test
     void deposit_Success() {
+        runBalanceUpdatesInline();
         card.setStatus(Status.ACTIVE);
-        card.setBalance(BigDecimal.valueOf(100));
+        card.setBalance(Money.of(100));
         when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
         when(cardRepository.save(card)).thenReturn(card);
         when(bankCardBalanceMapper.toDto(card)).thenReturn(balanceDto);
@@ -274,12 +397,85 @@ class CardServiceImplTest {
 
     @Test
     void deposit_NotActive() {
+        runBalanceUpdatesInline();
         card.setStatus(Status.BLOCKED);
         when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
         assertThatThrownBy(() -> cardServiceImpl.deposit(2L, BigDecimal.valueOf(50)))
                 .isInstanceOf(InactiveCardException.class);
     }
 
+    @Test
+    void deposit_NegativeAmount_Rejected() {
+        assertThatThrownBy(() -> cardServiceImpl.deposit(2L, new BigDecimal("-50.00")))
+                .isInstanceOf(InvalidAmountException.class);
+        verifyNoInteractions(balanceUpdateExecutor);
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void deposit_ZeroAmount_Rejected() {
+        assertThatThrownBy(() -> cardServiceImpl.deposit(2L, BigDecimal.ZERO))
+                .isInstanceOf(InvalidAmountException.class);
+        verifyNoInteractions(balanceUpdateExecutor);
+    }
+
+    @Test
+    void withdraw_NegativeAmount_Rejected() {
+        assertThatThrownBy(() -> cardServiceImpl.withdraw(2L, new BigDecimal("-50.00")))
+                .isInstanceOf(InvalidAmountException.class);
+        verifyNoInteractions(balanceUpdateExecutor);
+    }
+
+    @Test
+    void withdraw_PessimisticModeLocksRow() {
+        runBalanceUpdatesInline();
+        when(balanceUpdateExecutor.lockingMode()).thenReturn(LockingMode.PESSIMISTIC);
+        card.setStatus(Status.ACTIVE);
+        card.setBalance(Money.of(100));
+        when(cardRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(card));
+        when(cardRepository.save(card)).thenReturn(card);
+        when(bankCardBalanceMapper.toDto(card)).thenReturn(balanceDto);
+        cardServiceImpl.withdraw(2L, BigDecimal.valueOf(50));
+        verify(cardRepository, never()).findById(2L);
+        assertThat(card.getBalance()).isEqualTo(Money.of(50));
+    }
+
+    @Test
+    void withdraw_Atomic_Success() {
+        runBalanceUpdatesInline();
+        when(balanceUpdateExecutor.lockingMode()).thenReturn(LockingMode.ATOMIC);
+        CardBalanceView view = mock(CardBalanceView.class);
+        when(view.getOwnerId()).thenReturn(1L);
+        when(cardRepository.withdrawIfActive(2L, BigDecimal.TEN)).thenReturn(Optional.of(view));
+        when(bankCardBalanceMapper.toDto(view)).thenReturn(balanceDto);
+        CardBalanceDTO result = cardServiceImpl.withdraw(2L, BigDecimal.TEN);
+        assertThat(result).isEqualTo(balanceDto);
+        verify(cacheGenerations).invalidate(CacheGenerations.CARDS, 1L);
+        verify(cardRepository, never()).findById(any());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void withdraw_Atomic_InsufficientFunds() {
+        runBalanceUpdatesInline();
+        when(balanceUpdateExecutor.lockingMode()).thenReturn(LockingMode.ATOMIC);
+        card.setStatus(Status.ACTIVE);
+        when(cardRepository.withdrawIfActive(2L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(cardRepository.findById(2L)).thenReturn(Optional.of(card));
+        assertThatThrownBy(() -> cardServiceImpl.withdraw(2L, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    void deposit_Atomic_NotFound() {
+        runBalanceUpdatesInline();
+        when(balanceUpdateExecutor.lockingMode()).thenReturn(LockingMode.ATOMIC);
+        when(cardRepository.depositIfActive(2L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(2L)).thenReturn(false);
+        assertThatThrownBy(() -> cardServiceImpl.deposit(2L, BigDecimal.TEN))
+                .isInstanceOf(CardNotFoundException.class);
+    }
+
     @Test
     void getBalance_Success() {
         when(cardRepository.findAllByOwnerIdAndId(1L,2L))
@@ -302,4 +498,11 @@ class CardServiceImplTest {
         card.setStatus(Status.ACTIVE);
         assertThat(cardServiceImpl.isActivated(card)).isTrue();
     }
+
+    @SuppressWarnings("unchecked")
+    private void runBalanceUpdatesInline() {
+        lenient().when(balanceUpdateExecutor.lockingMode()).thenReturn(LockingMode.OPTIMISTIC);
+        when(balanceUpdateExecutor.execute(anyString(), any()))
+                .thenAnswer(inv -> ((Supplier<Object>) inv.getArgument(1)).get());
+    }
 }
@@ -0,0 +1,289 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.IdempotencyProperties;
+import com.example.bankcards.dto.requests.ReplenishRequest;
+import com.example.bankcards.dto.response.APIResponse;
+import com.example.bankcards.entity.idempotency.IdempotencyRecord;
+import com.example.bankcards.entity.idempotency.IdempotencyStatus;
+import com.example.bankcards.exception.IdempotencyConflictException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidIdempotencyKeyException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.service.impl.IdempotencyServiceImpl;
+import com.example.bankcards.service.interfaces.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    private static final String SCOPE = "replenish:card:1";
+    private static final String KEY = "key-1";
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IdempotencyService idempotencyService;
+    private ReplenishRequest request;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setWaitTimeout(Duration.ofSeconds(5));
+        idempotencyService = new IdempotencyServiceImpl(repository, objectMapper, properties);
+        request = ReplenishRequest.builder().amount(BigDecimal.TEN).build();
+    }
+
+    @Test
+    void execute_WithoutKey_RunsAction() {
+        ResponseEntity<APIResponse<String>> result = idempotencyService.execute(SCOPE, null, request, this::ok);
+
+        assertThat(result.getBody().getData()).isEqualTo("done");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void execute_TooLongKey() {
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, "k".repeat(129), request, this::ok))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    @Test
+    void execute_FirstCall_StoresResponse_ReplayServedFromCache() {
+        when(repository.claim(eq(SCOPE), eq(KEY), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        when(repository.complete(eq(SCOPE), eq(KEY), anyString(), any(), anyInt(), anyString())).thenReturn(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<APIResponse<String>> first = idempotencyService.execute(SCOPE, KEY, request, () -> {
+            executions.incrementAndGet();
+            return ok();
+        });
+        ResponseEntity<APIResponse<String>> replay = idempotencyService.execute(SCOPE, KEY, request, () -> {
+            executions.incrementAndGet();
+            return ok();
+        });
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(replay.getBody().getMessage()).isEqualTo("Баланс успешно пополнен");
+        assertThat(String.valueOf(replay.getBody().getData())).contains("done");
+        verify(repository, times(1)).claim(any(), any(), any(), any(), any(), any(), any());
+        verify(repository).complete(eq(SCOPE), eq(KEY), anyString(), eq(IdempotencyStatus.COMPLETED), eq(200), anyString());
+    }
+
+    @Test
+    void execute_SameKeyDifferentBody_Conflict() {
+        when(repository.claim(eq(SCOPE), eq(KEY), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        when(repository.complete(eq(SCOPE), eq(KEY), anyString(), any(), anyInt(), anyString())).thenReturn(1);
+        idempotencyService.execute(SCOPE, KEY, request, this::ok);
+
+        ReplenishRequest other = ReplenishRequest.builder().amount(BigDecimal.ONE).build();
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, KEY, other, this::ok))
+                .isInstanceOf(IdempotencyConflictException.class);
+    }
+
+    @Test
+    void execute_CompletedInDatabase_ReplaysWithoutExecuting() throws Exception {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), hash.capture(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findByScopeAndIdempotencyKey(SCOPE, KEY)).thenAnswer(inv -> Optional.of(IdempotencyRecord.builder()
+                .scope(SCOPE)
+                .idempotencyKey(KEY)
+                .requestHash(hash.getValue())
+                .status(IdempotencyStatus.COMPLETED)
+                .responseStatus(200)
+                .responseBody(objectMapper.writeValueAsString(Map.of(
+                        "success", true, "message", "Баланс успешно пополнен", "data", "done", "status", 200)))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+
+        ResponseEntity<APIResponse<String>> result = idempotencyService.execute(SCOPE, KEY, request, () -> {
+            throw new AssertionError("действие не должно выполняться повторно");
+        });
+
+        assertThat(result.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(String.valueOf(result.getBody().getData())).contains("done");
+    }
+
+    @Test
+    void execute_InProgressOnAnotherNode_Conflict() {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), hash.capture(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findByScopeAndIdempotencyKey(SCOPE, KEY)).thenAnswer(inv -> Optional.of(IdempotencyRecord.builder()
+                .requestHash(hash.getValue())
+                .status(IdempotencyStatus.IN_PROGRESS)
+                .leaseUntil(Instant.now().plusSeconds(60))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, KEY, request, this::ok))
+                .isInstanceOf(IdempotencyConflictException.class);
+        verify(repository, never()).takeOver(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void execute_InProgressLeaseExpired_TakesOverAndExecutes() {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), hash.capture(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findByScopeAndIdempotencyKey(SCOPE, KEY)).thenAnswer(inv -> Optional.of(IdempotencyRecord.builder()
+                .requestHash(hash.getValue())
+                .status(IdempotencyStatus.IN_PROGRESS)
+                .leaseUntil(Instant.now().minusSeconds(1))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+        when(repository.takeOver(eq(SCOPE), eq(KEY), anyString(), anyString(), eq(IdempotencyStatus.IN_PROGRESS), any(), any(), any()))
+                .thenReturn(1);
+
+        ResponseEntity<APIResponse<String>> result = idempotencyService.execute(SCOPE, KEY, request, this::ok);
+
+        assertThat(result.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(result.getBody().getData()).isEqualTo("done");
+        verify(repository).complete(eq(SCOPE), eq(KEY), anyString(), eq(IdempotencyStatus.COMPLETED), eq(200), anyString());
+    }
+
+    @Test
+    void execute_InProgressLeaseExpired_TakenByAnotherNode_Conflict() {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), hash.capture(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findByScopeAndIdempotencyKey(SCOPE, KEY)).thenAnswer(inv -> Optional.of(IdempotencyRecord.builder()
+                .requestHash(hash.getValue())
+                .status(IdempotencyStatus.IN_PROGRESS)
+                .leaseUntil(Instant.now().minusSeconds(1))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+        when(repository.takeOver(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, KEY, request, () -> {
+            throw new AssertionError("ключ перехвачен другим узлом");
+        })).isInstanceOf(IdempotencyConflictException.class);
+    }
+
+    @Test
+    void execute_FinishesAfterTakeOver_DoesNotOverwriteNewClaim() throws Exception {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), hash.capture(), token.capture(), any(), any(), any()))
+                .thenReturn(1, 0);
+        when(repository.complete(eq(SCOPE), eq(KEY), anyString(), any(), anyInt(), anyString())).thenReturn(0);
+        when(repository.findByScopeAndIdempotencyKey(SCOPE, KEY)).thenAnswer(inv -> Optional.of(IdempotencyRecord.builder()
+                .requestHash(hash.getValue())
+                .status(IdempotencyStatus.COMPLETED)
+                .claimToken("token-of-second-request")
+                .responseStatus(200)
+                .responseBody(objectMapper.writeValueAsString(Map.of(
+                        "success", true, "message", "Баланс успешно пополнен", "data", "second", "status", 200)))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+
+        ResponseEntity<APIResponse<String>> late = idempotencyService.execute(SCOPE, KEY, request, this::ok);
+        ResponseEntity<APIResponse<String>> replay = idempotencyService.execute(SCOPE, KEY, request, () -> {
+            throw new AssertionError("ответ должен быть взят из записи перехватившего запроса");
+        });
+
+        String firstToken = token.getAllValues().get(0);
+        verify(repository).complete(eq(SCOPE), eq(KEY), eq(firstToken), eq(IdempotencyStatus.COMPLETED),
+                eq(200), anyString());
+        assertThat(late.getBody().getData()).isEqualTo("done");
+        assertThat(String.valueOf(replay.getBody().getData())).contains("second");
+    }
+
+    @Test
+    void renewLeases_ExtendsLeaseOnlyWhileActionRuns() {
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(eq(SCOPE), eq(KEY), anyString(), token.capture(), any(), any(), any())).thenReturn(1);
+        when(repository.renew(eq(SCOPE), eq(KEY), anyString(), eq(IdempotencyStatus.IN_PROGRESS), any())).thenReturn(1);
+
+        idempotencyService.execute(SCOPE, KEY, request, () -> {
+            idempotencyService.renewLeases();
+            return ok();
+        });
+        idempotencyService.renewLeases();
+
+        verify(repository, times(1)).renew(eq(SCOPE), eq(KEY), eq(token.getValue()),
+                eq(IdempotencyStatus.IN_PROGRESS), any());
+    }
+
+    @Test
+    void execute_ActionFails_ReleasesKey() {
+        when(repository.claim(eq(SCOPE), eq(KEY), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, KEY, request, () -> {
+            throw new InsufficientFundsException("Недостаточно средств на карте");
+        })).isInstanceOf(InsufficientFundsException.class);
+
+        verify(repository).release(eq(SCOPE), eq(KEY), anyString(), eq(IdempotencyStatus.IN_PROGRESS));
+        verify(repository, never()).complete(any(), any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicates_ExecuteOnce() throws Exception {
+        when(repository.claim(eq(SCOPE), eq(KEY), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        Future<ResponseEntity<APIResponse<String>>> owner = pool.submit(() -> idempotencyService.execute(SCOPE, KEY, request, () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return ok();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<ResponseEntity<APIResponse<String>>> duplicate1 = pool.submit(() -> idempotencyService.execute(SCOPE, KEY, request, () -> {
+            executions.incrementAndGet();
+            return ok();
+        }));
+        Future<ResponseEntity<APIResponse<String>>> duplicate2 = pool.submit(() -> idempotencyService.execute(SCOPE, KEY, request, () -> {
+            executions.incrementAndGet();
+            return ok();
+        }));
+        release.countDown();
+
+        assertThat(owner.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(duplicate1.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(duplicate2.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(executions.get()).isEqualTo(1);
+        pool.shutdown();
+    }
+
+    private ResponseEntity<APIResponse<String>> ok() {
+        return ResponseEntity.ok(APIResponse.ofSuccess("done", "Баланс успешно пополнен", HttpStatus.OK));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
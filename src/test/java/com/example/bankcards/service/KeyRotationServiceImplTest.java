@@ -0,0 +1,394 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CardEncryptionProperties;
+import com.example.bankcards.config.KeyRotationProperties;
+import com.example.bankcards.dto.payload.KeyRotationDTO;
+import com.example.bankcards.entity.bankcard.CardKeyRotation;
+import com.example.bankcards.entity.bankcard.KeyRotationStatus;
+import com.example.bankcards.exception.KeyRotationInProgressException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardKeyRotationRepository;
+import com.example.bankcards.repository.CardPanVaultBatchWriter;
+import com.example.bankcards.repository.CardPanVaultBatchWriter.ReEncryptedPan;
+import com.example.bankcards.repository.CardPanVaultRepository;
+import com.example.bankcards.repository.projection.PanCiphertextView;
+import com.example.bankcards.service.impl.KeyRotationServiceImpl;
+import com.example.bankcards.util.CardEncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyRotationServiceImplTest {
+
+    private static final String OLD_KEY = "vOL6szZ0sHYzZJx5XZArG8VUla9viG0BXgiAo7Pooas=";
+    private static final String NEW_KEY = "4fWWwVNkA0lGPOWBhhGzMPZ76vBaVNTqZhs83Z/MIbI=";
+    private static final String CARD = "4000123456789010";
+
+    @Mock
+    private CardPanVaultRepository cardPanVaultRepository;
+
+    @Mock
+    private CardPanVaultBatchWriter cardPanVaultBatchWriter;
+
+    @Mock
+    private CardKeyRotationRepository cardKeyRotationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CardEncryptionUtil oldCipher = new CardEncryptionUtil(OLD_KEY);
+    private CardEncryptionUtil newCipher;
+    private KeyRotationProperties properties;
+    private CardKeyRotation checkpoint;
+    private final List<List<ReEncryptedPan>> written = new ArrayList<>();
+    private final NavigableMap<Long, String> vault = new ConcurrentSkipListMap<>();
+    private LongConsumer onRead;
+    private KeyRotationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        CardEncryptionProperties keys = new CardEncryptionProperties();
+        keys.getKeys().put(1, NEW_KEY);
+        keys.setActiveKeyId(1);
+        newCipher = new CardEncryptionUtil(OLD_KEY, keys);
+        properties = new KeyRotationProperties();
+        properties.setChunkSize(2);
+        properties.setRowsPerSecond(0);
+        properties.setParallelism(2);
+
+        lenient().when(cardKeyRotationRepository.findById(1)).thenAnswer(inv -> Optional.ofNullable(checkpoint));
+        lenient().when(cardKeyRotationRepository.claim(eq(1), anyString(), any(), any())).thenAnswer(inv -> {
+            if (checkpoint == null || checkpoint.getStatus() == KeyRotationStatus.RUNNING) {
+                return 0;
+            }
+            checkpoint.setStatus(KeyRotationStatus.RUNNING);
+            checkpoint.setOwner(inv.getArgument(1));
+            checkpoint.setLeaseUntil(inv.getArgument(3));
+            checkpoint.setError(null);
+            checkpoint.setFinishedAt(null);
+            return 1;
+        });
+        lenient().when(cardKeyRotationRepository.saveAndFlush(any(CardKeyRotation.class))).thenAnswer(inv -> {
+            checkpoint = inv.getArgument(0);
+            return checkpoint;
+        });
+        lenient().when(cardKeyRotationRepository.advance(eq(1), anyString(), anyLong(), anyLong(), anyLong(), any(), any()))
+                .thenAnswer(inv -> {
+                    if (checkpoint.getStatus() != KeyRotationStatus.RUNNING
+                            || !checkpoint.getOwner().equals(inv.getArgument(1))) {
+                        return 0;
+                    }
+                    checkpoint.setLastCardId(inv.getArgument(2));
+                    checkpoint.setScanned(checkpoint.getScanned() + inv.<Long>getArgument(3));
+                    checkpoint.setRotated(checkpoint.getRotated() + inv.<Long>getArgument(4));
+                    checkpoint.setLeaseUntil(inv.getArgument(6));
+                    return 1;
+                });
+        lenient().when(cardKeyRotationRepository.release(eq(1), any(), any(), any(), any())).thenAnswer(inv -> {
+            String owner = inv.getArgument(1);
+            if (checkpoint == null || checkpoint.getStatus() != KeyRotationStatus.RUNNING
+                    || owner != null && !owner.equals(checkpoint.getOwner())) {
+                return 0;
+            }
+            checkpoint.setStatus(inv.getArgument(2));
+            checkpoint.setError(inv.getArgument(3));
+            checkpoint.setFinishedAt(inv.getArgument(4));
+            checkpoint.setOwner(null);
+            checkpoint.setLeaseUntil(null);
+            return 1;
+        });
+        lenient().when(cardPanVaultRepository.findCiphertextsAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            if (onRead != null) {
+                onRead.accept(after);
+            }
+            return vault.tailMap(after, false).entrySet().stream()
+                    .limit(inv.<Pageable>getArgument(1).getPageSize())
+                    .<PanCiphertextView>map(row -> new Row(row.getKey(), row.getValue()))
+                    .toList();
+        });
+        lenient().when(cardPanVaultBatchWriter.updateAll(anyList())).thenAnswer(inv -> {
+            List<ReEncryptedPan> pans = inv.getArgument(0);
+            written.add(pans);
+            pans.forEach(pan -> vault.replace(pan.cardId(), pan.oldCiphertext(), pan.newCiphertext()));
+            return pans.size();
+        });
+        service = service(Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void start_ReEncryptsOldRecordsInChunks() {
+        String oldGcm = oldCipher.encrypt(CARD);
+        String current = newCipher.encrypt(CARD);
+        String anotherOld = oldCipher.encrypt(CARD);
+        vault.put(1L, oldGcm);
+        vault.put(2L, current);
+        vault.put(5L, anotherOld);
+
+        service.start(false);
+        KeyRotationDTO status = service.getStatus();
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0)).extracting(ReEncryptedPan::cardId).containsExactly(1L);
+        assertThat(written.get(0).get(0).oldCiphertext()).isEqualTo(oldGcm);
+        assertThat(written.get(1)).extracting(ReEncryptedPan::cardId).containsExactly(5L);
+        assertThat(written).flatExtracting(pans -> pans).allSatisfy(pan -> {
+            assertThat(newCipher.decrypt(pan.newCiphertext())).isEqualTo(CARD);
+            assertThat(newCipher.reEncrypt(pan.newCiphertext())).isEmpty();
+        });
+        assertThat(status.getStatus()).isEqualTo(KeyRotationStatus.COMPLETED);
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getOwner()).isNull();
+        assertThat(status.getKeyId()).isEqualTo(1);
+        assertThat(status.getLastCardId()).isEqualTo(5L);
+        // Второй проход проверяет, что под прежним ключом ничего не осталось
+        assertThat(status.getScanned()).isEqualTo(6);
+        assertThat(status.getRotated()).isEqualTo(2);
+        assertThat(status.getFinishedAt()).isNotNull();
+        verify(transactionManager, atLeast(3)).commit(any());
+    }
+
+    @Test
+    void start_RowInsertedBehindCursor_RotatedByNextPass() {
+        vault.put(10L, oldCipher.encrypt(CARD));
+        String late = oldCipher.encrypt(CARD);
+        onRead = after -> {
+            if (after == 10L) {
+                vault.putIfAbsent(3L, late);
+            }
+        };
+
+        service.start(false);
+
+        assertThat(service.getStatus().getStatus()).isEqualTo(KeyRotationStatus.COMPLETED);
+        assertThat(written).flatExtracting(pans -> pans).extracting(ReEncryptedPan::cardId).containsExactly(10L, 3L);
+        assertThat(vault.values()).allSatisfy(ciphertext -> assertThat(newCipher.reEncrypt(ciphertext)).isEmpty());
+    }
+
+    @Test
+    void start_OldKeyRowsKeepAppearing_FailsAfterMaxPasses() {
+        properties.setMaxPasses(3);
+        AtomicLong nextId = new AtomicLong(100);
+        onRead = after -> {
+            if (vault.tailMap(after, false).isEmpty()) {
+                vault.put(nextId.decrementAndGet(), oldCipher.encrypt(CARD));
+            }
+        };
+
+        service.start(false);
+        KeyRotationDTO status = service.getStatus();
+
+        assertThat(status.getStatus()).isEqualTo(KeyRotationStatus.FAILED);
+        assertThat(status.getError()).contains("3 проходов");
+        assertThat(status.isRunning()).isFalse();
+    }
+
+    @Test
+    void start_ResumesFromCheckpoint() {
+        checkpoint = checkpoint(KeyRotationStatus.PAUSED, 40L);
+
+        service.start(false);
+
+        assertThat(service.getStatus().getStatus()).isEqualTo(KeyRotationStatus.COMPLETED);
+        assertThat(service.getStatus().getScanned()).isEqualTo(40L);
+        verify(cardPanVaultRepository).findCiphertextsAfter(eq(40L), any(Pageable.class));
+        // Возобновлённый проход неполный, поэтому за ним идёт проход с начала таблицы
+        verify(cardPanVaultRepository).findCiphertextsAfter(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void start_Restart_BeginsFromFirstCard() {
+        checkpoint = checkpoint(KeyRotationStatus.COMPLETED, 40L);
+
+        service.start(true);
+
+        assertThat(service.getStatus().getScanned()).isZero();
+        verify(cardPanVaultRepository, never()).findCiphertextsAfter(eq(40L), any(Pageable.class));
+    }
+
+    @Test
+    void start_WhileRunning_Throws() {
+        KeyRotationServiceImpl pending = service(task -> {
+        });
+        try {
+            pending.start(false);
+
+            assertThatThrownBy(() -> pending.start(false)).isInstanceOf(KeyRotationInProgressException.class);
+            assertThat(pending.getStatus().isRunning()).isTrue();
+            assertThat(pending.getStatus().getOwner()).isNotBlank();
+        } finally {
+            pending.destroy();
+        }
+    }
+
+    @Test
+    void start_RunningOnOtherInstance_Throws() {
+        when(cardKeyRotationRepository.existsByStatus(KeyRotationStatus.RUNNING)).thenReturn(true, false);
+
+        assertThatThrownBy(() -> service.start(false)).isInstanceOf(KeyRotationInProgressException.class);
+        verify(cardKeyRotationRepository).expireLeases(anyString(), any());
+        verify(cardKeyRotationRepository, never()).claim(anyInt(), anyString(), any(), any());
+
+        service.start(false);
+
+        assertThat(service.getStatus().getStatus()).isEqualTo(KeyRotationStatus.COMPLETED);
+    }
+
+    @Test
+    void start_ConcurrentStartOnOtherInstance_Throws() {
+        when(cardKeyRotationRepository.saveAndFlush(any(CardKeyRotation.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_card_key_rotation_running"));
+
+        assertThatThrownBy(() -> service.start(false)).isInstanceOf(KeyRotationInProgressException.class);
+        verifyNoInteractions(cardPanVaultRepository);
+    }
+
+    @Test
+    void start_LeaseLost_StopsWithoutTouchingCheckpoint() {
+        vault.put(1L, oldCipher.encrypt(CARD));
+        onRead = after -> checkpoint.setOwner("other-instance");
+
+        service.start(false);
+
+        assertThat(checkpoint.getStatus()).isEqualTo(KeyRotationStatus.RUNNING);
+        assertThat(checkpoint.getOwner()).isEqualTo("other-instance");
+        assertThat(checkpoint.getLastCardId()).isZero();
+        assertThat(service.getStatus().isRunning()).isFalse();
+        verify(transactionManager).rollback(any());
+        verify(cardKeyRotationRepository, never()).release(anyInt(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void stop_KeepsCheckpointAndPauses() {
+        List<Runnable> tasks = new ArrayList<>();
+        KeyRotationServiceImpl deferred = service(tasks::add);
+        try {
+            deferred.start(false);
+            deferred.stop();
+            tasks.forEach(Runnable::run);
+
+            assertThat(deferred.getStatus().getStatus()).isEqualTo(KeyRotationStatus.PAUSED);
+            assertThat(deferred.getStatus().isRunning()).isFalse();
+            verifyNoInteractions(cardPanVaultRepository);
+        } finally {
+            deferred.destroy();
+        }
+    }
+
+    @Test
+    void stop_NotRunningHere_ReleasesLeaseOfOtherInstance() {
+        checkpoint = checkpoint(KeyRotationStatus.RUNNING, 40L);
+        checkpoint.setOwner("other-instance");
+
+        KeyRotationDTO stopped = service.stop();
+
+        assertThat(stopped.getStatus()).isEqualTo(KeyRotationStatus.PAUSED);
+        assertThat(stopped.getOwner()).isNull();
+        assertThat(stopped.getLastCardId()).isEqualTo(40L);
+    }
+
+    @Test
+    void start_WriteFails_ReportsFailureAndKeepsPosition() {
+        vault.put(1L, oldCipher.encrypt(CARD));
+        doThrow(new IllegalStateException("lock timeout")).when(cardPanVaultBatchWriter).updateAll(anyList());
+
+        service.start(false);
+        KeyRotationDTO status = service.getStatus();
+
+        assertThat(status.getStatus()).isEqualTo(KeyRotationStatus.FAILED);
+        assertThat(status.getError()).isEqualTo("lock timeout");
+        assertThat(status.getLastCardId()).isZero();
+        assertThat(status.isRunning()).isFalse();
+    }
+
+    @Test
+    void start_RowsPerSecond_Throttles() {
+        properties.setRowsPerSecond(100);
+        properties.setChunkSize(5);
+        for (long id = 1; id <= 10; id++) {
+            vault.put(id, newCipher.encrypt(CARD));
+        }
+        long start = System.nanoTime();
+
+        service.start(false);
+
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(90);
+        assertThat(service.getStatus().getRowsPerSecond()).isLessThanOrEqualTo(110);
+    }
+
+    @Test
+    void constructor_LeaseShorterThanChunk_Throws() {
+        properties.setRowsPerSecond(10);
+        properties.setChunkSize(600);
+        properties.setLease(Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> service(Runnable::run)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getStatus_NotStarted_Throws() {
+        assertThatThrownBy(() -> service.getStatus()).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private KeyRotationServiceImpl service(TaskExecutor executor) {
+        return new KeyRotationServiceImpl(cardPanVaultRepository, cardPanVaultBatchWriter, cardKeyRotationRepository,
+                newCipher, properties, transactionManager, executor);
+    }
+
+    private static CardKeyRotation checkpoint(KeyRotationStatus status, long lastCardId) {
+        return CardKeyRotation.builder()
+                .keyId(1)
+                .status(status)
+                .lastCardId(lastCardId)
+                .scanned(lastCardId)
+                .startedAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private record Row(Long cardId, String panCiphertext) implements PanCiphertextView {
+
+        @Override
+        public Long getCardId() {
+            return cardId;
+        }
+
+        @Override
+        public String getPanCiphertext() {
+            return panCiphertext;
+        }
+    }
+}
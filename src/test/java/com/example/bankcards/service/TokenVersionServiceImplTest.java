@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.TokenVersionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVersionServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TokenVersionServiceImpl tokenVersionService;
+
+    @BeforeEach
+    void setUp() {
+        tokenVersionService = new TokenVersionServiceImpl(userRepository, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void isCurrent_CachesVersion() {
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThat(tokenVersionService.isCurrent(1L, 3L)).isTrue();
+        assertThat(tokenVersionService.isCurrent(1L, 2L)).isFalse();
+
+        verify(userRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void isCurrent_MissingUser() {
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThat(tokenVersionService.isCurrent(1L, 0L)).isFalse();
+    }
+
+    @Test
+    void revoke_IncrementsVersionAndInvalidatesCache() {
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0L), Optional.of(1L));
+        assertThat(tokenVersionService.isCurrent(1L, 0L)).isTrue();
+
+        tokenVersionService.revoke(1L);
+
+        verify(userRepository).incrementTokenVersion(1L);
+        assertThat(tokenVersionService.isCurrent(1L, 0L)).isFalse();
+        assertThat(tokenVersionService.isCurrent(1L, 1L)).isTrue();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.BalanceConcurrencyProperties;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.EmbeddedPostgresConfiguration;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.impl.TransferEngine;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочная проверка {@link TransferEngine}: параллельные встречные переводы
+ * между небольшим набором карт не должны терять обновления, уводить баланс в минус
+ * или взаимно блокироваться.
+ * <p>
+ * Выполняется на встроенном PostgreSQL во всех режимах {@link LockingMode}: атомарные
+ * {@code UPDATE ... RETURNING} и блокировки строк ведут себя так же, как в рабочей базе.
+ * </p>
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/migration/db.changelog-master.yaml",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferEngine.class, CacheGenerations.class, EmbeddedPostgresConfiguration.class})
+@EnableConfigurationProperties(BalanceConcurrencyProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransferEngineConcurrencyTest {
+
+    private static final int CARDS = 6;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final Money INITIAL_BALANCE = Money.of(1_000);
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private BalanceConcurrencyProperties properties;
+
+    @ParameterizedTest
+    @EnumSource(LockingMode.class)
+    void concurrentTransfers_ConserveTotalBalance(LockingMode mode) throws Exception {
+        properties.setLockingMode(mode);
+        long transfersBefore = transferRepository.count();
+        User owner = userRepository.save(User.builder()
+                .username("stress-" + mode.name().toLowerCase())
+                .password("stress")
+                .build());
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            BankCard card = cardRepository.save(BankCard.builder()
+                    .owner(owner)
+                    .cardNumber("**** **** **** " + (1000 + 10 * mode.ordinal() + i))
+                    .balance(INITIAL_BALANCE)
+                    .build());
+            cardIds.add(card.getId());
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(31L * t);
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                    BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(400));
+                    try {
+                        transferEngine.execute(owner.getId(), cardIds.get(from), cardIds.get(to), amount);
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        List<BankCard> cards = cardRepository.findAllById(cardIds);
+        Money total = cards.stream()
+                .map(BankCard::getBalance)
+                .reduce(Money.ZERO, Money::plus);
+
+        assertThat(total).isEqualTo(Money.ofMinor(INITIAL_BALANCE.minorUnits() * CARDS));
+        assertThat(cards).allSatisfy(card -> assertThat(card.getBalance().signum()).isNotNegative());
+        assertThat(completed.get() + rejected.get()).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        assertThat(transferRepository.count() - transfersBefore).isEqualTo(completed.get());
+    }
+}
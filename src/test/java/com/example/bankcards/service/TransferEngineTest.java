@@ -0,0 +1,256 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.cache.CacheGenerations;
+import com.example.bankcards.config.BalanceConcurrencyProperties;
+import com.example.bankcards.config.BalanceConcurrencyProperties.LockingMode;
+import com.example.bankcards.entity.bankcard.BankCard;
+import com.example.bankcards.entity.bankcard.Status;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.entity.user.User;
+import com.example.bankcards.exception.CardAccessDeniedException;
+import com.example.bankcards.exception.InactiveCardException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.service.impl.TransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferEngineTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private BalanceConcurrencyProperties properties = new BalanceConcurrencyProperties();
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @InjectMocks
+    private TransferEngine transferEngine;
+
+    @Captor
+    private ArgumentCaptor<Transfer> transferCaptor;
+
+    private BankCard fromCard;
+    private BankCard toCard;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLockingMode(LockingMode.PESSIMISTIC);
+        fromCard = new BankCard();
+        fromCard.setId(1L);
+        fromCard.setStatus(Status.ACTIVE);
+        fromCard.setBalance(Money.of(100));
+        toCard = new BankCard();
+        toCard.setId(2L);
+        toCard.setStatus(Status.ACTIVE);
+        toCard.setBalance(Money.of(5));
+        user = new User();
+        user.setId(3L);
+        fromCard.setOwner(user);
+        toCard.setOwner(user);
+    }
+
+    @Test
+    void execute_Success() {
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        when(userRepository.getReferenceById(3L)).thenReturn(user);
+        when(transferRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        Transfer result = transferEngine.execute(3L, 1L, 2L, BigDecimal.valueOf(10));
+
+        verify(transferRepository).save(transferCaptor.capture());
+        assertThat(transferCaptor.getValue().getStatus()).isEqualTo(TransferStatus.COMPLETED);
+        assertThat(result.getInitiator()).isEqualTo(user);
+        assertThat(fromCard.getBalance()).isEqualTo(Money.of(90));
+        assertThat(toCard.getBalance()).isEqualTo(Money.of(15));
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void execute_LocksBothCardsInSingleQuery() {
+        when(cardRepository.findAllByIdInForUpdate(List.of(2L, 1L))).thenReturn(List.of(fromCard, toCard));
+        when(transferRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        transferEngine.execute(3L, 2L, 1L, BigDecimal.ONE);
+
+        verify(cardRepository, times(1)).findAllByIdInForUpdate(any());
+        assertThat(toCard.getBalance()).isEqualTo(Money.of(4));
+        assertThat(fromCard.getBalance()).isEqualTo(Money.of(101));
+    }
+
+    @Test
+    void execute_FromCardNotFound() {
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(toCard));
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("карта-отправитель");
+    }
+
+    @Test
+    void execute_ToCardNotFound() {
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromCard));
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("карта-получатель");
+    }
+
+    @Test
+    void execute_InactiveCard() {
+        toCard.setStatus(Status.BLOCKED);
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(InactiveCardException.class);
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_InsufficientFunds() {
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.valueOf(500)))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(fromCard.getBalance()).isEqualTo(Money.of(100));
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_FromCardOfAnotherUser_Forbidden() {
+        User other = new User();
+        other.setId(4L);
+        fromCard.setOwner(other);
+        when(cardRepository.findAllByIdInForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(CardAccessDeniedException.class);
+        assertThat(fromCard.getBalance()).isEqualTo(Money.of(100));
+        assertThat(toCard.getBalance()).isEqualTo(Money.of(5));
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_SameCard() {
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 1L, BigDecimal.TEN))
+                .isInstanceOf(InvalidTransferException.class);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void execute_NonPositiveAmount() {
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.valueOf(-5)))
+                .isInstanceOf(InvalidTransferException.class);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void execute_Atomic_UpdatesInAscendingIdOrder() {
+        properties.setLockingMode(LockingMode.ATOMIC);
+        CardBalanceView from = view(2L, "90");
+        CardBalanceView to = view(1L, "15");
+        when(cardRepository.depositIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.of(to));
+        when(cardRepository.withdrawIfActive(2L, BigDecimal.TEN)).thenReturn(Optional.of(from));
+        when(transferRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        Transfer result = transferEngine.execute(3L, 2L, 1L, BigDecimal.TEN);
+
+        var order = inOrder(cardRepository);
+        order.verify(cardRepository).depositIfActive(1L, BigDecimal.TEN);
+        order.verify(cardRepository).withdrawIfActive(2L, BigDecimal.TEN);
+        verify(cardRepository, never()).findAllByIdInForUpdate(any());
+        assertThat(result.getFromCard().getBalance()).isEqualTo(Money.of(90));
+        assertThat(result.getToCard().getBalance()).isEqualTo(Money.of(15));
+        assertThat(result.getStatus()).isEqualTo(TransferStatus.COMPLETED);
+    }
+
+    @Test
+    void execute_Atomic_InsufficientFunds() {
+        properties.setLockingMode(LockingMode.ATOMIC);
+        when(cardRepository.withdrawIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
+
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(cardRepository, never()).depositIfActive(any(), any());
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_Atomic_InactiveRecipient() {
+        properties.setLockingMode(LockingMode.ATOMIC);
+        CardBalanceView from = view(1L, "90");
+        when(cardRepository.withdrawIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.of(from));
+        when(cardRepository.depositIfActive(2L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(cardRepository.existsById(2L)).thenReturn(true);
+
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(InactiveCardException.class);
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_Atomic_FromCardOfAnotherUser_Forbidden() {
+        properties.setLockingMode(LockingMode.ATOMIC);
+        CardBalanceView from = view(1L, "90");
+        when(from.getOwnerId()).thenReturn(4L);
+        when(cardRepository.withdrawIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.of(from));
+
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(CardAccessDeniedException.class);
+        verify(cardRepository, never()).depositIfActive(any(), any());
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void execute_Atomic_FailedDebitOfAnotherUsersCard_DoesNotRevealBalance() {
+        properties.setLockingMode(LockingMode.ATOMIC);
+        User other = new User();
+        other.setId(4L);
+        fromCard.setOwner(other);
+        when(cardRepository.withdrawIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
+
+        assertThatThrownBy(() -> transferEngine.execute(3L, 1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(CardAccessDeniedException.class);
+    }
+
+    private CardBalanceView view(Long id, String balance) {
+        CardBalanceView view = mock(CardBalanceView.class);
+        lenient().when(view.getId()).thenReturn(id);
+        lenient().when(view.getBalance()).thenReturn(new BigDecimal(balance));
+        lenient().when(view.getStatus()).thenReturn(Status.ACTIVE);
+        lenient().when(view.getOwnerId()).thenReturn(3L);
+        lenient().when(view.getVersion()).thenReturn(1L);
+        return view;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.payload.BankCardDTO;
+import com.example.bankcards.dto.payload.TransferUserDto;
+import com.example.bankcards.dto.requests.TransferExportFormat;
+import com.example.bankcards.entity.money.Money;
+import com.example.bankcards.entity.transfer.Transfer;
+import com.example.bankcards.entity.transfer.TransferStatus;
+import com.example.bankcards.exception.InvalidTransferException;
+import com.example.bankcards.mappers.TransferMapper;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.impl.TransferExportServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferExportServiceImplTest {
+
+    private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-02-01T00:00:00Z");
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private TransferMapper transferMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TransferExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new TransferExportServiceImpl(transferRepository, transferMapper, entityManager, objectMapper);
+    }
+
+    @Test
+    void export_Csv() throws Exception {
+        Transfer transfer = new Transfer();
+        when(transferRepository.streamForExport(FROM, TO, TransferStatus.COMPLETED)).thenReturn(Stream.of(transfer));
+        when(transferMapper.toDto(transfer)).thenReturn(dto(7L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.export(FROM, TO, TransferStatus.COMPLETED, TransferExportFormat.CSV, out);
+
+        assertThat(rows).isEqualTo(1);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "transactionId,initiatorId,fromCardId,toCardId,amount,status,createdAt\n"
+                        + "7,3,1,2,10.50,COMPLETED,2025-01-15T10:00:00Z\n");
+    }
+
+    @Test
+    void export_NdjsonOneObjectPerLine() throws Exception {
+        Transfer first = new Transfer();
+        Transfer second = new Transfer();
+        when(transferRepository.streamForExport(FROM, TO, null)).thenReturn(Stream.of(first, second));
+        when(transferMapper.toDto(first)).thenReturn(dto(7L));
+        when(transferMapper.toDto(second)).thenReturn(dto(8L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(FROM, TO, null, TransferExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"transactionId\":7,");
+        assertThat(lines[1]).startsWith("{\"transactionId\":8,");
+        assertThat(lines[2]).isEmpty();
+    }
+
+    @Test
+    void export_ClearsPersistenceContextEveryBatchAndClosesStream() throws Exception {
+        int total = TransferRepository.EXPORT_FETCH_SIZE * 2 + 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transferRepository.streamForExport(FROM, TO, null)).thenReturn(
+                IntStream.range(0, total).mapToObj(i -> new Transfer()).onClose(() -> closed.set(true)));
+        when(transferMapper.toDto(any(Transfer.class))).thenReturn(dto(1L));
+
+        long rows = exportService.export(FROM, TO, null, TransferExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertThat(rows).isEqualTo(total);
+        verify(entityManager, times(2)).clear();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void export_InvalidPeriod() {
+        assertThatThrownBy(() -> exportService.export(TO, FROM, null, TransferExportFormat.CSV,
+                new ByteArrayOutputStream()))
+                .isInstanceOf(InvalidTransferException.class);
+        verifyNoInteractions(transferRepository);
+    }
+
+    private static TransferUserDto dto(Long id) {
+        return TransferUserDto.builder()
+                .transactionId(id)
+                .initiatorId(3L)
+                .fromCard(BankCardDTO.builder().cardId(1L).build())
+                .toCard(BankCardDTO.builder().cardId(2L).build())
+                .amount(Money.parse("10.50"))
+                .status(TransferStatus.COMPLETED)
+                .createdAt(Instant.parse("2025-01-15T10:00:00Z"))
+                .build();
+    }
+}
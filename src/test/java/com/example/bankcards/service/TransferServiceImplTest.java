@@ -1,39 +1,44 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.payload.BatchTransferResultDTO;
+import com.example.bankcards.dto.payload.CursorPageDTO;
+import com.example.bankcards.dto.requests.BatchTransferRequest;
 import com.example.bankcards.dto.requests.TransferUserRequest;
 import com.example.bankcards.dto.payload.TransferUserDto;
-import com.example.bankcards.entity.bankcard.BankCard;
-import com.example.bankcards.entity.bankcard.Status;
 import com.example.bankcards.entity.transfer.Transfer;
-import com.example.bankcards.entity.user.User;
 import com.example.bankcards.exception.InactiveCardException;
-import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.InvalidCursorException;
 import com.example.bankcards.exception.TransferNotFoundException;
 import com.example.bankcards.mappers.TransferMapper;
-import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
-import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.repository.projection.TransferView;
+import com.example.bankcards.service.impl.BatchTransferEngine;
+import com.example.bankcards.service.impl.TransferEngine;
 import com.example.bankcards.service.impl.TransferServiceImpl;
+import com.example.bankcards.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,45 +46,30 @@ import static org.mockito.Mockito.when;
 class TransferServiceImplTest {
 
     @Mock
-    private CardServiceImpl cardServiceImpl;
+    private TransferEngine transferEngine;
 
     @Mock
-    private TransferMapper transferMapper;
-
-    @Mock
-    private TransferRepository transferRepository;
+    private BatchTransferEngine batchTransferEngine;
 
     @Mock
-    private CardRepository cardRepository;
+    private TransferMapper transferMapper;
 
     @Mock
-    private UserRepository userRepository;
+    private TransferRepository transferRepository;
 
     @InjectMocks
     private TransferServiceImpl transferServiceImpl;
 
-    @Captor
-    private ArgumentCaptor<Transfer> transferCaptor;
-
-    private BankCard fromCard;
-    private BankCard toCard;
-    private User user;
     private Transfer transfer;
+    private TransferView view;
     private TransferUserRequest request;
     private TransferUserDto dto;
 
     @BeforeEach
     void setUp() {
-        fromCard = new BankCard();
-        fromCard.setId(1L);
-        fromCard.setStatus(Status.ACTIVE);
-        toCard = new BankCard();
-        toCard.setId(2L);
-        toCard.setStatus(Status.ACTIVE);
-        user = new User();
-        user.setId(3L);
         transfer = new Transfer();
         transfer.setId(4L);
+        view = transferAt(4L, Instant.parse("2025-01-01T09:00:00Z"));
         request = new TransferUserRequest();
         request.setFromCardId(1L);
         request.setToCardId(2L);
@@ -89,50 +79,31 @@ class TransferServiceImplTest {
 
     @Test
     void transferFromToCardUser_Success() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
-        when(userRepository.findById(3L)).thenReturn(Optional.of(user));
-        when(transferRepository.save(any())).thenReturn(transfer);
+        when(transferEngine.execute(3L, 1L, 2L, BigDecimal.valueOf(10))).thenReturn(transfer);
         when(transferMapper.toDto(transfer)).thenReturn(dto);
 
         TransferUserDto result = transferServiceImpl.transferFromToCardUser(3L, request);
 
-        verify(cardServiceImpl).withdraw(1L, BigDecimal.valueOf(10));
-        verify(cardServiceImpl).deposit(2L, BigDecimal.valueOf(10));
+        verify(transferEngine).execute(3L, 1L, 2L, BigDecimal.valueOf(10));
         assertThat(result).isEqualTo(dto);
     }
 
     @Test
-    void transferFromToCardUser_FromCardNotFound() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
-        assertThatThrownBy(() -> transferServiceImpl.transferFromToCardUser(3L, request))
-                .isInstanceOf(ResourceNotFoundException.class);
-    }
+    void transferBatch_DelegatesToEngine() {
+        BatchTransferRequest batch = BatchTransferRequest.builder().transfers(List.of(request)).build();
+        BatchTransferResultDTO batchResult = BatchTransferResultDTO.builder().applied(true).succeeded(1).build();
+        when(batchTransferEngine.execute(3L, batch)).thenReturn(batchResult);
 
-    @Test
-    void transferFromToCardUser_ToCardNotFound() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.empty());
-        assertThatThrownBy(() -> transferServiceImpl.transferFromToCardUser(3L, request))
-                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(transferServiceImpl.transferBatch(3L, batch)).isEqualTo(batchResult);
     }
 
     @Test
-    void transferFromToCardUser_InactiveCard() {
-        toCard.setStatus(Status.BLOCKED);
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
+    void transferFromToCardUser_EngineFailurePropagates() {
+        when(transferEngine.execute(3L, 1L, 2L, BigDecimal.valueOf(10)))
+                .thenThrow(new InactiveCardException("Обе карты должны быть активированы для перевода"));
         assertThatThrownBy(() -> transferServiceImpl.transferFromToCardUser(3L, request))
                 .isInstanceOf(InactiveCardException.class);
-    }
-
-    @Test
-    void transferFromToCardUser_UserNotFound() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
-        when(userRepository.findById(3L)).thenReturn(Optional.empty());
-        assertThatThrownBy(() -> transferServiceImpl.transferFromToCardUser(3L, request))
-                .isInstanceOf(ResourceNotFoundException.class);
+        verify(transferMapper, never()).toDto(any(Transfer.class));
     }
 
     @Test
@@ -144,9 +115,9 @@ class TransferServiceImplTest {
 
     @Test
     void getAll_Success() {
-        Page<Transfer> page = new PageImpl<>(List.of(transfer));
-        when(transferRepository.findAll(PageRequest.of(0, 5))).thenReturn(page);
-        when(transferMapper.toDto(transfer)).thenReturn(dto);
+        Page<TransferView> page = new PageImpl<>(List.of(view));
+        when(transferRepository.findAllViews(PageRequest.of(0, 5))).thenReturn(page);
+        when(transferMapper.toDto(view)).thenReturn(dto);
         Page<TransferUserDto> result = transferServiceImpl.getAll(0, 5);
         assertThat(result.getContent()).containsExactly(dto);
     }
@@ -161,10 +132,81 @@ class TransferServiceImplTest {
 
     @Test
     void getAllByUser_Success() {
-        Page<Transfer> page = new PageImpl<>(List.of(transfer));
-        when(transferRepository.findAllByInitiatorId(3L, PageRequest.of(0, 5))).thenReturn(page);
-        when(transferMapper.toDto(transfer)).thenReturn(dto);
+        Page<TransferView> page = new PageImpl<>(List.of(view));
+        when(transferRepository.findAllViewsByInitiatorId(3L, PageRequest.of(0, 5))).thenReturn(page);
+        when(transferMapper.toDto(view)).thenReturn(dto);
         Page<TransferUserDto> result = transferServiceImpl.getAllByUser(0, 5, 3L);
         assertThat(result.getContent()).containsExactly(dto);
     }
+
+    @Test
+    void getAllByCursor_FirstPageHasNext() {
+        TransferView newer = transferAt(9L, Instant.parse("2025-01-02T10:00:00.123456Z"));
+        TransferView older = transferAt(8L, Instant.parse("2025-01-01T10:00:00Z"));
+        when(transferRepository.findFirstKeysetPage(PageRequest.ofSize(2))).thenReturn(List.of(newer, older));
+        when(transferMapper.toDto(newer)).thenReturn(dto);
+
+        CursorPageDTO<TransferUserDto> result = transferServiceImpl.getAllByCursor(null, 1, false);
+
+        assertThat(result.getContent()).containsExactly(dto);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getTotalElements()).isNull();
+        assertThat(KeysetCursor.decode(result.getNextCursor()))
+                .isEqualTo(new KeysetCursor(newer.getCreatedAt(), 9L));
+        verify(transferRepository, never()).count();
+    }
+
+    @Test
+    void getAllByCursor_NextPageContinuesAfterCursor() {
+        Instant createdAt = Instant.parse("2025-01-02T10:00:00Z");
+        TransferView older = transferAt(8L, Instant.parse("2025-01-01T10:00:00Z"));
+        when(transferRepository.findKeysetPageAfter(createdAt, 9L, PageRequest.ofSize(6))).thenReturn(List.of(older));
+        when(transferMapper.toDto(older)).thenReturn(dto);
+        when(transferRepository.count()).thenReturn(2L);
+
+        CursorPageDTO<TransferUserDto> result = transferServiceImpl.getAllByCursor(
+                new KeysetCursor(createdAt, 9L).encode(), 5, true);
+
+        assertThat(result.getContent()).containsExactly(dto);
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(result.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    void getAllByUserCursor_UsesInitiatorKeyset() {
+        Instant createdAt = Instant.parse("2025-01-02T10:00:00Z");
+        when(transferRepository.findKeysetPageByInitiatorIdAfter(3L, createdAt, 9L, PageRequest.ofSize(6)))
+                .thenReturn(List.of(view));
+        when(transferMapper.toDto(view)).thenReturn(dto);
+        when(transferRepository.countByInitiatorId(3L)).thenReturn(7L);
+
+        CursorPageDTO<TransferUserDto> result = transferServiceImpl.getAllByUserCursor(
+                3L, new KeysetCursor(createdAt, 9L).encode(), 5, true);
+
+        assertThat(result.getContent()).containsExactly(dto);
+        assertThat(result.getTotalElements()).isEqualTo(7L);
+        verify(transferRepository, never()).findFirstKeysetPageByInitiatorId(anyLong(), any());
+    }
+
+    @Test
+    void getAllByCursor_InvalidCursor() {
+        assertThatThrownBy(() -> transferServiceImpl.getAllByCursor("not-a-cursor", 5, false))
+                .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(transferRepository);
+    }
+
+    @Test
+    void getAllByUserCursor_PageSizeOutOfRange() {
+        assertThatThrownBy(() -> transferServiceImpl.getAllByUserCursor(3L, null, 0, false))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> transferServiceImpl.getAllByUserCursor(3L, null, 101, false))
+                .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(transferRepository);
+    }
+
+    private static TransferView transferAt(Long id, Instant createdAt) {
+        return new SpelAwareProxyProjectionFactory()
+                .createProjection(TransferView.class, Map.of("id", id, "createdAt", createdAt));
+    }
 }
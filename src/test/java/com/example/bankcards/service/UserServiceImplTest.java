@@ -1,7 +1,9 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.cache.CacheGenerations;
 import com.example.bankcards.dto.payload.CardBalanceDTO;
 import com.example.bankcards.dto.payload.UserDTO;
+import com.example.bankcards.entity.money.Money;
 import com.example.bankcards.entity.user.Role;
 import com.example.bankcards.entity.user.User;
 import com.example.bankcards.exception.CustomUserNotFoundException;
@@ -43,6 +45,9 @@ class UserServiceImplTest {
     @Mock
     private CardServiceImpl cardServiceImpl;
 
+    @Mock
+    private CacheGenerations cacheGenerations;
+
     @InjectMocks
     private UserServiceImpl userServiceImpl;
 
@@ -58,7 +63,7 @@ class UserServiceImplTest {
         user.setRoles(Set.of(Role.ADMIN));
         userDto = new UserDTO();
         balanceDto = new CardBalanceDTO();
-        balanceDto.setBalance(java.math.BigDecimal.ZERO);
+        balanceDto.setBalance(Money.ZERO);
         user = new User();
         user.setId(1L);
         user.setUsername("user");
@@ -113,6 +118,7 @@ class UserServiceImplTest {
     void delete_Success() {
         userServiceImpl.delete(1L);
         verify(userRepository).deleteById(1L);
+        verify(cacheGenerations).invalidate(CacheGenerations.CARDS, 1L);
     }
 
     @Test
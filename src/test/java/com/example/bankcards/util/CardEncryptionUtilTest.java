@@ -0,0 +1,215 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.CardEncryptionProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardEncryptionUtilTest {
+
+    private static final String KEY = "vOL6szZ0sHYzZJx5XZArG8VUla9viG0BXgiAo7Pooas=";
+    private static final String NEW_KEY = "4fWWwVNkA0lGPOWBhhGzMPZ76vBaVNTqZhs83Z/MIbI=";
+    private static final String CARD = "4000 1234 5678 9010";
+
+    private final CardEncryptionUtil gcm = new CardEncryptionUtil(KEY);
+
+    @Test
+    void encrypt_Gcm_RoundTripsWithVersionAndKeyId() {
+        String encrypted = gcm.encrypt(CARD);
+
+        assertThat(Base64.getDecoder().decode(encrypted)[0]).isEqualTo(AesCardCipher.GCM_VERSION);
+        assertThat(Base64.getDecoder().decode(encrypted)[1]).isEqualTo((byte) AesCardCipher.DEFAULT_KEY_ID);
+        assertThat(gcm.decrypt(encrypted)).isEqualTo(CARD);
+        assertThat(gcm.maskEncrypted(encrypted)).isEqualTo("**** **** **** 9010");
+        assertThat(gcm.encrypt(CARD)).isNotEqualTo(encrypted);
+    }
+
+    @Test
+    void decrypt_Cbc_Fails() throws Exception {
+        for (int i = 0; i < 512; i++) {
+            String cbc = cbcEncrypt(CARD);
+            assertThatThrownBy(() -> gcm.decrypt(cbc)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void decrypt_TagMismatchOnBlockAlignedRecord_Fails() {
+        byte[] sealed = Base64.getDecoder().decode(gcm.encrypt("400012345678901234"));
+        assertThat(sealed.length % 16).isZero();
+        sealed[sealed.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> gcm.decrypt(Base64.getEncoder().encodeToString(sealed)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(AEADBadTagException.class);
+    }
+
+    @Test
+    void decrypt_GcmWithoutKeyId_Fails() throws Exception {
+        for (int i = 0; i < 64; i++) {
+            String unkeyed = unkeyedGcmEncrypt(CARD);
+            assertThatThrownBy(() -> gcm.decrypt(unkeyed)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void encrypt_NewActiveKey_OldRecordsStayReadable() {
+        String oldRecord = gcm.encrypt(CARD);
+        CardEncryptionUtil rotated = new CardEncryptionUtil(KEY, keys(1, NEW_KEY));
+
+        String newRecord = rotated.encrypt(CARD);
+
+        assertThat(rotated.activeKeyId()).isEqualTo(1);
+        assertThat(Base64.getDecoder().decode(newRecord)[1]).isEqualTo((byte) 1);
+        assertThat(rotated.decrypt(newRecord)).isEqualTo(CARD);
+        assertThat(rotated.decrypt(oldRecord)).isEqualTo(CARD);
+        assertThatThrownBy(() -> gcm.decrypt(newRecord))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("неизвестным ключом 1");
+    }
+
+    @Test
+    void reEncrypt_OldKey_UsesActiveKey() {
+        CardEncryptionUtil rotated = new CardEncryptionUtil(KEY, keys(1, NEW_KEY));
+
+        String newRecord = rotated.reEncrypt(gcm.encrypt(CARD)).orElseThrow();
+
+        assertThat(Base64.getDecoder().decode(newRecord)[1]).isEqualTo((byte) 1);
+        assertThat(rotated.decrypt(newRecord)).isEqualTo(CARD);
+        assertThat(rotated.reEncrypt(newRecord)).isEmpty();
+        assertThat(gcm.reEncrypt(gcm.encrypt(CARD))).isEmpty();
+    }
+
+    @Test
+    void constructor_WithoutSecretKey_RetiresKeyZero() {
+        String oldRecord = gcm.encrypt(CARD);
+        CardEncryptionUtil retired = new CardEncryptionUtil(" ", keys(1, NEW_KEY));
+
+        assertThat(retired.decrypt(retired.encrypt(CARD))).isEqualTo(CARD);
+        assertThatThrownBy(() -> retired.decrypt(oldRecord))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("неизвестным ключом 0");
+    }
+
+    @Test
+    void decrypt_TamperedKeyId_Fails() {
+        CardEncryptionUtil rotated = new CardEncryptionUtil(KEY, keys(1, NEW_KEY));
+        byte[] sealed = Base64.getDecoder().decode(rotated.encrypt(CARD));
+        sealed[1] = 0;
+
+        assertThatThrownBy(() -> rotated.decrypt(Base64.getEncoder().encodeToString(sealed)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void constructor_InvalidKeys_Throws() {
+        CardEncryptionProperties missingActive = keys(1, NEW_KEY);
+        missingActive.setActiveKeyId(2);
+
+        assertThatThrownBy(() -> new CardEncryptionUtil(KEY, missingActive))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CardEncryptionUtil(KEY, keys(0, NEW_KEY)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CardEncryptionUtil(KEY, keys(256, NEW_KEY)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CardEncryptionUtil(null, new CardEncryptionProperties()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("card.secretKey");
+    }
+
+    @Test
+    void decrypt_TamperedGcm_Fails() {
+        byte[] sealed = Base64.getDecoder().decode(gcm.encrypt(CARD));
+        sealed[sealed.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> gcm.decrypt(Base64.getEncoder().encodeToString(sealed)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void decrypt_NotBase64_Fails() {
+        assertThatThrownBy(() -> gcm.decrypt("не base64"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void encrypt_Buffers_RoundTrip() {
+        byte[] raw = CARD.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer sealed = ByteBuffer.allocate(gcm.maxEncryptedLength(raw.length));
+        ByteBuffer plain = ByteBuffer.allocate(raw.length);
+
+        int written = gcm.encrypt(ByteBuffer.wrap(raw), sealed);
+        sealed.flip();
+        gcm.decrypt(sealed, plain);
+
+        assertThat(written).isEqualTo(sealed.limit()).isEqualTo(gcm.maxEncryptedLength(raw.length));
+        assertThat(plain.array()).isEqualTo(raw);
+    }
+
+    @Test
+    void encrypt_Concurrent_RoundTrips() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String card = CardNumberGenerator.generateCardNumber();
+                results.add(executor.submit(() -> {
+                    for (int n = 0; n < 200; n++) {
+                        if (!card.equals(gcm.decrypt(gcm.encrypt(card)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CardEncryptionProperties keys(int activeKeyId, String key) {
+        CardEncryptionProperties properties = new CardEncryptionProperties();
+        properties.getKeys().put(activeKeyId, key);
+        properties.setActiveKeyId(activeKeyId);
+        return properties;
+    }
+
+    private static String unkeyedGcmEncrypt(String raw) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, EncoderKey.fromBase64ToAes(KEY), new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(raw.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(1 + iv.length + ciphertext.length)
+                .put(AesCardCipher.GCM_VERSION).put(iv).put(ciphertext).array());
+    }
+
+    private static String cbcEncrypt(String raw) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        byte[] iv = new byte[16];
+        new SecureRandom().nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, EncoderKey.fromBase64ToAes(KEY), new IvParameterSpec(iv));
+        byte[] ciphertext = cipher.doFinal(raw.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(ciphertext, 0, combined, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+}